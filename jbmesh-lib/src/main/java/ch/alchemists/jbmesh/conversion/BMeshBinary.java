@@ -0,0 +1,229 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.conversion;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import ch.alchemists.jbmesh.structure.*;
+import ch.alchemists.jbmesh.util.BinaryReader;
+import ch.alchemists.jbmesh.util.BinaryWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Stores a BMesh in a versioned binary file and loads it without rebuilding the topology through Euler operations.<br>
+ * Layout (little-endian): Header (magic, format version), the four BMeshData sets (element flags and attribute
+ * arrays, see {@link BMeshData#write(BinaryWriter)}) and the connectivity as int columns with element indices
+ * (-1 for null). All arrays are stored as contiguous blocks aligned to 8 bytes.<br>
+ * Loading memory-maps the blocks. Attribute arrays are copied in bulk. FloatBuffer attributes can use private
+ * mappings of the file instead of copies, see {@link #read(Path, boolean)}. The element objects are created and linked by index.<br>
+ * Object attributes are not stored.
+ */
+public class BMeshBinary {
+    public static final int MAGIC = 0x48534D42; // "BMSH"
+    public static final int FORMAT_VERSION = 1;
+
+
+    private BMeshBinary() {}
+
+
+    public static void write(BMesh bmesh, Path path) throws IOException {
+        try(BinaryWriter out = new BinaryWriter(path)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            bmesh.vertices().write(out);
+            bmesh.edges().write(out);
+            bmesh.faces().write(out);
+            bmesh.loops().write(out);
+
+            writeConnectivity(bmesh, out);
+        }
+    }
+
+
+    /**
+     * Opens the file for reading only and copies all data.
+     */
+    public static BMesh read(Path path) throws IOException {
+        return read(path, false);
+    }
+
+    /**
+     * @param path
+     * @param copyOnWrite If true, FloatBuffer attributes are private mappings of the file.
+     *                    This needs write access to the file, but the file is never modified. See {@link BinaryReader#BinaryReader(Path, boolean)}.
+     * @return
+     * @throws IOException
+     */
+    public static BMesh read(Path path, boolean copyOnWrite) throws IOException {
+        try(BinaryReader in = new BinaryReader(path, copyOnWrite)) {
+            if(in.readInt() != MAGIC)
+                throw new IOException("Not a BMesh file");
+
+            int version = in.readInt();
+            if(version != FORMAT_VERSION)
+                throw new IOException("Unsupported format version " + version);
+
+            BMesh bmesh = new BMesh();
+            bmesh.vertices().read(in);
+            bmesh.edges().read(in);
+            bmesh.faces().read(in);
+            bmesh.loops().read(in);
+
+            readConnectivity(bmesh, in);
+            return bmesh;
+        }
+    }
+
+
+    private static void writeConnectivity(BMesh bmesh, BinaryWriter out) throws IOException {
+        final BMeshData<Vertex> vertices = bmesh.vertices();
+        final BMeshData<Edge> edges = bmesh.edges();
+        final BMeshData<Face> faces = bmesh.faces();
+        final BMeshData<Loop> loops = bmesh.loops();
+
+        int[] column = new int[vertices.totalSize()];
+        for(int i=0; i<column.length; ++i) {
+            Vertex vertex = vertices.get(i);
+            column[i] = (vertex != null) ? index(vertex.edge) : -1;
+        }
+        out.writeArray(column, column.length);
+
+        int[][] edgeColumns = new int[7][edges.totalSize()];
+        for(int i=0; i<edges.totalSize(); ++i) {
+            Edge edge = edges.get(i);
+            if(edge == null) {
+                for(int[] c : edgeColumns)
+                    c[i] = -1;
+                continue;
+            }
+
+            edgeColumns[0][i] = index(edge.vertex0);
+            edgeColumns[1][i] = index(edge.vertex1);
+            edgeColumns[2][i] = index(edge.getNextEdge(edge.vertex0));
+            edgeColumns[3][i] = index(edge.getPrevEdge(edge.vertex0));
+            edgeColumns[4][i] = index(edge.getNextEdge(edge.vertex1));
+            edgeColumns[5][i] = index(edge.getPrevEdge(edge.vertex1));
+            edgeColumns[6][i] = index(edge.loop);
+        }
+        for(int[] c : edgeColumns)
+            out.writeArray(c, c.length);
+
+        column = new int[faces.totalSize()];
+        for(int i=0; i<column.length; ++i) {
+            Face face = faces.get(i);
+            column[i] = (face != null) ? index(face.loop) : -1;
+        }
+        out.writeArray(column, column.length);
+
+        int[][] loopColumns = new int[7][loops.totalSize()];
+        for(int i=0; i<loops.totalSize(); ++i) {
+            Loop loop = loops.get(i);
+            if(loop == null) {
+                for(int[] c : loopColumns)
+                    c[i] = -1;
+                continue;
+            }
+
+            loopColumns[0][i] = index(loop.face);
+            loopColumns[1][i] = index(loop.edge);
+            loopColumns[2][i] = index(loop.vertex);
+            loopColumns[3][i] = index(loop.nextFaceLoop);
+            loopColumns[4][i] = index(loop.prevFaceLoop);
+            loopColumns[5][i] = index(loop.nextEdgeLoop);
+            loopColumns[6][i] = index(loop.prevEdgeLoop);
+        }
+        for(int[] c : loopColumns)
+            out.writeArray(c, c.length);
+    }
+
+
+    private static void readConnectivity(BMesh bmesh, BinaryReader in) throws IOException {
+        final BMeshData<Vertex> vertices = bmesh.vertices();
+        final BMeshData<Edge> edges = bmesh.edges();
+        final BMeshData<Face> faces = bmesh.faces();
+        final BMeshData<Loop> loops = bmesh.loops();
+
+        int[] column = readColumn(in, vertices.totalSize());
+        for(int i=0; i<column.length; ++i) {
+            Vertex vertex = vertices.get(i);
+            if(vertex != null)
+                vertex.edge = get(edges, column[i]);
+        }
+
+        int[][] edgeColumns = new int[7][];
+        for(int c=0; c<edgeColumns.length; ++c)
+            edgeColumns[c] = readColumn(in, edges.totalSize());
+
+        for(int i=0; i<edges.totalSize(); ++i) {
+            Edge edge = edges.get(i);
+            if(edge == null)
+                continue;
+
+            edge.vertex0 = get(vertices, edgeColumns[0][i]);
+            edge.vertex1 = get(vertices, edgeColumns[1][i]);
+            edge.loop    = get(loops, edgeColumns[6][i]);
+
+            if(edge.vertex0 != null && edge.vertex1 != null && edge.vertex0 != edge.vertex1) {
+                edge.setNextEdge(edge.vertex0, get(edges, edgeColumns[2][i]));
+                edge.setPrevEdge(edge.vertex0, get(edges, edgeColumns[3][i]));
+                edge.setNextEdge(edge.vertex1, get(edges, edgeColumns[4][i]));
+                edge.setPrevEdge(edge.vertex1, get(edges, edgeColumns[5][i]));
+            }
+        }
+
+        column = readColumn(in, faces.totalSize());
+        for(int i=0; i<column.length; ++i) {
+            Face face = faces.get(i);
+            if(face != null)
+                face.loop = get(loops, column[i]);
+        }
+
+        int[][] loopColumns = new int[7][];
+        for(int c=0; c<loopColumns.length; ++c)
+            loopColumns[c] = readColumn(in, loops.totalSize());
+
+        for(int i=0; i<loops.totalSize(); ++i) {
+            Loop loop = loops.get(i);
+            if(loop == null)
+                continue;
+
+            loop.face         = get(faces, loopColumns[0][i]);
+            loop.edge         = get(edges, loopColumns[1][i]);
+            loop.vertex       = get(vertices, loopColumns[2][i]);
+            loop.nextFaceLoop = get(loops, loopColumns[3][i]);
+            loop.prevFaceLoop = get(loops, loopColumns[4][i]);
+            loop.nextEdgeLoop = get(loops, loopColumns[5][i]);
+            loop.prevEdgeLoop = get(loops, loopColumns[6][i]);
+        }
+    }
+
+
+    private static int[] readColumn(BinaryReader in, int length) throws IOException {
+        if(in.beginBlock() != BinaryWriter.TYPE_INT || in.getBlockLength() != length)
+            throw new IOException("Invalid connectivity block");
+
+        int[] column = new int[length];
+        in.readArray(column);
+        return column;
+    }
+
+
+    private static int index(Element element) {
+        return (element != null) ? element.getIndex() : -1;
+    }
+
+    private static <E extends Element> E get(BMeshData<E> data, int index) throws IOException {
+        if(index == -1)
+            return null;
+        if(index < 0 || index >= data.totalSize())
+            throw new IOException("Invalid element reference: " + index);
+
+        return data.get(index);
+    }
+}
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.conversion;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.FaceOps;
 import ch.alchemists.jbmesh.operator.sweeptriang.SweepTriangulation;
 import ch.alchemists.jbmesh.structure.BMesh;
@@ -124,7 +123,7 @@ public class DebugMeshExport {
 
 
     public void apply(BMesh bmesh) {
-        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        Vec3Property<Vertex> positions = bmesh.positions();
         final ArrayList<Vector3f> faceVertices = new ArrayList<>();
         FaceOps faceOps = new FaceOps(bmesh);
 
@@ -82,6 +82,11 @@ public class DirectImport {
         ObjectAttribute<Loop, Vertex> attrLoopVertex = new ObjectAttribute<>(BMeshAttribute.VertexMap, Vertex[]::new);
         bmesh.loops().addAttribute(attrLoopVertex);
 
+        // Collect triangles: Deduplicated vertices for the structure, virtual vertices for the loops
+        int[] faceVertices = new int[numIndices];
+        int[] loopVertices = new int[numIndices];
+        int[] numFaceVertices = new int[1];
+
         triangleExtractor.process((int i0, int i1, int i2) -> {
             Vertex v0 = virtualVertexMap[i0];
             Vertex v1 = virtualVertexMap[i1];
@@ -89,13 +94,28 @@ public class DirectImport {
 
             // Check for degenerate triangles
             if(v0 != v1 && v0 != v2 && v1 != v2) {
-                Face face = bmesh.createFace(v0, v1, v2);
-                attrLoopVertex.set(face.loop,              bmesh.vertices().get(i0));
-                attrLoopVertex.set(face.loop.nextFaceLoop, bmesh.vertices().get(i1));
-                attrLoopVertex.set(face.loop.prevFaceLoop, bmesh.vertices().get(i2));
+                int n = numFaceVertices[0];
+                faceVertices[n]   = v0.getIndex();
+                faceVertices[n+1] = v1.getIndex();
+                faceVertices[n+2] = v2.getIndex();
+                loopVertices[n]   = i0;
+                loopVertices[n+1] = i1;
+                loopVertices[n+2] = i2;
+                numFaceVertices[0] = n+3;
             }
         });
 
+        final int numFaces = numFaceVertices[0] / 3;
+        final int faceStart = Import.createTriangles(bmesh, faceVertices, numFaceVertices[0]);
+
+        for(int i=0; i<numFaces; ++i) {
+            Face face = bmesh.faces().get(faceStart + i);
+            int n = i*3;
+            attrLoopVertex.set(face.loop,              bmesh.vertices().get(loopVertices[n]));
+            attrLoopVertex.set(face.loop.nextFaceLoop, bmesh.vertices().get(loopVertices[n+1]));
+            attrLoopVertex.set(face.loop.prevFaceLoop, bmesh.vertices().get(loopVertices[n+2]));
+        }
+
         copyAttributesToLoops(bmesh, attrLoopVertex);
 
         // TODO: Add triangles to TriangleIndices? And set existing index array
@@ -25,6 +25,10 @@ public abstract class Export<E extends Element> {
         private final BMeshAttribute<E, TArray> src; // null for vertex attributes
         private final BMeshAttribute<Vertex, TArray> dest;
 
+        // Version of 'dest' at the last update of the VertexBuffer. The dirty state of 'dest' is shared with other consumers.
+        private long exportedVersion = -1;
+        private final int[] modifiedRange = new int[2];
+
         public AttributeMapping(VertexBuffer.Type type, BMeshAttribute<E, TArray> src, BMeshAttribute<Vertex, TArray> dest) {
             this.type = type;
             this.src  = src;
@@ -43,7 +47,6 @@ public abstract class Export<E extends Element> {
     private final Map<VertexBuffer.Type, AttributeMapping<E, ?>> attributes = new HashMap<>(8);
     private final List<AttributeMapping<E, ?>> mappedAttributes = new ArrayList<>(4);
 
-    private final List<Vertex> tempVertices = new ArrayList<>();
     private final List<Vertex> virtualVertices = new ArrayList<>();
 
     private float bufferLoadFactor = 0.75f;
@@ -123,7 +126,9 @@ public abstract class Export<E extends Element> {
         BMeshAttribute<Vertex, TArray> dest = (BMeshAttribute<Vertex, TArray>) bmesh.vertices().getAttribute(vertexAttributeName);
 
         if(dest == null) {
-            dest = (BMeshAttribute<Vertex, TArray>) VertexBufferUtils.createBMeshAttribute(type, src.numComponents, Vertex.class);
+            dest = (BMeshAttribute<Vertex, TArray>) VertexBufferUtils.<Vertex>createQuantizedAttribute(vertexAttributeName, src);
+            if(dest == null)
+                dest = (BMeshAttribute<Vertex, TArray>) VertexBufferUtils.createBMeshAttribute(type, src.numComponents, Vertex.class);
             if(dest == null)
                 throw new IllegalStateException("Target vertex attribute '" + vertexAttributeName + "' does not exist and couldn't be created.");
 
@@ -170,10 +175,10 @@ public abstract class Export<E extends Element> {
 
 
     public Mesh update() {
-        // TODO: Pool virtual vertices and reuse objects? They are destroyed and recreated immediately.
-        //       Do this by decorating BMeshData with free list functionality?
-        for(Vertex v : virtualVertices)
-            bmesh.vertices().destroy(v);
+        // Virtual vertices are destroyed and recreated immediately. If pooling is enabled on the vertex data
+        // (BMeshData.setPoolCapacity()), the objects are reused. Destroy in reverse so each one is the last element.
+        for(int i=virtualVertices.size()-1; i>=0; --i)
+            bmesh.vertices().destroy(virtualVertices.get(i));
         virtualVertices.clear();
 
         // If there are no mapped element attributes, there is nothing to duplicate
@@ -196,22 +201,16 @@ public abstract class Export<E extends Element> {
 
 
     private void mapElementsToVertices() {
-        try {
-            bmesh.vertices().getAll(tempVertices);
-            List<E> neighbors = new ArrayList<>(6);
+        List<E> neighbors = new ArrayList<>(6);
 
-            for(Vertex vertex : tempVertices) {
-                // Get elements that use vertex
-                getVertexNeighborhood(vertex, neighbors);
+        for(Vertex vertex : bmesh.vertices()) {
+            // Get elements that use vertex
+            getVertexNeighborhood(vertex, neighbors);
 
-                for(E element : neighbors)
-                    setVertexReference(vertex, element, vertex);
+            for(E element : neighbors)
+                setVertexReference(vertex, element, vertex);
 
-                neighbors.clear();
-            }
-        }
-        finally {
-            tempVertices.clear();
+            neighbors.clear();
         }
     }
 
@@ -220,35 +219,28 @@ public abstract class Export<E extends Element> {
      * Creates virtual vertices.
      */
     private void duplicateVertices() {
-        try {
-            // We need a copy of the vertices because the BMeshData will be modified by adding virtual elements
-            // TODO: BMeshData Iterator that only returns non-virtuals and doesn't throw when virtual elements are added?
-            bmesh.vertices().getAll(tempVertices);
-            List<E> neighbors = new ArrayList<>(6);
-
-            for(Vertex vertex : tempVertices) {
-                // Get elements that use vertex
-                neighbors.clear();
-                getVertexNeighborhood(vertex, neighbors);
-                if(neighbors.isEmpty())
-                    continue;
-
-                E element = neighbors.get(0);
-                setVertexReference(vertex, element, vertex);
-                copyAttributes(element, vertex);
-
-                // Create virtual Vertex (slot in data array) for elements with different attributes
-                for(int i = 1; i < neighbors.size(); ++i) {
-                    element = neighbors.get(i);
-
-                    Vertex ref = tryVirtualize(vertex, neighbors, element, i);
-                    setVertexReference(vertex, element, ref);
-                }
+        List<E> neighbors = new ArrayList<>(6);
+
+        // Snapshot iteration because the BMeshData will be modified by adding virtual elements
+        for(Vertex vertex : bmesh.vertices().snapshot()) {
+            // Get elements that use vertex
+            neighbors.clear();
+            getVertexNeighborhood(vertex, neighbors);
+            if(neighbors.isEmpty())
+                continue;
+
+            E element = neighbors.get(0);
+            setVertexReference(vertex, element, vertex);
+            copyAttributes(element, vertex);
+
+            // Create virtual Vertex (slot in data array) for elements with different attributes
+            for(int i = 1; i < neighbors.size(); ++i) {
+                element = neighbors.get(i);
+
+                Vertex ref = tryVirtualize(vertex, neighbors, element, i);
+                setVertexReference(vertex, element, ref);
             }
         }
-        finally {
-            tempVertices.clear();
-        }
     }
 
 
@@ -293,23 +285,28 @@ public abstract class Export<E extends Element> {
 
         if(arrayType == float[].class) {
             applyVertexBuffer(attribute, VertexBuffer.Format.Float, BufferUtils::createFloatBuffer,
-                (FloatBuffer buffer, float[] array, int length) -> buffer.put(array, 0, length));
+                (FloatBuffer buffer, float[] array, int offset, int length) -> buffer.put(array, offset, length));
         }
         else if(arrayType == short[].class) {
-            applyVertexBuffer(attribute, VertexBuffer.Format.UnsignedShort, BufferUtils::createShortBuffer,
-                (ShortBuffer buffer, short[] array, int length) -> buffer.put(array, 0, length));
+            // Quantized attributes are uploaded as half-floats or normalized shorts
+            VertexBuffer.Format format = VertexBufferUtils.getVertexBufferFormat(attribute.dest);
+            applyVertexBuffer(attribute, (format != null) ? format : VertexBuffer.Format.UnsignedShort, BufferUtils::createShortBuffer,
+                (ShortBuffer buffer, short[] array, int offset, int length) -> buffer.put(array, offset, length));
         }
         else if(arrayType == int[].class) {
             applyVertexBuffer(attribute, VertexBuffer.Format.UnsignedInt, BufferUtils::createIntBuffer,
-                (IntBuffer buffer, int[] array, int length) -> buffer.put(array, 0, length));
+                (IntBuffer buffer, int[] array, int offset, int length) -> buffer.put(array, offset, length));
         }
         else if(arrayType == byte[].class) {
             applyVertexBuffer(attribute, VertexBuffer.Format.UnsignedByte, BufferUtils::createByteBuffer,
-                (ByteBuffer buffer, byte[] array, int length) -> buffer.put(array, 0, length));
+                (ByteBuffer buffer, byte[] array, int offset, int length) -> buffer.put(array, offset, length));
         }
         else if(arrayType == double[].class) {
             applyVertexBuffer(attribute, VertexBuffer.Format.Double, VertexBufferUtils::createDoubleBuffer,
-                (DoubleBuffer buffer, double[] array, int length) -> buffer.put(array, 0, length));
+                (DoubleBuffer buffer, double[] array, int offset, int length) -> buffer.put(array, offset, length));
+        }
+        else if(FloatBuffer.class.isAssignableFrom(arrayType)) {
+            applyDirectVertexBuffer(attribute, VertexBuffer.Format.Float, FloatBuffer::duplicate);
         }
         else
             throw new UnsupportedOperationException("Data of type '" + arrayType.getName() + "' is not supported.");
@@ -337,23 +334,97 @@ public abstract class Export<E extends Element> {
                 B buffer = (B) vertexBuffer.getData();
                 if(buffer.capacity() < dataSize || buffer.capacity() * bufferLoadFactor > dataSize)
                     buffer = createBuffer.apply(dataSize); // Resize buffer
+                else if(buffer.limit() == dataSize) {
+                    // Reuse buffer with same size: Only copy modified range
+                    updateModifiedRange(attribute, vertexBuffer, buffer, array, populateBuffer);
+                    return;
+                }
                 else
                     buffer.clear(); // Reuse buffer
 
-                populateBuffer.apply(buffer, array, dataSize);
+                populateBuffer.apply(buffer, array, 0, dataSize);
                 buffer.flip();
 
                 vertexBuffer.updateData(buffer);
                 outputMesh.updateCounts();
+                setExported(attribute);
                 return;
             }
         }
 
         // Create a new VertexBuffer
         B buffer = createBuffer.apply(dataSize);
-        populateBuffer.apply(buffer, array, dataSize);
+        populateBuffer.apply(buffer, array, 0, dataSize);
         buffer.flip();
         outputMesh.setBuffer(type, components, format, buffer);
+        outputMesh.getBuffer(type).setNormalized(VertexBufferUtils.isNormalized(attribute.dest));
+        setExported(attribute);
+    }
+
+
+    /**
+     * Shares the direct buffer of the attribute with the VertexBuffer without copying.
+     * A new view is created on each update because BMeshData replaces the buffer when it grows.
+     */
+    @SuppressWarnings("unchecked")
+    private <B extends Buffer> void applyDirectVertexBuffer(AttributeMapping<E, ?> attribute, VertexBuffer.Format format, DuplicateBufferFunctor<B> duplicate) {
+        final VertexBuffer.Type type = attribute.type;
+        final int components         = attribute.dest.numComponents;
+        final int dataSize           = bmesh.vertices().totalSize() * components;
+
+        B view = duplicate.apply((B) attribute.dest.array());
+        view.clear();
+        view.limit(dataSize);
+
+        final VertexBuffer vertexBuffer = outputMesh.getBuffer(type);
+        if(vertexBuffer != null && vertexBuffer.getNumComponents() == components && vertexBuffer.getFormat() == format) {
+            vertexBuffer.updateData(view);
+            outputMesh.updateCounts();
+        }
+        else {
+            outputMesh.clearBuffer(type);
+            outputMesh.setBuffer(type, components, format, view);
+        }
+
+        setExported(attribute);
+    }
+
+
+    private <TArray, B extends Buffer> void updateModifiedRange(AttributeMapping<E, ?> attribute, VertexBuffer vertexBuffer, B buffer, TArray array,
+                                                                PopulateBufferFunctor<B, TArray> populateBuffer)
+    {
+        final long version = attribute.dest.getVersion();
+        if(version == attribute.exportedVersion)
+            return;
+
+        final int components = attribute.dest.numComponents;
+        final int[] range    = attribute.modifiedRange;
+
+        int start = 0;
+        int end   = buffer.limit();
+        if(attribute.dest.getModifiedRange(attribute.exportedVersion, range)) {
+            if(range[0] < range[1]) {
+                start = range[0] * components;
+                end   = Math.min(range[1] * components, end);
+            }
+            else
+                end = 0;
+        }
+
+        if(start < end) {
+            buffer.position(start);
+            populateBuffer.apply(buffer, array, start, end-start);
+            buffer.rewind();
+            vertexBuffer.updateData(buffer);
+        }
+
+        setExported(attribute);
+    }
+
+
+    private void setExported(AttributeMapping<E, ?> attribute) {
+        attribute.exportedVersion = attribute.dest.getVersion();
+        attribute.dest.closeModifiedRange();
     }
 
 
@@ -362,8 +433,13 @@ public abstract class Export<E extends Element> {
         B apply(int size);
     }
 
+    @FunctionalInterface
+    private interface DuplicateBufferFunctor<B extends Buffer> {
+        B apply(B buffer);
+    }
+
     @FunctionalInterface
     private interface PopulateBufferFunctor<B extends Buffer, TArray> {
-        void apply(B buffer, TArray array, int length);
+        void apply(B buffer, TArray array, int offset, int length);
     }
 }
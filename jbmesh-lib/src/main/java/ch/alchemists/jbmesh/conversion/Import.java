@@ -11,6 +11,7 @@ import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Vertex;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Mesh;
+import java.util.Arrays;
 
 // https://www.researchgate.net/publication/4070748_Efficient_topology_construction_from_triangle_soup
 // Instead:
@@ -39,46 +40,190 @@ public class Import {
     }
 
 
+    public static BMesh convertWelded(Mesh mesh) {
+        return convertWelded(mesh, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Bulk import for large triangle soups. Welds all vertices at once with {@link SortedVertexWelding}
+     * on the position array and creates vertices and faces in ranges.<br>
+     * Vertices are created in the order of their first use in the index buffer, like {@link #convert(Mesh, float)}.
+     * Chains of vertices closer than <i>epsilon</i> are merged transitively.
+     * @param mesh
+     * @param epsilon
+     * @return
+     */
+    public static BMesh convertWelded(Mesh mesh, float epsilon) {
+        TriangleExtractor triangleExtractor = new TriangleExtractor(mesh);
+        final int numIndices = triangleExtractor.getNumIndices();
+        final int numVertices = triangleExtractor.getNumVertices();
+        final float[] positions = triangleExtractor.getPositionArray();
+
+        int[] remap = new int[numVertices];
+        int numWelded = new SortedVertexWelding(epsilon).weld(positions, numVertices, remap);
+
+        // Welded vertex -> BMesh vertex index, -1 if unused
+        int[] vertexMap = new int[numWelded];
+        Arrays.fill(vertexMap, -1);
+
+        float[] outputPositions = new float[numWelded * 3];
+        int numOutput = 0;
+        for(int i=0; i<numIndices; ++i) {
+            int vertexIndex = triangleExtractor.getIndex(i);
+            int welded = remap[vertexIndex];
+            if(vertexMap[welded] < 0) {
+                vertexMap[welded] = numOutput;
+                System.arraycopy(positions, vertexIndex*3, outputPositions, numOutput*3, 3);
+                numOutput++;
+            }
+        }
+
+        BMesh bmesh = new BMesh();
+        bmesh.edges().ensureCapacity(numIndices);
+        bmesh.faces().ensureCapacity(numIndices / 3);
+        bmesh.loops().ensureCapacity(numIndices);
+
+        if(numOutput != numWelded)
+            outputPositions = Arrays.copyOf(outputPositions, numOutput * 3);
+        final int firstVertex = bmesh.createVertices(outputPositions);
+
+        int[] faceVertices = new int[numIndices];
+        int[] numFaceVertices = new int[1];
+
+        triangleExtractor.process((int i0, int i1, int i2) -> {
+            int v0 = vertexMap[remap[i0]];
+            int v1 = vertexMap[remap[i1]];
+            int v2 = vertexMap[remap[i2]];
+
+            // Check for degenerate triangles
+            if(v0 != v1 && v0 != v2 && v1 != v2) {
+                int n = numFaceVertices[0];
+                faceVertices[n]   = firstVertex + v0;
+                faceVertices[n+1] = firstVertex + v1;
+                faceVertices[n+2] = firstVertex + v2;
+                numFaceVertices[0] = n+3;
+            }
+        });
+
+        createTriangles(bmesh, faceVertices, numFaceVertices[0]);
+        return bmesh;
+    }
+
+
     /**
      * Deduplicates the vertices first, so each vertex is only checked once.
+     * The vertices are created in bulk in the order of their first use in the index buffer and
+     * the duplicates found by <i>dedup</i> are removed afterwards.
      * @param bmesh
      * @return
      */
     private static BMesh convert(Mesh inputMesh, BMesh bmesh, VertexDeduplication dedup) {
         TriangleExtractor triangleExtractor = new TriangleExtractor(inputMesh);
         final int numIndices = triangleExtractor.getNumIndices();
+        final int numVertices = triangleExtractor.getNumVertices();
+        final float[] positions = triangleExtractor.getPositionArray();
 
-        bmesh.vertices().ensureCapacity(numIndices);
         bmesh.edges().ensureCapacity(numIndices);
         bmesh.faces().ensureCapacity(numIndices / 3);
         bmesh.loops().ensureCapacity(numIndices);
 
-        // TODO: Keep duplicated vertices in LoopVertex attribute?
-        Vertex[] indexMap = new Vertex[numIndices];
-        Vector3f location = new Vector3f();
+        // Input vertex -> Candidate, -1 if unused
+        int[] candidateMap = new int[numVertices];
+        Arrays.fill(candidateMap, -1);
 
+        float[] candidatePositions = new float[numVertices * 3];
+        int numCandidates = 0;
         for(int i=0; i<numIndices; ++i) {
             int vertexIndex = triangleExtractor.getIndex(i);
-            triangleExtractor.getVertex(vertexIndex, location);
-            indexMap[vertexIndex] = dedup.getOrCreateVertex(location);
+            if(candidateMap[vertexIndex] < 0) {
+                candidateMap[vertexIndex] = numCandidates;
+                System.arraycopy(positions, vertexIndex*3, candidatePositions, numCandidates*3, 3);
+                numCandidates++;
+            }
+        }
+
+        if(numCandidates != numVertices)
+            candidatePositions = Arrays.copyOf(candidatePositions, numCandidates * 3);
+        final int firstVertex = bmesh.createVertices(candidatePositions);
+
+        // TODO: Keep duplicated vertices in LoopVertex attribute?
+        Vertex[] candidates = new Vertex[numCandidates];
+        Vertex[] indexMap = new Vertex[numVertices];
+        Vector3f location = new Vector3f();
+        boolean duplicates = false;
+
+        for(int c=0; c<numCandidates; ++c) {
+            Vertex vertex = bmesh.vertices().get(firstVertex + c);
+            location.set(candidatePositions[c*3], candidatePositions[c*3+1], candidatePositions[c*3+2]);
+
+            Vertex existing = dedup.getVertex(location);
+            if(existing == null) {
+                dedup.addExisting(vertex);
+                candidates[c] = vertex;
+            }
+            else {
+                candidates[c] = existing;
+                duplicates = true;
+            }
+        }
+
+        for(int v=0; v<numVertices; ++v) {
+            if(candidateMap[v] >= 0)
+                indexMap[v] = candidates[candidateMap[v]];
+        }
+
+        // Remove duplicates. The remaining vertices keep their order.
+        if(duplicates) {
+            boolean stableIndices = bmesh.vertices().hasStableIndices();
+            bmesh.vertices().setStableIndices(true);
+            for(int c=0; c<numCandidates; ++c) {
+                Vertex vertex = bmesh.vertices().get(firstVertex + c);
+                if(candidates[c] != vertex)
+                    bmesh.vertices().destroy(vertex);
+            }
+            bmesh.vertices().setStableIndices(stableIndices);
         }
 
         //System.out.println("Reduced vertex count from " + triangleExtractor.getNumVertices() + " to " + bmesh.vertices().size());
 
+        // Collect vertex indices of triangles and create all faces at once
+        int[] faceVertices = new int[numIndices];
+        int[] numFaceVertices = new int[1];
+
         triangleExtractor.process((int i0, int i1, int i2) -> {
             Vertex v0 = indexMap[i0];
             Vertex v1 = indexMap[i1];
             Vertex v2 = indexMap[i2];
 
             // Check for degenerate triangles
-            if(v0 != v1 && v0 != v2 && v1 != v2)
-                bmesh.createFace(v0, v1, v2);
+            if(v0 != v1 && v0 != v2 && v1 != v2) {
+                int n = numFaceVertices[0];
+                faceVertices[n]   = v0.getIndex();
+                faceVertices[n+1] = v1.getIndex();
+                faceVertices[n+2] = v2.getIndex();
+                numFaceVertices[0] = n+3;
+            }
         });
 
+        createTriangles(bmesh, faceVertices, numFaceVertices[0]);
         return bmesh;
     }
 
 
+    /**
+     * Creates triangles from the first <i>length</i> vertex indices.
+     * @return Index of the first new face.
+     */
+    static int createTriangles(BMesh bmesh, int[] faceVertices, int length) {
+        if(length != faceVertices.length)
+            faceVertices = Arrays.copyOf(faceVertices, length);
+
+        int[] faceSizes = new int[length / 3];
+        Arrays.fill(faceSizes, 3);
+        return bmesh.createFaces(faceSizes, faceVertices);
+    }
+
+
     public static BMesh importKeep(Mesh inputMesh) {
         // Keep normals
         // Keep duplication: Create virtual vertices for index targets with multiple uses
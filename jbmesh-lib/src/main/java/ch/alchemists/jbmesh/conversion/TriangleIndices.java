@@ -6,12 +6,11 @@
 
 package ch.alchemists.jbmesh.conversion;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
 import ch.alchemists.jbmesh.data.BMeshData;
 import ch.alchemists.jbmesh.data.Element;
 import ch.alchemists.jbmesh.data.property.ObjectAttribute;
 import ch.alchemists.jbmesh.data.property.ObjectTupleAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.sweeptriang.SweepTriangulation;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
@@ -61,7 +60,7 @@ public class TriangleIndices {
      * TODO: Call only for dirty faces?
      */
     public void triangulateFaces() {
-        Vec3Attribute<Vertex> attrPosition = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        Vec3Property<Vertex> attrPosition = bmesh.positions();
 
         triangleData.clear();
         triangleData.ensureCapacity(bmesh.faces().size());
@@ -103,7 +102,7 @@ public class TriangleIndices {
      * Triangulates a quadliteral with a split along the shorter diagonal.
      * If a vertex is reflex and the quad forms an arrowhead, this reflex vertex will be part of the chosen diagonal.
      */
-    private void triangulateQuad(Vec3Attribute<Vertex> attrPosition, ArrayList<Loop> loops) {
+    private void triangulateQuad(Vec3Property<Vertex> attrPosition, ArrayList<Loop> loops) {
         Vector3f p0 = attrPosition.get(loops.get(0).vertex);
         Vector3f p1 = attrPosition.get(loops.get(1).vertex);
         Vector3f p2 = attrPosition.get(loops.get(2).vertex);
@@ -150,7 +149,7 @@ public class TriangleIndices {
     }
 
 
-    private void triangulatePolygon(Vec3Attribute<Vertex> attrPosition, ArrayList<Loop> loops) {
+    private void triangulatePolygon(Vec3Property<Vertex> attrPosition, ArrayList<Loop> loops) {
         try {
             triangulation.addFaceWithLoops(attrPosition, loops);
             triangulation.triangulate();
@@ -91,6 +91,42 @@ public class VertexBufferUtils {
     }
 
 
+    /**
+     * @return The VertexBuffer.Format for quantized attributes, or null if the format follows from the array type.
+     */
+    public static VertexBuffer.Format getVertexBufferFormat(BMeshAttribute<?, ?> attribute) {
+        if(attribute instanceof HalfFloatTupleAttribute)
+            return VertexBuffer.Format.Half;
+        if(attribute instanceof SNormTupleAttribute)
+            return VertexBuffer.Format.Short;
+        return null;
+    }
+
+    public static boolean isNormalized(BMeshAttribute<?, ?> attribute) {
+        return attribute instanceof SNormTupleAttribute;
+    }
+
+    /**
+     * Creates an attribute with the same quantized storage as <code>template</code>.
+     * @return Null if <code>template</code> is not quantized.
+     */
+    public static <E extends Element> BMeshAttribute<E, ?> createQuantizedAttribute(String name, BMeshAttribute<?, ?> template) {
+        if(template instanceof OctNormalAttribute)
+            return new OctNormalAttribute<>(name);
+        if(template instanceof SNormVec3Attribute)
+            return new SNormVec3Attribute<>(name);
+        if(template instanceof SNormTupleAttribute)
+            return new SNormTupleAttribute<>(name, template.numComponents);
+        if(template instanceof HalfVec3Attribute)
+            return new HalfVec3Attribute<>(name);
+        if(template instanceof HalfVec2Attribute)
+            return new HalfVec2Attribute<>(name);
+        if(template instanceof HalfFloatTupleAttribute)
+            return new HalfFloatTupleAttribute<>(name, template.numComponents);
+        return null;
+    }
+
+
 
     public static <E extends Element> BMeshAttribute<E, ?> createBMeshAttribute(VertexBuffer buffer, Class<E> elementType) {
         return createBMeshAttribute(buffer.getBufferType(), buffer.getNumComponents(), elementType);
@@ -6,8 +6,10 @@
 
 package ch.alchemists.jbmesh.data;
 
-// TODO: Remember dirty state of elements for each attribute separately.
-//       A normal generator could use the dirty state of the vertex-position attribute to determine which face normals have to be regenerated.
+import java.lang.reflect.Array;
+
+// Each attribute remembers the range of element indices that were modified (dirty range).
+// A normal generator could use the dirty state of the vertex-position attribute to determine which face normals have to be regenerated.
 public abstract class BMeshAttribute<E extends Element, TArray> {
     // Attribute names
     public static final String Position             = "Position";
@@ -59,9 +61,34 @@ public abstract class BMeshAttribute<E extends Element, TArray> {
     public final int numComponents;
 
     protected TArray data = null;
+    int slot = -1;
 
     private boolean comparable = true;
 
+    // Set by BMeshData while a concurrent section is active
+    boolean concurrent = false;
+
+    // Range of modified element indices: [dirtyStart, dirtyEnd)
+    private int dirtyStart = Integer.MAX_VALUE;
+    private int dirtyEnd = 0;
+
+    // Incremented with each modification
+    private long version = 0;
+
+    // Closed modification ranges (ring buffer), so multiple consumers can query the changes since their last update.
+    // Entry i covers the modifications with versions in (historyVersions[2i], historyVersions[2i+1]].
+    // Independent of the dirty range.
+    private static final int DIRTY_HISTORY_SIZE = 8;
+    private final long[] historyVersions = new long[DIRTY_HISTORY_SIZE * 2];
+    private final int[] historyRanges = new int[DIRTY_HISTORY_SIZE * 2];
+    private int historyHead = 0;
+    private int historyCount = 0;
+
+    // Open modification range, covers the versions in (openVersion, version]
+    private int openStart = Integer.MAX_VALUE;
+    private int openEnd = 0;
+    private long openVersion = 0;
+
 
     protected BMeshAttribute(String name, int numComponents) {
         if(numComponents < 1)
@@ -99,21 +126,103 @@ public abstract class BMeshAttribute<E extends Element, TArray> {
     public void copy(E from, E to) {
         int iFrom = indexOf(from);
         int iTo   = indexOf(to);
-        System.arraycopy(data, iFrom, data, iTo, numComponents);
+        copyRange(data, iFrom, data, iTo, numComponents);
+        setDirty(to);
+    }
+
+    final void copyIndex(int from, int to) {
+        copyRange(data, from * numComponents, data, to * numComponents, numComponents);
+        setDirty(to);
+    }
+
+    /**
+     * Reorders the data in place by following the permutation cycles: new[i] = old[oldIndices[i]].
+     * @param oldIndices
+     * @param visited Temporary storage with the same length as <i>oldIndices</i>, all false.
+     */
+    final void permute(int[] oldIndices, boolean[] visited) {
+        TArray temp = alloc(numComponents);
+
+        for(int start=0; start<oldIndices.length; ++start) {
+            if(visited[start] || oldIndices[start] == start)
+                continue;
+
+            copyRange(data, start * numComponents, temp, 0, numComponents);
+
+            int i = start;
+            while(true) {
+                visited[i] = true;
+                int src = oldIndices[i];
+                if(src == start) {
+                    copyRange(temp, 0, data, i * numComponents, numComponents);
+                    break;
+                }
+
+                copyRange(data, src * numComponents, data, i * numComponents, numComponents);
+                i = src;
+            }
+        }
+
+        setDirty(0, oldIndices.length);
     }
 
+    @SuppressWarnings("unchecked")
     public <E2 extends Element> void copy(E from, BMeshAttribute<E2, ?> otherAttribute, E2 otherTo) {
         if(numComponents != otherAttribute.numComponents)
             throw new IllegalArgumentException("Number of components don't match.");
 
         int iFrom = indexOf(from);
         int iTo   = otherAttribute.indexOf(otherTo);
-        System.arraycopy(data, iFrom, otherAttribute.data, iTo, numComponents);
+        copyRange(data, iFrom, (TArray) otherAttribute.data, iTo, numComponents);
+        otherAttribute.setDirty(otherTo.getIndex());
     }
 
 
     public abstract boolean equals(E a, E b);
 
+
+    /**
+     * Creates an unattached attribute of the same type and configuration, without data. Used for copying a BMesh.<br>
+     * The default implementation calls the public constructor <i>(String name)</i> or <i>(String name, int numComponents)</i>.
+     * Subclasses with other constructors or additional configuration must override this.
+     * When copying, an inherited implementation that returns a different type is replaced by the default.
+     * @return
+     */
+    public BMeshAttribute<E, TArray> newInstance() {
+        return newInstanceByConstructor();
+    }
+
+    /**
+     * Default implementation of {@link #newInstance()}.
+     */
+    @SuppressWarnings("unchecked")
+    final BMeshAttribute<E, TArray> newInstanceByConstructor() {
+        BMeshAttribute<E, TArray> attribute;
+        try {
+            attribute = (BMeshAttribute<E, TArray>) instantiate(getClass(), name, numComponents);
+        }
+        catch(ReflectiveOperationException ex) {
+            throw new UnsupportedOperationException(getClass().getName() + " has no suitable constructor and doesn't override newInstance()", ex);
+        }
+
+        if(attribute.numComponents != numComponents)
+            throw new UnsupportedOperationException(getClass().getName() + " must override newInstance() to keep the number of components");
+        return attribute;
+    }
+
+    /**
+     * Calls the public constructor <i>(String name)</i> or, if it doesn't exist, <i>(String name, int numComponents)</i>.
+     */
+    static BMeshAttribute<?, ?> instantiate(Class<?> type, String name, int numComponents) throws ReflectiveOperationException {
+        try {
+            return (BMeshAttribute<?, ?>) type.getConstructor(String.class).newInstance(name);
+        }
+        catch(NoSuchMethodException ex) {
+            return (BMeshAttribute<?, ?>) type.getConstructor(String.class, int.class).newInstance(name, numComponents);
+        }
+    }
+
+
     public void setComparable(boolean comparable) {
         this.comparable = comparable;
     }
@@ -127,6 +236,162 @@ public abstract class BMeshAttribute<E extends Element, TArray> {
         return data != null;
     }
 
+    /**
+     * @return Whether the BMeshData of this attribute is in a concurrent section, see {@link BMeshData#beginConcurrent(int)}.
+     */
+    public final boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * For attributes whose writes aren't confined to the values of a single element.
+     * @throws IllegalStateException If the BMeshData of this attribute is in a concurrent section.
+     */
+    protected final void checkNotConcurrent() {
+        if(concurrent)
+            throw new IllegalStateException("Attribute '" + name + "' can't be modified in a concurrent section");
+    }
+
+    /**
+     * @return The id of this attribute in its BMeshData, or -1 if it is not attached.
+     *         The id doesn't change while the attribute is attached. Ids of removed attributes are reused.
+     */
+    public final int getSlot() {
+        return slot;
+    }
+
+
+    protected final void setDirty(E element) {
+        setDirty(element.getIndex());
+    }
+
+    /**
+     * Marks the element with the given index as modified.
+     * This must be called after writing directly to the underlying array.
+     * @param elementIndex
+     */
+    public final void setDirty(int elementIndex) {
+        version++;
+        if(elementIndex < dirtyStart)
+            dirtyStart = elementIndex;
+        if(elementIndex >= dirtyEnd)
+            dirtyEnd = elementIndex + 1;
+
+        if(elementIndex < openStart)
+            openStart = elementIndex;
+        if(elementIndex >= openEnd)
+            openEnd = elementIndex + 1;
+    }
+
+    /**
+     * Marks the elements in the given range as modified.
+     * @param start First element index (inclusive).
+     * @param end Last element index (exclusive).
+     */
+    public final void setDirty(int start, int end) {
+        if(start >= end)
+            return;
+
+        version++;
+        if(start < dirtyStart)
+            dirtyStart = start;
+        if(end > dirtyEnd)
+            dirtyEnd = end;
+
+        if(start < openStart)
+            openStart = start;
+        if(end > openEnd)
+            openEnd = end;
+    }
+
+    /**
+     * @return A counter that is incremented whenever values are marked as modified. Unlike the dirty range,
+     *         it's never reset and can be used to detect changes by multiple consumers.
+     */
+    public final long getVersion() {
+        return version;
+    }
+
+    public final boolean isDirty() {
+        return dirtyStart < dirtyEnd;
+    }
+
+    /**
+     * @return First modified element index (inclusive). Only valid if {@link #isDirty()} returns true.
+     */
+    public final int getDirtyStart() {
+        return dirtyStart;
+    }
+
+    /**
+     * @return Last modified element index (exclusive). Only valid if {@link #isDirty()} returns true.
+     */
+    public final int getDirtyEnd() {
+        return dirtyEnd;
+    }
+
+    /**
+     * Resets the dirty range. Doesn't affect consumers using {@link #getModifiedRange(long, int[])}.
+     */
+    public final void clearDirty() {
+        dirtyStart = Integer.MAX_VALUE;
+        dirtyEnd = 0;
+    }
+
+
+    /**
+     * Closes the range of modifications since the last call and keeps it in a short history of {@value #DIRTY_HISTORY_SIZE} ranges.
+     * Modifications after this call are tracked in a new range, so {@link #getModifiedRange(long, int[])} can report them
+     * without the older ones.<br>
+     * Consumers call this after they updated. Closing takes a history slot only if there were modifications since the
+     * last call, so multiple consumers updating at the same point share one slot.
+     */
+    public final void closeModifiedRange() {
+        if(version == openVersion)
+            return;
+
+        int h = historyHead;
+        historyVersions[h*2]   = openVersion;
+        historyVersions[h*2+1] = version;
+        historyRanges[h*2]     = openStart;
+        historyRanges[h*2+1]   = openEnd;
+
+        historyHead = (h+1) % DIRTY_HISTORY_SIZE;
+        historyCount = Math.min(historyCount+1, DIRTY_HISTORY_SIZE);
+
+        openStart = Integer.MAX_VALUE;
+        openEnd = 0;
+        openVersion = version;
+    }
+
+
+    /**
+     * Determines the range of element indices that were modified after the given version. This allows multiple consumers
+     * of the same attribute to update independently: Each one remembers the {@link #getVersion()} of its last update.<br>
+     * This query doesn't modify the attribute. The range covers whole closed ranges (see {@link #closeModifiedRange()}),
+     * so it can include modifications the consumer has already seen.
+     * @param sinceVersion Version of the last update by the consumer, or -1 if there was none.
+     * @param store Receives the modified range [start, end). The range is empty (start &gt;= end) if nothing changed.
+     * @return False if the changes are no longer known because <i>sinceVersion</i> is older than the history.
+     *         The consumer must then update all elements.
+     */
+    public final boolean getModifiedRange(long sinceVersion, int[] store) {
+        int start = openStart;
+        int end   = openEnd;
+        long covered = openVersion;
+
+        for(int i=0; i<historyCount && covered > sinceVersion; ++i) {
+            int h = (historyHead - 1 - i + DIRTY_HISTORY_SIZE) % DIRTY_HISTORY_SIZE;
+            start = Math.min(start, historyRanges[h*2]);
+            end   = Math.max(end, historyRanges[h*2+1]);
+            covered = historyVersions[h*2];
+        }
+
+        store[0] = start;
+        store[1] = end;
+        return covered <= sinceVersion;
+    }
+
 
     /**
      * Call BMeshData.compact() first before passing the array to OpenGL.
@@ -140,6 +405,22 @@ public abstract class BMeshAttribute<E extends Element, TArray> {
     protected abstract TArray alloc(int size);
 
 
+    /**
+     * Copies values between storage objects of this attribute's type.
+     * Must be overridden by attributes that don't use Java arrays as storage.
+     */
+    protected void copyRange(TArray src, int srcPos, TArray dest, int destPos, int length) {
+        System.arraycopy(src, srcPos, dest, destPos, length);
+    }
+
+    /**
+     * @return Number of values in the storage object.
+     */
+    protected int getLength(TArray array) {
+        return Array.getLength(array);
+    }
+
+
     /**
      * @param size
      * @return The old data array.
@@ -147,15 +428,27 @@ public abstract class BMeshAttribute<E extends Element, TArray> {
     final TArray allocReplace(int size) {
         TArray oldArray = data;
         data = alloc(size * numComponents);
+
+        if(oldArray == null)
+            setDirty(0, size);
         return oldArray;
     }
 
     final void realloc(int size, int copyLength) {
         TArray oldArray = allocReplace(size);
-        System.arraycopy(oldArray, 0, data, 0, copyLength * numComponents);
+        copyRange(oldArray, 0, data, 0, copyLength * numComponents);
     }
 
     void release() {
         data = null;
+        slot = -1;
+        concurrent = false;
+
+        dirtyStart = Integer.MAX_VALUE;
+        dirtyEnd = 0;
+        historyCount = 0;
+        openStart = Integer.MAX_VALUE;
+        openEnd = 0;
+        openVersion = version;
     }
 }
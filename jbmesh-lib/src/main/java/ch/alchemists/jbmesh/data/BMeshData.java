@@ -6,9 +6,19 @@
 
 package ch.alchemists.jbmesh.data;
 
+import ch.alchemists.jbmesh.util.BinaryReader;
+import ch.alchemists.jbmesh.util.BinaryWriter;
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
 import java.nio.Buffer;
+import java.nio.FloatBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BMeshData<E extends Element> implements Iterable<E> {
     public interface ElementFactory<E extends Element> {
@@ -17,20 +27,126 @@ public class BMeshData<E extends Element> implements Iterable<E> {
 
 
     private final ElementFactory<E> factory;
+    private Class<?> elementType = null; // For memory reports, set by first created element
     private final ArrayList<E> elements = new ArrayList<>();
 
+    // Without element objects, only the slot states are stored: A set bit marks a free slot
+    private final boolean elementObjects;
+    private int numSlots = 0;
+    private long[] freeBits = new long[0];
+
     private static final int INITIAL_ARRAY_SIZE = 32;
     private static final float GROW_FACTOR = 1.5f;
     private int arraySize = INITIAL_ARRAY_SIZE;
     private int numVirtual = 0;
 
+    // Free-list of destroyed slots, only used with stable indices
+    private boolean stableIndices = false;
+    private int[] freeSlots = new int[0];
+    private int numFree = 0;
+
+    // Released elements for reuse, disabled by default
+    private final ArrayList<E> pool = new ArrayList<>(0);
+    private int poolCapacity = 0;
+    private long poolHits = 0;
+    private long poolMisses = 0;
+
+    // Keeps virtual elements at the end: [0, size-numVirtual) are listed, [size-numVirtual, size) are virtual
+    private boolean virtualTail = false;
+
     private int modCount = 0;
+    private int removeCount = 0; // Structural modifications other than appending
+    private long structureVersion = 0; // Part of getVersion()
+
+    // Concurrent section: Threads claim slabs of slots from the reserved range [reservedStart, reservedEnd)
+    private static final int SLAB_SIZE = 64;
+    private volatile boolean concurrent = false;
+    private boolean concurrentRestoreIndices = false;
+    private int reservedStart = 0;
+    private int reservedEnd = 0;
+    private final AtomicInteger nextSlab = new AtomicInteger();
+    private ThreadLocal<int[]> slab = null; // [next, end)
+    private long[] concurrentVersions = null;
+    private boolean concurrentModified = false; // Defers structureVersion updates until the section ends
+    private final Object freeSlotLock = new Object();
+
+    private long schemaVersion = 0; // Sum of added attributes and versions of removed attributes
+
+    // Set by copyFrom() and only read by later calls on the copying thread, while the data set may be
+    // modified by another thread: The copied data set, its structure version, the array size and the copied arrays.
+    private BMeshData<E> copySource = null;
+    private long copySourceStructureVersion = 0;
+    private int copyArraySize = 0;
+    private CopiedArray[] copiedArrays = new CopiedArray[0];
     
+    // Attributes in registration order. Iterated on the hot paths (destroy, copyAttributes, equals).
+    private BMeshAttribute<E, ?>[] attributeList = newAttributeArray(4);
+    private int numAttributes = 0;
+
+    // Slot id => Attribute. Ids stay the same while the attribute is registered. Empty slots are null and get reused.
+    private BMeshAttribute<E, ?>[] attributeSlots = newAttributeArray(4);
+
+    // Secondary index for lookup by name
     private final Map<String, BMeshAttribute<E, ?>> attributes = new HashMap<>();
 
 
     public BMeshData(ElementFactory<E> factory) {
+        this(factory, true);
+    }
+
+    /**
+     * @param factory
+     * @param elementObjects If false, no element objects are kept and only one bit per slot is stored.
+     *                       Elements are identified by their index, see {@link #createIndex()} and {@link #destroy(int)}.
+     *                       {@link #get(int)} and the iterators create a new handle on each call, so handles can't be compared by identity.
+     *                       Stable indices are always enabled. Virtual elements, pooling, sorting and concurrent sections are not supported.
+     */
+    public BMeshData(ElementFactory<E> factory, boolean elementObjects) {
         this.factory = factory;
+        this.elementObjects = elementObjects;
+        this.stableIndices = !elementObjects;
+
+        if(!elementObjects)
+            freeBits = new long[(arraySize + 63) >>> 6];
+    }
+
+
+    /**
+     * @return False if this data set doesn't keep element objects, see {@link #BMeshData(ElementFactory, boolean)}.
+     */
+    public boolean hasElementObjects() {
+        return elementObjects;
+    }
+
+    private void checkElementObjects() {
+        if(!elementObjects)
+            throw new IllegalStateException("Not supported without element objects");
+    }
+
+
+    /**
+     * @return The element object, a new handle without element objects, or <i>null</i> if the slot is free.
+     */
+    private E slot(int index) {
+        if(elementObjects)
+            return elements.get(index);
+        if(isFreeBit(index))
+            return null;
+
+        E handle = factory.createElement();
+        handle.setIndex(index);
+        return handle;
+    }
+
+    private boolean isFreeBit(int index) {
+        return (freeBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setFreeBit(int index, boolean free) {
+        if(free)
+            freeBits[index >>> 6] |= 1L << index;
+        else
+            freeBits[index >>> 6] &= ~(1L << index);
     }
 
 
@@ -39,22 +155,87 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         return new ElementIterator();
     }
 
+    /**
+     * Iterates the alive, non-virtual elements that exist when iteration starts. Elements can be created
+     * while iterating, they are not visited (except ones that reuse a free slot with stable indices).
+     * Destroying elements, sorting or compacting throws ConcurrentModificationException.
+     * @return
+     */
+    public Iterable<E> snapshot() {
+        return SnapshotIterator::new;
+    }
+
+    /**
+     * The Spliterator covers alive, non-virtual elements and splits the index range in halves.
+     * Structural modifications during traversal are detected after each bulk traversal and throw ConcurrentModificationException.
+     * @return
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ElementSpliterator(0, listedEnd(), isDense(), modCount);
+    }
+
+    /**
+     * Use <code>stream().parallel()</code> for processing the elements in parallel.
+     * The structure must not be modified while the stream is processed.
+     * @return A stream of alive, non-virtual elements.
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     public int size() {
-        return elements.size() - numVirtual;
+        return totalSize() - numVirtual - numFree;
     }
 
     /**
-     * Includes count of virtual elements.
+     * Includes count of virtual elements and free slots.
+     * This is the length of the used range in the attribute arrays.
      * @return
      */
     public int totalSize() {
-        return elements.size();
+        return elementObjects ? elements.size() : numSlots;
     }
 
 
+    /**
+     * @param index
+     * @return The element at the given index. Can be <i>null</i> if the slot is free (only with stable indices).
+     *         Without element objects, a new handle is created on each call.
+     */
     public E get(int index) {
         // TODO: Don't return virtual elements?
-        return elements.get(index);
+        if(!elementObjects && (index < 0 || index >= numSlots))
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numSlots);
+        return slot(index);
+    }
+
+    /**
+     * @param index
+     * @return Whether the slot at the given index holds an element. Doesn't create a handle.
+     */
+    public boolean isAlive(int index) {
+        return elementObjects ? elements.get(index) != null : !isFreeBit(index);
+    }
+
+    /**
+     * Returns the states of 64 consecutive slots at once. Doesn't create handles.
+     * @param wordIndex Index of the word, which holds the states of the slots [wordIndex*64, wordIndex*64 + 64).
+     * @return A set bit marks a free slot. Bits beyond {@link #totalSize()} are undefined.
+     */
+    public long getFreeWord(int wordIndex) {
+        if(!elementObjects)
+            return freeBits[wordIndex];
+
+        final int start = wordIndex << 6;
+        final int end = Math.min(start + 64, elements.size());
+
+        long word = 0;
+        for(int i=start; i<end; ++i) {
+            if(elements.get(i) == null)
+                word |= 1L << i;
+        }
+        return word;
     }
 
     public Collection<E> getAll(Collection<E> dest) {
@@ -66,39 +247,535 @@ public class BMeshData<E extends Element> implements Iterable<E> {
 
     public List<E> getAll() {
         // TODO: Don't return virtual elements?
-        return new ArrayList<>(elements);
+        if(!elementObjects) {
+            List<E> list = new ArrayList<>(size());
+            getAll(list);
+            return list;
+        }
+        if(numFree == 0)
+            return new ArrayList<>(elements);
+
+        List<E> list = new ArrayList<>(elements.size() - numFree);
+        for(E element : elements) {
+            if(element != null)
+                list.add(element);
+        }
+        return list;
     }
 
 
     public void clear() {
+        if(!elementObjects) {
+            numSlots = 0;
+            Arrays.fill(freeBits, 0);
+        }
+
         for(E element : elements) {
-            element.release();
+            if(element != null) {
+                element.release();
+                recycle(element);
+            }
         }
 
         elements.clear();
 
         numVirtual = 0;
+        numFree = 0;
+        modified();
+        removeCount++;
+    }
+
+
+    /**
+     * In stable index mode, destroying an element leaves its slot empty and records it in a free-list
+     * instead of moving the last element into the slot. Indices of remaining elements don't change
+     * and no attribute data is copied. Free slots are reused by {@link #create()}.<br>
+     * The data is only compacted when {@link #compactData()} is called, which returns a remap table.<br><br>
+     * Free slots still occupy space in the attribute arrays and their data is undefined.
+     * Call {@link #compactData()} before exporting index data.<br>
+     * Disabling stable indices compacts the data immediately.
+     * @param stableIndices
+     */
+    public void setStableIndices(boolean stableIndices) {
+        checkNotConcurrent();
+        if(!stableIndices && !elementObjects)
+            throw new IllegalStateException("Stable indices are required without element objects");
+        if(stableIndices && virtualTail)
+            throw new IllegalStateException("Stable indices can't be used with virtual tail");
+
+        if(!stableIndices && numFree > 0)
+            compactData();
+
+        this.stableIndices = stableIndices;
+    }
+
+    public boolean hasStableIndices() {
+        return stableIndices;
+    }
+
+    /**
+     * With virtual tail, all virtual elements are kept at the end of the data. Iteration doesn't need to check
+     * for virtual elements and stops at the first virtual one.<br>
+     * Creating a non-virtual element moves the first virtual element to the end and destroying a non-virtual element
+     * moves the last virtual element. This changes indices of virtual elements.
+     * Can't be used with stable indices. Can only be enabled when there are no virtual elements.
+     * @param virtualTail
+     */
+    public void setVirtualTail(boolean virtualTail) {
+        checkNotConcurrent();
+        if(virtualTail && stableIndices)
+            throw new IllegalStateException("Virtual tail can't be used with stable indices");
+        if(virtualTail && numVirtual > 0)
+            throw new IllegalStateException("Virtual tail can only be enabled without virtual elements");
+
+        this.virtualTail = virtualTail;
+    }
+
+    public boolean hasVirtualTail() {
+        return virtualTail;
+    }
+
+
+    /**
+     * @return End of the index range that contains the listed elements.
+     */
+    private int listedEnd() {
+        return virtualTail ? elements.size() - numVirtual : totalSize();
+    }
+
+    /**
+     * @return Whether all elements in [0, listedEnd) are alive and non-virtual.
+     */
+    private boolean isDense() {
+        return numFree == 0 && (virtualTail || numVirtual == 0);
+    }
+
+
+    /**
+     * @return Number of empty slots that will be reused by {@link #create()}.
+     */
+    public int numFreeSlots() {
+        return numFree;
+    }
+
+
+    /**
+     * Enables recycling of destroyed element objects. Up to <i>capacity</i> released objects are kept
+     * and reused by {@link #create()}, {@link #createVirtual()} and {@link #createRange(int)}.<br>
+     * Only enable this if no references to destroyed elements are kept: A recycled object becomes alive again
+     * and may represent a different element. Element subclasses must reset all their state in releaseElement().<br>
+     * Set to 0 to disable pooling (default). Reducing the capacity drops surplus objects.
+     * @param capacity
+     */
+    public void setPoolCapacity(int capacity) {
+        if(capacity < 0)
+            throw new IllegalArgumentException("Pool capacity must not be negative");
+        if(capacity > 0)
+            checkElementObjects();
+
+        poolCapacity = capacity;
+        if(pool.size() > capacity)
+            pool.subList(capacity, pool.size()).clear();
+        pool.trimToSize();
+    }
+
+    public int getPoolCapacity() {
+        return poolCapacity;
+    }
+
+    /**
+     * @return Number of released element objects currently available for reuse.
+     */
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    /**
+     * @return Number of created elements that reused a pooled object.
+     */
+    public long getPoolHits() {
+        return poolHits;
+    }
+
+    /**
+     * @return Number of created elements that needed a new object while pooling was enabled.
+     */
+    public long getPoolMisses() {
+        return poolMisses;
+    }
+
+    public void resetPoolStats() {
+        poolHits = 0;
+        poolMisses = 0;
+    }
+
+
+    private E newElement() {
+        int size = pool.size();
+        if(size > 0) {
+            poolHits++;
+            return pool.remove(size-1);
+        }
+
+        if(poolCapacity > 0)
+            poolMisses++;
+
+        E element = factory.createElement();
+        if(elementType == null)
+            elementType = element.getClass();
+        return element;
+    }
+
+    /**
+     * @param element Released element.
+     */
+    private void recycle(E element) {
+        if(pool.size() < poolCapacity)
+            pool.add(element);
+    }
+
+
+    private void modified() {
         modCount++;
+        structureVersion++;
+    }
+
+
+    /**
+     * Starts a section in which multiple threads can create and destroy elements with {@link #create()} and
+     * {@link #destroy(Element)}. The other methods are not thread-safe and must not be used until {@link #endConcurrent()}.
+     * Each thread must only access its own elements.<br>
+     * Capacity for <i>reserve</i> new elements is allocated up front, so the attribute arrays are not reallocated during
+     * the section. Threads claim slabs of the reserved slots without locking. Free slots are not reused. Creating more elements
+     * than reserved throws an IllegalStateException. The reserve includes slack for as many threads as the common ForkJoinPool
+     * or the number of processors allows, whichever is larger.<br>
+     * Destroyed slots are left empty (see {@link #setStableIndices(boolean)}). During the section, {@link #size()} includes
+     * the unused reserved slots. The version changes once when the section ends. Not supported with virtual tail.<br>
+     * Attributes that pack the values of multiple elements into one array entry, like {@link ch.alchemists.jbmesh.data.property.BitAttribute},
+     * can't be written per element during the section and throw an IllegalStateException (see {@link BMeshAttribute#isConcurrent()}).
+     * @param reserve Maximum number of elements that are created during the section.
+     */
+    public void beginConcurrent(int reserve) {
+        if(reserve < 0)
+            throw new IllegalArgumentException("Reserve must not be negative");
+        if(concurrent)
+            throw new IllegalStateException("Concurrent section already active");
+        checkElementObjects();
+        if(virtualTail)
+            throw new IllegalStateException("Concurrent section can't be used with virtual tail");
+
+        concurrentRestoreIndices = !stableIndices;
+        setStableIndices(true);
+        concurrentModified = false;
+
+        // Slack for partially used slabs: Each thread can leave up to one slab unused
+        int numThreads = Math.max(Runtime.getRuntime().availableProcessors(), ForkJoinPool.getCommonPoolParallelism()) + 1;
+        int slack = (reserve > 0) ? SLAB_SIZE * numThreads : 0;
+        reservedStart = elements.size();
+        reservedEnd = reservedStart + reserve + slack;
+        ensureCapacity(reservedEnd);
+        for(int i=reservedStart; i<reservedEnd; ++i)
+            elements.add(null);
+
+        concurrentVersions = new long[numAttributes];
+        for(int i=0; i<numAttributes; ++i) {
+            concurrentVersions[i] = attributeList[i].getVersion();
+            attributeList[i].concurrent = true;
+        }
+
+        nextSlab.set(reservedStart);
+        slab = ThreadLocal.withInitial(() -> new int[2]);
+        concurrent = true;
+    }
+
+    /**
+     * Ends the concurrent section, see {@link #beginConcurrent(int)}. Must be called after all threads have finished.<br>
+     * Concurrent writes to attributes can lose updates of their dirty range. Attributes whose version changed during
+     * the section are therefore marked dirty over the whole range.<br>
+     * Unused reserved slots at the end are removed and the others become free slots.
+     * If stable indices were disabled before the section, the data is compacted, which changes indices.
+     */
+    public void endConcurrent() {
+        if(!concurrent)
+            throw new IllegalStateException("No concurrent section active");
+
+        concurrent = false;
+        slab = null;
+        for(int i=0; i<numAttributes; ++i)
+            attributeList[i].concurrent = false;
+
+        int end = elements.size();
+        while(end > reservedStart && elements.get(end-1) == null)
+            end--;
+        elements.subList(end, elements.size()).clear();
+
+        for(int i=reservedStart; i<end; ++i) {
+            if(elements.get(i) == null)
+                addFreeSlot(i);
+        }
+
+        for(int i=0; i<concurrentVersions.length && i<numAttributes; ++i) {
+            if(attributeList[i].getVersion() != concurrentVersions[i])
+                attributeList[i].setDirty(0, elements.size());
+        }
+        concurrentVersions = null;
+
+        // Threads only flagged the data as modified
+        if(concurrentModified)
+            modified();
+        if(concurrentRestoreIndices)
+            setStableIndices(false);
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+
+    private void checkNotConcurrent() {
+        if(concurrent)
+            throw new IllegalStateException("Not allowed in concurrent section");
+    }
+
+
+    private E createConcurrent() {
+        int[] range = slab.get();
+        if(range[0] == range[1]) {
+            int start = nextSlab.getAndAdd(SLAB_SIZE);
+            if(start >= reservedEnd)
+                throw new IllegalStateException("Reserved capacity of concurrent section exceeded");
+
+            range[0] = start;
+            range[1] = Math.min(start + SLAB_SIZE, reservedEnd);
+        }
+
+        // The pool is not thread-safe
+        E element = factory.createElement();
+        element.setIndex(range[0]++);
+        elements.set(element.getIndex(), element);
+
+        concurrentModified = true;
+        return element;
+    }
+
+    private void destroyConcurrent(E element, int index) {
+        elements.set(index, null);
+        boolean virtual = element.checkFlags(Element.FLAG_VIRTUAL);
+        element.release();
+
+        synchronized(freeSlotLock) {
+            if(virtual)
+                numVirtual--;
+            // Reserved slots are collected in endConcurrent()
+            if(index < reservedStart)
+                addFreeSlot(index);
+            removeCount++;
+        }
+
+        concurrentModified = true;
+    }
+
+
+    private int grownCapacity() {
+        return Math.max((int) Math.ceil(arraySize * GROW_FACTOR), INITIAL_ARRAY_SIZE);
     }
 
 
     public E create() {
+        if(concurrent)
+            return createConcurrent();
+        if(!elementObjects)
+            return slot(createIndex());
+        if(numFree > 0)
+            return createInFreeSlot();
+
         int newIndex = elements.size();
-        if(newIndex >= arraySize) {
-            int capacity = (int) Math.ceil(arraySize * GROW_FACTOR);
-            ensureCapacity(capacity);
+        if(newIndex >= arraySize)
+            ensureCapacity(grownCapacity());
+
+        E element = newElement();
+        if(virtualTail && numVirtual > 0) {
+            // Move first virtual element to the end
+            int firstVirtual = newIndex - numVirtual;
+            moveElement(firstVirtual, newIndex);
+            elements.set(firstVirtual, element);
+            element.setIndex(firstVirtual);
+        }
+        else {
+            element.setIndex(newIndex);
+            elements.add(element);
         }
 
-        E element = factory.createElement();
-        element.setIndex(newIndex);
-        elements.add(element);
+        modified();
+        return element;
+    }
 
-        modCount++;
+    /**
+     * Creates an element without returning its object. Without element objects, this doesn't allocate.
+     * @return Index of the new element.
+     */
+    public int createIndex() {
+        if(elementObjects)
+            return create().getIndex();
+
+        int index;
+        if(numFree > 0) {
+            index = freeSlots[--numFree];
+            setFreeBit(index, false);
+        }
+        else {
+            index = numSlots;
+            if(index >= arraySize)
+                ensureCapacity(grownCapacity());
+            numSlots++;
+        }
+
+        modified();
+        return index;
+    }
+
+    /**
+     * Creates <i>count</i> elements with contiguous indices at the end of the data set.
+     * The attribute arrays are grown at most once. Free slots are not reused. With virtual tail, the elements are
+     * created before the virtual elements.
+     * @param count
+     * @return Index of the first new element.
+     */
+    public int createRange(int count) {
+        if(count < 0)
+            throw new IllegalArgumentException("Count must not be negative");
+        checkNotConcurrent();
+
+        final int oldSize = totalSize();
+        ensureCapacity(oldSize + count);
+
+        if(!elementObjects) {
+            numSlots += count;
+            modified();
+            return oldSize;
+        }
+
+        if(virtualTail && numVirtual > 0) {
+            // Make room before virtual tail: Move the virtual elements from [start, start+count) to the end
+            final int start = oldSize - numVirtual;
+            final int numMoved = Math.min(count, numVirtual);
+            for(int i=0; i<count; ++i)
+                elements.add(null);
+            for(int i=0; i<numMoved; ++i)
+                moveElement(start + i, oldSize + count - numMoved + i);
+
+            for(int i=0; i<count; ++i) {
+                E element = newElement();
+                element.setIndex(start + i);
+                elements.set(start + i, element);
+            }
+
+            modified();
+            return start;
+        }
+
+        final int start = oldSize;
+        for(int i=0; i<count; ++i) {
+            E element = newElement();
+            element.setIndex(start + i);
+            elements.add(element);
+        }
+
+        modified();
+        return start;
+    }
+
+    private E createInFreeSlot() {
+        int index = freeSlots[--numFree];
+        assert elements.get(index) == null;
+
+        E element = newElement();
+        element.setIndex(index);
+        elements.set(index, element);
+
+        modified();
         return element;
     }
 
+    /**
+     * Makes the next {@link #create()} use the slot at the given index. Requires stable indices.
+     * When called multiple times, the slots are reused in reverse order.<br>
+     * If the index is beyond the end of the data, the data is extended with free slots.
+     * If the slot holds a virtual element, the virtual element is moved to the end.
+     * @param index
+     * @throws IllegalStateException If the slot holds a non-virtual element.
+     */
+    public void reuseNext(int index) {
+        if(!stableIndices)
+            throw new IllegalStateException("Slots can only be reused with stable indices");
+        if(index < 0)
+            throw new IndexOutOfBoundsException("Index: " + index);
+        checkNotConcurrent();
+
+        int size = totalSize();
+        if(index >= size) {
+            ensureCapacity(index+1);
+            for(int i=size; i<=index; ++i) {
+                if(elementObjects)
+                    elements.add(null);
+                else
+                    setFreeBit(i, true);
+                if(i < index)
+                    addFreeSlot(i);
+            }
+
+            if(!elementObjects)
+                numSlots = index+1;
+            addFreeSlot(index);
+            modified();
+            return;
+        }
+
+        if(isAlive(index)) {
+            E element = elementObjects ? elements.get(index) : null;
+            if(element == null || !element.checkFlags(Element.FLAG_VIRTUAL))
+                throw new IllegalStateException("Slot " + index + " is in use");
+
+            int newIndex = elements.size();
+            ensureCapacity(newIndex+1);
+            moveElement(index, newIndex);
+            elements.set(index, null);
+            addFreeSlot(index);
+            modified();
+            removeCount++;
+        }
+
+        // Move to top of free-list
+        for(int i=numFree-1; i>=0; --i) {
+            if(freeSlots[i] == index) {
+                System.arraycopy(freeSlots, i+1, freeSlots, i, numFree-1-i);
+                freeSlots[numFree-1] = index;
+                return;
+            }
+        }
+
+        throw new IllegalStateException("Free slot " + index + " not found");
+    }
+
+
     public E createVirtual() {
-        E element = create();
+        checkNotConcurrent();
+        checkElementObjects();
+        E element;
+        if(virtualTail) {
+            // Append, don't move other virtual elements
+            int newIndex = elements.size();
+            if(newIndex >= arraySize)
+                ensureCapacity(grownCapacity());
+
+            element = newElement();
+            element.setIndex(newIndex);
+            elements.add(element);
+            modified();
+        }
+        else
+            element = create();
+
         element.setFlags(Element.FLAG_VIRTUAL);
         numVirtual++;
         return element;
@@ -109,25 +786,108 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         if(index < 0)
             return;
 
-        if(element.checkFlags(Element.FLAG_VIRTUAL))
+        if(!elementObjects) {
+            destroy(index);
+            element.release();
+            return;
+        }
+
+        if(concurrent) {
+            destroyConcurrent(element, index);
+            return;
+        }
+
+        boolean virtual = element.checkFlags(Element.FLAG_VIRTUAL);
+        if(virtual)
             numVirtual--;
 
-        // Move last element into this slot
+        if(stableIndices) {
+            destroyStable(element, index);
+            return;
+        }
+
         int lastIndex = elements.size() - 1;
-        if(index != lastIndex) {
-            E lastElement = elements.get(lastIndex);
-            copyAttributes(lastElement, element);
-            elements.set(index, lastElement);
-            lastElement.setIndex(index);
+        if(virtualTail && !virtual && numVirtual > 0) {
+            // Fill slot with last listed element, then fill its slot with last virtual element
+            int lastListed = lastIndex - numVirtual;
+            if(index != lastListed)
+                moveElement(lastListed, index);
+            moveElement(lastIndex, lastListed);
+        }
+        else if(index != lastIndex) {
+            // Move last element into this slot
+            moveElement(lastIndex, index);
         }
 
         elements.remove(lastIndex);
         element.release();
-        modCount++;
+        recycle(element);
+        modified();
+        removeCount++;
 
         // TODO: Reset attribute values?
     }
 
+    /**
+     * Destroys the element at the given index. Does nothing if the slot is free.
+     * @param index
+     */
+    public void destroy(int index) {
+        if(elementObjects) {
+            E element = elements.get(index);
+            if(element != null)
+                destroy(element);
+            return;
+        }
+
+        if(index < 0 || index >= numSlots)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numSlots);
+        if(isFreeBit(index))
+            return;
+
+        setFreeBit(index, true);
+        addFreeSlot(index);
+        modified();
+        removeCount++;
+    }
+
+    private void destroyStable(E element, int index) {
+        // Leave the slot empty
+        elements.set(index, null);
+        addFreeSlot(index);
+
+        element.release();
+        recycle(element);
+        modified();
+        removeCount++;
+    }
+
+
+    private void addFreeSlot(int index) {
+        if(numFree == freeSlots.length) {
+            int capacity = Math.max((int) Math.ceil(freeSlots.length * GROW_FACTOR), INITIAL_ARRAY_SIZE);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+
+        freeSlots[numFree++] = index;
+    }
+
+
+    /**
+     * Moves the element and its attribute data to another slot. The previous content of the target slot is overwritten.
+     */
+    private void moveElement(int from, int to) {
+        E element = elements.get(from);
+        if(to == elements.size())
+            elements.add(element);
+        else
+            elements.set(to, element);
+
+        element.setIndex(to);
+        for(int i=0; i<numAttributes; ++i)
+            attributeList[i].copyIndex(from, to);
+    }
+
 
     public void addAttribute(BMeshAttribute<E, ?> attribute) {
         Objects.requireNonNull(attribute);
@@ -140,7 +900,7 @@ public class BMeshData<E extends Element> implements Iterable<E> {
 
         Object oldArray = attribute.allocReplace(arraySize);
         assert oldArray == null;
-        attributes.put(attribute.name, attribute);
+        registerAttribute(attribute);
     }
 
     public <TArray> void addAttribute(BMeshAttribute<E, TArray> attribute, TArray data) {
@@ -153,12 +913,53 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         if(attribute.data != null)
             throw new IllegalStateException("Attribute '" + attribute.name + "' already associated with another data set");
 
-        int len = Array.getLength(data);
+        int len = attribute.getLength(data);
         if(len != arraySize * attribute.numComponents)
             throw new IllegalArgumentException("Array length (" + (len/attribute.numComponents) + ") does not match managed length (" + arraySize + ")");
 
         attribute.data = data;
+        attribute.setDirty(0, arraySize);
+        registerAttribute(attribute);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Element> BMeshAttribute<E, ?>[] newAttributeArray(int length) {
+        return (BMeshAttribute<E, ?>[]) new BMeshAttribute[length];
+    }
+
+    private void registerAttribute(BMeshAttribute<E, ?> attribute) {
+        int slot = 0;
+        while(slot < attributeSlots.length && attributeSlots[slot] != null)
+            slot++;
+
+        if(slot == attributeSlots.length)
+            attributeSlots = Arrays.copyOf(attributeSlots, attributeSlots.length * 2);
+        if(numAttributes == attributeList.length)
+            attributeList = Arrays.copyOf(attributeList, attributeList.length * 2);
+
+        attribute.slot = slot;
+        attribute.concurrent = concurrent;
+        attributeSlots[slot] = attribute;
+        attributeList[numAttributes++] = attribute;
         attributes.put(attribute.name, attribute);
+        schemaVersion++;
+    }
+
+    private void unregisterAttribute(BMeshAttribute<E, ?> attribute) {
+        attributeSlots[attribute.slot] = null;
+        schemaVersion += attribute.getVersion() + 1;
+
+        // Keep registration order
+        for(int i=0; i<numAttributes; ++i) {
+            if(attributeList[i] == attribute) {
+                System.arraycopy(attributeList, i+1, attributeList, i, numAttributes-i-1);
+                attributeList[--numAttributes] = null;
+                break;
+            }
+        }
+
+        attribute.release();
     }
 
 
@@ -167,6 +968,25 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         return attributes.get(name);
     }
 
+    /**
+     * @param slot See {@link BMeshAttribute#getSlot()}.
+     * @return The attribute registered with the given slot id, or <i>null</i>.
+     */
+    public BMeshAttribute<E, ?> getAttribute(int slot) {
+        return (slot >= 0 && slot < attributeSlots.length) ? attributeSlots[slot] : null;
+    }
+
+    /**
+     * @return A copy of the list of registered attributes, in the order they were added.
+     */
+    public List<BMeshAttribute<E, ?>> getAttributes() {
+        return new ArrayList<>(Arrays.asList(attributeList).subList(0, numAttributes));
+    }
+
+    public int getNumAttributes() {
+        return numAttributes;
+    }
+
     @SuppressWarnings("unchecked")
     public <TArray> BMeshAttribute<E, TArray> getAttribute(String name, Class<TArray> arrayType) {
         BMeshAttribute<E, TArray> attribute = (BMeshAttribute<E, TArray>) attributes.get(name);
@@ -174,7 +994,7 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         if(attribute == null)
             return null;
 
-        if(attribute.data.getClass() != arrayType)
+        if(!arrayType.isInstance(attribute.data))
             throw new ClassCastException("Attribute data type does not match requested type");
 
         return attribute;
@@ -182,23 +1002,30 @@ public class BMeshData<E extends Element> implements Iterable<E> {
 
 
     public void removeAttribute(BMeshAttribute<E, ?> attribute) {
-        if(attributes.remove(attribute.name) != null)
-            attribute.release();
-        else
+        if(attributes.get(attribute.name) != attribute)
             throw new IllegalArgumentException("Attribute not associated with this data set");
+
+        attributes.remove(attribute.name);
+        unregisterAttribute(attribute);
     }
 
     public BMeshAttribute<E, ?> removeAttribute(String name) {
         BMeshAttribute<E, ?> attribute = attributes.remove(name);
         if(attribute != null)
-            attribute.release();
+            unregisterAttribute(attribute);
         return attribute;
     }
 
 
     public void clearAttributes() {
-        for(BMeshAttribute<E, ?> attribute : attributes.values())
-            attribute.release();
+        for(int i=0; i<numAttributes; ++i) {
+            schemaVersion += attributeList[i].getVersion() + 1;
+            attributeList[i].release();
+            attributeList[i] = null;
+        }
+
+        Arrays.fill(attributeSlots, null);
+        numAttributes = 0;
         attributes.clear();
     }
 
@@ -209,7 +1036,8 @@ public class BMeshData<E extends Element> implements Iterable<E> {
      * @param minCapacity the desired minimum capacity
      */
     public void ensureCapacity(int minCapacity) {
-        elements.ensureCapacity(minCapacity);
+        if(elementObjects)
+            elements.ensureCapacity(minCapacity);
 
         if(arraySize < minCapacity)
             resize(minCapacity, arraySize);
@@ -221,15 +1049,16 @@ public class BMeshData<E extends Element> implements Iterable<E> {
      * @param count the desired number of elements to reserve space for
      */
     public void reserveCapacity(int count) {
-        ensureCapacity(elements.size() + count);
+        ensureCapacity(totalSize() + count);
     }
 
 
     private void resize(int size, int copyLength) {
-        for(BMeshAttribute<E, ?> attribute : attributes.values()) {
-            attribute.realloc(size, copyLength);
-        }
+        for(int i=0; i<numAttributes; ++i)
+            attributeList[i].realloc(size, copyLength);
 
+        if(!elementObjects)
+            freeBits = Arrays.copyOf(freeBits, (size + 63) >>> 6);
         arraySize = size;
     }
 
@@ -237,22 +1066,77 @@ public class BMeshData<E extends Element> implements Iterable<E> {
     // TODO: Rename to trimToSize()?
     // TODO: The arrays don't really need to be trimmed after each change. The size of the target OpenGL buffers matters more.
     //         -> Only write necessary data but allow arrays to be longer.
-    public void compactData() {
-        int numElements = elements.size();
+    /**
+     * Trims the attribute arrays to the number of elements.
+     * With stable indices, the free slots are removed first. This changes the indices of elements
+     * but keeps their relative order.
+     * @return Remap table (old index =&gt; new index, -1 for free slots),
+     *         or <i>null</i> if no element indices were changed.
+     */
+    public int[] compactData() {
+        checkNotConcurrent();
+        int[] remap = null;
+        if(numFree > 0)
+            remap = removeFreeSlots();
+
+        int numElements = totalSize();
         //elements.trimToSize();
 
         if(arraySize != numElements) {
             resize(numElements, numElements);
             arraySize = numElements;
-            modCount++;
+            modified();
+            removeCount++;
         }
+
+        return remap;
+    }
+
+
+    private int[] removeFreeSlots() {
+        final int oldSize = totalSize();
+        int[] remap = new int[oldSize];
+        int dest = 0;
+
+        for(int i=0; i<oldSize; ++i) {
+            E element = elementObjects ? elements.get(i) : null;
+            boolean free = elementObjects ? (element == null) : isFreeBit(i);
+            if(free) {
+                remap[i] = -1;
+                continue;
+            }
+
+            if(i != dest) {
+                for(int a=0; a<numAttributes; ++a)
+                    attributeList[a].copyIndex(i, dest);
+
+                if(element != null) {
+                    elements.set(dest, element);
+                    element.setIndex(dest);
+                }
+            }
+
+            remap[i] = dest++;
+        }
+
+        if(elementObjects)
+            elements.subList(dest, oldSize).clear();
+        else {
+            numSlots = dest;
+            Arrays.fill(freeBits, 0);
+        }
+        numFree = 0;
+        modified();
+        removeCount++;
+
+        return remap;
     }
 
 
     public <TArray> TArray getCompactData(BMeshAttribute<E, TArray> attribute) {
-        final int size = elements.size() * attribute.numComponents;
+        final int size = totalSize() * attribute.numComponents;
         TArray array = attribute.alloc(size);
-        System.arraycopy(attribute.data, 0, array, 0, size);
+        attribute.copyRange(attribute.data, 0, array, 0, size);
         return array;
     }
 
@@ -263,6 +1147,13 @@ public class BMeshData<E extends Element> implements Iterable<E> {
     }
 
 
+    /**
+     * Reorders the elements and permutes the attribute data in place. Element indices are reassigned.
+     * Free slots are removed first.<br>
+     * See {@link ch.alchemists.jbmesh.operator.MeshOps#optimizeLocality(ch.alchemists.jbmesh.structure.BMesh)} for orderings
+     * that improve memory locality.
+     * @param comparator
+     */
     public void sort(Comparator<E> comparator) {
         // Sort backing arrays, reassign element indices
         // For optimizing OpenGL performance? Does this matter?
@@ -271,12 +1162,397 @@ public class BMeshData<E extends Element> implements Iterable<E> {
         // e.g. sort vertices by face for better cache utilisation, sort loops by face
         // https://gamedev.stackexchange.com/questions/59163/is-creating-vertex-index-buffer-optimized-this-way
 
-        // Also provide back-to-front sorting for indices
+        // TODO: Also provide back-to-front sorting for indices
+
+        checkElementObjects();
+        if(numFree > 0)
+            removeFreeSlots();
+
+        if(virtualTail)
+            comparator = Comparator.<E, Boolean>comparing(e -> !e.isListed()).thenComparing(comparator);
+
+        final int size = elements.size();
+        ArrayList<E> sorted = new ArrayList<>(elements);
+        sorted.sort(comparator);
+
+        int[] oldIndices = new int[size];
+        for(int i=0; i<size; ++i)
+            oldIndices[i] = sorted.get(i).getIndex();
+
+        boolean[] visited = new boolean[size];
+        for(int i=0; i<numAttributes; ++i) {
+            attributeList[i].permute(oldIndices, visited);
+            Arrays.fill(visited, false);
+        }
+
+        for(int i=0; i<size; ++i) {
+            E element = sorted.get(i);
+            elements.set(i, element);
+            element.setIndex(i);
+        }
+
+        modified();
+        removeCount++;
+    }
+
+
+    /**
+     * The version increases with every modification of elements and attribute values (when marked dirty),
+     * and when attributes are added or removed. It never decreases.
+     * Computing it takes O(number of attributes).
+     * @return
+     */
+    public long getVersion() {
+        long version = structureVersion + schemaVersion;
+        for(int i=0; i<numAttributes; ++i)
+            version += attributeList[i].getVersion();
+        return version;
+    }
+
+
+    /**
+     * Replaces the content of this data set with a copy of <i>source</i>. Elements are created with the same indices,
+     * flags and free slots, and the attribute data is copied in bulk. Attributes that don't exist here are created
+     * with {@link BMeshAttribute#newInstance()}, existing ones with the same name are reused and others are removed.<br>
+     * Reusing a data set avoids reallocating the attribute arrays, and with pooling (see {@link #setPoolCapacity(int)})
+     * the element objects.<br>
+     * References between elements are not copied, the caller must relink them by index.
+     * @param source
+     */
+    public void copyFrom(BMeshData<E> source) {
+        copyFrom(source, null);
+    }
+
+    /**
+     * Like {@link #copyFrom(BMeshData)}, but attributes that weren't modified since <i>previous</i> was copied
+     * from the same source use the array of <i>previous</i> instead of a copy. This requires that no elements
+     * were created or destroyed in the source since then. Attribute values must be marked dirty when they are
+     * modified (the setters of all attribute types do this), otherwise the modification is not detected.<br>
+     * Shared arrays must not be modified through either data set. A later copyFrom() allocates a new array
+     * before writing to a shared one.
+     * @param source
+     * @param previous An earlier copy of <i>source</i>, or <i>null</i>.
+     */
+    public void copyFrom(BMeshData<E> source, BMeshData<E> previous) {
+        if(source == this || previous == this)
+            throw new IllegalArgumentException("Can't copy from itself");
+        if(source.elementObjects != elementObjects)
+            throw new IllegalArgumentException("Source must use the same element object mode");
+
+        // Arrays of the previous copy can only be used if the elements are the same
+        if(previous != null && (previous.copySource != source || previous.copySourceStructureVersion != source.structureVersion))
+            previous = null;
+
+        final CopiedArray[] oldCopiedArrays = copiedArrays;
+        copiedArrays = new CopiedArray[source.numAttributes];
+
+        clear();
+        stableIndices = source.stableIndices;
+        virtualTail = source.virtualTail;
+
+        for(int i=numAttributes-1; i>=0; --i) {
+            if(!source.attributes.containsKey(attributeList[i].name))
+                removeAttribute(attributeList[i]);
+        }
+
+        final int totalSize = source.totalSize();
+        if(previous != null && previous.copyArraySize != arraySize) {
+            // Same array length as the previous copy
+            if(elementObjects)
+                elements.ensureCapacity(previous.copyArraySize);
+            resize(previous.copyArraySize, 0);
+        }
+        else
+            ensureCapacity(totalSize);
+
+        if(!elementObjects) {
+            numSlots = totalSize;
+            System.arraycopy(source.freeBits, 0, freeBits, 0, (totalSize + 63) >>> 6);
+        }
+
+        for(int i=0; i<source.elements.size(); ++i) {
+            E sourceElement = source.elements.get(i);
+            if(sourceElement == null) {
+                elements.add(null);
+                continue;
+            }
+
+            E element = newElement();
+            element.setIndex(i);
+            element.setFlags(sourceElement.getFlags());
+            elements.add(element);
+        }
+
+        numVirtual = source.numVirtual;
+        numFree = source.numFree;
+        if(freeSlots.length < numFree)
+            freeSlots = new int[source.freeSlots.length];
+        System.arraycopy(source.freeSlots, 0, freeSlots, 0, numFree);
+
+        for(int i=0; i<source.numAttributes; ++i)
+            copiedArrays[i] = copyAttributeData(source.attributeList[i], totalSize, previous, oldCopiedArrays);
+
+        copySource = source;
+        copySourceStructureVersion = source.structureVersion;
+        copyArraySize = arraySize;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <TArray> CopiedArray copyAttributeData(BMeshAttribute<E, TArray> sourceAttribute, int totalSize, BMeshData<E> previous, CopiedArray[] oldCopiedArrays) {
+        BMeshAttribute<E, TArray> attribute = (BMeshAttribute<E, TArray>) attributes.get(sourceAttribute.name);
+        if(attribute == null) {
+            attribute = sourceAttribute.newInstance();
+            // Subclass of a built-in attribute that inherits its newInstance()
+            if(attribute.getClass() != sourceAttribute.getClass())
+                attribute = sourceAttribute.newInstanceByConstructor();
+            attribute.setComparable(sourceAttribute.isComparable());
+            addAttribute(attribute);
+        }
+        else if(attribute.getClass() != sourceAttribute.getClass() || attribute.numComponents != sourceAttribute.numComponents)
+            throw new IllegalStateException("Attribute '" + attribute.name + "' exists with different type");
+
+        final long version = sourceAttribute.getVersion();
+        CopiedArray unchanged = (previous != null) ? findCopiedArray(previous.copiedArrays, sourceAttribute) : null;
+        boolean shared = false;
+
+        if(unchanged != null && unchanged.version == version && unchanged.type == attribute.getClass()) {
+            attribute.data = (TArray) unchanged.array;
+            unchanged.shared = true;
+            shared = true;
+        }
+        else {
+            // Don't overwrite values of another copy
+            for(CopiedArray copied : oldCopiedArrays) {
+                if(copied.array == attribute.data && copied.shared) {
+                    attribute.allocReplace(arraySize);
+                    break;
+                }
+            }
+
+            attribute.copyRange(sourceAttribute.data, 0, attribute.data, 0, totalSize * attribute.numComponents);
+        }
+
+        attribute.setDirty(0, totalSize);
+        return new CopiedArray(sourceAttribute, version, attribute.getClass(), attribute.data, shared);
+    }
+
+    private static CopiedArray findCopiedArray(CopiedArray[] copiedArrays, BMeshAttribute<?, ?> sourceAttribute) {
+        for(CopiedArray copied : copiedArrays) {
+            if(copied.source == sourceAttribute)
+                return copied;
+        }
+        return null;
+    }
+
+
+    /**
+     * Writes the element states and all attributes as contiguous blocks. Attributes with object values
+     * (ObjectAttribute, ObjectTupleAttribute) can't be stored and are skipped.
+     * @param out
+     * @throws IOException
+     */
+    public void write(BinaryWriter out) throws IOException {
+        final int totalSize = totalSize();
+        out.writeInt(totalSize);
+        out.writeBoolean(stableIndices);
+        out.writeBoolean(virtualTail);
+
+        // Flags per element, -1 for free slots
+        int[] flags = new int[totalSize];
+        for(int i=0; i<totalSize; ++i) {
+            if(elementObjects) {
+                E element = elements.get(i);
+                flags[i] = (element != null) ? element.getFlags() : -1;
+            }
+            else
+                flags[i] = isFreeBit(i) ? -1 : 0;
+        }
+        out.writeArray(flags, totalSize);
+
+        int numWritten = 0;
+        for(int i=0; i<numAttributes; ++i) {
+            if(isWritable(attributeList[i]))
+                numWritten++;
+        }
+
+        out.writeInt(numWritten);
+        for(int i=0; i<numAttributes; ++i) {
+            BMeshAttribute<E, ?> attribute = attributeList[i];
+            if(!isWritable(attribute))
+                continue;
+
+            out.writeString(attribute.name);
+            out.writeString(attribute.getClass().getName());
+            out.writeInt(attribute.numComponents);
+            out.writeBoolean(attribute.isComparable());
+            out.writeArray(attribute.data, usedArrayLength(attribute, totalSize));
+        }
+    }
+
+    private static boolean isWritable(BMeshAttribute<?, ?> attribute) {
+        Object data = attribute.data;
+        return data instanceof FloatBuffer || (data.getClass().isArray() && data.getClass().getComponentType().isPrimitive());
+    }
+
+    /**
+     * @return Length of the storage used by <i>totalSize</i> elements, in units of the storage object
+     *         (differs from value count for bit-packed attributes).
+     */
+    private static <E extends Element, TArray> int usedArrayLength(BMeshAttribute<E, TArray> attribute, int totalSize) {
+        TArray data = attribute.data;
+        long storageLength = (data instanceof Buffer) ? ((Buffer) data).capacity() : Array.getLength(data);
+        long numValues = attribute.getLength(data);
+        long used = (long) totalSize * attribute.numComponents;
+        return (int) ((used * storageLength + numValues - 1) / Math.max(numValues, 1));
+    }
+
+
+    /**
+     * Replaces the content of this data set with data written by {@link #write(BinaryWriter)}.
+     * The capacity is set to exactly the number of stored elements. FloatBuffer attributes are created from
+     * {@link BinaryReader#mapFloats()}, other arrays are filled with bulk copies.<br>
+     * Attributes that don't exist here are created by reflection using a public constructor with arguments
+     * (String name) or (String name, int components). The class must be a subclass of BMeshAttribute that is visible
+     * to the class loader of the library. It is not initialized before this is verified. Existing attributes with
+     * the same name are reused.
+     * References between elements must be restored by the caller.
+     * @param in
+     * @throws IOException
+     */
+    public void read(BinaryReader in) throws IOException {
+        clear();
+
+        final int totalSize = in.readInt();
+        if(totalSize < 0)
+            throw new IOException("Invalid element count");
+
+        boolean stable = in.readBoolean();
+        boolean tail = in.readBoolean();
+        stableIndices = false;
+        virtualTail = false;
+
+        if(in.beginBlock() != BinaryWriter.TYPE_INT || in.getBlockLength() != totalSize)
+            throw new IOException("Invalid element flags");
+        int[] flags = new int[totalSize];
+        in.readArray(flags);
+
+        // Exact capacity so stored arrays can be attached as they are
+        resize(totalSize, 0);
+        if(elementObjects)
+            elements.ensureCapacity(totalSize);
+        else
+            numSlots = totalSize;
+
+        for(int i=0; i<totalSize; ++i) {
+            if(flags[i] == -1) {
+                if(elementObjects)
+                    elements.add(null);
+                else
+                    setFreeBit(i, true);
+
+                addFreeSlot(i);
+                continue;
+            }
+
+            if(!elementObjects) {
+                if((flags[i] & Element.FLAG_VIRTUAL) != 0)
+                    throw new IOException("Virtual elements require element objects");
+                continue;
+            }
+
+            E element = newElement();
+            element.setIndex(i);
+            element.setFlags(flags[i]);
+            elements.add(element);
+
+            if(!element.isListed())
+                numVirtual++;
+        }
+
+        stableIndices = stable || !elementObjects;
+        virtualTail = tail && elementObjects;
+        modified();
+        removeCount++;
+
+        final int numStored = in.readInt();
+        for(int i=0; i<numStored; ++i) {
+            String name = in.readString();
+            String className = in.readString();
+            int numComponents = in.readInt();
+            boolean comparable = in.readBoolean();
+            in.beginBlock();
+
+            readAttribute(in, name, className, numComponents, comparable, totalSize);
+        }
+    }
+
+    private void readAttribute(BinaryReader in, String name, String className, int numComponents, boolean comparable, int totalSize) throws IOException {
+        BMeshAttribute<E, ?> attribute = attributes.get(name);
+        if(attribute != null) {
+            if(!attribute.getClass().getName().equals(className) || attribute.numComponents != numComponents)
+                throw new IOException("Attribute '" + name + "' exists with different type");
+        }
+        else {
+            attribute = createAttribute(className, name, numComponents);
+            attribute.setComparable(comparable);
+
+            if(in.getBlockLength() == totalSize * numComponents && isFloatBufferAttribute(attribute)) {
+                addMappedAttribute(attribute, in.mapFloats());
+                return;
+            }
+
+            addAttribute(attribute);
+        }
+
+        if(in.getBlockLength() != usedArrayLength(attribute, totalSize))
+            throw new IOException("Invalid data length for attribute '" + name + "'");
+
+        in.readArray(attribute.data);
+        attribute.setDirty(0, totalSize);
+    }
+
+    private static boolean isFloatBufferAttribute(BMeshAttribute<?, ?> attribute) {
+        return attribute.alloc(0) instanceof FloatBuffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addMappedAttribute(BMeshAttribute<E, ?> attribute, FloatBuffer buffer) {
+        addAttribute((BMeshAttribute<E, FloatBuffer>) attribute, buffer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Element> BMeshAttribute<E, ?> createAttribute(String className, String name, int numComponents) throws IOException {
+        try {
+            // Don't run static initializers of arbitrary classes named in the file
+            Class<?> type = Class.forName(className, false, BMeshData.class.getClassLoader());
+            if(!BMeshAttribute.class.isAssignableFrom(type) || Modifier.isAbstract(type.getModifiers()))
+                throw new IOException("Not an attribute type: " + className);
+
+            BMeshAttribute<E, ?> attribute = (BMeshAttribute<E, ?>) BMeshAttribute.instantiate(type, name, numComponents);
+            if(attribute.numComponents != numComponents)
+                throw new IOException("Attribute '" + name + "' has a different number of components");
+            return attribute;
+        }
+        catch(ReflectiveOperationException ex) {
+            throw new IOException("Can't create attribute '" + name + "' of type " + className, ex);
+        }
+    }
+
+
+    /**
+     * Creates a report of the estimated heap usage. Doesn't iterate the elements.
+     * @return
+     */
+    public MemoryReport getMemoryReport() {
+        return new MemoryReport(this, elementObjects ? elementType : null, numVirtual, numFree, arraySize, pool.size(), freeSlots.length,
+                                elementObjects ? -1 : freeBits.length, attributeList, numAttributes);
     }
 
 
     public boolean equals(E a, E b) {
-        for(BMeshAttribute<E, ?> attr : attributes.values()) {
+        final BMeshAttribute<E, ?>[] list = attributeList;
+        for(int i=0; i<numAttributes; ++i) {
+            BMeshAttribute<E, ?> attr = list[i];
             if(attr.isComparable() && !attr.equals(a, b))
                 return false;
         }
@@ -286,19 +1562,40 @@ public class BMeshData<E extends Element> implements Iterable<E> {
 
 
     public void copyAttributes(E from, E to) {
-        for(BMeshAttribute<E, ?> attr : attributes.values()) {
-            attr.copy(from, to);
-        }
+        final BMeshAttribute<E, ?>[] list = attributeList;
+        for(int i=0; i<numAttributes; ++i)
+            list[i].copy(from, to);
     }
 
 
 
+    private static final class CopiedArray {
+        private final BMeshAttribute<?, ?> source;
+        private final long version;
+        private final Class<?> type;
+        private final Object array;
+        private boolean shared;
+
+        private CopiedArray(BMeshAttribute<?, ?> source, long version, Class<?> type, Object array, boolean shared) {
+            this.source = source;
+            this.version = version;
+            this.type = type;
+            this.array = array;
+            this.shared = shared;
+        }
+    }
+
+
     private class ElementIterator implements Iterator<E> {
         private final int expectedModCount;
+        private final int fence;
+        private final boolean dense;
         private int index = -1;
 
         private ElementIterator() {
             expectedModCount = modCount;
+            fence = listedEnd();
+            dense = isDense();
             skipToNextListed();
         }
 
@@ -307,22 +1604,154 @@ public class BMeshData<E extends Element> implements Iterable<E> {
             if(modCount != expectedModCount)
                 throw new ConcurrentModificationException();
 
-            return index < elements.size();
+            return index < fence;
         }
 
         @Override
         public E next() {
             if(modCount != expectedModCount)
                 throw new ConcurrentModificationException();
+            if(index >= fence)
+                throw new NoSuchElementException();
 
-            E element = elements.get(index);
+            E element = slot(index);
             skipToNextListed();
             return element;
         }
 
         private void skipToNextListed() {
-            // Skip to next listed element (alive and non-virtual)
-            while(++index < elements.size() && !elements.get(index).isListed()) {}
+            if(dense)
+                ++index;
+            else {
+                // Skip to next listed element (alive and non-virtual)
+                while(++index < fence && !isListedSlot(index)) {}
+            }
+        }
+    }
+
+
+
+    private class SnapshotIterator implements Iterator<E> {
+        private final int expectedRemoveCount;
+        private final int fence;
+        private int index = -1;
+
+        private SnapshotIterator() {
+            expectedRemoveCount = removeCount;
+            fence = listedEnd();
+            skipToNextListed();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(removeCount != expectedRemoveCount)
+                throw new ConcurrentModificationException();
+
+            return index < fence;
+        }
+
+        @Override
+        public E next() {
+            if(removeCount != expectedRemoveCount)
+                throw new ConcurrentModificationException();
+            if(index >= fence)
+                throw new NoSuchElementException();
+
+            E element = slot(index);
+            skipToNextListed();
+            return element;
+        }
+
+        private void skipToNextListed() {
+            // Virtual elements can be created in free slots, so always check
+            while(++index < fence && !isListedSlot(index)) {}
+        }
+    }
+
+
+    private static boolean isListed(Element element) {
+        return element != null && element.isListed();
+    }
+
+    private boolean isListedSlot(int index) {
+        return elementObjects ? isListed(elements.get(index)) : !isFreeBit(index);
+    }
+
+
+
+    private class ElementSpliterator implements Spliterator<E> {
+        private static final int MIN_SPLIT_SIZE = 1024;
+
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+        private final boolean dense;
+
+        private ElementSpliterator(int origin, int fence, boolean dense, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.dense = dense;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            while(index < fence) {
+                int i = index++;
+                if(dense || isListedSlot(i)) {
+                    action.accept(slot(i));
+                    checkModCount();
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if(dense) {
+                for(; index < fence; ++index)
+                    action.accept(slot(index));
+            }
+            else {
+                for(; index < fence; ++index) {
+                    if(isListedSlot(index))
+                        action.accept(slot(index));
+                }
+            }
+
+            checkModCount();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int size = fence - index;
+            if(size < MIN_SPLIT_SIZE)
+                return null;
+
+            int mid = index + (size >>> 1);
+            Spliterator<E> prefix = new ElementSpliterator(index, mid, dense, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | DISTINCT | NONNULL;
+            if(dense)
+                characteristics |= SIZED | SUBSIZED;
+            return characteristics;
+        }
+
+        private void checkModCount() {
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
         }
     }
-}
\ No newline at end of file
+}
@@ -54,6 +54,10 @@ public abstract class Element {
         this.flags &= ~flags;
     }
 
+    final int getFlags() {
+        return flags;
+    }
+
     final boolean checkFlags(int flags) {
         return (this.flags & flags) == flags;
     }
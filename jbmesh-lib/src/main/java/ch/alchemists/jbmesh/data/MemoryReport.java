@@ -0,0 +1,240 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estimated heap usage of a {@link BMeshData} at the time the report was created.
+ * Creating a report doesn't iterate the elements and is cheap enough for continuous sampling.<br>
+ * Sizes assume a 64 bit JVM with compressed references (12 byte object header, 16 byte array header,
+ * 4 byte references, 8 byte alignment). Objects referenced from ObjectAttributes are not included.
+ */
+public class MemoryReport {
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER  = 16;
+    static final int REFERENCE     = 4;
+
+
+    public static class AttributeUsage {
+        public final String name;
+        public final int numComponents;
+        public final Class<?> arrayType;
+
+        /**
+         * Allocated size of the data array.
+         */
+        public final long bytes;
+
+        /**
+         * Part of the data array in use by elements, virtual elements and free slots.
+         */
+        public final long usedBytes;
+
+        private AttributeUsage(String name, int numComponents, Class<?> arrayType, long bytes, long usedBytes) {
+            this.name = name;
+            this.numComponents = numComponents;
+            this.arrayType = arrayType;
+            this.bytes = bytes;
+            this.usedBytes = usedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + arrayType.getSimpleName() + ", " + numComponents + " components): " + usedBytes + " / " + bytes + " bytes";
+        }
+    }
+
+
+    public final Class<?> elementType;
+
+    public final int size;
+    public final int numVirtual;
+    public final int numFreeSlots;
+    public final int totalSize;
+    public final int capacity;
+    public final int poolSize;
+
+    /**
+     * Estimated size of the element objects (alive, virtual and pooled) and the lists holding them.
+     * Without element objects, the size of the slot states.
+     */
+    public final long elementBytes;
+
+    /**
+     * Free-list of stable indices.
+     */
+    public final long freeListBytes;
+
+    private final List<AttributeUsage> attributes;
+    private final long attributeBytes;
+    private final long usedAttributeBytes;
+
+
+    MemoryReport(BMeshData<?> data, Class<?> elementType, int numVirtual, int numFreeSlots, int capacity,
+                 int poolSize, int freeListLength, int freeBitsLength, BMeshAttribute<?, ?>[] attributeList, int numAttributes) {
+        this.elementType = elementType;
+        this.size = data.size();
+        this.numVirtual = numVirtual;
+        this.numFreeSlots = numFreeSlots;
+        this.totalSize = data.totalSize();
+        this.capacity = capacity;
+        this.poolSize = poolSize;
+
+        int numObjects = totalSize - numFreeSlots + poolSize;
+        long elementObjectBytes = (elementType != null) ? shallowSize(elementType) : 0;
+        if(freeBitsLength >= 0)
+            elementBytes = arraySize(8, freeBitsLength); // Without element objects
+        else
+            elementBytes = numObjects * elementObjectBytes + arraySize(REFERENCE, totalSize) + arraySize(REFERENCE, poolSize);
+        freeListBytes = arraySize(4, freeListLength);
+
+        List<AttributeUsage> usages = new ArrayList<>(numAttributes);
+        long sum = 0;
+        long usedSum = 0;
+        for(int i=0; i<numAttributes; ++i) {
+            AttributeUsage usage = createUsage(attributeList[i]);
+            usages.add(usage);
+            sum += usage.bytes;
+            usedSum += usage.usedBytes;
+        }
+
+        attributes = Collections.unmodifiableList(usages);
+        attributeBytes = sum;
+        usedAttributeBytes = usedSum;
+    }
+
+
+    private AttributeUsage createUsage(BMeshAttribute<?, ?> attribute) {
+        Object array = attribute.data;
+        Class<?> arrayType = (array != null) ? array.getClass() : Object.class;
+        long bytes = 0;
+        long usedBytes = 0;
+
+        if(array instanceof Buffer) {
+            // Direct buffers are outside the heap, count them anyway
+            Buffer buffer = (Buffer) array;
+            bytes = (long) bufferComponentSize(buffer) * buffer.capacity();
+        }
+        else if(array != null)
+            bytes = arraySize(componentSize(arrayType.getComponentType()), Array.getLength(array));
+
+        if(capacity > 0)
+            usedBytes = bytes * Math.min(totalSize, capacity) / capacity;
+
+        return new AttributeUsage(attribute.name, attribute.numComponents, arrayType, bytes, usedBytes);
+    }
+
+
+    /**
+     * @return Usage of each attribute in registration order.
+     */
+    public List<AttributeUsage> getAttributes() {
+        return attributes;
+    }
+
+    public long getAttributeBytes() {
+        return attributeBytes;
+    }
+
+    /**
+     * @return Total estimated bytes.
+     */
+    public long getTotalBytes() {
+        return attributeBytes + elementBytes + freeListBytes;
+    }
+
+    /**
+     * @return Bytes in attribute arrays not used by alive elements: The capacity slack and free slots.
+     *         This is approximately the amount that {@link BMeshData#compactData()} would free.
+     */
+    public long getReclaimableBytes() {
+        if(capacity == 0)
+            return 0;
+
+        long unusedSlack = attributeBytes - usedAttributeBytes;
+        long freeSlotBytes = attributeBytes * numFreeSlots / capacity;
+        return unusedSlack + freeSlotBytes;
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(elementType != null ? elementType.getSimpleName() : "Element").append(": ");
+        sb.append(size).append(" elements, ").append(numVirtual).append(" virtual, ").append(numFreeSlots).append(" free, ");
+        sb.append(totalSize).append(" / ").append(capacity).append(" capacity, ");
+        sb.append(getTotalBytes()).append(" bytes (").append(getReclaimableBytes()).append(" reclaimable)");
+
+        for(AttributeUsage usage : attributes)
+            sb.append("\n  ").append(usage);
+
+        return sb.toString();
+    }
+
+
+    static long arraySize(int componentSize, int length) {
+        return align(ARRAY_HEADER + (long) componentSize * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+
+    private static int componentSize(Class<?> type) {
+        if(type == long.class || type == double.class)
+            return 8;
+        if(type == int.class || type == float.class)
+            return 4;
+        if(type == short.class || type == char.class)
+            return 2;
+        if(type == byte.class || type == boolean.class)
+            return 1;
+        return REFERENCE;
+    }
+
+
+    private static int bufferComponentSize(Buffer buffer) {
+        if(buffer instanceof LongBuffer || buffer instanceof DoubleBuffer)
+            return 8;
+        if(buffer instanceof IntBuffer || buffer instanceof FloatBuffer)
+            return 4;
+        if(buffer instanceof ShortBuffer || buffer instanceof CharBuffer)
+            return 2;
+        return 1;
+    }
+
+
+    private static final ClassValue<Long> SHALLOW_SIZE = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long bytes = OBJECT_HEADER;
+            for(Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for(Field field : c.getDeclaredFields()) {
+                    if(!Modifier.isStatic(field.getModifiers()))
+                        bytes += componentSize(field.getType());
+                }
+            }
+
+            return align(bytes);
+        }
+    };
+
+    /**
+     * @return Estimated size of an instance without referenced objects. Cached per class.
+     */
+    static long shallowSize(Class<?> type) {
+        return SHALLOW_SIZE.get(type);
+    }
+}
@@ -0,0 +1,301 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Boolean attribute that packs 64 values into each word of a <code>long[]</code>.
+ * Uses 1/8 of the memory of {@link BooleanAttribute} and allows fast bulk operations on whole words,
+ * e.g. for selection masks.<br>
+ * Bit <i>i</i> of the attribute is stored in bit <code>i % 64</code> of word <code>i / 64</code>.<br>
+ * Setting a bit rewrites the whole word, so the values of neighbouring elements can't be set by different threads.
+ * Per-element writes throw an IllegalStateException during a concurrent section of the BMeshData
+ * (see {@link BMeshData#beginConcurrent(int)}). Use {@link #setWord(int, long)} on distinct words instead.
+ */
+public class BitAttribute<E extends Element> extends BMeshAttribute<E, long[]> {
+    private static final int ADDRESS_BITS = 6;
+    private static final int WORD_MASK = 63;
+
+
+    public BitAttribute(String name) {
+        super(name);
+    }
+
+
+    public boolean get(E element) {
+        return get(element.getIndex());
+    }
+
+    public boolean get(int index) {
+        return (data[index >>> ADDRESS_BITS] & (1L << index)) != 0;
+    }
+
+
+    public void set(E element, boolean value) {
+        set(element.getIndex(), value);
+    }
+
+    public void set(int index, boolean value) {
+        checkNotConcurrent();
+        if(value)
+            data[index >>> ADDRESS_BITS] |= (1L << index);
+        else
+            data[index >>> ADDRESS_BITS] &= ~(1L << index);
+
+        setDirty(index);
+    }
+
+    public void setAll(boolean value) {
+        Arrays.fill(data, value ? -1L : 0L);
+        setDirty(0, data.length << ADDRESS_BITS);
+    }
+
+
+    /**
+     * @param wordIndex Index of the word, which holds the bits of the elements [wordIndex*64, wordIndex*64 + 64).
+     * @return 64 values.
+     */
+    public long getWord(int wordIndex) {
+        return data[wordIndex];
+    }
+
+    /**
+     * Writes 64 values at once and marks the elements of the word as modified.
+     * Different words can be written concurrently by different threads. Outside of a concurrent section of the BMeshData,
+     * the dirty range can then lose updates: Mark the whole written range with {@link #setDirty(int, int)} afterwards.
+     * @param wordIndex Index of the word, which holds the bits of the elements [wordIndex*64, wordIndex*64 + 64).
+     * @param word
+     */
+    public void setWord(int wordIndex, long word) {
+        data[wordIndex] = word;
+        setDirty(wordIndex << ADDRESS_BITS, (wordIndex+1) << ADDRESS_BITS);
+    }
+
+
+    /**
+     * Counts the elements whose bit is set. Destroyed elements are ignored.
+     * @param meshData The data set this attribute is associated with.
+     * @return Number of set bits.
+     */
+    public int count(BMeshData<E> meshData) {
+        final int size = meshData.totalSize();
+        final int fullWords = size >>> ADDRESS_BITS;
+
+        // Free slots may contain stale values
+        final boolean checkFree = meshData.numFreeSlots() > 0;
+
+        int count = 0;
+        for(int i=0; i<fullWords; ++i)
+            count += Long.bitCount(liveWord(meshData, i, checkFree));
+
+        int rest = size & WORD_MASK;
+        if(rest > 0)
+            count += Long.bitCount(liveWord(meshData, fullWords, checkFree) & ((1L << rest) - 1));
+
+        return count;
+    }
+
+    private long liveWord(BMeshData<E> meshData, int wordIndex, boolean checkFree) {
+        long word = data[wordIndex];
+        if(checkFree && word != 0)
+            word &= ~meshData.getFreeWord(wordIndex);
+        return word;
+    }
+
+
+    /**
+     * @param fromIndex First element index to test (inclusive).
+     * @param endIndex Last element index (exclusive).
+     * @return Index of the next set bit, or -1 if there is none in the range.
+     */
+    public int nextSetBit(int fromIndex, int endIndex) {
+        if(fromIndex >= endIndex)
+            return -1;
+
+        int wordIndex = fromIndex >>> ADDRESS_BITS;
+        long word = data[wordIndex] & (-1L << fromIndex);
+
+        while(true) {
+            if(word != 0) {
+                int index = (wordIndex << ADDRESS_BITS) + Long.numberOfTrailingZeros(word);
+                return (index < endIndex) ? index : -1;
+            }
+
+            if(++wordIndex > ((endIndex-1) >>> ADDRESS_BITS))
+                return -1;
+
+            word = data[wordIndex];
+        }
+    }
+
+
+    /**
+     * Calls <i>action</i> for each element whose bit is set. Skips words without set bits.
+     * @param meshData The data set this attribute is associated with.
+     * @param action
+     */
+    public void forEachSet(BMeshData<E> meshData, Consumer<E> action) {
+        final int size = meshData.totalSize();
+        for(int i = nextSetBit(0, size); i >= 0; i = nextSetBit(i+1, size)) {
+            E element = meshData.get(i);
+            if(element != null)
+                action.accept(element);
+        }
+    }
+
+
+    /**
+     * this = this &amp; other
+     */
+    public void and(BitAttribute<E> other) {
+        checkCompatible(other);
+        for(int i=0; i<data.length; ++i)
+            data[i] &= other.data[i];
+        setDirty(0, data.length << ADDRESS_BITS);
+    }
+
+    /**
+     * this = this | other
+     */
+    public void or(BitAttribute<E> other) {
+        checkCompatible(other);
+        for(int i=0; i<data.length; ++i)
+            data[i] |= other.data[i];
+        setDirty(0, data.length << ADDRESS_BITS);
+    }
+
+    /**
+     * this = this &amp; ~other
+     */
+    public void andNot(BitAttribute<E> other) {
+        checkCompatible(other);
+        for(int i=0; i<data.length; ++i)
+            data[i] &= ~other.data[i];
+        setDirty(0, data.length << ADDRESS_BITS);
+    }
+
+    private void checkCompatible(BitAttribute<E> other) {
+        if(other.data == null || other.data.length != data.length)
+            throw new IllegalArgumentException("Attributes must belong to the same data set.");
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        set(to, get(from));
+    }
+
+
+    @Override
+    public boolean equals(E a, E b) {
+        return get(a) == get(b);
+    }
+
+
+    @Override
+    public BitAttribute<E> newInstance() {
+        return new BitAttribute<>(name);
+    }
+
+
+    @Override
+    protected long[] alloc(int size) {
+        return new long[(size + WORD_MASK) >>> ADDRESS_BITS];
+    }
+
+    @Override
+    protected int getLength(long[] array) {
+        return array.length << ADDRESS_BITS;
+    }
+
+    @Override
+    protected void copyRange(long[] src, int srcPos, long[] dest, int destPos, int length) {
+        if(length <= 0)
+            return;
+
+        // Word aligned: Copy whole words
+        if((srcPos & WORD_MASK) == 0 && (destPos & WORD_MASK) == 0) {
+            int words = length >>> ADDRESS_BITS;
+            int rest = length & WORD_MASK;
+            int restOffset = words << ADDRESS_BITS;
+            long restBits = (rest > 0) ? readBits(src, srcPos + restOffset, rest) : 0;
+
+            System.arraycopy(src, srcPos >>> ADDRESS_BITS, dest, destPos >>> ADDRESS_BITS, words);
+            if(rest > 0)
+                writeBits(dest, destPos + restOffset, restBits, rest);
+            return;
+        }
+
+        // Copy backwards if the ranges overlap and the destination comes after the source
+        if(src == dest && destPos > srcPos && destPos < srcPos + length) {
+            int remaining = length;
+            while(remaining > 0) {
+                int n = Math.min(remaining, 64);
+                remaining -= n;
+                writeBits(dest, destPos + remaining, readBits(src, srcPos + remaining, n), n);
+            }
+        }
+        else {
+            for(int i=0; i<length; i+=64) {
+                int n = Math.min(length - i, 64);
+                writeBits(dest, destPos + i, readBits(src, srcPos + i, n), n);
+            }
+        }
+    }
+
+
+    /**
+     * @param n Number of bits, 1-64.
+     */
+    private static long readBits(long[] array, int pos, int n) {
+        int word = pos >>> ADDRESS_BITS;
+        int bit = pos & WORD_MASK;
+
+        long value = array[word] >>> bit;
+        if(bit + n > 64)
+            value |= array[word+1] << (64 - bit);
+
+        return (n == 64) ? value : value & ((1L << n) - 1);
+    }
+
+    /**
+     * @param n Number of bits, 1-64.
+     */
+    private static void writeBits(long[] array, int pos, long value, int n) {
+        int word = pos >>> ADDRESS_BITS;
+        int bit = pos & WORD_MASK;
+        long mask = (n == 64) ? -1L : (1L << n) - 1;
+        value &= mask;
+
+        array[word] = (array[word] & ~(mask << bit)) | (value << bit);
+
+        if(bit + n > 64) {
+            int shift = 64 - bit;
+            long highMask = mask >>> shift;
+            array[word+1] = (array[word+1] & ~highMask) | (value >>> shift);
+        }
+    }
+
+
+    public static <E extends Element> BitAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (BitAttribute<E>) getAttribute(name, meshData, long[].class);
+    }
+
+    public static <E extends Element> BitAttribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        BitAttribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new BitAttribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
@@ -22,6 +22,14 @@ public class BooleanAttribute<E extends Element> extends BMeshAttribute<E, boole
 
     public void set(E element, boolean value) {
         data[element.getIndex()] = value;
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        data[to.getIndex()] = data[from.getIndex()];
+        setDirty(to);
     }
 
 
@@ -31,6 +39,12 @@ public class BooleanAttribute<E extends Element> extends BMeshAttribute<E, boole
     }
 
 
+    @Override
+    public BooleanAttribute<E> newInstance() {
+        return new BooleanAttribute<>(name);
+    }
+
+
     @Override
     protected boolean[] alloc(int size) {
         return new boolean[size];
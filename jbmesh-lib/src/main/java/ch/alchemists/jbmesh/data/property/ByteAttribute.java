@@ -22,6 +22,14 @@ public class ByteAttribute<E extends Element> extends BMeshAttribute<E, byte[]>
 
     public void set(E element, byte value) {
         data[element.getIndex()] = value;
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        data[to.getIndex()] = data[from.getIndex()];
+        setDirty(to);
     }
 
 
@@ -31,6 +39,12 @@ public class ByteAttribute<E extends Element> extends BMeshAttribute<E, byte[]>
     }
 
 
+    @Override
+    public ByteAttribute<E> newInstance() {
+        return new ByteAttribute<>(name);
+    }
+
+
     @Override
     protected byte[] alloc(int size) {
         return new byte[size];
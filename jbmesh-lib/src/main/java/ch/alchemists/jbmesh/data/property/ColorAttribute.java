@@ -40,6 +40,13 @@ public class ColorAttribute<E extends Element> extends FloatTupleAttribute<E> {
         data[i+1] = g;
         data[i+2] = b;
         data[i+3] = a;
+        setDirty(element);
+    }
+
+
+    @Override
+    public ColorAttribute<E> newInstance() {
+        return new ColorAttribute<>(name);
     }
 
 
@@ -25,6 +25,14 @@ public class FloatAttribute<E extends Element> extends BMeshAttribute<E, float[]
 
     public void set(E element, float value) {
         data[element.getIndex()] = value;
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        data[to.getIndex()] = data[from.getIndex()];
+        setDirty(to);
     }
 
 
@@ -34,6 +42,12 @@ public class FloatAttribute<E extends Element> extends BMeshAttribute<E, float[]
     }
 
     
+    @Override
+    public FloatAttribute<E> newInstance() {
+        return new FloatAttribute<>(name);
+    }
+
+
     @Override
     protected float[] alloc(int size) {
         return new float[size];
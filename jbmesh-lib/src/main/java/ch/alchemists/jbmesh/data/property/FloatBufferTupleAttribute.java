@@ -0,0 +1,121 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+
+/**
+ * Stores the values in a direct FloatBuffer (native byte order) instead of a Java array.
+ * The data lives outside of the Java heap and Export hands the buffer to the VertexBuffer without copying.
+ */
+public class FloatBufferTupleAttribute<E extends Element> extends BMeshAttribute<E, FloatBuffer> {
+    // Use bulk copy for ranges longer than this
+    private static final int BULK_COPY_THRESHOLD = 16;
+
+
+    public FloatBufferTupleAttribute(String name, int components) {
+        super(name, components);
+    }
+
+
+    public float getComponent(E element, int component) {
+        return data.get(indexOf(element, component));
+    }
+
+    public void setComponent(E element, int component, float value) {
+        data.put(indexOf(element, component), value);
+        setDirty(element);
+    }
+
+
+    public void setValues(E element, float... values) {
+        if(values.length != numComponents)
+            throw new IllegalArgumentException("Number of values does not match number of components.");
+
+        int index = indexOf(element);
+        for(int i=0; i<numComponents; ++i)
+            data.put(index++, values[i]);
+        setDirty(element);
+    }
+
+
+    @Override
+    public boolean equals(E a, E b) {
+        int indexA = indexOf(a);
+        int indexB = indexOf(b);
+
+        for(int i=0; i<numComponents; ++i) {
+            if(!FloatAttribute.floatEquals(data.get(indexA++), data.get(indexB++)))
+                return false;
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public FloatBufferTupleAttribute<E> newInstance() {
+        return new FloatBufferTupleAttribute<>(name, numComponents);
+    }
+
+
+    @Override
+    protected FloatBuffer alloc(int size) {
+        return BufferUtils.createFloatBuffer(size);
+    }
+
+
+    @Override
+    protected void copyRange(FloatBuffer src, int srcPos, FloatBuffer dest, int destPos, int length) {
+        if(src != dest && length > BULK_COPY_THRESHOLD) {
+            FloatBuffer srcView = src.duplicate();
+            srcView.limit(srcPos + length);
+            srcView.position(srcPos);
+
+            FloatBuffer destView = dest.duplicate();
+            destView.clear();
+            destView.position(destPos);
+            destView.put(srcView);
+        }
+        else if(destPos > srcPos) {
+            // Copy backwards in case ranges overlap
+            for(int i=length-1; i>=0; --i)
+                dest.put(destPos+i, src.get(srcPos+i));
+        }
+        else {
+            for(int i=0; i<length; ++i)
+                dest.put(destPos+i, src.get(srcPos+i));
+        }
+    }
+
+    @Override
+    protected int getLength(FloatBuffer buffer) {
+        return buffer.capacity();
+    }
+
+
+    public static <E extends Element> FloatBufferTupleAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (FloatBufferTupleAttribute<E>) getAttribute(name, meshData, FloatBuffer.class);
+    }
+
+    public static <E extends Element> FloatBufferTupleAttribute<E> getOrCreate(String name, int components, BMeshData<E> meshData) {
+        FloatBufferTupleAttribute<E> attribute = get(name, meshData);
+
+        if(attribute == null) {
+            attribute = new FloatBufferTupleAttribute<>(name, components);
+            meshData.addAttribute(attribute);
+        }
+        else if(attribute.numComponents != components)
+            throw new IllegalStateException("Attribute with same name but different number of components already exists.");
+
+        return attribute;
+    }
+}
@@ -22,6 +22,7 @@ public class FloatTupleAttribute<E extends Element> extends BMeshAttribute<E, fl
 
     public void setComponent(E element, int component, float value) {
         data[indexOf(element, component)] = value;
+        setDirty(element);
     }
 
 
@@ -32,6 +33,17 @@ public class FloatTupleAttribute<E extends Element> extends BMeshAttribute<E, fl
         int index = indexOf(element);
         for(int i=0; i<numComponents; ++i)
             data[index++] = values[i];
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
     }
 
 
@@ -49,6 +61,12 @@ public class FloatTupleAttribute<E extends Element> extends BMeshAttribute<E, fl
     }
 
 
+    @Override
+    public FloatTupleAttribute<E> newInstance() {
+        return new FloatTupleAttribute<>(name, numComponents);
+    }
+
+
     @Override
     protected float[] alloc(int size) {
         return new float[size];
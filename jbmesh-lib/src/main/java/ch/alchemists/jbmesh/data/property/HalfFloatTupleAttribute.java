@@ -0,0 +1,96 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.FastMath;
+
+/**
+ * Stores floats as 16-bit half-floats. Exported as VertexBuffer.Format.Half.
+ */
+public class HalfFloatTupleAttribute<E extends Element> extends BMeshAttribute<E, short[]> {
+    public HalfFloatTupleAttribute(String name, int components) {
+        super(name, components);
+    }
+
+
+    public float getComponent(E element, int component) {
+        return FastMath.convertHalfToFloat(data[indexOf(element, component)]);
+    }
+
+    public void setComponent(E element, int component, float value) {
+        data[indexOf(element, component)] = FastMath.convertFloatToHalf(value);
+        setDirty(element);
+    }
+
+
+    public void setValues(E element, float... values) {
+        if(values.length != numComponents)
+            throw new IllegalArgumentException("Number of values does not match number of components.");
+
+        int index = indexOf(element);
+        for(int i=0; i<numComponents; ++i)
+            data[index++] = FastMath.convertFloatToHalf(values[i]);
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
+    }
+
+
+    @Override
+    public boolean equals(E a, E b) {
+        int indexA = indexOf(a);
+        int indexB = indexOf(b);
+
+        for(int i=0; i<numComponents; ++i) {
+            if(data[indexA++] != data[indexB++])
+                return false;
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public HalfFloatTupleAttribute<E> newInstance() {
+        return new HalfFloatTupleAttribute<>(name, numComponents);
+    }
+
+
+    @Override
+    protected short[] alloc(int size) {
+        return new short[size];
+    }
+
+
+    public static <E extends Element> HalfFloatTupleAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (HalfFloatTupleAttribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> HalfFloatTupleAttribute<E> getOrCreate(String name, int components, BMeshData<E> meshData) {
+        HalfFloatTupleAttribute<E> attribute = get(name, meshData);
+
+        if(attribute == null) {
+            attribute = new HalfFloatTupleAttribute<>(name, components);
+            meshData.addAttribute(attribute);
+        }
+        else if(attribute.numComponents != components)
+            throw new IllegalStateException("Attribute with same name but different number of components already exists.");
+
+        return attribute;
+    }
+}
@@ -0,0 +1,62 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector2f;
+
+public class HalfVec2Attribute<E extends Element> extends HalfFloatTupleAttribute<E> {
+    public HalfVec2Attribute(String name) {
+        super(name, 2);
+    }
+
+
+    public Vector2f get(E element) {
+        return get(element, new Vector2f());
+    }
+
+    public Vector2f get(E element, Vector2f store) {
+        int i = indexOf(element);
+        store.x = FastMath.convertHalfToFloat(data[i]);
+        store.y = FastMath.convertHalfToFloat(data[i+1]);
+        return store;
+    }
+
+
+    public void set(E element, Vector2f vec) {
+        set(element, vec.x, vec.y);
+    }
+
+    public void set(E element, float x, float y) {
+        int i = indexOf(element);
+        data[i]   = FastMath.convertFloatToHalf(x);
+        data[i+1] = FastMath.convertFloatToHalf(y);
+        setDirty(element);
+    }
+
+
+    @Override
+    public HalfVec2Attribute<E> newInstance() {
+        return new HalfVec2Attribute<>(name);
+    }
+
+
+    public static <E extends Element> HalfVec2Attribute<E> get(String name, BMeshData<E> meshData) {
+        return (HalfVec2Attribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> HalfVec2Attribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        HalfVec2Attribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new HalfVec2Attribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
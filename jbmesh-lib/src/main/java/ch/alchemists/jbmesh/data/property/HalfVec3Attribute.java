@@ -0,0 +1,64 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+
+public class HalfVec3Attribute<E extends Element> extends HalfFloatTupleAttribute<E> {
+    public HalfVec3Attribute(String name) {
+        super(name, 3);
+    }
+
+
+    public Vector3f get(E element) {
+        return get(element, new Vector3f());
+    }
+
+    public Vector3f get(E element, Vector3f store) {
+        int i = indexOf(element);
+        store.x = FastMath.convertHalfToFloat(data[i]);
+        store.y = FastMath.convertHalfToFloat(data[i+1]);
+        store.z = FastMath.convertHalfToFloat(data[i+2]);
+        return store;
+    }
+
+
+    public void set(E element, Vector3f vec) {
+        set(element, vec.x, vec.y, vec.z);
+    }
+
+    public void set(E element, float x, float y, float z) {
+        int i = indexOf(element);
+        data[i]   = FastMath.convertFloatToHalf(x);
+        data[i+1] = FastMath.convertFloatToHalf(y);
+        data[i+2] = FastMath.convertFloatToHalf(z);
+        setDirty(element);
+    }
+
+
+    @Override
+    public HalfVec3Attribute<E> newInstance() {
+        return new HalfVec3Attribute<>(name);
+    }
+
+
+    public static <E extends Element> HalfVec3Attribute<E> get(String name, BMeshData<E> meshData) {
+        return (HalfVec3Attribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> HalfVec3Attribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        HalfVec3Attribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new HalfVec3Attribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
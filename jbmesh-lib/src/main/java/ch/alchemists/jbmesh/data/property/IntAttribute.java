@@ -22,6 +22,24 @@ public class IntAttribute<E extends Element> extends BMeshAttribute<E, int[]> {
 
     public void set(E element, int value) {
         data[element.getIndex()] = value;
+        setDirty(element);
+    }
+
+
+    public int get(int index) {
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        data[index] = value;
+        setDirty(index);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        data[to.getIndex()] = data[from.getIndex()];
+        setDirty(to);
     }
 
 
@@ -31,6 +49,12 @@ public class IntAttribute<E extends Element> extends BMeshAttribute<E, int[]> {
     }
 
 
+    @Override
+    public IntAttribute<E> newInstance() {
+        return new IntAttribute<>(name);
+    }
+
+
     @Override
     protected int[] alloc(int size) {
         return new int[size];
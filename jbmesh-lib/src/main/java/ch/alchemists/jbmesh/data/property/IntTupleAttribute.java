@@ -22,6 +22,7 @@ public class IntTupleAttribute<E extends Element> extends BMeshAttribute<E, int[
     
     public void setComponent(E element, int component, int value) {
         data[indexOf(element, component)] = value;
+        setDirty(element);
     }
 
 
@@ -32,6 +33,17 @@ public class IntTupleAttribute<E extends Element> extends BMeshAttribute<E, int[
         int index = indexOf(element);
         for(int i=0; i<numComponents; ++i)
             data[index++] = values[i];
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
     }
 
 
@@ -49,6 +61,12 @@ public class IntTupleAttribute<E extends Element> extends BMeshAttribute<E, int[
     }
 
 
+    @Override
+    public IntTupleAttribute<E> newInstance() {
+        return new IntTupleAttribute<>(name, numComponents);
+    }
+
+
     @Override
     protected int[] alloc(int size) {
         return new int[size];
@@ -27,6 +27,7 @@ public class ObjectAttribute<E extends Element, T> extends BMeshAttribute<E, T[]
 
     public void set(E element, T value) {
         data[indexOf(element)] = value;
+        setDirty(element);
     }
 
     public T get(E element) {
@@ -34,12 +35,25 @@ public class ObjectAttribute<E extends Element, T> extends BMeshAttribute<E, T[]
     }
 
 
+    @Override
+    public void copy(E from, E to) {
+        data[to.getIndex()] = data[from.getIndex()];
+        setDirty(to);
+    }
+
+
     @Override
     public boolean equals(E a, E b) {
         return a == b;
     }
 
 
+    @Override
+    public ObjectAttribute<E, T> newInstance() {
+        return new ObjectAttribute<>(name, allocator);
+    }
+
+
     @Override
     protected T[] alloc(int size) {
         return allocator.alloc(size);
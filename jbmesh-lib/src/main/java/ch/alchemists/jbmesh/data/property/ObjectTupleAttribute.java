@@ -26,6 +26,7 @@ public class ObjectTupleAttribute<E extends Element, T> extends BMeshAttribute<E
 
     public void setComponent(E element, int component, T value) {
         data[indexOf(element, component)] = value;
+        setDirty(element);
     }
 
 
@@ -36,6 +37,17 @@ public class ObjectTupleAttribute<E extends Element, T> extends BMeshAttribute<E
         int index = indexOf(element);
         for(int i = 0; i < numComponents; ++i)
             data[index++] = values[i];
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
     }
 
 
@@ -53,6 +65,12 @@ public class ObjectTupleAttribute<E extends Element, T> extends BMeshAttribute<E
     }
 
 
+    @Override
+    public ObjectTupleAttribute<E, T> newInstance() {
+        return new ObjectTupleAttribute<>(name, numComponents, allocator);
+    }
+
+
     @Override
     protected T[] alloc(int size) {
         return allocator.alloc(size);
@@ -0,0 +1,96 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.Vector3f;
+
+/**
+ * Stores unit vectors with octahedral encoding in two snorm16 components (4 bytes per normal).
+ * The exported VertexBuffer has 2 components and needs a shader that decodes the normals.
+ * https://knarkowicz.wordpress.com/2014/04/16/octahedron-normal-vector-encoding/
+ */
+public class OctNormalAttribute<E extends Element> extends SNormTupleAttribute<E> {
+    public OctNormalAttribute(String name) {
+        super(name, 2);
+    }
+
+
+    public Vector3f get(E element) {
+        return get(element, new Vector3f());
+    }
+
+    public Vector3f get(E element, Vector3f store) {
+        int i = indexOf(element);
+        float x = decode(data[i]);
+        float y = decode(data[i+1]);
+        float z = 1.0f - Math.abs(x) - Math.abs(y);
+
+        // Unfold lower hemisphere
+        if(z < 0) {
+            float tx = (1.0f - Math.abs(y)) * signNotZero(x);
+            y = (1.0f - Math.abs(x)) * signNotZero(y);
+            x = tx;
+        }
+
+        return store.set(x, y, z).normalizeLocal();
+    }
+
+
+    public void set(E element, Vector3f vec) {
+        set(element, vec.x, vec.y, vec.z);
+    }
+
+    /**
+     * The vector doesn't need to be normalized.
+     */
+    public void set(E element, float x, float y, float z) {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        if(l1 > 0) {
+            x /= l1;
+            y /= l1;
+        }
+
+        // Fold lower hemisphere
+        if(z < 0) {
+            float tx = (1.0f - Math.abs(y)) * signNotZero(x);
+            y = (1.0f - Math.abs(x)) * signNotZero(y);
+            x = tx;
+        }
+
+        int i = indexOf(element);
+        data[i]   = encode(x);
+        data[i+1] = encode(y);
+        setDirty(element);
+    }
+
+
+    private static float signNotZero(float f) {
+        return (f >= 0) ? 1.0f : -1.0f;
+    }
+
+
+    @Override
+    public OctNormalAttribute<E> newInstance() {
+        return new OctNormalAttribute<>(name);
+    }
+
+
+    public static <E extends Element> OctNormalAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (OctNormalAttribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> OctNormalAttribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        OctNormalAttribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new OctNormalAttribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+
+/**
+ * Stores floats in the range [-1, 1] as normalized 16-bit integers (snorm16). Values outside of this range are clamped.
+ * Exported as normalized VertexBuffer.Format.Short.
+ */
+public class SNormTupleAttribute<E extends Element> extends BMeshAttribute<E, short[]> {
+    private static final float SCALE = Short.MAX_VALUE;
+    private static final float INV_SCALE = 1.0f / SCALE;
+
+
+    public SNormTupleAttribute(String name, int components) {
+        super(name, components);
+    }
+
+
+    public float getComponent(E element, int component) {
+        return decode(data[indexOf(element, component)]);
+    }
+
+    public void setComponent(E element, int component, float value) {
+        data[indexOf(element, component)] = encode(value);
+        setDirty(element);
+    }
+
+
+    public void setValues(E element, float... values) {
+        if(values.length != numComponents)
+            throw new IllegalArgumentException("Number of values does not match number of components.");
+
+        int index = indexOf(element);
+        for(int i=0; i<numComponents; ++i)
+            data[index++] = encode(values[i]);
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
+    }
+
+
+    @Override
+    public boolean equals(E a, E b) {
+        int indexA = indexOf(a);
+        int indexB = indexOf(b);
+
+        for(int i=0; i<numComponents; ++i) {
+            if(data[indexA++] != data[indexB++])
+                return false;
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public SNormTupleAttribute<E> newInstance() {
+        return new SNormTupleAttribute<>(name, numComponents);
+    }
+
+
+    @Override
+    protected short[] alloc(int size) {
+        return new short[size];
+    }
+
+
+    public static short encode(float value) {
+        if(value >= 1.0f)
+            return Short.MAX_VALUE;
+        else if(value <= -1.0f)
+            return -Short.MAX_VALUE;
+
+        return (short) Math.round(value * SCALE);
+    }
+
+    public static float decode(short value) {
+        // Short.MIN_VALUE also maps to -1
+        return Math.max(value * INV_SCALE, -1.0f);
+    }
+
+
+    public static <E extends Element> SNormTupleAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (SNormTupleAttribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> SNormTupleAttribute<E> getOrCreate(String name, int components, BMeshData<E> meshData) {
+        SNormTupleAttribute<E> attribute = get(name, meshData);
+
+        if(attribute == null) {
+            attribute = new SNormTupleAttribute<>(name, components);
+            meshData.addAttribute(attribute);
+        }
+        else if(attribute.numComponents != components)
+            throw new IllegalStateException("Attribute with same name but different number of components already exists.");
+
+        return attribute;
+    }
+}
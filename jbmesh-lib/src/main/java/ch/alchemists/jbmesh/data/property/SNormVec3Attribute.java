@@ -0,0 +1,63 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.Vector3f;
+
+public class SNormVec3Attribute<E extends Element> extends SNormTupleAttribute<E> {
+    public SNormVec3Attribute(String name) {
+        super(name, 3);
+    }
+
+
+    public Vector3f get(E element) {
+        return get(element, new Vector3f());
+    }
+
+    public Vector3f get(E element, Vector3f store) {
+        int i = indexOf(element);
+        store.x = decode(data[i]);
+        store.y = decode(data[i+1]);
+        store.z = decode(data[i+2]);
+        return store;
+    }
+
+
+    public void set(E element, Vector3f vec) {
+        set(element, vec.x, vec.y, vec.z);
+    }
+
+    public void set(E element, float x, float y, float z) {
+        int i = indexOf(element);
+        data[i]   = encode(x);
+        data[i+1] = encode(y);
+        data[i+2] = encode(z);
+        setDirty(element);
+    }
+
+
+    @Override
+    public SNormVec3Attribute<E> newInstance() {
+        return new SNormVec3Attribute<>(name);
+    }
+
+
+    public static <E extends Element> SNormVec3Attribute<E> get(String name, BMeshData<E> meshData) {
+        return (SNormVec3Attribute<E>) getAttribute(name, meshData, short[].class);
+    }
+
+    public static <E extends Element> SNormVec3Attribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        SNormVec3Attribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new SNormVec3Attribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
@@ -22,10 +22,12 @@ public class ShortTupleAttribute<E extends Element> extends BMeshAttribute<E, sh
 
     public void setComponent(E element, int component, short value) {
         data[indexOf(element, component)] = value;
+        setDirty(element);
     }
 
     public void setComponent(E element, int component, int value) {
         data[indexOf(element, component)] = (short) value;
+        setDirty(element);
     }
 
 
@@ -36,6 +38,7 @@ public class ShortTupleAttribute<E extends Element> extends BMeshAttribute<E, sh
         int index = indexOf(element);
         for(int i = 0; i < numComponents; ++i)
             data[index++] = values[i];
+        setDirty(element);
     }
 
     public void setValues(E element, int... values) {
@@ -45,6 +48,17 @@ public class ShortTupleAttribute<E extends Element> extends BMeshAttribute<E, sh
         int index = indexOf(element);
         for(int i = 0; i < numComponents; ++i)
             data[index++] = (short) values[i];
+        setDirty(element);
+    }
+
+
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        for(int i=0; i<numComponents; ++i)
+            data[iTo+i] = data[iFrom+i];
+        setDirty(to);
     }
 
 
@@ -62,6 +76,12 @@ public class ShortTupleAttribute<E extends Element> extends BMeshAttribute<E, sh
     }
 
 
+    @Override
+    public ShortTupleAttribute<E> newInstance() {
+        return new ShortTupleAttribute<>(name, numComponents);
+    }
+
+
     @Override
     protected short[] alloc(int size) {
         return new short[size];
@@ -38,6 +38,7 @@ public class Vec2Attribute<E extends Element> extends FloatTupleAttribute<E> {
         int i = indexOf(element);
         data[i]   = x;
         data[i+1] = y;
+        setDirty(element);
     }
 
 
@@ -68,6 +69,7 @@ public class Vec2Attribute<E extends Element> extends FloatTupleAttribute<E> {
         int i = indexOf(element);
         data[i]   += v.x;
         data[i+1] += v.y;
+        setDirty(element);
     }
 
 
@@ -81,6 +83,7 @@ public class Vec2Attribute<E extends Element> extends FloatTupleAttribute<E> {
         int i = indexOf(element);
         data[i]   -= v.x;
         data[i+1] -= v.y;
+        setDirty(element);
     }
 
 
@@ -128,6 +131,12 @@ public class Vec2Attribute<E extends Element> extends FloatTupleAttribute<E> {
     }
 
 
+    @Override
+    public Vec2Attribute<E> newInstance() {
+        return new Vec2Attribute<>(name);
+    }
+
+
     public static <E extends Element> Vec2Attribute<E> get(String name, BMeshData<E> meshData) {
         return (Vec2Attribute<E>) getAttribute(name, meshData, float[].class);
     }
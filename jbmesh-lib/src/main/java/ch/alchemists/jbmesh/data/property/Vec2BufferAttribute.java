@@ -0,0 +1,80 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.Vector2f;
+import java.nio.FloatBuffer;
+
+public class Vec2BufferAttribute<E extends Element> extends FloatBufferTupleAttribute<E> {
+    public Vec2BufferAttribute(String name) {
+        super(name, 2);
+    }
+
+
+    public Vector2f get(E element) {
+        int i = indexOf(element);
+        return new Vector2f(data.get(i), data.get(i+1));
+    }
+
+    public Vector2f get(E element, Vector2f store) {
+        int i = indexOf(element);
+        store.x = data.get(i);
+        store.y = data.get(i+1);
+        return store;
+    }
+
+
+    public void set(E element, Vector2f vec) {
+        set(element, vec.x, vec.y);
+    }
+
+    public void set(E element, float x, float y) {
+        int i = indexOf(element);
+        data.put(i, x);
+        data.put(i+1, y);
+        setDirty(element);
+    }
+
+
+    public float getX(E element) {
+        return getComponent(element, 0);
+    }
+
+    public void setX(E element, float x) {
+        setComponent(element, 0, x);
+    }
+
+    public float getY(E element) {
+        return getComponent(element, 1);
+    }
+
+    public void setY(E element, float y) {
+        setComponent(element, 1, y);
+    }
+
+
+    @Override
+    public Vec2BufferAttribute<E> newInstance() {
+        return new Vec2BufferAttribute<>(name);
+    }
+
+
+    public static <E extends Element> Vec2BufferAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (Vec2BufferAttribute<E>) getAttribute(name, meshData, FloatBuffer.class);
+    }
+
+    public static <E extends Element> Vec2BufferAttribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        Vec2BufferAttribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new Vec2BufferAttribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
@@ -9,21 +9,18 @@ package ch.alchemists.jbmesh.data.property;
 import ch.alchemists.jbmesh.data.BMeshData;
 import ch.alchemists.jbmesh.data.Element;
 import ch.alchemists.jbmesh.util.Func;
+import ch.alchemists.jbmesh.util.Parallel;
 import com.jme3.math.Vector3f;
 
-public class Vec3Attribute<E extends Element> extends FloatTupleAttribute<E> {
+public class Vec3Attribute<E extends Element> extends FloatTupleAttribute<E> implements Vec3Property<E> {
     public Vec3Attribute(String name) {
         super(name, 3);
     }
 
 
-    public Vector3f get(E element) {
-        int i = indexOf(element);
-        return new Vector3f(data[i], data[i+1], data[i+2]);
-    }
-    
-    public Vector3f get(E element, Vector3f store) {
-        int i = indexOf(element);
+    @Override
+    public Vector3f get(int index, Vector3f store) {
+        int i = index * 3;
         store.x = data[i];
         store.y = data[i+1];
         store.z = data[i+2];
@@ -31,46 +28,28 @@ public class Vec3Attribute<E extends Element> extends FloatTupleAttribute<E> {
     }
 
 
-    public void set(E element, Vector3f vec) {
-        set(element, vec.x, vec.y, vec.z);
-    }
-    
-    public void set(E element, float x, float y, float z) {
-        int i = indexOf(element);
+    @Override
+    public void set(int index, float x, float y, float z) {
+        int i = index * 3;
         data[i]   = x;
         data[i+1] = y;
         data[i+2] = z;
+        setDirty(index);
     }
 
+    @Override
+    public void setRange(int start, float[] values) {
+        if(values.length % 3 != 0)
+            throw new IllegalArgumentException("Length of values array must be a multiple of 3");
 
-    public float getX(E element) {
-        return getComponent(element, 0);
-    }
-
-    public void setX(E element, float x) {
-        setComponent(element, 0, x);
-    }
-
-    public float getY(E element) {
-        return getComponent(element, 1);
-    }
-
-    public void setY(E element, float y) {
-        setComponent(element, 1, y);
-    }
-
-    public float getZ(E element) {
-        return getComponent(element, 2);
+        System.arraycopy(values, 0, data, start*3, values.length);
+        setDirty(start, start + values.length/3);
     }
 
-    public void setZ(E element, float z) {
-        setComponent(element, 2, z);
-    }
 
+    // Array access without going through the index accessors
 
-    /**
-     * store = store + element
-     */
+    @Override
     public void addLocal(Vector3f store, E element) {
         int i = indexOf(element);
         store.x += data[i];
@@ -78,20 +57,17 @@ public class Vec3Attribute<E extends Element> extends FloatTupleAttribute<E> {
         store.z += data[i+2];
     }
 
-    /**
-     * element = element + v
-     */
+    @Override
     public void addLocal(E element, Vector3f v) {
         int i = indexOf(element);
         data[i]   += v.x;
         data[i+1] += v.y;
         data[i+2] += v.z;
+        setDirty(element);
     }
 
 
-    /**
-     * store = store - element
-     */
+    @Override
     public void subtractLocal(Vector3f store, E element) {
         int i = indexOf(element);
         store.x -= data[i];
@@ -99,58 +75,78 @@ public class Vec3Attribute<E extends Element> extends FloatTupleAttribute<E> {
         store.z -= data[i+2];
     }
 
-    /**
-     * element = element - v
-     */
+    @Override
     public void subtractLocal(E element, Vector3f v) {
         int i = indexOf(element);
         data[i]   -= v.x;
         data[i+1] -= v.y;
         data[i+2] -= v.z;
+        setDirty(element);
     }
 
 
-    public void execute(E element, Func.Unary<Vector3f> op) {
-        Vector3f v = get(element);
-        op.exec(v);
+    /**
+     * Runs <i>op</i> in parallel for the values in the element index range [start, end), using the common ForkJoinPool.
+     * The range can include virtual elements and free slots. <i>op</i> must be thread-safe.
+     * @param start First element index (inclusive).
+     * @param end Last element index (exclusive), e.g. BMeshData.totalSize().
+     * @param op
+     */
+    public void forEachParallel(int start, int end, Func.Unary<Vector3f> op) {
+        checkRange(start, end);
+        final float[] array = data;
+
+        Parallel.forRange(start, end, (rangeStart, rangeEnd) -> {
+            Vector3f v = new Vector3f();
+            for(int i=rangeStart*3, last=rangeEnd*3; i<last; i+=3) {
+                v.set(array[i], array[i+1], array[i+2]);
+                op.exec(v);
+            }
+        });
     }
 
-    public void execute(E element1, E element2, Func.Binary<Vector3f> op) {
-        Vector3f v1 = get(element1);
-        Vector3f v2 = get(element2);
-        op.exec(v1, v2);
+    /**
+     * Like {@link #forEachParallel(int, int, Func.Unary)} but writes the modified values back.
+     * The whole range is marked dirty.
+     */
+    public void forEachModifyParallel(int start, int end, Func.Unary<Vector3f> op) {
+        checkRange(start, end);
+        final float[] array = data;
+
+        Parallel.forRange(start, end, (rangeStart, rangeEnd) -> {
+            Vector3f v = new Vector3f();
+            for(int i=rangeStart*3, last=rangeEnd*3; i<last; i+=3) {
+                v.set(array[i], array[i+1], array[i+2]);
+                op.exec(v);
+                array[i]   = v.x;
+                array[i+1] = v.y;
+                array[i+2] = v.z;
+            }
+        });
+
+        setDirty(start, end);
     }
 
-    public void forEach(Iterable<E> elements, Func.Unary<Vector3f> op) {
-        Vector3f v = new Vector3f();
-        for(E element : elements) {
-            get(element, v);
-            op.exec(v);
-        }
+    private void checkRange(int start, int end) {
+        if(start < 0 || end > data.length / 3 || start > end)
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ")");
     }
 
 
-    public void modify(E element, Func.Unary<Vector3f> op) {
-        Vector3f v = get(element);
-        op.exec(v);
-        set(element, v);
+    @Override
+    public void copy(E from, E to) {
+        int iFrom = indexOf(from);
+        int iTo   = indexOf(to);
+        data[iTo]   = data[iFrom];
+        data[iTo+1] = data[iFrom+1];
+        data[iTo+2] = data[iFrom+2];
+        setDirty(to);
     }
 
-    public void modify(E element1, E element2, Func.Binary<Vector3f> op) {
-        Vector3f v1 = get(element1);
-        Vector3f v2 = get(element2);
-        op.exec(v1, v2);
-        set(element1, v1);
-        set(element2, v2);
-    }
 
-    public void forEachModify(Iterable<E> elements, Func.Unary<Vector3f> op) {
-        Vector3f v = new Vector3f();
-        for(E element : elements) {
-            get(element, v);
-            op.exec(v);
-            set(element, v);
-        }
+    @Override
+    public Vec3Attribute<E> newInstance() {
+        return new Vec3Attribute<>(name);
     }
 
 
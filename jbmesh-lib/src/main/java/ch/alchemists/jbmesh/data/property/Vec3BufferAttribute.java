@@ -0,0 +1,70 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import com.jme3.math.Vector3f;
+import java.nio.FloatBuffer;
+
+public class Vec3BufferAttribute<E extends Element> extends FloatBufferTupleAttribute<E> implements Vec3Property<E> {
+    public Vec3BufferAttribute(String name) {
+        super(name, 3);
+    }
+
+
+    @Override
+    public Vector3f get(int index, Vector3f store) {
+        int i = index * 3;
+        store.x = data.get(i);
+        store.y = data.get(i+1);
+        store.z = data.get(i+2);
+        return store;
+    }
+
+
+    @Override
+    public void set(int index, float x, float y, float z) {
+        int i = index * 3;
+        data.put(i, x);
+        data.put(i+1, y);
+        data.put(i+2, z);
+        setDirty(index);
+    }
+
+    @Override
+    public void setRange(int start, float[] values) {
+        if(values.length % 3 != 0)
+            throw new IllegalArgumentException("Length of values array must be a multiple of 3");
+
+        FloatBuffer view = data.duplicate();
+        view.clear();
+        view.position(start*3);
+        view.put(values);
+        setDirty(start, start + values.length/3);
+    }
+
+
+    @Override
+    public Vec3BufferAttribute<E> newInstance() {
+        return new Vec3BufferAttribute<>(name);
+    }
+
+
+    public static <E extends Element> Vec3BufferAttribute<E> get(String name, BMeshData<E> meshData) {
+        return (Vec3BufferAttribute<E>) getAttribute(name, meshData, FloatBuffer.class);
+    }
+
+    public static <E extends Element> Vec3BufferAttribute<E> getOrCreate(String name, BMeshData<E> meshData) {
+        Vec3BufferAttribute<E> attribute = get(name, meshData);
+        if(attribute == null) {
+            attribute = new Vec3BufferAttribute<>(name);
+            meshData.addAttribute(attribute);
+        }
+        return attribute;
+    }
+}
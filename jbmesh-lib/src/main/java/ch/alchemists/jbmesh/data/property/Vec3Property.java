@@ -0,0 +1,169 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.data.property;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import ch.alchemists.jbmesh.util.Func;
+import com.jme3.math.Vector3f;
+
+/**
+ * Vector3f access to an attribute with 3 float components, independent of how the values are stored.
+ * Implemented by {@link Vec3Attribute} (float array) and {@link Vec3BufferAttribute} (direct FloatBuffer).<br>
+ * Implementations provide the accessors by index, the accessors by element are derived from them.
+ * Setters mark the modified elements dirty.
+ */
+public interface Vec3Property<E extends Element> {
+    Vector3f get(int index, Vector3f store);
+
+    void set(int index, float x, float y, float z);
+
+    /**
+     * Copies (x, y, z) triplets to consecutive elements.
+     * @param start Index of the first element.
+     * @param values Length must be a multiple of 3.
+     */
+    void setRange(int start, float[] values);
+
+    float getComponent(E element, int component);
+
+    void setComponent(E element, int component, float value);
+
+
+    default Vector3f get(E element) {
+        return get(element.getIndex(), new Vector3f());
+    }
+
+    default Vector3f get(E element, Vector3f store) {
+        return get(element.getIndex(), store);
+    }
+
+
+    default void set(E element, Vector3f vec) {
+        set(element.getIndex(), vec.x, vec.y, vec.z);
+    }
+
+    default void set(E element, float x, float y, float z) {
+        set(element.getIndex(), x, y, z);
+    }
+
+
+    default float getX(E element) {
+        return getComponent(element, 0);
+    }
+
+    default void setX(E element, float x) {
+        setComponent(element, 0, x);
+    }
+
+    default float getY(E element) {
+        return getComponent(element, 1);
+    }
+
+    default void setY(E element, float y) {
+        setComponent(element, 1, y);
+    }
+
+    default float getZ(E element) {
+        return getComponent(element, 2);
+    }
+
+    default void setZ(E element, float z) {
+        setComponent(element, 2, z);
+    }
+
+
+    /**
+     * store = store + element
+     */
+    default void addLocal(Vector3f store, E element) {
+        store.x += getComponent(element, 0);
+        store.y += getComponent(element, 1);
+        store.z += getComponent(element, 2);
+    }
+
+    /**
+     * element = element + v
+     */
+    default void addLocal(E element, Vector3f v) {
+        set(element.getIndex(), getComponent(element, 0) + v.x, getComponent(element, 1) + v.y, getComponent(element, 2) + v.z);
+    }
+
+
+    /**
+     * store = store - element
+     */
+    default void subtractLocal(Vector3f store, E element) {
+        store.x -= getComponent(element, 0);
+        store.y -= getComponent(element, 1);
+        store.z -= getComponent(element, 2);
+    }
+
+    /**
+     * element = element - v
+     */
+    default void subtractLocal(E element, Vector3f v) {
+        set(element.getIndex(), getComponent(element, 0) - v.x, getComponent(element, 1) - v.y, getComponent(element, 2) - v.z);
+    }
+
+
+    default void execute(E element, Func.Unary<Vector3f> op) {
+        Vector3f v = get(element);
+        op.exec(v);
+    }
+
+    default void execute(E element1, E element2, Func.Binary<Vector3f> op) {
+        Vector3f v1 = get(element1);
+        Vector3f v2 = get(element2);
+        op.exec(v1, v2);
+    }
+
+    default void forEach(Iterable<E> elements, Func.Unary<Vector3f> op) {
+        Vector3f v = new Vector3f();
+        for(E element : elements) {
+            get(element, v);
+            op.exec(v);
+        }
+    }
+
+
+    default void modify(E element, Func.Unary<Vector3f> op) {
+        Vector3f v = get(element);
+        op.exec(v);
+        set(element, v);
+    }
+
+    default void modify(E element1, E element2, Func.Binary<Vector3f> op) {
+        Vector3f v1 = get(element1);
+        Vector3f v2 = get(element2);
+        op.exec(v1, v2);
+        set(element1, v1);
+        set(element2, v2);
+    }
+
+    default void forEachModify(Iterable<E> elements, Func.Unary<Vector3f> op) {
+        Vector3f v = new Vector3f();
+        for(E element : elements) {
+            get(element, v);
+            op.exec(v);
+            set(element, v);
+        }
+    }
+
+
+    /**
+     * @return The attribute with the given name if it is a Vec3Property, regardless of its storage.
+     */
+    @SuppressWarnings("unchecked")
+    static <E extends Element> Vec3Property<E> get(String name, BMeshData<E> meshData) {
+        BMeshAttribute<E, ?> attribute = meshData.getAttribute(name);
+        if(attribute instanceof Vec3Property)
+            return (Vec3Property<E>) attribute;
+        return null;
+    }
+}
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.lookup;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Vertex;
 import com.jme3.math.Vector3f;
@@ -17,15 +16,15 @@ import java.util.Map;
 public class ExactHashDeduplication implements VertexDeduplication {
     private final BMesh bmesh;
     private final Map<Vector3f, Vertex> map = new HashMap<>();
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
 
     public ExactHashDeduplication(BMesh bmesh) {
         this.bmesh = bmesh;
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
-    public ExactHashDeduplication(BMesh bmesh, Vec3Attribute<Vertex> attrPosition) {
+    public ExactHashDeduplication(BMesh bmesh, Vec3Property<Vertex> attrPosition) {
         this.bmesh = bmesh;
         this.positions = attrPosition;
     }
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.lookup;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Vertex;
 import ch.alchemists.jbmesh.util.HashGrid;
@@ -34,7 +33,7 @@ public class HashGridDeduplication implements VertexDeduplication {
     private final float cellSize;
 
     private final BMesh bmesh;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
     private final HashGrid<List<Vertex>> grid;
     private final Vector3f p = new Vector3f();
 
@@ -50,7 +49,7 @@ public class HashGridDeduplication implements VertexDeduplication {
         cellSize = epsilon * 2.0f;
 
         grid = new HashGrid<>(cellSize);
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
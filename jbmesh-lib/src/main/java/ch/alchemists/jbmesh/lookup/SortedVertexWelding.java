@@ -0,0 +1,260 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.lookup;
+
+import ch.alchemists.jbmesh.util.Parallel;
+import ch.alchemists.jbmesh.util.RadixSort;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Welds a whole position array at once, without creating elements or Vector3f objects.<br>
+ * Positions are quantized to cells with the size of epsilon. The cell keys are radix-sorted, so the vertices
+ * of a cell are stored contiguously in ascending index order. Each vertex then searches its 3x3x3 cell neighborhood
+ * for lower vertices within epsilon and joins their sets with a concurrent union-find. These searches run in parallel.<br>
+ * Unlike {@link HashGridDeduplication}, chains of vertices that are closer than epsilon are merged transitively,
+ * which makes the result independent of the processing order.
+ */
+public class SortedVertexWelding {
+    private static final int AXIS_BITS = 21;
+    // Reserve 1 cell on each side so neighbor keys don't wrap
+    private static final int MAX_CELLS = (1 << AXIS_BITS) - 3;
+
+    private static final int GRAIN_SIZE = 1 << 14;
+
+
+    private final float epsilon;
+
+
+    public SortedVertexWelding(float epsilon) {
+        if(epsilon < 0)
+            throw new IllegalArgumentException("Epsilon must not be negative");
+        this.epsilon = epsilon;
+    }
+
+
+    /**
+     * Maps each vertex to a welded vertex. Welded vertices are numbered in the order of their first input vertex,
+     * which is the vertex with the lowest index that maps to it.
+     * @param positions Vertex positions (x, y, z).
+     * @param numVertices
+     * @param remap Receives the index of the welded vertex for each input vertex. Must have a length of at least <i>numVertices</i>.
+     * @return Number of welded vertices.
+     */
+    public int weld(float[] positions, int numVertices, int[] remap) {
+        if(positions.length < numVertices*3 || remap.length < numVertices)
+            throw new IllegalArgumentException("Arrays are too short");
+        if(numVertices == 0)
+            return 0;
+
+        // Bounds
+        final int numBlocks = (numVertices + GRAIN_SIZE - 1) / GRAIN_SIZE;
+        final float[] blockBounds = new float[numBlocks * 6];
+        Parallel.forRange(0, numBlocks, 1, (startBlock, endBlock) -> {
+            for(int b=startBlock; b<endBlock; ++b) {
+                float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+                float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+                for(int i=b*GRAIN_SIZE, end=Math.min(i+GRAIN_SIZE, numVertices); i<end; ++i) {
+                    float x = positions[i*3], y = positions[i*3+1], z = positions[i*3+2];
+                    minX = Math.min(minX, x); minY = Math.min(minY, y); minZ = Math.min(minZ, z);
+                    maxX = Math.max(maxX, x); maxY = Math.max(maxY, y); maxZ = Math.max(maxZ, z);
+                }
+
+                int o = b*6;
+                blockBounds[o]   = minX; blockBounds[o+1] = minY; blockBounds[o+2] = minZ;
+                blockBounds[o+3] = maxX; blockBounds[o+4] = maxY; blockBounds[o+5] = maxZ;
+            }
+        });
+
+        float[] bounds = { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                           Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
+        for(int b=0; b<numBlocks; ++b) {
+            for(int k=0; k<3; ++k) {
+                bounds[k]   = Math.min(bounds[k],   blockBounds[b*6+k]);
+                bounds[k+3] = Math.max(bounds[k+3], blockBounds[b*6+k+3]);
+            }
+        }
+
+        if(!Float.isFinite(bounds[0]) || !Float.isFinite(bounds[1]) || !Float.isFinite(bounds[2])
+                || !Float.isFinite(bounds[3]) || !Float.isFinite(bounds[4]) || !Float.isFinite(bounds[5]))
+            throw new IllegalArgumentException("Positions must be finite");
+
+        // Cells larger than epsilon are still correct, they only contain more candidates
+        float extent = Math.max(bounds[3]-bounds[0], Math.max(bounds[4]-bounds[1], bounds[5]-bounds[2]));
+        float cellSize = Math.max(epsilon, extent / MAX_CELLS);
+        if(cellSize <= 0)
+            cellSize = 1.0f;
+        final float invCellSize = 1.0f / cellSize;
+
+        final float minX = bounds[0], minY = bounds[1], minZ = bounds[2];
+        final int maxCell = Math.min(MAX_CELLS, (int) (extent * invCellSize)) + 1;
+        final int keyBits = 2*AXIS_BITS + (32 - Integer.numberOfLeadingZeros(maxCell + 1));
+
+        // Quantize
+        final long[] keys = new long[numVertices];
+        final int[] order = new int[numVertices];
+        Parallel.forRange(0, numVertices, GRAIN_SIZE, (start, end) -> {
+            for(int i=start; i<end; ++i) {
+                long cx = quantize(positions[i*3]   - minX, invCellSize, maxCell);
+                long cy = quantize(positions[i*3+1] - minY, invCellSize, maxCell);
+                long cz = quantize(positions[i*3+2] - minZ, invCellSize, maxCell);
+                keys[i]  = (cx << (2*AXIS_BITS)) | (cy << AXIS_BITS) | cz;
+                order[i] = i;
+            }
+        });
+
+        // Stable sort: Vertices of the same cell stay in ascending index order
+        RadixSort.sort(keys, order, numVertices, keyBits);
+
+        // Union all pairs within epsilon. Roots are always linked to the lower index, so each root is the lowest vertex of its set.
+        final AtomicIntegerArray parent = new AtomicIntegerArray(numVertices);
+        for(int i=0; i<numVertices; ++i)
+            parent.lazySet(i, i);
+
+        final float epsilonSquared = epsilon * epsilon;
+        Parallel.forRange(0, numVertices, GRAIN_SIZE, (start, end) -> {
+            // Start at a cell boundary. Cells that begin in this range are processed completely.
+            int i = start;
+            if(i > 0) {
+                while(i < end && keys[i] == keys[i-1])
+                    i++;
+            }
+
+            int[] cellStart = new int[27];
+            int[] cellEnd = new int[27];
+
+            while(i < end) {
+                long key = keys[i];
+                int cellEndIndex = i+1;
+                while(cellEndIndex < numVertices && keys[cellEndIndex] == key)
+                    cellEndIndex++;
+
+                int numCells = findNeighborCells(keys, numVertices, key, i, cellEndIndex, cellStart, cellEnd);
+
+                for(int c=i; c<cellEndIndex; ++c) {
+                    int vertex = order[c];
+                    float x = positions[vertex*3], y = positions[vertex*3+1], z = positions[vertex*3+2];
+
+                    // Each pair is checked by its higher vertex
+                    for(int n=0; n<numCells; ++n) {
+                        for(int k=cellStart[n]; k<cellEnd[n]; ++k) {
+                            int other = order[k];
+                            if(other >= vertex)
+                                break;
+
+                            float dx = positions[other*3] - x;
+                            float dy = positions[other*3+1] - y;
+                            float dz = positions[other*3+2] - z;
+                            if(dx*dx + dy*dy + dz*dz <= epsilonSquared)
+                                union(parent, vertex, other);
+                        }
+                    }
+                }
+
+                i = cellEndIndex;
+            }
+        });
+
+        // Number the welded vertices. Parents have lower indices and are already mapped.
+        int numWelded = 0;
+        for(int i=0; i<numVertices; ++i) {
+            int p = parent.get(i);
+            if(p == i)
+                remap[i] = numWelded++;
+            else
+                remap[i] = remap[p];
+        }
+
+        return numWelded;
+    }
+
+
+    private static int find(AtomicIntegerArray parent, int x) {
+        while(true) {
+            int p = parent.get(x);
+            if(p == x)
+                return x;
+
+            // Path halving
+            int grandparent = parent.get(p);
+            if(grandparent != p)
+                parent.compareAndSet(x, p, grandparent);
+            x = p;
+        }
+    }
+
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while(true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if(a == b)
+                return;
+
+            // Link higher root to lower root
+            if(a < b) {
+                int temp = a;
+                a = b;
+                b = temp;
+            }
+
+            if(parent.compareAndSet(a, a, b))
+                return;
+        }
+    }
+
+
+    private static long quantize(float value, float invCellSize, int maxCell) {
+        int cell = (int) (value * invCellSize) + 1;
+        return Math.min(cell, maxCell);
+    }
+
+
+    /**
+     * Finds the ranges of the non-empty cells in the 3x3x3 neighborhood of <i>key</i>.
+     * The 3 cells along Z are adjacent in the sorted keys, so only one binary search per (X, Y) row is needed.
+     * @return Number of ranges.
+     */
+    private static int findNeighborCells(long[] keys, int length, long key, int start, int end, int[] cellStart, int[] cellEnd) {
+        int numCells = 0;
+
+        for(int dx=-1; dx<=1; ++dx) {
+            for(int dy=-1; dy<=1; ++dy) {
+                long rowKey = key + ((long)dx << (2*AXIS_BITS)) + ((long)dy << AXIS_BITS);
+
+                int s = (rowKey <= key)
+                        ? lowerBound(keys, 0, start, rowKey-1)
+                        : lowerBound(keys, end, length, rowKey-1);
+
+                while(s < length && keys[s] <= rowKey+1) {
+                    long cellKey = keys[s];
+                    int e = s+1;
+                    while(e < length && keys[e] == cellKey)
+                        e++;
+
+                    cellStart[numCells] = s;
+                    cellEnd[numCells] = e;
+                    numCells++;
+                    s = e;
+                }
+            }
+        }
+
+        return numCells;
+    }
+
+
+    private static int lowerBound(long[] keys, int from, int to, long key) {
+        while(from < to) {
+            int mid = (from + to) >>> 1;
+            if(keys[mid] < key)
+                from = mid+1;
+            else
+                to = mid;
+        }
+        return from;
+    }
+}
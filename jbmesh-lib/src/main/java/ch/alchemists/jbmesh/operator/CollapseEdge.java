@@ -21,17 +21,16 @@ public class CollapseEdge {
 
     private final BMesh bmesh;
 
+    private final VertexEdgeCursor vertexEdges = new VertexEdgeCursor();
+    private final VertexLoopCursor vertexLoops = new VertexLoopCursor();
+    private final FaceLoopCursor faceLoops = new FaceLoopCursor();
+
 
     public CollapseEdge(BMesh bmesh) {
         this.bmesh = bmesh;
     }
 
 
-    public void apply(Edge edge) {
-        apply(bmesh, edge);
-    }
-
-
 
     /**
      * edge.vertex0 will remain, edge.vertex1 will be removed
@@ -39,6 +38,15 @@ public class CollapseEdge {
      * @param edge
      */
     public static void apply(BMesh bmesh, Edge edge) {
+        new CollapseEdge(bmesh).apply(edge);
+    }
+
+
+    /**
+     * edge.vertex0 will remain, edge.vertex1 will be removed
+     * @param edge
+     */
+    public void apply(Edge edge) {
         Vertex v0 = edge.vertex0; // remains
         Vertex v1 = edge.vertex1; // removed
 
@@ -47,23 +55,26 @@ public class CollapseEdge {
         Map<Face, FaceVertices> adjacentFaces = new HashMap<>();
         List<Edge> adjacentEdges = new ArrayList<>(4);
 
-        for(Edge diskEdge : v1.edges()) {
-            adjacentEdges.add(diskEdge);
+        vertexEdges.reset(v1);
+        while(vertexEdges.next())
+            adjacentEdges.add(vertexEdges.get());
 
-            for(Loop radialLoop : diskEdge.loops()) {
-                Face face = radialLoop.face;
-                if(adjacentFaces.containsKey(face))
-                    continue;
+        vertexLoops.reset(v1);
+        while(vertexLoops.next()) {
+            Face face = vertexLoops.getFace();
+            if(adjacentFaces.containsKey(face))
+                continue;
 
-                FaceVertices faceVertices = new FaceVertices(); // TODO: Make ArrayList instead of object
-                adjacentFaces.put(face, faceVertices);
+            FaceVertices faceVertices = new FaceVertices(); // TODO: Make ArrayList instead of object
+            adjacentFaces.put(face, faceVertices);
 
-                for(Vertex vertex : face.vertices()) {
-                    // Map 'v1' => 'v0'
-                    if(vertex == v1)
-                        vertex = v0;
-                    faceVertices.vertices.add(vertex);
-                }
+            faceLoops.reset(face);
+            while(faceLoops.next()) {
+                // Map 'v1' => 'v0'
+                Vertex vertex = faceLoops.getVertex();
+                if(vertex == v1)
+                    vertex = v0;
+                faceVertices.vertices.add(vertex);
             }
         }
 
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Edge;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -18,12 +17,12 @@ import com.jme3.math.Vector3f;
  */
 public class EdgeOps {
     private final BMesh bmesh;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
 
     public EdgeOps(BMesh bmesh) {
         this.bmesh = bmesh;
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
@@ -68,7 +68,7 @@ public class ExtrudeFace {
                 Face newFace = bmesh.createFace(nextLoop.vertex, loop.vertex, originalVertices.get(i), originalVertices.get(nextIndex));
                 resultFaces.add(newFace);
 
-                loop.edge = loop.vertex.getEdgeTo(nextLoop.vertex);
+                loop.edge = bmesh.getEdge(loop.vertex, nextLoop.vertex);
                 loop.edge.addLoop(loop);
             }
         }
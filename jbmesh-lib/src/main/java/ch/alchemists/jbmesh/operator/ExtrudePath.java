@@ -8,7 +8,7 @@ package ch.alchemists.jbmesh.operator;
 
 import ch.alchemists.jbmesh.data.BMeshAttribute;
 import ch.alchemists.jbmesh.data.property.Vec2Attribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Loop;
@@ -22,7 +22,7 @@ import java.util.Iterator;
 
 public class ExtrudePath {
     private final BMesh bmesh;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
     private final ExtrudeFace extrude;
 
     private final ArrayList<Vector2f> shape = new ArrayList<>();
@@ -33,7 +33,7 @@ public class ExtrudePath {
     public ExtrudePath(BMesh bmesh) {
         this.bmesh = bmesh;
         extrude = new ExtrudeFace(bmesh);
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.normalgen.NewellNormal;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
@@ -21,12 +20,12 @@ import java.util.Iterator;
  */
 public class FaceOps {
     private final BMesh bmesh;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
 
     public FaceOps(BMesh bmesh) {
         this.bmesh = bmesh;
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
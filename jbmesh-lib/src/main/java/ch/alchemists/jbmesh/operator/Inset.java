@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -17,7 +16,7 @@ import com.jme3.math.Vector3f;
 public class Inset {
     private final FaceOps faceOps;
     private final ExtrudeFace extrusion;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
     private float thickness = 0.6f; // relative factor, TODO: absolute?
     private float depth = 1.0f;
@@ -26,7 +25,7 @@ public class Inset {
     public Inset(BMesh bmesh, float thickness, float depth) {
         faceOps = new FaceOps(bmesh);
         extrusion = new ExtrudeFace(bmesh);
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
         
         this.thickness = thickness;
         this.depth = depth;
@@ -6,9 +6,11 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.structure.BMesh;
-import ch.alchemists.jbmesh.structure.Edge;
-import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
+import ch.alchemists.jbmesh.structure.*;
+import com.jme3.math.Vector3f;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class MeshOps {
     public static void invert(BMesh bmesh) {
@@ -27,4 +29,138 @@ public class MeshOps {
                 bmesh.joinFace(f1, f2, e);
         }
     }
+
+
+    /**
+     * Reorders the elements of all data sets so that elements which are close in the mesh are also close in memory:
+     * <ul>
+     * <li>Vertices along a Morton curve (Z-order) over their positions.</li>
+     * <li>Faces by their lowest vertex index.</li>
+     * <li>Loops in the order of the faces and their loop cycles.</li>
+     * <li>Edges by their vertex indices.</li>
+     * </ul>
+     * This changes the indices of all elements.
+     * @param bmesh
+     */
+    public static void optimizeLocality(BMesh bmesh) {
+        sortVerticesSpatial(bmesh);
+        sortFacesByVertex(bmesh);
+        sortLoopsByFace(bmesh);
+        sortEdgesByVertex(bmesh);
+    }
+
+
+    private static final int MORTON_BITS = 21;
+    private static final float MORTON_RANGE = (1 << MORTON_BITS) - 1;
+
+    /**
+     * Sorts vertices along a Morton curve (Z-order) over the bounding box of their positions.
+     * Virtual vertices are moved to the end.
+     * @param bmesh
+     */
+    public static void sortVerticesSpatial(BMesh bmesh) {
+        Vec3Property<Vertex> positions = bmesh.positions();
+
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        Vector3f p = new Vector3f();
+
+        for(Vertex vertex : bmesh.vertices()) {
+            positions.get(vertex, p);
+            min.minLocal(p);
+            max.maxLocal(p);
+        }
+
+        // Scale to quantized range, avoid division by zero for flat meshes
+        Vector3f scale = max.subtractLocal(min);
+        scale.x = (scale.x > 0) ? MORTON_RANGE / scale.x : 0;
+        scale.y = (scale.y > 0) ? MORTON_RANGE / scale.y : 0;
+        scale.z = (scale.z > 0) ? MORTON_RANGE / scale.z : 0;
+
+        long[] keys = new long[bmesh.vertices().totalSize()];
+        Arrays.fill(keys, Long.MAX_VALUE);
+
+        for(Vertex vertex : bmesh.vertices()) {
+            positions.get(vertex, p);
+            int x = (int) ((p.x - min.x) * scale.x);
+            int y = (int) ((p.y - min.y) * scale.y);
+            int z = (int) ((p.z - min.z) * scale.z);
+            keys[vertex.getIndex()] = mortonCode(x, y, z);
+        }
+
+        bmesh.vertices().sort(Comparator.comparingLong(vertex -> keys[vertex.getIndex()]));
+    }
+
+
+    /**
+     * Sorts faces by the lowest index of their vertices.
+     * Should be called after sorting the vertices.
+     * @param bmesh
+     */
+    public static void sortFacesByVertex(BMesh bmesh) {
+        long[] keys = new long[bmesh.faces().totalSize()];
+        Arrays.fill(keys, Long.MAX_VALUE);
+
+        for(Face face : bmesh.faces()) {
+            int minIndex = Integer.MAX_VALUE;
+            for(Loop loop : face.loops())
+                minIndex = Math.min(minIndex, loop.vertex.getIndex());
+            keys[face.getIndex()] = minIndex;
+        }
+
+        bmesh.faces().sort(Comparator.comparingLong(face -> keys[face.getIndex()]));
+    }
+
+
+    /**
+     * Sorts loops in the order of their faces, and by their position in the loop cycle of the face.
+     * @param bmesh
+     */
+    public static void sortLoopsByFace(BMesh bmesh) {
+        long[] keys = new long[bmesh.loops().totalSize()];
+        Arrays.fill(keys, Long.MAX_VALUE);
+
+        long order = 0;
+        for(Face face : bmesh.faces()) {
+            for(Loop loop : face.loops())
+                keys[loop.getIndex()] = order++;
+        }
+
+        bmesh.loops().sort(Comparator.comparingLong(loop -> keys[loop.getIndex()]));
+    }
+
+
+    /**
+     * Sorts edges by the indices of their vertices (lower index first).
+     * Should be called after sorting the vertices.
+     * @param bmesh
+     */
+    public static void sortEdgesByVertex(BMesh bmesh) {
+        long[] keys = new long[bmesh.edges().totalSize()];
+        Arrays.fill(keys, Long.MAX_VALUE);
+
+        for(Edge edge : bmesh.edges()) {
+            long i0 = edge.vertex0.getIndex();
+            long i1 = edge.vertex1.getIndex();
+            keys[edge.getIndex()] = (Math.min(i0, i1) << 32) | Math.max(i0, i1);
+        }
+
+        bmesh.edges().sort(Comparator.comparingLong(edge -> keys[edge.getIndex()]));
+    }
+
+
+    private static long mortonCode(int x, int y, int z) {
+        return spreadBits(x) | (spreadBits(y) << 1) | (spreadBits(z) << 2);
+    }
+
+    // Inserts two zero bits between each of the lower 21 bits
+    private static long spreadBits(long v) {
+        v &= 0x1fffffL;
+        v = (v | v << 32) & 0x1f00000000ffffL;
+        v = (v | v << 16) & 0x1f0000ff0000ffL;
+        v = (v | v << 8)  & 0x100f00f00f00f00fL;
+        v = (v | v << 4)  & 0x10c30c30c30c30c3L;
+        v = (v | v << 2)  & 0x1249249249249249L;
+        return v;
+    }
 }
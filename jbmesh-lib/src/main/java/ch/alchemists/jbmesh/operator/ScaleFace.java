@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -15,7 +14,7 @@ import com.jme3.math.Vector3f;
 
 public class ScaleFace {
     private final FaceOps faceOps;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
     private float scale = 1.0f;
 
@@ -24,7 +23,7 @@ public class ScaleFace {
 
     public ScaleFace(BMesh bmesh, float scale) {
         faceOps = new FaceOps(bmesh);
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
         this.scale = scale;
     }
 
@@ -6,12 +6,11 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.*;
 import com.jme3.math.Vector3f;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -34,12 +33,19 @@ public class Smooth {
 
     // TODO: Somehow subdivide it more at extremal points, like the corners of a smoothed cube?
 
+    // Building the edge index takes O(all edges) and pays off when a large part of the mesh is subdivided
+    private static final float EDGE_INDEX_MIN_FRACTION = 0.25f;
+
     private final BMesh bmesh;
     private final EdgeOps edgeOps;
     private final FaceOps faceOps;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
+
+    private final FaceLoopCursor faceLoops = new FaceLoopCursor();
+    private final VertexEdgeCursor vertexEdges = new VertexEdgeCursor();
 
     private boolean processNonmanifolds = false;
+    private boolean useEdgeIndex = false;
 
 
     public Smooth(BMesh bmesh) {
@@ -48,7 +54,7 @@ public class Smooth {
         edgeOps = new EdgeOps(bmesh);
         faceOps = new FaceOps(bmesh);
 
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
@@ -57,65 +63,90 @@ public class Smooth {
     }
 
 
+    /**
+     * Uses the edge index of the BMesh (see {@link BMesh#beginEdgeIndex()}) for all selections.
+     * By default, it is only built if the selection contains at least a quarter of the faces.
+     * An index that is already active is always used.
+     * @param enabled
+     */
+    public void setUseEdgeIndex(boolean enabled) {
+        useEdgeIndex = enabled;
+    }
+
+
     public void apply(List<Face> faces) {
         // TODO: Keep the info for the next iteration?
 
-        Set<Edge> edges = new HashSet<>(faces.size() * 4); // TODO: Instead of Set, use pass nr to ensure each edge is only processed once?
-        Set<Vertex> vertexPoints = new HashSet<>(faces.size() * 4); // TODO: Or use pass nr so each edge is added to a list (instead of set) only once.
+        // Linked sets: Element order and vertex positions depend on the processing order, keep it deterministic
+        Set<Edge> edges = new LinkedHashSet<>(faces.size() * 4); // TODO: Instead of Set, use pass nr to ensure each edge is only processed once?
+        Set<Vertex> vertexPoints = new LinkedHashSet<>(faces.size() * 4); // TODO: Or use pass nr so each edge is added to a list (instead of set) only once.
 
         for(Face face : faces) {
-            for(Loop loop : face.loops()) {
-                edges.add(loop.edge);
-                vertexPoints.add(loop.vertex);
+            faceLoops.reset(face);
+            while(faceLoops.next()) {
+                edges.add(faceLoops.getEdge());
+                vertexPoints.add(faceLoops.getVertex());
             }
         }
 
-        // Split edges and remember resulting vertices
         List<Vertex> edgePoints = new ArrayList<>(edges.size());
-        Vector3f center = new Vector3f();
-        for(Edge edge : edges) {
-            edgeOps.calcCenter(edge, center);
-            Vertex edgePoint = bmesh.splitEdge(edge); // << Edge Point
-
-            if(isManifold(edge.loop))
-                edgePoints.add(edgePoint);
 
-            positions.set(edgePoint, center);
-        }
-
-        // Subdivide faces
-        ArrayList<Vertex> faceVertices = new ArrayList<>(8);
-        for(Face face : faces) {
-            faceVertices.clear();
-            face.getVertices(faceVertices);
-            assert (faceVertices.size() & 1) == 0; // Even number
-
-            // Make sure first vertex in list is an original vertex
-            if(!vertexPoints.contains(faceVertices.get(0))) {
-                Vertex first = faceVertices.get(0);
-                for(int i=1; i<faceVertices.size(); ++i)
-                    faceVertices.set(i-1, faceVertices.get(i));
-                faceVertices.set(faceVertices.size()-1, first);
-            }
+        // Edge lookups in createFace() are slow for vertices with many edges
+        final boolean edgeIndex = useEdgeIndex || faces.size() >= bmesh.faces().size() * EDGE_INDEX_MIN_FRACTION;
+        if(edgeIndex)
+            bmesh.beginEdgeIndex();
 
-            // Build new quads
-            faceOps.centroid(face, center); // Calculate earlier, before splitting edges?
-            bmesh.removeFace(face);
-            Vertex facePoint = bmesh.createVertex(center); // << Face Point
+        try {
+            // Split edges and remember resulting vertices
+            Vector3f center = new Vector3f();
+            for(Edge edge : edges) {
+                edgeOps.calcCenter(edge, center);
+                Vertex edgePoint = bmesh.splitEdge(edge); // << Edge Point
 
-            int lastIndex = faceVertices.size() - 1;
-            for(int i=0; i<faceVertices.size(); i+=2) {
-                //int nextIndex = (i+1) % faceVertices.size();
-                int nextIndex = i+1;
+                if(isManifold(edge.loop))
+                    edgePoints.add(edgePoint);
 
-                Vertex v0 = faceVertices.get(lastIndex);
-                Vertex v1 = faceVertices.get(i);
-                Vertex v2 = faceVertices.get(nextIndex);
-                bmesh.createFace(v0, v1, v2, facePoint);
+                positions.set(edgePoint, center);
+            }
 
-                lastIndex = i+1;
+            // Subdivide faces
+            ArrayList<Vertex> faceVertices = new ArrayList<>(8);
+            for(Face face : faces) {
+                faceVertices.clear();
+                face.getVertices(faceVertices);
+                assert (faceVertices.size() & 1) == 0; // Even number
+
+                // Make sure first vertex in list is an original vertex
+                if(!vertexPoints.contains(faceVertices.get(0))) {
+                    Vertex first = faceVertices.get(0);
+                    for(int i=1; i<faceVertices.size(); ++i)
+                        faceVertices.set(i-1, faceVertices.get(i));
+                    faceVertices.set(faceVertices.size()-1, first);
+                }
+
+                // Build new quads
+                faceOps.centroid(face, center); // Calculate earlier, before splitting edges?
+                bmesh.removeFace(face);
+                Vertex facePoint = bmesh.createVertex(center); // << Face Point
+
+                int lastIndex = faceVertices.size() - 1;
+                for(int i=0; i<faceVertices.size(); i+=2) {
+                    //int nextIndex = (i+1) % faceVertices.size();
+                    int nextIndex = i+1;
+
+                    Vertex v0 = faceVertices.get(lastIndex);
+                    Vertex v1 = faceVertices.get(i);
+                    Vertex v2 = faceVertices.get(nextIndex);
+                    bmesh.createFace(v0, v1, v2, facePoint);
+
+                    lastIndex = i+1;
+                }
             }
         }
+        finally {
+            if(edgeIndex)
+                bmesh.endEdgeIndex();
+        }
 
         // Prepare EdgePoint locations
         Vector3f[] edgePointLoc = new Vector3f[edgePoints.size()];
@@ -124,9 +155,9 @@ public class Smooth {
             Vector3f p = new Vector3f();
 
             int count = 0; // 4 in manifolds, less at borders
-            for(Edge e : edgePoint.edges()) {
-                Vertex other = e.getOther(edgePoint);
-                positions.addLocal(p, other);
+            vertexEdges.reset(edgePoint);
+            while(vertexEdges.next()) {
+                positions.addLocal(p, vertexEdges.getOther());
                 count++;
             }
 
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.*;
 import com.jme3.math.Vector3f;
 import java.util.*;
@@ -28,7 +27,7 @@ public class SubdivideFace {
     private final Map<Face, FaceInfo> faceInfo = new HashMap<>(); // TODO: This one too (as local variable in apply())
     private final Set<Edge> edges = new HashSet<>(); // TODO: Try and benchmark as local variable in apply() with initialCapacity
 
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
     private int cuts = 1;
 
     private final List<Loop> tempLoops = new ArrayList<>(4);
@@ -43,7 +42,7 @@ public class SubdivideFace {
     public SubdivideFace(BMesh bmesh, int cuts) {
         this.bmesh = bmesh;
         setCuts(cuts);
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator.bool;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.meshgen.DistanceFunction;
 import ch.alchemists.jbmesh.structure.*;
 import com.jme3.math.Vector3f;
@@ -28,7 +27,7 @@ public abstract class Cut {
 
 
     protected final BMesh bmesh;
-    protected final Vec3Attribute<Vertex> positions;
+    protected final Vec3Property<Vertex> positions;
 
     protected DistanceFunction dfunc;
 
@@ -36,7 +35,7 @@ public abstract class Cut {
     public Cut(BMesh bmesh, DistanceFunction dfunc) {
         this.bmesh = bmesh;
         this.dfunc = dfunc;
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
@@ -42,14 +42,21 @@ public class MarchingCubeBuilder {
         float boundary = cellSize - BOUND_EPSILON;
         end.subtractLocal(boundary, boundary, boundary);
 
-        for(p.x = start.x; p.x <= end.x; p.x += cellSize) {
-            for(p.y = start.y; p.y <= end.y; p.y += cellSize) {
-                for(p.z = start.z; p.z <= end.z; p.z += cellSize) {
-                    cube.setPosition(p);
-                    cube.process(dfunc);
+        // Edge lookups in createFace() are slow for vertices with many edges
+        bmesh.beginEdgeIndex();
+        try {
+            for(p.x = start.x; p.x <= end.x; p.x += cellSize) {
+                for(p.y = start.y; p.y <= end.y; p.y += cellSize) {
+                    for(p.z = start.z; p.z <= end.z; p.z += cellSize) {
+                        cube.setPosition(p);
+                        cube.process(dfunc);
+                    }
                 }
             }
         }
+        finally {
+            bmesh.endEdgeIndex();
+        }
 
         return bmesh;
     }
@@ -74,38 +81,44 @@ public class MarchingCubeBuilder {
         Queue<HashGrid.Index> queue = new ArrayDeque<>();
         Vector3f p;
 
-        // Find first intersecting cell
-        while(cellPosIterator.hasNext()) {
-            p = cellPosIterator.next();
-            cube.setPosition(p);
-            int walkDirections = cube.process(dfunc);
-
-            if(walkDirections != 0) {
-                HashGrid.Index gridIndex = visitedCells.getIndexForCoords(p);
-                visitedCells.set(gridIndex, p.clone());
-                putQueue(queue, p, visitedCells, gridIndex, cellSize, walkDirections);
-                break;
+        bmesh.beginEdgeIndex();
+        try {
+            // Find first intersecting cell
+            while(cellPosIterator.hasNext()) {
+                p = cellPosIterator.next();
+                cube.setPosition(p);
+                int walkDirections = cube.process(dfunc);
+
+                if(walkDirections != 0) {
+                    HashGrid.Index gridIndex = visitedCells.getIndexForCoords(p);
+                    visitedCells.set(gridIndex, p.clone());
+                    putQueue(queue, p, visitedCells, gridIndex, cellSize, walkDirections);
+                    break;
+                }
             }
-        }
-
-        // Move BoundingBox so we can use it to ensure that the cells are all completely contained inside the bounds
-        BoundingBox bounds = dfunc.getBounds();
-        float boundary = cellSize - BOUND_EPSILON;
-        Vector3f min = bounds.getMin(null).subtractLocal(boundary, boundary, boundary);
-        Vector3f max = bounds.getMax(null).subtractLocal(boundary, boundary, boundary);
-        bounds = new BoundingBox(min, max);
-
-        // Breadth first traversal along surface
-        while(!queue.isEmpty()) {
-            HashGrid.Index gridIndex = queue.poll();
-            p = visitedCells.get(gridIndex);
-            if(!bounds.contains(p))
-                continue;
 
-            cube.setPosition(p);
-            int walkDirections = cube.process(dfunc);
-            if(walkDirections != 0)
-                putQueue(queue, p, visitedCells, gridIndex, cellSize, walkDirections);
+            // Move BoundingBox so we can use it to ensure that the cells are all completely contained inside the bounds
+            BoundingBox bounds = dfunc.getBounds();
+            float boundary = cellSize - BOUND_EPSILON;
+            Vector3f min = bounds.getMin(null).subtractLocal(boundary, boundary, boundary);
+            Vector3f max = bounds.getMax(null).subtractLocal(boundary, boundary, boundary);
+            bounds = new BoundingBox(min, max);
+
+            // Breadth first traversal along surface
+            while(!queue.isEmpty()) {
+                HashGrid.Index gridIndex = queue.poll();
+                p = visitedCells.get(gridIndex);
+                if(!bounds.contains(p))
+                    continue;
+
+                cube.setPosition(p);
+                int walkDirections = cube.process(dfunc);
+                if(walkDirections != 0)
+                    putQueue(queue, p, visitedCells, gridIndex, cellSize, walkDirections);
+            }
+        }
+        finally {
+            bmesh.endEdgeIndex();
         }
 
         return bmesh;
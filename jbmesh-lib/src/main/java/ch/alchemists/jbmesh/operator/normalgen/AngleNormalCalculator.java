@@ -6,9 +6,8 @@
 
 package ch.alchemists.jbmesh.operator.normalgen;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.BooleanAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.FaceOps;
 import ch.alchemists.jbmesh.structure.*;
 import com.jme3.math.Vector3f;
@@ -18,8 +17,8 @@ public class AngleNormalCalculator implements NormalGenerator.NormalCalculator {
 
     protected FaceOps faceOps;
 
-    protected Vec3Attribute<Vertex> positions;
-    protected BooleanAttribute<Edge> edgeCrease;
+    protected Vec3Property<Vertex> positions;
+    protected BitAttribute<Edge> edgeCrease;
     //protected final Map<Edge, Boolean> edgeCreases = new HashMap<>();
 
     protected final transient Vector3f tempV1 = new Vector3f();
@@ -49,8 +48,8 @@ public class AngleNormalCalculator implements NormalGenerator.NormalCalculator {
 
     @Override
     public void prepare(BMesh bmesh, float creaseAngle) {
-        edgeCrease = BooleanAttribute.getOrCreate(ATTRIBUTE_EDGE_CREASE, bmesh.edges());
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        edgeCrease = BitAttribute.getOrCreate(ATTRIBUTE_EDGE_CREASE, bmesh.edges());
+        positions = bmesh.positions();
         faceOps = new FaceOps(bmesh);
 
         for(Edge edge : bmesh.edges()) {
@@ -0,0 +1,204 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.data.Element;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Edge;
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.structure.Vertex;
+import ch.alchemists.jbmesh.util.Parallel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Applies a local operator to many elements in parallel, e.g. {@link ch.alchemists.jbmesh.operator.Inset} to a set of faces.<br>
+ * The elements are greedily colored so that no two elements of the same color share a conflict vertex.
+ * The color classes are processed one after another. The elements of a class are processed in parallel
+ * in a concurrent section of the BMesh (see {@link BMesh#beginConcurrent(int, int, int, int)}).<br>
+ * The conflict vertices of an element must include all vertices whose disk cycles, adjacent radial cycles or attributes
+ * are modified by the operator. For operators that only change the element and create new elements attached to it,
+ * these are the vertices of the element (see {@link #forFaces(BMesh)}, {@link #forEdges(BMesh)}).
+ * The operator must not set values of a {@link ch.alchemists.jbmesh.data.property.BitAttribute}, since elements of the same
+ * color can share a word. This throws an IllegalStateException.
+ * @param <E> Element type.
+ */
+public class ColorScheduler<E extends Element> {
+    @FunctionalInterface
+    public static interface ConflictVertices<E> {
+        /**
+         * @param element
+         * @param store Receives the conflict vertices of <i>element</i>. Can contain duplicates.
+         */
+        void get(E element, List<Vertex> store);
+    }
+
+    @FunctionalInterface
+    public static interface Allocation<E> {
+        /**
+         * Adds the maximum number of elements the operator creates when applied to <i>element</i>.
+         * @param element
+         * @param store Number of vertices, edges, faces and loops.
+         */
+        void add(E element, int[] store);
+    }
+
+
+    private static final int GRAIN_SIZE = 64;
+
+    private final BMesh bmesh;
+    private final ConflictVertices<E> conflictVertices;
+    private final List<List<E>> colors = new ArrayList<>();
+
+
+    public ColorScheduler(BMesh bmesh, ConflictVertices<E> conflictVertices) {
+        this.bmesh = bmesh;
+        this.conflictVertices = conflictVertices;
+    }
+
+
+    public static ColorScheduler<Face> forFaces(BMesh bmesh) {
+        return new ColorScheduler<>(bmesh, Face::getVertices);
+    }
+
+    public static ColorScheduler<Edge> forEdges(BMesh bmesh) {
+        return new ColorScheduler<>(bmesh, (edge, store) -> {
+            store.add(edge.vertex0);
+            store.add(edge.vertex1);
+        });
+    }
+
+
+    /**
+     * Assigns each element the lowest color that is not used by another element with a common conflict vertex.
+     * The number of colors is at most the maximum number of conflicting elements + 1.
+     * @param elements
+     * @return Number of colors.
+     */
+    public int color(Iterable<E> elements) {
+        colors.clear();
+
+        // Colors 0-63 are stored as bit masks per vertex, the others as sets of vertex indices per color
+        long[] vertexColors = new long[bmesh.vertices().totalSize()];
+        List<BitSet> extraColors = new ArrayList<>();
+        List<Vertex> vertices = new ArrayList<>(8);
+
+        for(E element : elements) {
+            vertices.clear();
+            conflictVertices.get(element, vertices);
+
+            long used = 0;
+            for(Vertex vertex : vertices)
+                used |= vertexColors[vertex.getIndex()];
+
+            int color;
+            if(used != -1L) {
+                color = Long.numberOfTrailingZeros(~used);
+                for(Vertex vertex : vertices)
+                    vertexColors[vertex.getIndex()] |= 1L << color;
+            }
+            else {
+                color = findExtraColor(extraColors, vertices);
+                BitSet colorVertices = extraColors.get(color - 64);
+                for(Vertex vertex : vertices)
+                    colorVertices.set(vertex.getIndex());
+            }
+
+            while(colors.size() <= color)
+                colors.add(new ArrayList<>());
+            colors.get(color).add(element);
+        }
+
+        return colors.size();
+    }
+
+
+    private static int findExtraColor(List<BitSet> extraColors, List<Vertex> vertices) {
+        outer:
+        for(int i=0; i<extraColors.size(); ++i) {
+            BitSet colorVertices = extraColors.get(i);
+            for(Vertex vertex : vertices) {
+                if(colorVertices.get(vertex.getIndex()))
+                    continue outer;
+            }
+            return i + 64;
+        }
+
+        extraColors.add(new BitSet());
+        return extraColors.size() - 1 + 64;
+    }
+
+
+    public int getNumColors() {
+        return colors.size();
+    }
+
+    /**
+     * @param color
+     * @return The elements with the given color.
+     */
+    public List<E> getColorClass(int color) {
+        return Collections.unmodifiableList(colors.get(color));
+    }
+
+
+    /**
+     * Applies the operator to all colored elements, see {@link #color(Iterable)}. Elements that were destroyed by the
+     * operator while processing a previous color class are skipped.<br>
+     * Stable indices are enabled while processing. If they were disabled before, the data is compacted at the end.
+     * @param allocation Estimates the number of elements created by the operator. Exceeding the estimate throws an IllegalStateException.
+     * @param operatorFactory Creates an operator instance for each worker task. Instances are not shared between threads.
+     */
+    public void apply(Allocation<E> allocation, Supplier<Consumer<E>> operatorFactory) {
+        boolean[] stableIndices = {
+            bmesh.vertices().hasStableIndices(), bmesh.edges().hasStableIndices(),
+            bmesh.faces().hasStableIndices(), bmesh.loops().hasStableIndices()
+        };
+
+        // Avoid compacting after each color class
+        bmesh.vertices().setStableIndices(true);
+        bmesh.edges().setStableIndices(true);
+        bmesh.faces().setStableIndices(true);
+        bmesh.loops().setStableIndices(true);
+
+        try {
+            int[] counts = new int[4];
+            for(List<E> colorClass : colors) {
+                counts[0] = counts[1] = counts[2] = counts[3] = 0;
+                for(E element : colorClass) {
+                    if(element.isAlive())
+                        allocation.add(element, counts);
+                }
+
+                bmesh.beginConcurrent(counts[0], counts[1], counts[2], counts[3]);
+                try {
+                    Parallel.forRange(0, colorClass.size(), GRAIN_SIZE, (start, end) -> {
+                        Consumer<E> op = operatorFactory.get();
+                        for(int i=start; i<end; ++i) {
+                            E element = colorClass.get(i);
+                            if(element.isAlive())
+                                op.accept(element);
+                        }
+                    });
+                }
+                finally {
+                    bmesh.endConcurrent();
+                }
+            }
+        }
+        finally {
+            bmesh.vertices().setStableIndices(stableIndices[0]);
+            bmesh.edges().setStableIndices(stableIndices[1]);
+            bmesh.faces().setStableIndices(stableIndices[2]);
+            bmesh.loops().setStableIndices(stableIndices[3]);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.structure.Loop;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assignment of faces to chunks, created by {@link FacePartitioner}.<br>
+ * A face is a border face if one of its vertices is also used by a face of another chunk. All other faces are interior faces.
+ * Interior faces of different chunks don't share any vertices, edges or loops, and the faces around the vertices of an
+ * interior face all belong to the same chunk.
+ */
+public class FacePartition {
+    private final int[] faceChunks;
+    private final List<List<Face>> interiors;
+    private final List<Face> border;
+    private final List<Face> borderView;
+
+
+    /**
+     * @param faces Faces in the order they should be processed.
+     * @param faceChunks Chunk of each face by face index, -1 for faces that are not part of the partition.
+     *                   Must be large enough for the indices of all <i>faces</i>.
+     * @param numChunks
+     * @param vertexChunks Temporary storage for the vertex indices, all -1. Is modified.
+     */
+    FacePartition(Iterable<Face> faces, int[] faceChunks, int numChunks, int[] vertexChunks) {
+        this.faceChunks = faceChunks;
+
+        // Mark vertices that are used by more than one chunk with -2
+        for(Face face : faces) {
+            int chunk = faceChunks[face.getIndex()];
+            for(Loop loop : face.loops()) {
+                int v = loop.vertex.getIndex();
+                if(vertexChunks[v] == -1)
+                    vertexChunks[v] = chunk;
+                else if(vertexChunks[v] != chunk)
+                    vertexChunks[v] = -2;
+            }
+        }
+
+        interiors = new ArrayList<>(numChunks);
+        for(int i=0; i<numChunks; ++i)
+            interiors.add(new ArrayList<>());
+        border = new ArrayList<>();
+        borderView = Collections.unmodifiableList(border);
+
+        outer:
+        for(Face face : faces) {
+            for(Loop loop : face.loops()) {
+                if(vertexChunks[loop.vertex.getIndex()] == -2) {
+                    border.add(face);
+                    continue outer;
+                }
+            }
+
+            interiors.get(faceChunks[face.getIndex()]).add(face);
+        }
+
+        for(int i=0; i<numChunks; ++i)
+            interiors.set(i, Collections.unmodifiableList(interiors.get(i)));
+    }
+
+
+    public int getNumChunks() {
+        return interiors.size();
+    }
+
+
+    /**
+     * @param face
+     * @return The chunk the face was assigned to, or -1 if it's not part of the partition.
+     */
+    public int getChunk(Face face) {
+        int index = face.getIndex();
+        return (index >= 0 && index < faceChunks.length) ? faceChunks[index] : -1;
+    }
+
+
+    /**
+     * @param chunk
+     * @return The interior faces of the chunk.
+     */
+    public List<Face> getInterior(int chunk) {
+        return interiors.get(chunk);
+    }
+
+
+    /**
+     * @return The faces that share a vertex with a face of another chunk.
+     */
+    public List<Face> getBorder() {
+        return borderView;
+    }
+}
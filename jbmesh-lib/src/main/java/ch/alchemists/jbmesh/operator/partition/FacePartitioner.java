@@ -0,0 +1,145 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.operator.FaceOps;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.structure.Loop;
+import ch.alchemists.jbmesh.util.HashGrid;
+import com.jme3.math.Vector3f;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Splits faces into spatially coherent chunks for {@link PartitionExecutor}.
+ */
+public class FacePartitioner {
+    private final BMesh bmesh;
+    private final FaceOps faceOps;
+
+
+    public FacePartitioner(BMesh bmesh) {
+        this.bmesh = bmesh;
+        this.faceOps = new FaceOps(bmesh);
+    }
+
+
+    public FacePartition partitionGrid(float cellSize) {
+        return partitionGrid(bmesh.faces(), cellSize);
+    }
+
+    /**
+     * Bins the faces into cubic grid cells by their centroid. Each non-empty cell becomes a chunk.
+     * @param faces
+     * @param cellSize Edge length of the grid cells. Should be large compared to the faces, since
+     *                 faces at the cell boundaries become border faces.
+     * @return
+     */
+    public FacePartition partitionGrid(Iterable<Face> faces, float cellSize) {
+        if(cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive");
+
+        int[] faceChunks = newFaceChunks();
+        HashGrid<Integer> grid = new HashGrid<>(cellSize);
+        Vector3f centroid = new Vector3f();
+
+        for(Face face : faces) {
+            faceOps.centroid(face, centroid);
+            HashGrid.Index cell = grid.getIndexForCoords(centroid);
+
+            Integer chunk = grid.get(cell);
+            if(chunk == null) {
+                chunk = grid.size();
+                grid.set(cell, chunk);
+            }
+
+            faceChunks[face.getIndex()] = chunk;
+        }
+
+        return new FacePartition(faces, faceChunks, grid.size(), newVertexChunks());
+    }
+
+
+    public FacePartition partitionGreedy(int chunkSize) {
+        return partitionGreedy(bmesh.faces(), chunkSize);
+    }
+
+    /**
+     * Grows chunks of up to <i>chunkSize</i> faces with a breadth-first traversal over the edges.
+     * The next chunk starts at the front of the previous chunk. Independent of positions.
+     * @param faces
+     * @param chunkSize Maximum number of faces per chunk.
+     * @return
+     */
+    public FacePartition partitionGreedy(Iterable<Face> faces, int chunkSize) {
+        if(chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+
+        // -2: Unassigned face of the input
+        final int unassigned = -2;
+        int[] faceChunks = newFaceChunks();
+        for(Face face : faces)
+            faceChunks[face.getIndex()] = unassigned;
+
+        ArrayDeque<Face> queue = new ArrayDeque<>();
+        ArrayDeque<Face> front = new ArrayDeque<>();
+        int numChunks = 0;
+
+        for(Face seed : faces) {
+            if(faceChunks[seed.getIndex()] != unassigned)
+                continue;
+
+            front.add(seed);
+            while(!front.isEmpty()) {
+                Face start = front.poll();
+                if(faceChunks[start.getIndex()] != unassigned)
+                    continue;
+
+                final int chunk = numChunks++;
+                int size = 0;
+                queue.add(start);
+
+                while(!queue.isEmpty()) {
+                    Face face = queue.poll();
+                    if(faceChunks[face.getIndex()] != unassigned)
+                        continue;
+
+                    if(size == chunkSize) {
+                        front.add(face);
+                        continue;
+                    }
+
+                    faceChunks[face.getIndex()] = chunk;
+                    size++;
+
+                    for(Loop loop : face.loops()) {
+                        for(Loop radial = loop.nextEdgeLoop; radial != loop; radial = radial.nextEdgeLoop) {
+                            if(faceChunks[radial.face.getIndex()] == unassigned)
+                                queue.add(radial.face);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new FacePartition(faces, faceChunks, numChunks, newVertexChunks());
+    }
+
+
+    private int[] newFaceChunks() {
+        int[] faceChunks = new int[bmesh.faces().totalSize()];
+        Arrays.fill(faceChunks, -1);
+        return faceChunks;
+    }
+
+    private int[] newVertexChunks() {
+        int[] vertexChunks = new int[bmesh.vertices().totalSize()];
+        Arrays.fill(vertexChunks, -1);
+        return vertexChunks;
+    }
+}
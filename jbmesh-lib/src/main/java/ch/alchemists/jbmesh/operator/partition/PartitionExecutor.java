@@ -0,0 +1,68 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.util.Parallel;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operator on the interior faces of all chunks of a {@link FacePartition} in parallel,
+ * and then on the border faces in the calling thread.<br>
+ * During the parallel phase, the operator may modify attribute values of the given faces and of their loops, edges
+ * and vertices, and read the elements around them. It must not create elements. The parallel phase runs in a concurrent
+ * section without reserve (see {@link BMesh#beginConcurrent(int, int, int, int)}), which also repairs the dirty ranges
+ * of the modified attributes.<br>
+ * Faces of different chunks can have adjacent indices. The operator must therefore not set values of a
+ * {@link ch.alchemists.jbmesh.data.property.BitAttribute} in the parallel phase, which packs 64 elements into one word.
+ * This throws an IllegalStateException. The border faces are processed after the section and have no such restriction.
+ */
+public class PartitionExecutor {
+    @FunctionalInterface
+    public static interface RegionOperator {
+        /**
+         * @param faces Faces of one region. Don't keep a reference to the list.
+         */
+        void apply(List<Face> faces);
+    }
+
+
+    private final BMesh bmesh;
+
+
+    public PartitionExecutor(BMesh bmesh) {
+        this.bmesh = bmesh;
+    }
+
+
+    /**
+     * @param partition
+     * @param operatorFactory Creates an operator instance for each worker task and one for the border.
+     *                        Instances are not shared between threads.
+     */
+    public void apply(FacePartition partition, Supplier<RegionOperator> operatorFactory) {
+        bmesh.beginConcurrent(0, 0, 0, 0);
+        try {
+            Parallel.forRange(0, partition.getNumChunks(), 1, (start, end) -> {
+                RegionOperator op = operatorFactory.get();
+                for(int chunk=start; chunk<end; ++chunk) {
+                    List<Face> interior = partition.getInterior(chunk);
+                    if(!interior.isEmpty())
+                        op.apply(interior);
+                }
+            });
+        }
+        finally {
+            bmesh.endConcurrent();
+        }
+
+        if(!partition.getBorder().isEmpty())
+            operatorFactory.get().apply(partition.getBorder());
+    }
+}
@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator.skeleton;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -17,7 +16,7 @@ import com.jme3.math.Vector3f;
 import java.util.*;
 
 public class StraightSkeleton {
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
     private float offsetDistance = Float.POSITIVE_INFINITY; // Absolute value
     private float distanceSign = -1.0f;
@@ -28,7 +27,7 @@ public class StraightSkeleton {
 
 
     public StraightSkeleton(BMesh bmesh) {
-        positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions = bmesh.positions();
     }
 
 
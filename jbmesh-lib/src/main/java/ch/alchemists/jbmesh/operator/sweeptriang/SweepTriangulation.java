@@ -6,8 +6,7 @@
 
 package ch.alchemists.jbmesh.operator.sweeptriang;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Loop;
@@ -50,16 +49,16 @@ public class SweepTriangulation {
         addFaceWithLoops(bmesh, face.loops());
     }
 
-    public void addFace(Vec3Attribute<Vertex> positions, Face face) {
+    public void addFace(Vec3Property<Vertex> positions, Face face) {
         addFaceWithLoops(positions, face.loops());
     }
 
     public void addFaceWithLoops(BMesh bmesh, Iterable<Loop> face) {
-        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        Vec3Property<Vertex> positions = bmesh.positions();
         addFaceWithLoops(positions, face);
     }
 
-    public void addFaceWithLoops(Vec3Attribute<Vertex> positions, Iterable<Loop> face) {
+    public void addFaceWithLoops(Vec3Property<Vertex> positions, Iterable<Loop> face) {
         preparation.addFace(face, (Loop loop, Vector3f store) -> positions.get(loop.vertex, store), loop -> loop.vertex);
     }
 
@@ -1,7 +1,6 @@
 package ch.alchemists.jbmesh.operator.triangulation;
 
-import ch.alchemists.jbmesh.data.BMeshAttribute;
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Loop;
@@ -16,12 +15,12 @@ import java.util.Random;
 
 public class SeidelTriangulation {
     private final BMesh bmesh;
-    private final Vec3Attribute<Vertex> positions;
+    private final Vec3Property<Vertex> positions;
 
 
     public SeidelTriangulation(BMesh bmesh) {
         this.bmesh = bmesh;
-        this.positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        this.positions = bmesh.positions();
     }
 
 
@@ -8,31 +8,61 @@ package ch.alchemists.jbmesh.structure;
 
 import ch.alchemists.jbmesh.data.BMeshAttribute;
 import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
 import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
+import ch.alchemists.jbmesh.util.LongIntHashMap;
 import com.jme3.math.Vector3f;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BMesh {
+    // Building the edge index in createFaces() takes O(all edges) and pays off when many loops are added
+    private static final float EDGE_INDEX_MIN_FRACTION = 0.25f;
+
     private final BMeshData<Vertex> vertexData;
     private final BMeshData<Edge> edgeData;
     private final BMeshData<Face> faceData;
     private final BMeshData<Loop> loopData;
 
-    private final Vec3Attribute<Vertex> attrPosition = new Vec3Attribute<>(BMeshAttribute.Position);
+    private final Vec3Property<Vertex> attrPosition;
 
     private final transient ArrayList<Loop> tempLoops = new ArrayList<>(4);
+    private transient ThreadLocal<ArrayList<Loop>> concurrentTempLoops = null;
+
+    // Optional lookup of edges by vertex indices, see beginEdgeIndex()
+    private LongIntHashMap edgeIndex = null;
+    private int edgeIndexDepth = 0;
+    private boolean edgeIndexStableVertices = false;
+    private boolean edgeIndexStableEdges = false;
+
+    // Scratch marks for faces in adjacency queries, used by one thread at a time
+    private final FaceMarks faceMarks = new FaceMarks();
 
 
     public BMesh() {
+        this(new Vec3Attribute<>(BMeshAttribute.Position));
+    }
+
+    /**
+     * Creates a mesh that stores the vertex positions in the given attribute instead of a {@link Vec3Attribute},
+     * e.g. in a {@link ch.alchemists.jbmesh.data.property.Vec3BufferAttribute} that can be uploaded without copying.
+     * @param attrPosition A new attribute with the name {@link BMeshAttribute#Position}.
+     */
+    public <A extends BMeshAttribute<Vertex, ?> & Vec3Property<Vertex>> BMesh(A attrPosition) {
+        if(!BMeshAttribute.Position.equals(attrPosition.name))
+            throw new IllegalArgumentException("Position attribute must be named '" + BMeshAttribute.Position + "'");
+
         vertexData = new BMeshData<>(Vertex::new);
         edgeData   = new BMeshData<>(Edge::new);
         faceData   = new BMeshData<>(Face::new);
         loopData   = new BMeshData<>(Loop::new);
 
         vertexData.addAttribute(attrPosition);
+        this.attrPosition = attrPosition;
     }
 
 
@@ -53,26 +83,314 @@ public class BMesh {
     }
 
 
+    /**
+     * @return The position attribute of the vertices, see {@link #BMesh(BMeshAttribute)}.
+     */
+    public Vec3Property<Vertex> positions() {
+        return attrPosition;
+    }
+
+
     public void compactData() {
         vertexData.compactData();
         edgeData.compactData();
         faceData.compactData();
         loopData.compactData();
 
+        // Indices have changed
+        if(edgeIndex != null)
+            rebuildEdgeIndex();
+
         //tempLoops.trimToSize();
     }
 
 
+    /**
+     * The version increases with every modification of elements and attribute values. See {@link BMeshData#getVersion()}.
+     * @return
+     */
+    public long getVersion() {
+        return vertexData.getVersion() + edgeData.getVersion() + faceData.getVersion() + loopData.getVersion();
+    }
+
+
+    /**
+     * Creates a deep copy with all attributes. Element indices, virtual elements and free slots are preserved.<br>
+     * The attribute arrays are copied in bulk and the references between elements are remapped by index,
+     * without Euler operations.
+     * Values of object attributes are not cloned, both meshes reference the same objects.
+     * @return
+     */
+    public BMesh copy() {
+        BMesh copy = newEmpty();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * @return A new empty mesh whose position attribute uses the same storage as the one of this mesh.
+     */
+    @SuppressWarnings("unchecked")
+    BMesh newEmpty() {
+        BMeshAttribute<Vertex, ?> attribute = ((BMeshAttribute<Vertex, ?>) attrPosition).newInstance();
+        return new BMesh((BMeshAttribute<Vertex, ?> & Vec3Property<Vertex>) attribute);
+    }
+
+    /**
+     * Replaces the content of this mesh with a deep copy of <i>source</i>, see {@link #copy()}.
+     * The attribute arrays are reused, and the element objects too if pooling is enabled on the BMeshData
+     * (see {@link BMeshData#setPoolCapacity(int)}).<br>
+     * Element objects of this mesh become invalid. Doesn't modify the edge index of this mesh: Call {@link #endEdgeIndex()} before.
+     * @param source Must store the positions in the same type of attribute.
+     */
+    public void copyFrom(BMesh source) {
+        copyFrom(source, null);
+    }
+
+    /**
+     * Like {@link #copyFrom(BMesh)}, but shares the arrays of attributes that didn't change since <i>previous</i>
+     * was copied from the same source, see {@link BMeshData#copyFrom(BMeshData, BMeshData)}.
+     * The elements and references between them are always copied.
+     * @param source
+     * @param previous An earlier copy of <i>source</i>, or <i>null</i>. Must only have been modified by adding virtual elements.
+     */
+    void copyFrom(BMesh source, BMesh previous) {
+        if(source == this || previous == this)
+            throw new IllegalArgumentException("Can't copy from itself");
+        if(source.attrPosition.getClass() != attrPosition.getClass())
+            throw new IllegalArgumentException("Source stores the positions in a different type of attribute");
+        if(edgeIndex != null)
+            throw new IllegalStateException("Can't copy while the edge index is active");
+        if(isConcurrent())
+            throw new IllegalStateException("Can't copy in concurrent section");
+
+        final BMeshData<Vertex> vertexData = source.vertexData;
+        final BMeshData<Edge> edgeData = source.edgeData;
+        final BMeshData<Face> faceData = source.faceData;
+        final BMeshData<Loop> loopData = source.loopData;
+
+        final BMeshData<Vertex> vertices = this.vertexData;
+        final BMeshData<Edge> edges = this.edgeData;
+        final BMeshData<Face> faces = this.faceData;
+        final BMeshData<Loop> loops = this.loopData;
+
+        vertices.copyFrom(vertexData, (previous != null) ? previous.vertexData : null);
+        edges.copyFrom(edgeData, (previous != null) ? previous.edgeData : null);
+        faces.copyFrom(faceData, (previous != null) ? previous.faceData : null);
+        loops.copyFrom(loopData, (previous != null) ? previous.loopData : null);
+
+        for(int i=0, size=vertexData.totalSize(); i<size; ++i) {
+            Vertex src = vertexData.get(i);
+            if(src != null)
+                vertices.get(i).edge = map(src.edge, edges);
+        }
+
+        for(int i=0, size=edgeData.totalSize(); i<size; ++i) {
+            Edge src = edgeData.get(i);
+            if(src == null)
+                continue;
+
+            Edge edge = edges.get(i);
+            edge.vertex0 = map(src.vertex0, vertices);
+            edge.vertex1 = map(src.vertex1, vertices);
+            edge.loop    = map(src.loop, loops);
+            edge.copyDiskLinks(src, edges);
+        }
+
+        for(int i=0, size=faceData.totalSize(); i<size; ++i) {
+            Face src = faceData.get(i);
+            if(src != null)
+                faces.get(i).loop = map(src.loop, loops);
+        }
+
+        for(int i=0, size=loopData.totalSize(); i<size; ++i) {
+            Loop src = loopData.get(i);
+            if(src == null)
+                continue;
+
+            Loop loop = loops.get(i);
+            loop.face         = map(src.face, faces);
+            loop.edge         = map(src.edge, edges);
+            loop.vertex       = map(src.vertex, vertices);
+            loop.nextFaceLoop = map(src.nextFaceLoop, loops);
+            loop.prevFaceLoop = map(src.prevFaceLoop, loops);
+            loop.nextEdgeLoop = map(src.nextEdgeLoop, loops);
+            loop.prevEdgeLoop = map(src.prevEdgeLoop, loops);
+        }
+    }
+
+    private static <E extends Element> E map(E element, BMeshData<E> target) {
+        return (element != null) ? target.get(element.getIndex()) : null;
+    }
+
+
+    /**
+     * Creates a report of the estimated heap usage. Cheap enough for continuous sampling.
+     * @return
+     */
+    public MeshMemoryReport getMemoryReport() {
+        return new MeshMemoryReport(this);
+    }
+
+
     public void clear() {
         vertexData.clear();
         edgeData.clear();
         faceData.clear();
         loopData.clear();
 
+        if(edgeIndex != null)
+            edgeIndex.clear();
+
         tempLoops.trimToSize();
     }
 
 
+    /**
+     * Starts a section in which multiple threads can apply operations of this class to different parts of the mesh.
+     * Element creation and destruction is thread-safe during the section (see {@link BMeshData#beginConcurrent(int)}).
+     * Capacity for the given number of new elements is reserved up front.<br>
+     * Operations modify the disk cycles of the affected vertices and the radial cycles of the affected edges. Threads must
+     * work on sets of elements that don't share such vertices at the same time, e.g. using
+     * {@link ch.alchemists.jbmesh.operator.partition.ColorScheduler}. Common faces are searched without face stamps
+     * during the section. The edge index can't be used.<br>
+     * Call {@link #endConcurrent()} after all threads have finished.
+     * @param numVertices Maximum number of vertices created during the section.
+     * @param numEdges Maximum number of edges created during the section.
+     * @param numFaces Maximum number of faces created during the section.
+     * @param numLoops Maximum number of loops created during the section.
+     */
+    public void beginConcurrent(int numVertices, int numEdges, int numFaces, int numLoops) {
+        if(edgeIndex != null)
+            throw new IllegalStateException("Concurrent section can't be used with edge index");
+
+        vertexData.beginConcurrent(numVertices);
+        edgeData.beginConcurrent(numEdges);
+        faceData.beginConcurrent(numFaces);
+        loopData.beginConcurrent(numLoops);
+        concurrentTempLoops = ThreadLocal.withInitial(() -> new ArrayList<>(4));
+    }
+
+    /**
+     * Ends the concurrent section, see {@link #beginConcurrent(int, int, int, int)}.
+     * If stable indices were disabled before, the data is compacted, which changes indices.
+     */
+    public void endConcurrent() {
+        if(!isConcurrent())
+            throw new IllegalStateException("No concurrent section active");
+
+        concurrentTempLoops = null;
+        vertexData.endConcurrent();
+        edgeData.endConcurrent();
+        faceData.endConcurrent();
+        loopData.endConcurrent();
+    }
+
+    public boolean isConcurrent() {
+        return vertexData.isConcurrent();
+    }
+
+
+    private ArrayList<Loop> getTempLoops() {
+        ThreadLocal<ArrayList<Loop>> threadLoops = concurrentTempLoops;
+        return (threadLoops != null) ? threadLoops.get() : tempLoops;
+    }
+
+
+    /**
+     * Builds a hash index for finding edges by the indices of their vertices. Until {@link #endEdgeIndex()} is called,
+     * the index is maintained by the operations of this class and edge lookups in {@link #createFace(List)}
+     * and {@link #getEdge(Vertex, Vertex)} take constant time instead of iterating the disk cycle.
+     * This avoids quadratic runtime for vertices with many adjacent edges during bulk construction.<br>
+     * Calls can be nested. The index is dropped when the outermost section ends.<br>
+     * The index needs stable indices for vertices and edges. They are enabled for the section. If they were disabled
+     * before, the data is compacted when the section ends (see {@link BMeshData#setStableIndices(boolean)}).
+     * If the vertex data uses a virtual tail, removing vertices moves other vertices and rebuilds the index.<br>
+     * While the index is active, edges must only be modified through this class and vertex indices must not be
+     * changed by sorting the vertex data.
+     */
+    public void beginEdgeIndex() {
+        if(isConcurrent())
+            throw new IllegalStateException("Edge index can't be used in concurrent section");
+
+        if(edgeIndexDepth == 0) {
+            edgeIndexStableVertices = vertexData.hasStableIndices();
+            edgeIndexStableEdges = edgeData.hasStableIndices();
+            if(!vertexData.hasVirtualTail())
+                vertexData.setStableIndices(true);
+            edgeData.setStableIndices(true);
+
+            edgeIndex = new LongIntHashMap(edgeData.size());
+            rebuildEdgeIndex();
+        }
+
+        edgeIndexDepth++;
+    }
+
+    public void endEdgeIndex() {
+        if(edgeIndexDepth == 0)
+            throw new IllegalStateException("No edge index active");
+
+        if(--edgeIndexDepth == 0) {
+            edgeIndex = null;
+            if(!vertexData.hasVirtualTail())
+                vertexData.setStableIndices(edgeIndexStableVertices);
+            edgeData.setStableIndices(edgeIndexStableEdges);
+        }
+    }
+
+    public boolean hasEdgeIndex() {
+        return edgeIndex != null;
+    }
+
+
+    private void rebuildEdgeIndex() {
+        edgeIndex.clear();
+        for(Edge edge : edgeData)
+            edgeIndex.put(edgeKey(edge.vertex0, edge.vertex1), edge.getIndex());
+    }
+
+    private static long edgeKey(Vertex v0, Vertex v1) {
+        int i0 = v0.getIndex();
+        int i1 = v1.getIndex();
+        return (i0 < i1) ? ((long) i0 << 32) | i1 : ((long) i1 << 32) | i0;
+    }
+
+    /**
+     * Removes the edge from the edge index. If there is another edge between the same vertices,
+     * the index is updated to reference that edge.
+     * @param v0 Its disk cycle is searched for other edges and must be intact.
+     */
+    private void unindexEdge(Edge edge, Vertex v0, Vertex v1) {
+        long key = edgeKey(v0, v1);
+        if(edgeIndex.get(key, -1) != edge.getIndex())
+            return;
+
+        edgeIndex.remove(key, -1);
+        for(Edge other : v0.edges()) {
+            if(other != edge && other.connects(v0, v1)) {
+                edgeIndex.put(key, other.getIndex());
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Finds an edge between the given vertices. Uses the edge index if active, see {@link #beginEdgeIndex()}.
+     * @param v0
+     * @param v1
+     * @return The edge or null if the vertices are not connected.
+     */
+    public Edge getEdge(Vertex v0, Vertex v1) {
+        if(edgeIndex == null)
+            return v0.getEdgeTo(v1);
+
+        int index = edgeIndex.get(edgeKey(v0, v1), -1);
+        return (index >= 0) ? edgeData.get(index) : null;
+    }
+
+
     /**
      * Creates a new vertex.
      * @return A new vertex.
@@ -91,12 +409,30 @@ public class BMesh {
         return createVertex(location.x, location.y, location.z);
     }
 
+
+    /**
+     * Creates multiple vertices at once. The positions are copied to the position attribute in bulk.
+     * @param positions Positions as (x, y, z) triplets.
+     * @return Index of the first new vertex. The new vertices have contiguous indices.
+     */
+    public int createVertices(float[] positions) {
+        if(positions.length % 3 != 0)
+            throw new IllegalArgumentException("Length of positions array must be a multiple of 3");
+
+        final int count = positions.length / 3;
+        final int start = vertexData.createRange(count);
+
+        attrPosition.setRange(start, positions);
+        return start;
+    }
+
     
     /**
      * Removes the given vertex and all adjacent edges and faces from the structure.
      * @param vertex
      */
     public void removeVertex(Vertex vertex) {
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             assert tempLoops.isEmpty();
 
@@ -111,7 +447,12 @@ public class BMesh {
                     }
                 }
 
-                edge.getOther(vertex).removeEdge(edge);
+                Vertex other = edge.getOther(vertex);
+                other.removeEdge(edge);
+
+                if(edgeIndex != null)
+                    unindexEdge(edge, other, vertex);
+
                 edgeData.destroy(edge);
             }
 
@@ -125,7 +466,16 @@ public class BMesh {
             tempLoops.clear();
         }
 
+        destroyVertex(vertex);
+    }
+
+
+    private void destroyVertex(Vertex vertex) {
         vertexData.destroy(vertex);
+
+        // Destroying moved another vertex
+        if(edgeIndex != null && vertexData.hasVirtualTail())
+            rebuildEdgeIndex();
     }
 
 
@@ -144,6 +494,9 @@ public class BMesh {
         v0.addEdge(edge);
         v1.addEdge(edge);
 
+        if(edgeIndex != null && !edgeIndex.containsKey(edgeKey(v0, v1)))
+            edgeIndex.put(edgeKey(v0, v1), edge.getIndex());
+
         return edge;
     }
 
@@ -153,6 +506,7 @@ public class BMesh {
      * @param edge
      */
     public void removeEdge(Edge edge) {
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             // Gather all loops from adjacent faces
             assert tempLoops.isEmpty();
@@ -172,6 +526,10 @@ public class BMesh {
 
         edge.vertex0.removeEdge(edge);
         edge.vertex1.removeEdge(edge);
+
+        if(edgeIndex != null)
+            unindexEdge(edge, edge.vertex0, edge.vertex1);
+
         edgeData.destroy(edge);
     }
 
@@ -186,6 +544,7 @@ public class BMesh {
         if(faceVertices.size() < 3)
             throw new IllegalArgumentException("A face needs at least 3 vertices");
 
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             assert tempLoops.isEmpty();
             for(Vertex v : faceVertices) {
@@ -203,7 +562,7 @@ public class BMesh {
                 int nextIndex = (i+1) % faceVertices.size();
                 Vertex vNext = faceVertices.get(nextIndex);
 
-                Edge edge = vCurrent.getEdgeTo(vNext);
+                Edge edge = getEdge(vCurrent, vNext);
                 if(edge == null)
                     edge = createEdge(vCurrent, vNext);
 
@@ -239,11 +598,103 @@ public class BMesh {
     }
 
 
+    /**
+     * Creates multiple faces at once from vertex indices. All loops are created with a single allocation step
+     * and edges are looked up with the edge index instead of iterating disk cycles (see {@link #beginEdgeIndex()}).<br>
+     * An active edge index is reused. Otherwise the index is only built for this call if the new faces add
+     * a considerable amount of loops compared to the existing edges, since building it takes O(all edges).
+     * Wrap repeated calls in {@link #beginEdgeIndex()} / {@link #endEdgeIndex()} so the index is built once.<br>
+     * The arguments are validated before the structure is modified.
+     * @param faceSizes Number of vertices of each face.
+     * @param vertexIndices Indices of the face vertices (see {@link Vertex#getIndex()}), concatenated for all faces.
+     *                      The order defines the winding order. The loops are created in the same order.
+     * @return Index of the first new face. The new faces have contiguous indices.
+     */
+    public int createFaces(int[] faceSizes, int[] vertexIndices) {
+        // Validate
+        int numLoops = 0;
+        for(int size : faceSizes) {
+            if(size < 3)
+                throw new IllegalArgumentException("A face needs at least 3 vertices");
+            numLoops += size;
+        }
+
+        if(numLoops != vertexIndices.length)
+            throw new IllegalArgumentException("Number of vertex indices does not match the sum of face sizes");
+
+        final int numVertices = vertexData.totalSize();
+        int offset = 0;
+        for(int size : faceSizes) {
+            for(int i=0; i<size; ++i) {
+                int v = vertexIndices[offset + i];
+                if(v < 0 || v >= numVertices || vertexData.get(v) == null)
+                    throw new IllegalArgumentException("Invalid vertex index: " + v);
+
+                int next = (i+1 == size) ? 0 : i+1;
+                if(v == vertexIndices[offset + next])
+                    throw new IllegalArgumentException("Face contains consecutive duplicate vertex: " + v);
+            }
+
+            offset += size;
+        }
+
+        if(edgeIndex != null || numLoops < edgeData.size() * EDGE_INDEX_MIN_FRACTION)
+            return createFaces(faceSizes, vertexIndices, numLoops);
+
+        beginEdgeIndex();
+        try {
+            return createFaces(faceSizes, vertexIndices, numLoops);
+        }
+        finally {
+            endEdgeIndex();
+        }
+    }
+
+    private int createFaces(int[] faceSizes, int[] vertexIndices, int numLoops) {
+        edgeData.reserveCapacity(numLoops);
+        final int faceStart = faceData.createRange(faceSizes.length);
+        final int loopStart = loopData.createRange(numLoops);
+
+        int offset = 0;
+        for(int f=0; f<faceSizes.length; ++f) {
+            final Face face = faceData.get(faceStart + f);
+            final int size = faceSizes[f];
+            final int firstLoop = loopStart + offset;
+            face.loop = loopData.get(firstLoop);
+
+            for(int i=0; i<size; ++i) {
+                int next = (i+1 == size) ? 0 : i+1;
+                int prev = (i == 0) ? size-1 : i-1;
+
+                Vertex vertex = vertexData.get(vertexIndices[offset + i]);
+                Vertex vNext = vertexData.get(vertexIndices[offset + next]);
+
+                Edge edge = getEdge(vertex, vNext);
+                if(edge == null)
+                    edge = createEdge(vertex, vNext);
+
+                Loop loop = loopData.get(firstLoop + i);
+                loop.face = face;
+                loop.edge = edge;
+                loop.vertex = vertex;
+                loop.nextFaceLoop = loopData.get(firstLoop + next);
+                loop.prevFaceLoop = loopData.get(firstLoop + prev);
+                edge.addLoop(loop);
+            }
+
+            offset += size;
+        }
+
+        return faceStart;
+    }
+
+
     /**
      * Removes the given face from the structure.
      * @param face
      */
     public void removeFace(Face face) {
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             assert tempLoops.isEmpty();
             face.getLoops(tempLoops);
@@ -297,6 +748,12 @@ public class BMesh {
         vNew.addEdge(edge);
         vNew.addEdge(newEdge);
 
+        if(edgeIndex != null) {
+            unindexEdge(edge, v0, v1);
+            edgeIndex.put(edgeKey(v0, vNew), edge.getIndex());
+            edgeIndex.put(edgeKey(vNew, v1), newEdge.getIndex());
+        }
+
         for(Loop loop : edge.loops()) {
             Loop newLoop = loopData.create();
             newLoop.edge = newEdge;
@@ -349,11 +806,20 @@ public class BMesh {
             return false;
 
         Vertex tv = edge.getOther(vertex);
+        Vertex ov = keepEdge.getOther(vertex);
+        if(edgeIndex != null) {
+            unindexEdge(edge, tv, vertex);
+            unindexEdge(keepEdge, vertex, ov);
+        }
+
         tv.removeEdge(edge);
         vertex.removeEdge(keepEdge);
         keepEdge.replace(vertex, tv);
         tv.addEdge(keepEdge);
 
+        if(edgeIndex != null && !edgeIndex.containsKey(edgeKey(tv, ov)))
+            edgeIndex.put(edgeKey(tv, ov), keepEdge.getIndex());
+
         // Iterate Loops in radial cycle.
         // 'edge' and 'keepEdge' will have same number of loops and they will be connected
         // but the order in the radial cycle can be different (?).
@@ -379,13 +845,138 @@ public class BMesh {
         }
 
         edgeData.destroy(edge);
-        vertexData.destroy(vertex);
+        destroyVertex(vertex);
         return true;
     }
 
 
+    /**
+     * Generation-stamped scratch storage with one int per face slot. A face is marked if its stamp equals the current generation.
+     * Only one thread can use the marks at a time, see {@link #tryAcquire()}.
+     */
+    private static final class FaceMarks {
+        private int[] stamps = new int[0];
+        private int generation = 0;
+        private final VertexLoopCursor cursor = new VertexLoopCursor();
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+
+        /**
+         * @return False if another thread is using the marks.
+         */
+        private boolean tryAcquire() {
+            return busy.compareAndSet(false, true);
+        }
+
+        private void release() {
+            busy.set(false);
+        }
+
+        /**
+         * Starts a new generation of face marks. Marks of previous queries become invalid without clearing them.
+         * @return The stamp value for marking faces.
+         */
+        private int nextStamp(int numFaces) {
+            if(stamps.length < numFaces)
+                stamps = Arrays.copyOf(stamps, Math.max(numFaces, stamps.length + (stamps.length >> 1)));
+
+            if(++generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+
+            return generation;
+        }
+
+        private void mark(Vertex vertex, int stamp) {
+            cursor.reset(vertex);
+            while(cursor.next())
+                stamps[cursor.getFace().getIndex()] = stamp;
+        }
+
+        private Face findMarked(Vertex vertex, int stamp) {
+            cursor.reset(vertex);
+            while(cursor.next()) {
+                Face face = cursor.getFace();
+                if(stamps[face.getIndex()] == stamp)
+                    return face;
+            }
+
+            return null;
+        }
+    }
+
+
+    /**
+     * Finds a face that contains both vertices. Marks the faces around <i>vertex2</i> and then searches the faces
+     * around <i>vertex1</i>, which takes O(valence1 + valence2) and doesn't depend on the size of the faces.<br>
+     * The marks are stored in one int array per BMesh. While another thread uses them, and in concurrent sections,
+     * this falls back to {@link Vertex#getCommonFace(Vertex)}, so multiple threads can query an unmodified mesh at the same time.
+     * @param vertex1
+     * @param vertex2
+     * @return A common face, or null if there is none. If there are multiple, the first one found around <i>vertex1</i>.
+     */
+    public Face getCommonFace(Vertex vertex1, Vertex vertex2) {
+        if(isConcurrent() || !faceMarks.tryAcquire())
+            return vertex1.getCommonFace(vertex2);
+
+        try {
+            final int stamp = faceMarks.nextStamp(faceData.totalSize());
+            faceMarks.mark(vertex2, stamp);
+            return faceMarks.findMarked(vertex1, stamp);
+        }
+        finally {
+            faceMarks.release();
+        }
+    }
+
+
+    /**
+     * Batched form of {@link #getCommonFace(Vertex, Vertex)}. Consecutive pairs with the same second vertex
+     * reuse its marks, so sorting the pairs by second vertex reduces the work.
+     * @param vertexPairs Vertex indices of the pairs: [a0, b0, a1, b1, ...]
+     * @param store Receives the index of a common face for each pair, or -1 if there is none.
+     *              Must have a length of at least <code>vertexPairs.length / 2</code>.
+     */
+    public void getCommonFaces(int[] vertexPairs, int[] store) {
+        if((vertexPairs.length & 1) != 0)
+            throw new IllegalArgumentException("Vertex indices must be given in pairs");
+        if(store.length < vertexPairs.length / 2)
+            throw new IllegalArgumentException("Store array is too small");
+
+        if(isConcurrent() || !faceMarks.tryAcquire()) {
+            for(int i=0, p=0; p<vertexPairs.length; ++i, p+=2) {
+                Face face = vertexData.get(vertexPairs[p]).getCommonFace(vertexData.get(vertexPairs[p+1]));
+                store[i] = (face != null) ? face.getIndex() : -1;
+            }
+            return;
+        }
+
+        try {
+            int markedVertex = -1;
+            int stamp = 0;
+
+            for(int i=0, p=0; p<vertexPairs.length; ++i, p+=2) {
+                Vertex vertex1 = vertexData.get(vertexPairs[p]);
+                int v2 = vertexPairs[p+1];
+
+                if(v2 != markedVertex) {
+                    stamp = faceMarks.nextStamp(faceData.totalSize());
+                    faceMarks.mark(vertexData.get(v2), stamp);
+                    markedVertex = v2;
+                }
+
+                Face face = faceMarks.findMarked(vertex1, stamp);
+                store[i] = (face != null) ? face.getIndex() : -1;
+            }
+        }
+        finally {
+            faceMarks.release();
+        }
+    }
+
+
     public Edge splitFace(Vertex vertex1, Vertex vertex2) {
-        Face face = vertex1.getCommonFace(vertex2);
+        Face face = getCommonFace(vertex1, vertex2);
         if(face == null)
             throw new IllegalArgumentException("Vertices are not adjacent to a common face");
 
@@ -403,6 +994,7 @@ public class BMesh {
     public Edge splitFace(Face face, Vertex vertex1, Vertex vertex2) {
         assert vertex1 != vertex2;
 
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             assert tempLoops.isEmpty();
 
@@ -538,6 +1130,9 @@ public class BMesh {
         commonEdge.vertex0.removeEdge(commonEdge);
         commonEdge.vertex1.removeEdge(commonEdge);
 
+        if(edgeIndex != null)
+            unindexEdge(commonEdge, commonEdge.vertex0, commonEdge.vertex1);
+
         assert l1.nextFaceLoop != l2;
         face1.loop = l1.nextFaceLoop;
 
@@ -553,6 +1148,7 @@ public class BMesh {
      * @param face
      */
     public void invertFace(Face face) {
+        final ArrayList<Loop> tempLoops = getTempLoops();
         try {
             assert tempLoops.isEmpty();
             face.getLoops(tempLoops);
@@ -0,0 +1,907 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
+import java.nio.FloatBuffer;
+
+/**
+ * Records edits of a BMesh for undo and redo. The edits must be done through the methods of this class.<br>
+ * Operations are stored as element indices in a ring buffer of ints, values in a ring buffer of floats.
+ * Recording doesn't allocate. When a buffer is full, the oldest operations are discarded.
+ * Undo applies the inverse operations and takes O(changes).<br><br>
+ * The journal enables stable indices on the BMeshData. Undoing and redoing operations recreates vertices, edges and faces
+ * in their original slots (see {@link BMeshData#reuseNext(int)}), so virtual elements created in between, e.g. by an export,
+ * don't shift the indices. Don't modify the BMesh directly or compact it while the journal is in use,
+ * or call {@link #clear()} afterwards.
+ * Removed elements are recreated as new objects, so keep element indices instead of references across undo/redo.<br>
+ * Removing faces and joining faces record the attribute values of the removed face, edge and loops, so undo restores them.
+ * Attributes with object values can't be recorded and make these operations throw an IllegalStateException.
+ * Attributes of faces, edges and loops must not be removed while such records exist.
+ * Removing vertices and edges and joining edges are not supported, since undoing them would need a copy
+ * of the attributes of all adjacent elements.
+ */
+public class BMeshJournal {
+    private static final int OP_CREATE_VERTEX = 1;
+    private static final int OP_CREATE_EDGE   = 2;
+    private static final int OP_CREATE_FACE   = 3;
+    private static final int OP_REMOVE_FACE   = 4;
+    private static final int OP_SPLIT_EDGE    = 5;
+    private static final int OP_SPLIT_FACE    = 6;
+    private static final int OP_JOIN_FACE     = 7;
+    private static final int OP_INVERT_FACE   = 8;
+    private static final int OP_SET_FLOATS    = 9;
+
+    // Record layout: [op, length, numFloats, args..., length]
+    private static final int HEADER = 3;
+    private static final int TRAILER = 1;
+
+    private static final int DATA_VERTEX = 0;
+    private static final int DATA_EDGE   = 1;
+    private static final int DATA_FACE   = 2;
+
+    private final BMesh bmesh;
+    private final Vec3Property<Vertex> positions;
+
+    private final int[] ints;
+    private final float[] floats;
+
+    // Positions only increase and are wrapped when accessing the arrays.
+    // [tail, cursor): Operations for undo, [cursor, head): Operations for redo
+    private long intTail = 0, intCursor = 0, intHead = 0;
+    private long floatTail = 0, floatCursor = 0, floatHead = 0;
+    private int numUndo = 0;
+    private int numRedo = 0;
+
+    // Counts of countValues() and cursors of saveValues()/restoreValues()
+    private int valueInts, valueFloats;
+    private long valueIntPos, valueFloatPos;
+
+
+    public BMeshJournal(BMesh bmesh) {
+        this(bmesh, 1 << 16, 1 << 16);
+    }
+
+    /**
+     * @param bmesh
+     * @param intCapacity Size of the buffer for operations. Rounded up to a power of two.
+     * @param floatCapacity Size of the buffer for values. Rounded up to a power of two.
+     */
+    public BMeshJournal(BMesh bmesh, int intCapacity, int floatCapacity) {
+        if(intCapacity < 16 || floatCapacity < 16)
+            throw new IllegalArgumentException("Capacity must be at least 16");
+
+        this.bmesh = bmesh;
+        positions = bmesh.positions();
+        ints = new int[Integer.highestOneBit(intCapacity - 1) << 1];
+        floats = new float[Integer.highestOneBit(floatCapacity - 1) << 1];
+
+        bmesh.vertices().setStableIndices(true);
+        bmesh.edges().setStableIndices(true);
+        bmesh.faces().setStableIndices(true);
+        bmesh.loops().setStableIndices(true);
+    }
+
+
+    public BMesh getBMesh() {
+        return bmesh;
+    }
+
+
+    public void clear() {
+        intTail = intCursor = intHead = 0;
+        floatTail = floatCursor = floatHead = 0;
+        numUndo = 0;
+        numRedo = 0;
+    }
+
+    public boolean canUndo() {
+        return numUndo > 0;
+    }
+
+    public boolean canRedo() {
+        return numRedo > 0;
+    }
+
+    public int getNumUndo() {
+        return numUndo;
+    }
+
+    public int getNumRedo() {
+        return numRedo;
+    }
+
+
+    private int getInt(long pos) {
+        return ints[(int) pos & (ints.length-1)];
+    }
+
+    private void setInt(long pos, int value) {
+        ints[(int) pos & (ints.length-1)] = value;
+    }
+
+    private float getFloat(long pos) {
+        return floats[(int) pos & (floats.length-1)];
+    }
+
+    private void setFloat(long pos, float value) {
+        floats[(int) pos & (floats.length-1)] = value;
+    }
+
+
+    /**
+     * Starts a new record and discards the operations available for redo.
+     * @return Position of the first argument, or -1 if the record is too large (the journal is cleared).
+     */
+    private long begin(int op, int numArgs, int numFloats) {
+        final int length = HEADER + numArgs + TRAILER;
+        if(length > ints.length || numFloats > floats.length) {
+            clear();
+            return -1;
+        }
+
+        intHead = intCursor;
+        floatHead = floatCursor;
+        numRedo = 0;
+
+        while(intHead + length - intTail > ints.length || floatHead + numFloats - floatTail > floats.length)
+            dropOldest();
+
+        final long pos = intHead;
+        setInt(pos, op);
+        setInt(pos+1, length);
+        setInt(pos+2, numFloats);
+        setInt(pos+length-1, length);
+
+        intHead += length;
+        floatHead += numFloats;
+        intCursor = intHead;
+        floatCursor = floatHead;
+        numUndo++;
+
+        return pos + HEADER;
+    }
+
+    private void dropOldest() {
+        final int length = getInt(intTail+1);
+        final int numFloats = getInt(intTail+2);
+        intTail += length;
+        floatTail += numFloats;
+        numUndo--;
+    }
+
+    /**
+     * Removes the most recent record after the recorded operation failed.
+     */
+    private void discardLast(long argPos) {
+        final long pos = argPos - HEADER;
+        floatHead = floatCursor = floatCursor - getInt(pos+2);
+        intHead = intCursor = pos;
+        numUndo--;
+    }
+
+    /**
+     * @return Position of the first value of the most recent record.
+     */
+    private long floatStart(int numFloats) {
+        return floatHead - numFloats;
+    }
+
+
+    public Vertex createVertex(float x, float y, float z) {
+        Vertex vertex = bmesh.createVertex(x, y, z);
+
+        long p = begin(OP_CREATE_VERTEX, 1, 3);
+        if(p >= 0) {
+            setInt(p, vertex.getIndex());
+            long f = floatStart(3);
+            setFloat(f,   x);
+            setFloat(f+1, y);
+            setFloat(f+2, z);
+        }
+
+        return vertex;
+    }
+
+
+    public Edge createEdge(Vertex v0, Vertex v1) {
+        Edge edge = bmesh.createEdge(v0, v1);
+
+        long p = begin(OP_CREATE_EDGE, 3, 0);
+        if(p >= 0) {
+            setInt(p,   edge.getIndex());
+            setInt(p+1, v0.getIndex());
+            setInt(p+2, v1.getIndex());
+        }
+
+        return edge;
+    }
+
+
+    /**
+     * See {@link BMesh#createFace(Vertex...)}. Edges created for the face are removed on undo.
+     */
+    public Face createFace(Vertex... faceVertices) {
+        final int n = faceVertices.length;
+        int numNewEdges = 0;
+        for(int i=0; i<n; ++i) {
+            if(bmesh.getEdge(faceVertices[i], faceVertices[(i+1) % n]) == null)
+                numNewEdges++;
+        }
+
+        // [face, n, vertices..., numNewEdges, newEdges...]
+        // The positions of missing edges are stored first and replaced by the created edges afterwards.
+        long p = begin(OP_CREATE_FACE, 3 + n + numNewEdges, 0);
+        if(p >= 0) {
+            setInt(p+1, n);
+            setInt(p+2+n, numNewEdges);
+
+            long pEdge = p+3+n;
+            for(int i=0; i<n; ++i) {
+                setInt(p+2+i, faceVertices[i].getIndex());
+                if(bmesh.getEdge(faceVertices[i], faceVertices[(i+1) % n]) == null)
+                    setInt(pEdge++, i);
+            }
+        }
+
+        Face face;
+        try {
+            face = bmesh.createFace(faceVertices);
+        }
+        catch(RuntimeException ex) {
+            if(p >= 0)
+                discardLast(p);
+            throw ex;
+        }
+
+        if(p >= 0) {
+            setInt(p, face.getIndex());
+
+            // Loop i goes from faceVertices[i] to faceVertices[i+1]
+            Loop loop = face.loop;
+            long pEdge = p+3+n;
+            for(int i=0; i<n && pEdge < p+3+n+numNewEdges; ++i) {
+                if(getInt(pEdge) == i) {
+                    setInt(pEdge, loop.edge.getIndex());
+                    pEdge++;
+                }
+                loop = loop.nextFaceLoop;
+            }
+        }
+
+        return face;
+    }
+
+
+    /**
+     * See {@link BMesh#removeFace(Face)}. Undo recreates the face with the attribute values of the face and its loops.
+     */
+    public void removeFace(Face face) {
+        final BMeshData<Face> faces = bmesh.faces();
+        final BMeshData<Loop> loops = bmesh.loops();
+        final int n = countLoops(face);
+
+        countValues(faces);
+        final int faceInts = valueInts, faceFloats = valueFloats;
+        countValues(loops);
+        final int numInts = faceInts + n*valueInts;
+        final int numFloats = faceFloats + n*valueFloats;
+
+        // [face, n, vertices..., faceSchema..., loopSchema..., values...]
+        final int numArgs = 2 + n + schemaLength(faces) + schemaLength(loops) + numInts;
+        long p = begin(OP_REMOVE_FACE, numArgs, numFloats);
+        if(p >= 0) {
+            setInt(p, face.getIndex());
+            setInt(p+1, n);
+
+            Loop loop = face.loop;
+            for(int i=0; i<n; ++i) {
+                setInt(p+2+i, loop.vertex.getIndex());
+                loop = loop.nextFaceLoop;
+            }
+
+            long pSchema = p+2+n;
+            valueIntPos = writeSchema(writeSchema(pSchema, faces), loops);
+            valueFloatPos = floatStart(numFloats);
+
+            saveValues(faces, face.getIndex());
+            do {
+                saveValues(loops, loop.getIndex());
+                loop = loop.nextFaceLoop;
+            } while(loop != face.loop);
+        }
+
+        bmesh.removeFace(face);
+    }
+
+    private static int countLoops(Face face) {
+        int n = 0;
+        Loop loop = face.loop;
+        do {
+            n++;
+            loop = loop.nextFaceLoop;
+        } while(loop != face.loop);
+        return n;
+    }
+
+
+    /**
+     * See {@link BMesh#splitEdge(Edge)}. Undo joins the edge again.
+     */
+    public Vertex splitEdge(Edge edge) {
+        Vertex v1 = edge.vertex1;
+        Vertex vNew = bmesh.splitEdge(edge);
+        Edge newEdge = vNew.getEdgeTo(v1);
+
+        long p = begin(OP_SPLIT_EDGE, 3, 0);
+        if(p >= 0) {
+            setInt(p,   edge.getIndex());
+            setInt(p+1, vNew.getIndex());
+            setInt(p+2, newEdge.getIndex());
+        }
+
+        return vNew;
+    }
+
+
+    /**
+     * See {@link BMesh#splitFace(Face, Vertex, Vertex)}. Undo joins the faces again.
+     */
+    public Edge splitFace(Face face, Vertex vertex1, Vertex vertex2) {
+        Edge edge = bmesh.splitFace(face, vertex1, vertex2);
+        Face newFace = (edge.loop.face == face) ? edge.loop.nextEdgeLoop.face : edge.loop.face;
+
+        long p = begin(OP_SPLIT_FACE, 5, 0);
+        if(p >= 0) {
+            setInt(p,   face.getIndex());
+            setInt(p+1, vertex1.getIndex());
+            setInt(p+2, vertex2.getIndex());
+            setInt(p+3, edge.getIndex());
+            setInt(p+4, newFace.getIndex());
+        }
+
+        return edge;
+    }
+
+
+    /**
+     * See {@link BMesh#joinFace(Face, Face, Edge)}. Removes <i>face2</i>. Undo splits the faces again.
+     */
+    public void joinFace(Face face1, Face face2, Edge commonEdge) {
+        Loop l1 = commonEdge.loop;
+        Loop l2 = l1.nextEdgeLoop;
+        if(l1.face != face1) {
+            Loop temp = l1;
+            l1 = l2;
+            l2 = temp;
+        }
+
+        if(l1.face != face1 || l2.face != face2 || l2.nextEdgeLoop != l1)
+            throw new IllegalArgumentException("Faces must be the only faces adjacent to the given edge");
+
+        // BMesh.joinFace() inverts face2 if winding orders don't match. Record this as separate operation.
+        if(l1.vertex == l2.vertex)
+            invertFace(face2);
+
+        // Face2's loop on the common edge goes from a to b. Splitting face1 from a to b recreates face2.
+        Vertex a = l2.vertex;
+        Vertex b = l2.nextFaceLoop.vertex;
+
+        final BMeshData<Face> faces = bmesh.faces();
+        final BMeshData<Edge> edges = bmesh.edges();
+        final BMeshData<Loop> loops = bmesh.loops();
+
+        countValues(faces);
+        int numInts = valueInts;
+        int numFloats = valueFloats;
+        countValues(edges);
+        numInts += valueInts;
+        numFloats += valueFloats;
+        countValues(loops);
+        numInts += 2*valueInts;
+        numFloats += 2*valueFloats;
+
+        // [face1, face2, edge, a, b, faceSchema..., edgeSchema..., loopSchema..., values...]
+        // Values of face2, the common edge and the loops l1, l2 that are destroyed
+        final int numArgs = 5 + schemaLength(faces) + schemaLength(edges) + schemaLength(loops) + numInts;
+        long p = begin(OP_JOIN_FACE, numArgs, numFloats);
+        if(p >= 0) {
+            setInt(p,   face1.getIndex());
+            setInt(p+1, face2.getIndex());
+            setInt(p+2, commonEdge.getIndex());
+            setInt(p+3, a.getIndex());
+            setInt(p+4, b.getIndex());
+
+            valueIntPos = writeSchema(writeSchema(writeSchema(p+5, faces), edges), loops);
+            valueFloatPos = floatStart(numFloats);
+            saveValues(faces, face2.getIndex());
+            saveValues(edges, commonEdge.getIndex());
+            saveValues(loops, l1.getIndex());
+            saveValues(loops, l2.getIndex());
+        }
+
+        bmesh.joinFace(face1, face2, commonEdge);
+    }
+
+
+    public void invertFace(Face face) {
+        long p = begin(OP_INVERT_FACE, 1, 0);
+        if(p >= 0)
+            setInt(p, face.getIndex());
+
+        bmesh.invertFace(face);
+    }
+
+
+    public void setPosition(Vertex vertex, float x, float y, float z) {
+        long p = begin(OP_SET_FLOATS, 4, 6);
+        if(p >= 0) {
+            recordSet(p, DATA_VERTEX, (BMeshAttribute<?, ?>) positions, vertex.getIndex(), 3);
+            long f = floatStart(6) + 3;
+            setFloat(f,   x);
+            setFloat(f+1, y);
+            setFloat(f+2, z);
+        }
+
+        positions.set(vertex, x, y, z);
+    }
+
+
+    /**
+     * Sets the values of an attribute that stores floats, e.g. FloatAttribute, Vec2Attribute, ColorAttribute.
+     * @param attribute Must be attached to the vertices, edges or faces of the BMesh.
+     * @param element
+     * @param values Must have the same length as the number of components.
+     */
+    public <E extends Element> void setFloats(BMeshAttribute<E, float[]> attribute, E element, float[] values) {
+        final int n = attribute.numComponents;
+        if(values.length != n)
+            throw new IllegalArgumentException("Number of values does not match number of components");
+
+        final int index = element.getIndex();
+        long p = begin(OP_SET_FLOATS, 4, 2*n);
+        if(p >= 0) {
+            recordSet(p, getDataId(element), attribute, index, n);
+            long f = floatStart(2*n) + n;
+            for(int i=0; i<n; ++i)
+                setFloat(f+i, values[i]);
+        }
+
+        System.arraycopy(values, 0, attribute.array(), index*n, n);
+        attribute.setDirty(index);
+    }
+
+
+    /**
+     * Writes [dataId, slot, index, numComponents] and the old values.
+     */
+    private void recordSet(long p, int dataId, BMeshAttribute<?, ?> attribute, int index, int n) {
+        setInt(p,   dataId);
+        setInt(p+1, attribute.getSlot());
+        setInt(p+2, index);
+        setInt(p+3, n);
+
+        Object array = attribute.array();
+        long f = floatStart(2*n);
+        for(int i=0; i<n; ++i) {
+            if(array instanceof FloatBuffer)
+                setFloat(f+i, ((FloatBuffer) array).get(index*n + i));
+            else
+                setFloat(f+i, ((float[]) array)[index*n + i]);
+        }
+    }
+
+    private static int getDataId(Element element) {
+        if(element instanceof Vertex)
+            return DATA_VERTEX;
+        if(element instanceof Edge)
+            return DATA_EDGE;
+        if(element instanceof Face)
+            return DATA_FACE;
+        if(element instanceof Loop)
+            throw new IllegalArgumentException("Loop attributes are not supported: Loop indices change when faces are recreated");
+        throw new IllegalArgumentException("Element is not part of a BMesh");
+    }
+
+
+    /**
+     * Reverts the most recent operation.
+     * @return False if there is nothing to undo.
+     */
+    public boolean undo() {
+        if(numUndo == 0)
+            return false;
+
+        final int length = getInt(intCursor - 1);
+        final long pos = intCursor - length;
+        final int numFloats = getInt(pos + 2);
+        final long floatPos = floatCursor - numFloats;
+
+        applyUndo(getInt(pos), pos + HEADER, floatPos);
+
+        intCursor = pos;
+        floatCursor = floatPos;
+        numUndo--;
+        numRedo++;
+        return true;
+    }
+
+
+    /**
+     * Applies the most recently reverted operation again.
+     * @return False if there is nothing to redo.
+     */
+    public boolean redo() {
+        if(numRedo == 0)
+            return false;
+
+        final long pos = intCursor;
+        final int length = getInt(pos + 1);
+        final int numFloats = getInt(pos + 2);
+
+        applyRedo(getInt(pos), pos + HEADER, floatCursor);
+
+        intCursor += length;
+        floatCursor += numFloats;
+        numUndo++;
+        numRedo--;
+        return true;
+    }
+
+
+    private void applyUndo(int op, long p, long f) {
+        switch(op) {
+            case OP_CREATE_VERTEX:
+                bmesh.removeVertex(vertex(p));
+                break;
+
+            case OP_CREATE_EDGE:
+                bmesh.removeEdge(edge(p));
+                break;
+
+            case OP_CREATE_FACE: {
+                int n = getInt(p+1);
+                int numNewEdges = getInt(p+2+n);
+                bmesh.removeFace(face(p));
+
+                for(int i=numNewEdges-1; i>=0; --i)
+                    bmesh.removeEdge(edge(p+3+n+i));
+                break;
+            }
+
+            case OP_REMOVE_FACE: {
+                bmesh.faces().reuseNext(getInt(p));
+                Face face = bmesh.createFace(readVertices(p+2, getInt(p+1)));
+                check(face, getInt(p));
+
+                long pFaceSchema = p+2+getInt(p+1);
+                long pLoopSchema = pFaceSchema + schemaLength(pFaceSchema);
+                valueIntPos = pLoopSchema + schemaLength(pLoopSchema);
+                valueFloatPos = f;
+
+                // The loops were recorded starting at the first vertex
+                restoreValues(bmesh.faces(), pFaceSchema, face.getIndex());
+                Loop loop = face.loop;
+                do {
+                    restoreValues(bmesh.loops(), pLoopSchema, loop.getIndex());
+                    loop = loop.nextFaceLoop;
+                } while(loop != face.loop);
+                break;
+            }
+
+            case OP_SPLIT_EDGE:
+                if(!bmesh.joinEdge(edge(p+2), vertex(p+1)))
+                    throw new IllegalStateException("Journal out of sync with BMesh");
+                break;
+
+            case OP_SPLIT_FACE:
+                bmesh.joinFace(face(p), face(p+4), edge(p+3));
+                break;
+
+            case OP_JOIN_FACE: {
+                bmesh.edges().reuseNext(getInt(p+2));
+                bmesh.faces().reuseNext(getInt(p+1));
+                Face face1 = face(p);
+                Edge edge = bmesh.splitFace(face1, vertex(p+3), vertex(p+4));
+                check(edge, getInt(p+2));
+
+                Loop l1 = (edge.loop.face == face1) ? edge.loop : edge.loop.nextEdgeLoop;
+                Loop l2 = l1.nextEdgeLoop;
+                check(l2.face, getInt(p+1));
+
+                long pFaceSchema = p+5;
+                long pEdgeSchema = pFaceSchema + schemaLength(pFaceSchema);
+                long pLoopSchema = pEdgeSchema + schemaLength(pEdgeSchema);
+                valueIntPos = pLoopSchema + schemaLength(pLoopSchema);
+                valueFloatPos = f;
+
+                restoreValues(bmesh.faces(), pFaceSchema, l2.face.getIndex());
+                restoreValues(bmesh.edges(), pEdgeSchema, edge.getIndex());
+                restoreValues(bmesh.loops(), pLoopSchema, l1.getIndex());
+                restoreValues(bmesh.loops(), pLoopSchema, l2.getIndex());
+                break;
+            }
+
+            case OP_INVERT_FACE:
+                bmesh.invertFace(face(p));
+                break;
+
+            case OP_SET_FLOATS:
+                writeFloats(p, f);
+                break;
+
+            default:
+                throw new IllegalStateException("Invalid journal entry");
+        }
+    }
+
+
+    private void applyRedo(int op, long p, long f) {
+        switch(op) {
+            case OP_CREATE_VERTEX:
+                bmesh.vertices().reuseNext(getInt(p));
+                check(bmesh.createVertex(getFloat(f), getFloat(f+1), getFloat(f+2)), getInt(p));
+                break;
+
+            case OP_CREATE_EDGE:
+                bmesh.edges().reuseNext(getInt(p));
+                check(bmesh.createEdge(vertex(p+1), vertex(p+2)), getInt(p));
+                break;
+
+            case OP_CREATE_FACE: {
+                int n = getInt(p+1);
+                int numNewEdges = getInt(p+2+n);
+
+                // Edges are created in loop order and take the slots from the top of the free-list
+                for(int i=numNewEdges-1; i>=0; --i)
+                    bmesh.edges().reuseNext(getInt(p+3+n+i));
+                bmesh.faces().reuseNext(getInt(p));
+                check(bmesh.createFace(readVertices(p+2, n)), getInt(p));
+                break;
+            }
+
+            case OP_REMOVE_FACE:
+                bmesh.removeFace(face(p));
+                break;
+
+            case OP_SPLIT_EDGE: {
+                Edge edge = edge(p);
+                Vertex v1 = edge.vertex1;
+                bmesh.vertices().reuseNext(getInt(p+1));
+                bmesh.edges().reuseNext(getInt(p+2));
+                Vertex vNew = bmesh.splitEdge(edge);
+                check(vNew, getInt(p+1));
+                check(vNew.getEdgeTo(v1), getInt(p+2));
+                break;
+            }
+
+            case OP_SPLIT_FACE:
+                bmesh.edges().reuseNext(getInt(p+3));
+                bmesh.faces().reuseNext(getInt(p+4));
+                check(bmesh.splitFace(face(p), vertex(p+1), vertex(p+2)), getInt(p+3));
+                break;
+
+            case OP_JOIN_FACE:
+                bmesh.joinFace(face(p), face(p+1), edge(p+2));
+                break;
+
+            case OP_INVERT_FACE:
+                bmesh.invertFace(face(p));
+                break;
+
+            case OP_SET_FLOATS:
+                writeFloats(p, f + getInt(p+3));
+                break;
+
+            default:
+                throw new IllegalStateException("Invalid journal entry");
+        }
+    }
+
+
+    private void writeFloats(long p, long f) {
+        BMeshData<?> data = getData(getInt(p));
+        BMeshAttribute<?, ?> attribute = data.getAttribute(getInt(p+1));
+        if(attribute == null)
+            throw new IllegalStateException("Attribute was removed");
+
+        int index = getInt(p+2);
+        int n = getInt(p+3);
+        Object array = attribute.array();
+        for(int i=0; i<n; ++i) {
+            if(array instanceof FloatBuffer)
+                ((FloatBuffer) array).put(index*n + i, getFloat(f+i));
+            else
+                ((float[]) array)[index*n + i] = getFloat(f+i);
+        }
+        attribute.setDirty(index);
+    }
+
+    private BMeshData<?> getData(int dataId) {
+        switch(dataId) {
+            case DATA_VERTEX: return bmesh.vertices();
+            case DATA_EDGE:   return bmesh.edges();
+            case DATA_FACE:   return bmesh.faces();
+        }
+        throw new IllegalStateException("Invalid journal entry");
+    }
+
+
+    /**
+     * Sets {@link #valueInts} and {@link #valueFloats} to the number of values per element.
+     * Values of attributes with integer storage are stored in the int buffer, others in the float buffer.
+     * @throws IllegalStateException If an attribute can't be recorded.
+     */
+    private void countValues(BMeshData<?> data) {
+        valueInts = 0;
+        valueFloats = 0;
+
+        for(int slot=0, found=0; found < data.getNumAttributes(); ++slot) {
+            BMeshAttribute<?, ?> attribute = data.getAttribute(slot);
+            if(attribute == null)
+                continue;
+            found++;
+
+            Object array = attribute.array();
+            if(array instanceof float[] || array instanceof FloatBuffer)
+                valueFloats += attribute.numComponents;
+            else if(array instanceof int[] || array instanceof short[] || array instanceof byte[]
+                    || array instanceof boolean[] || attribute instanceof BitAttribute)
+                valueInts += attribute.numComponents;
+            else
+                throw new IllegalStateException("Attribute '" + attribute.name + "' can't be recorded");
+        }
+    }
+
+
+    private static int schemaLength(BMeshData<?> data) {
+        return 1 + data.getNumAttributes();
+    }
+
+    private int schemaLength(long pSchema) {
+        return 1 + getInt(pSchema);
+    }
+
+    /**
+     * Writes [numAttributes, slots...] in the order used by {@link #saveValues(BMeshData, int)}.
+     * @return Position after the schema.
+     */
+    private long writeSchema(long p, BMeshData<?> data) {
+        final int numAttributes = data.getNumAttributes();
+        setInt(p++, numAttributes);
+
+        for(int slot=0, found=0; found < numAttributes; ++slot) {
+            if(data.getAttribute(slot) != null) {
+                setInt(p++, slot);
+                found++;
+            }
+        }
+
+        return p;
+    }
+
+
+    /**
+     * Writes the attribute values of an element at {@link #valueIntPos} and {@link #valueFloatPos} and advances them.
+     */
+    private void saveValues(BMeshData<?> data, int index) {
+        for(int slot=0, found=0; found < data.getNumAttributes(); ++slot) {
+            BMeshAttribute<?, ?> attribute = data.getAttribute(slot);
+            if(attribute == null)
+                continue;
+            found++;
+
+            final Object array = attribute.array();
+            final int n = attribute.numComponents;
+            final int start = index * n;
+
+            if(array instanceof float[]) {
+                for(int i=0; i<n; ++i)
+                    setFloat(valueFloatPos++, ((float[]) array)[start+i]);
+            }
+            else if(array instanceof FloatBuffer) {
+                for(int i=0; i<n; ++i)
+                    setFloat(valueFloatPos++, ((FloatBuffer) array).get(start+i));
+            }
+            else if(array instanceof int[]) {
+                for(int i=0; i<n; ++i)
+                    setInt(valueIntPos++, ((int[]) array)[start+i]);
+            }
+            else if(array instanceof short[]) {
+                for(int i=0; i<n; ++i)
+                    setInt(valueIntPos++, ((short[]) array)[start+i]);
+            }
+            else if(array instanceof byte[]) {
+                for(int i=0; i<n; ++i)
+                    setInt(valueIntPos++, ((byte[]) array)[start+i]);
+            }
+            else if(array instanceof boolean[]) {
+                for(int i=0; i<n; ++i)
+                    setInt(valueIntPos++, ((boolean[]) array)[start+i] ? 1 : 0);
+            }
+            else
+                setInt(valueIntPos++, ((BitAttribute<?>) attribute).get(index) ? 1 : 0);
+        }
+    }
+
+    /**
+     * Reads the attribute values of an element from {@link #valueIntPos} and {@link #valueFloatPos} and advances them.
+     * @param pSchema Position of the schema written by {@link #writeSchema(long, BMeshData)}.
+     */
+    private void restoreValues(BMeshData<?> data, long pSchema, int index) {
+        final int numAttributes = getInt(pSchema);
+        for(int a=1; a<=numAttributes; ++a) {
+            BMeshAttribute<?, ?> attribute = data.getAttribute(getInt(pSchema+a));
+            if(attribute == null)
+                throw new IllegalStateException("Attribute was removed");
+
+            final Object array = attribute.array();
+            final int n = attribute.numComponents;
+            final int start = index * n;
+
+            if(array instanceof float[]) {
+                for(int i=0; i<n; ++i)
+                    ((float[]) array)[start+i] = getFloat(valueFloatPos++);
+            }
+            else if(array instanceof FloatBuffer) {
+                for(int i=0; i<n; ++i)
+                    ((FloatBuffer) array).put(start+i, getFloat(valueFloatPos++));
+            }
+            else if(array instanceof int[]) {
+                for(int i=0; i<n; ++i)
+                    ((int[]) array)[start+i] = getInt(valueIntPos++);
+            }
+            else if(array instanceof short[]) {
+                for(int i=0; i<n; ++i)
+                    ((short[]) array)[start+i] = (short) getInt(valueIntPos++);
+            }
+            else if(array instanceof byte[]) {
+                for(int i=0; i<n; ++i)
+                    ((byte[]) array)[start+i] = (byte) getInt(valueIntPos++);
+            }
+            else if(array instanceof boolean[]) {
+                for(int i=0; i<n; ++i)
+                    ((boolean[]) array)[start+i] = getInt(valueIntPos++) != 0;
+            }
+            else if(attribute instanceof BitAttribute)
+                ((BitAttribute<?>) attribute).set(index, getInt(valueIntPos++) != 0);
+            else
+                throw new IllegalStateException("Attribute was replaced");
+
+            attribute.setDirty(index);
+        }
+    }
+
+
+    private Vertex[] readVertices(long p, int n) {
+        Vertex[] vertices = new Vertex[n];
+        for(int i=0; i<n; ++i)
+            vertices[i] = vertex(p+i);
+        return vertices;
+    }
+
+    private Vertex vertex(long p) {
+        return bmesh.vertices().get(getInt(p));
+    }
+
+    private Edge edge(long p) {
+        return bmesh.edges().get(getInt(p));
+    }
+
+    private Face face(long p) {
+        return bmesh.faces().get(getInt(p));
+    }
+
+    private static void check(Element element, int expectedIndex) {
+        if(element.getIndex() != expectedIndex)
+            throw new IllegalStateException("Journal out of sync with BMesh");
+    }
+}
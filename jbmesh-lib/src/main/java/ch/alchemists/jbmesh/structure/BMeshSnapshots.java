@@ -0,0 +1,181 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes consistent copies of a BMesh for readers on other threads, so the source can be edited without a lock.<br>
+ * The thread that edits the source calls {@link #publish()} between operations. Readers call {@link #getLatest()}
+ * from any thread and keep using the returned snapshot while newer versions are published.<br>
+ * Snapshots are copies (see {@link BMesh#copy()}) and are only created when the source changed.
+ * Creating a snapshot copies the elements and relinks them, which takes O(number of elements).
+ * Attribute arrays are only copied if the attribute was modified since the previous snapshot and no elements
+ * were created or destroyed in its data set. Otherwise the snapshot uses the array of the previous snapshot.<br>
+ * Snapshots must be treated as read-only. An exception is a single consumer that exports the snapshot,
+ * since Export adds virtual vertices. Because of the shared arrays, Export must not write to vertex attributes
+ * that also exist in the source, i.e. loop or face attributes must not be mapped to them.<br><br>
+ * By default, every publish allocates a new copy and retired snapshots are left to the garbage collector.
+ * With a pool capacity greater than 0 (see {@link #setPoolCapacity(int)}), retired snapshots are recycled
+ * with {@link BMesh#copyFrom(BMesh)}, reusing their attribute arrays and element objects.
+ * Readers must then use {@link #acquire()} and {@link #release(Snapshot)} instead of {@link #getLatest()},
+ * since a snapshot is overwritten once it's retired and no longer referenced.
+ */
+public class BMeshSnapshots {
+    public static final class Snapshot {
+        public final BMesh bmesh;
+        public final long version;
+
+        // The publisher holds one reference until the snapshot is retired
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private Snapshot(BMesh bmesh, long version) {
+            this.bmesh = bmesh;
+            this.version = version;
+        }
+    }
+
+
+    private final BMesh source;
+    private volatile Snapshot latest = null;
+    private int numCopies = 0;
+    private int numReused = 0;
+
+    private final ArrayDeque<BMesh> pool = new ArrayDeque<>();
+    private volatile int poolCapacity = 0;
+
+
+    public BMeshSnapshots(BMesh source) {
+        this.source = Objects.requireNonNull(source);
+    }
+
+
+    /**
+     * Sets the maximum number of retired snapshots that are kept for reuse.
+     * Set to 0 to disable recycling (default). Reducing the capacity drops surplus snapshots.
+     * @param capacity
+     */
+    public void setPoolCapacity(int capacity) {
+        if(capacity < 0)
+            throw new IllegalArgumentException("Pool capacity must not be negative");
+
+        synchronized(pool) {
+            poolCapacity = capacity;
+            while(pool.size() > capacity)
+                pool.pollLast();
+        }
+    }
+
+    public int getPoolCapacity() {
+        return poolCapacity;
+    }
+
+
+    /**
+     * Creates and publishes a snapshot if the source was modified since the last call.
+     * Must be called from the thread that modifies the source.
+     * @return The latest snapshot.
+     */
+    public Snapshot publish() {
+        long version = source.getVersion();
+        Snapshot current = latest;
+        if(current != null && current.version == version)
+            return current;
+
+        BMesh bmesh;
+        synchronized(pool) {
+            bmesh = pool.pollFirst();
+        }
+
+        if(bmesh != null)
+            numReused++;
+        else {
+            bmesh = source.newEmpty();
+            if(poolCapacity > 0) {
+                // Recycle the element objects too when this copy is overwritten later
+                bmesh.vertices().setPoolCapacity(Integer.MAX_VALUE);
+                bmesh.edges().setPoolCapacity(Integer.MAX_VALUE);
+                bmesh.faces().setPoolCapacity(Integer.MAX_VALUE);
+                bmesh.loops().setPoolCapacity(Integer.MAX_VALUE);
+            }
+        }
+
+        bmesh.copyFrom(source, (current != null) ? current.bmesh : null);
+        numCopies++;
+
+        Snapshot snapshot = new Snapshot(bmesh, version);
+        latest = snapshot;
+        if(current != null)
+            release(current);
+
+        return snapshot;
+    }
+
+
+    /**
+     * Can be called from any thread. The returned snapshot stays valid only if recycling is disabled,
+     * otherwise use {@link #acquire()}.
+     * @return The most recently published snapshot, or <i>null</i> if nothing was published yet.
+     */
+    public Snapshot getLatest() {
+        return latest;
+    }
+
+
+    /**
+     * Can be called from any thread. The returned snapshot is not recycled until it is passed to {@link #release(Snapshot)}.
+     * @return The most recently published snapshot, or <i>null</i> if nothing was published yet.
+     */
+    public Snapshot acquire() {
+        while(true) {
+            Snapshot snapshot = latest;
+            if(snapshot == null)
+                return null;
+
+            // A count of 0 means the snapshot was retired and released in the meantime: Retry with the newer one
+            int refs = snapshot.refs.get();
+            if(refs > 0 && snapshot.refs.compareAndSet(refs, refs+1))
+                return snapshot;
+        }
+    }
+
+
+    /**
+     * Releases a snapshot returned by {@link #acquire()}. Can be called from any thread.
+     * The snapshot must not be used afterwards.
+     * @param snapshot
+     */
+    public void release(Snapshot snapshot) {
+        int refs = snapshot.refs.decrementAndGet();
+        if(refs < 0)
+            throw new IllegalStateException("Snapshot was already released");
+
+        if(refs == 0) {
+            synchronized(pool) {
+                if(pool.size() < poolCapacity)
+                    pool.addLast(snapshot.bmesh);
+            }
+        }
+    }
+
+
+    /**
+     * @return Number of snapshots created. Only accurate on the publishing thread.
+     */
+    public int getNumCopies() {
+        return numCopies;
+    }
+
+    /**
+     * @return Number of snapshots that reused the data of a retired snapshot. Only accurate on the publishing thread.
+     */
+    public int getNumReused() {
+        return numReused;
+    }
+}
@@ -6,6 +6,7 @@
 
 package ch.alchemists.jbmesh.structure;
 
+import ch.alchemists.jbmesh.data.BMeshData;
 import ch.alchemists.jbmesh.data.Element;
 import java.util.Iterator;
 import java.util.Objects;
@@ -135,6 +136,18 @@ public class Edge extends Element {
     }
 
 
+    /**
+     * Sets the disk cycle links to the edges with the same indices as the links of <i>source</i>.
+     * Used for copying a BMesh.
+     */
+    void copyDiskLinks(Edge source, BMeshData<Edge> edges) {
+        v0NextEdge = edges.get(source.v0NextEdge.getIndex());
+        v0PrevEdge = edges.get(source.v0PrevEdge.getIndex());
+        v1NextEdge = edges.get(source.v1NextEdge.getIndex());
+        v1PrevEdge = edges.get(source.v1PrevEdge.getIndex());
+    }
+
+
     // Iterate disk cycle
     // TODO: find(Edge): Use iterators that also allow insertion/removal at position (with prev reference) -> better than a prev-reference because it also checks if edge exists in cycle
     //                   But it introduces object allocation
@@ -234,10 +247,15 @@ public class Edge extends Element {
     }
 
     public boolean isAdjacentTo(Face face) {
-        for(Loop loop : loops()) {
-            if(loop.face == face)
+        if(loop == null)
+            return false;
+
+        Loop current = loop;
+        do {
+            if(current.face == face)
                 return true;
-        }
+            current = current.nextEdgeLoop;
+        } while(current != loop);
 
         return false;
     }
@@ -0,0 +1,50 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+/**
+ * Reusable cursor over the radial cycle of an Edge (the loops of all adjacent faces). Doesn't allocate.
+ * The structure must not be modified during traversal.
+ */
+public final class EdgeLoopCursor {
+    private Edge edge;
+    private Loop current;
+    private Loop next;
+
+
+    public EdgeLoopCursor reset(Edge edge) {
+        this.edge = edge;
+        current = null;
+        next = edge.loop;
+        return this;
+    }
+
+
+    /**
+     * Advances to the next loop.
+     * @return False if there are no more loops.
+     */
+    public boolean next() {
+        current = next;
+        if(current == null)
+            return false;
+
+        next = current.nextEdgeLoop;
+        if(next == edge.loop)
+            next = null;
+        return true;
+    }
+
+
+    public Loop get() {
+        return current;
+    }
+
+    public Face getFace() {
+        return current.face;
+    }
+}
@@ -26,37 +26,40 @@ public class Face extends Element {
     }
 
 
+    // Common edges are found by checking the radial cycles of this face's edges for the other face.
+    // This takes O(number of loops x radial cycle length) instead of comparing all pairs of loops.
+
     public Edge getAnyCommonEdge(Face face) {
-        for(Loop l1 : loops()) {
-            for(Loop l2 : face.loops()) {
-                if(l1.edge == l2.edge)
-                    return loop.edge;
-            }
-        }
+        Loop current = loop;
+        do {
+            if(current.edge.isAdjacentTo(face))
+                return current.edge;
+            current = current.nextFaceLoop;
+        } while(current != loop);
 
         return null;
     }
 
     public List<Edge> getCommonEdges(Face face) {
         List<Edge> edges = new ArrayList<>(4);
-        for(Loop l1 : loops()) {
-            for(Loop l2 : face.loops()) {
-                if(l1.edge == l2.edge)
-                    edges.add(loop.edge);
-            }
-        }
+        Loop current = loop;
+        do {
+            if(current.edge.isAdjacentTo(face))
+                edges.add(current.edge);
+            current = current.nextFaceLoop;
+        } while(current != loop);
 
         return edges;
     }
 
     public int countCommonEdges(Face face) {
         int commonEdges = 0;
-        for(Loop l1 : loops()) {
-            for(Loop l2 : face.loops()) {
-                if(l1.edge == l2.edge)
-                    commonEdges++;
-            }
-        }
+        Loop current = loop;
+        do {
+            if(current.edge.isAdjacentTo(face))
+                commonEdges++;
+            current = current.nextFaceLoop;
+        } while(current != loop);
 
         return commonEdges;
     }
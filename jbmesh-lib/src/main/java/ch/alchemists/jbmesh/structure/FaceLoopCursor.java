@@ -0,0 +1,54 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+/**
+ * Reusable cursor over the loops of a Face in winding order. Also provides the vertices and edges of the face.
+ * Doesn't allocate. The structure must not be modified during traversal.
+ */
+public final class FaceLoopCursor {
+    private Face face;
+    private Loop current;
+    private Loop next;
+
+
+    public FaceLoopCursor reset(Face face) {
+        this.face = face;
+        current = null;
+        next = face.loop;
+        return this;
+    }
+
+
+    /**
+     * Advances to the next loop.
+     * @return False if there are no more loops.
+     */
+    public boolean next() {
+        current = next;
+        if(current == null)
+            return false;
+
+        next = current.nextFaceLoop;
+        if(next == face.loop)
+            next = null;
+        return true;
+    }
+
+
+    public Loop get() {
+        return current;
+    }
+
+    public Vertex getVertex() {
+        return current.vertex;
+    }
+
+    public Edge getEdge() {
+        return current.edge;
+    }
+}
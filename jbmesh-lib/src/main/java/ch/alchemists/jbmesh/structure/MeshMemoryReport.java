@@ -0,0 +1,43 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import ch.alchemists.jbmesh.data.MemoryReport;
+
+/**
+ * Estimated heap usage of a {@link BMesh}, see {@link MemoryReport}.
+ */
+public class MeshMemoryReport {
+    public final MemoryReport vertices;
+    public final MemoryReport edges;
+    public final MemoryReport faces;
+    public final MemoryReport loops;
+
+
+    MeshMemoryReport(BMesh bmesh) {
+        vertices = bmesh.vertices().getMemoryReport();
+        edges    = bmesh.edges().getMemoryReport();
+        faces    = bmesh.faces().getMemoryReport();
+        loops    = bmesh.loops().getMemoryReport();
+    }
+
+
+    public long getTotalBytes() {
+        return vertices.getTotalBytes() + edges.getTotalBytes() + faces.getTotalBytes() + loops.getTotalBytes();
+    }
+
+    public long getReclaimableBytes() {
+        return vertices.getReclaimableBytes() + edges.getReclaimableBytes() + faces.getReclaimableBytes() + loops.getReclaimableBytes();
+    }
+
+
+    @Override
+    public String toString() {
+        return "BMesh: " + getTotalBytes() + " bytes (" + getReclaimableBytes() + " reclaimable)\n"
+            + vertices + "\n" + edges + "\n" + faces + "\n" + loops;
+    }
+}
@@ -0,0 +1,493 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import ch.alchemists.jbmesh.data.BMeshData;
+import ch.alchemists.jbmesh.data.Element;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.util.Parallel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks the consistency of the whole structure and classifies edges and vertices as manifold, boundary or non-manifold.
+ * Both passes process the elements in parallel on the common ForkJoinPool and don't modify the structure.<br>
+ * The classification is stored in two {@link BitAttribute}s on edges and vertices. An element is manifold if neither bit is set:
+ * <ul>
+ * <li>{@link #ATTRIBUTE_BOUNDARY}: Edge with one adjacent face, or vertex with a single open fan of faces.</li>
+ * <li>{@link #ATTRIBUTE_NON_MANIFOLD}: Edge with zero or more than two adjacent faces, or vertex which is isolated,
+ *     touches a non-manifold edge or whose faces form more than one fan.</li>
+ * </ul>
+ */
+public class TopologyValidator {
+    public static final String ATTRIBUTE_BOUNDARY     = "Boundary";
+    public static final String ATTRIBUTE_NON_MANIFOLD = "NonManifold";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int WORD_GRAIN_SIZE = Parallel.DEFAULT_GRAIN_SIZE / 64;
+
+    private static final int TYPE_MANIFOLD     = 0;
+    private static final int TYPE_BOUNDARY     = 1;
+    private static final int TYPE_NON_MANIFOLD = 2;
+
+    private final BMesh bmesh;
+
+    private final List<String> errors = new ArrayList<>();
+    private int numErrors = 0;
+
+
+    public TopologyValidator(BMesh bmesh) {
+        this.bmesh = bmesh;
+    }
+
+
+    /**
+     * Checks that all references point to live elements of this BMesh and that the disk cycles, radial cycles and
+     * face loop rings are closed, doubly linked and complete.
+     * @return True if no errors were found. See {@link #getErrors()}.
+     */
+    public boolean validate() {
+        errors.clear();
+        numErrors = 0;
+
+        final BMeshData<Vertex> vertices = bmesh.vertices();
+        final BMeshData<Edge> edges      = bmesh.edges();
+        final BMeshData<Face> faces      = bmesh.faces();
+        final BMeshData<Loop> loops      = bmesh.loops();
+
+        AtomicLong diskEntries = new AtomicLong();
+        Parallel.forRange(0, vertices.totalSize(), (start, end) -> {
+            long count = 0;
+            for(int i=start; i<end; ++i) {
+                Vertex vertex = vertices.get(i);
+                if(vertex != null)
+                    count += checkDiskCycle(vertex);
+            }
+            diskEntries.addAndGet(count);
+        });
+
+        AtomicLong radialEntries = new AtomicLong();
+        Parallel.forRange(0, edges.totalSize(), (start, end) -> {
+            long count = 0;
+            for(int i=start; i<end; ++i) {
+                Edge edge = edges.get(i);
+                if(edge != null)
+                    count += checkRadialCycle(edge);
+            }
+            radialEntries.addAndGet(count);
+        });
+
+        AtomicLong faceEntries = new AtomicLong();
+        Parallel.forRange(0, faces.totalSize(), (start, end) -> {
+            long count = 0;
+            for(int i=start; i<end; ++i) {
+                Face face = faces.get(i);
+                if(face != null)
+                    count += checkFaceLoops(face);
+            }
+            faceEntries.addAndGet(count);
+        });
+
+        Parallel.forRange(0, loops.totalSize(), (start, end) -> {
+            for(int i=start; i<end; ++i) {
+                Loop loop = loops.get(i);
+                if(loop != null)
+                    checkLoop(loop);
+            }
+        });
+
+        // Closed and consistent cycles can only miss elements, they can't contain duplicates
+        if(numErrors == 0) {
+            if(diskEntries.get() != 2L * edges.size())
+                error("Disk cycles contain " + diskEntries.get() + " edge entries, expected " + (2L * edges.size()));
+            if(radialEntries.get() != loops.size())
+                error("Radial cycles contain " + radialEntries.get() + " loops, expected " + loops.size());
+            if(faceEntries.get() != loops.size())
+                error("Faces contain " + faceEntries.get() + " loops, expected " + loops.size());
+        }
+
+        return numErrors == 0;
+    }
+
+
+    /**
+     * @return Number of errors found by the last call to {@link #validate()}.
+     */
+    public synchronized int getNumErrors() {
+        return numErrors;
+    }
+
+    /**
+     * @return Descriptions of the first errors found by the last call to {@link #validate()}. Not sorted.
+     */
+    public synchronized List<String> getErrors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+
+    private synchronized void error(String message) {
+        numErrors++;
+        if(errors.size() < MAX_REPORTED_ERRORS)
+            errors.add(message);
+    }
+
+
+    private <E extends Element> boolean isMember(BMeshData<E> data, E element) {
+        if(element == null || !element.isAlive())
+            return false;
+
+        int index = element.getIndex();
+        return index < data.totalSize() && data.get(index) == element;
+    }
+
+
+    /**
+     * @return Number of edges in the disk cycle.
+     */
+    private int checkDiskCycle(Vertex vertex) {
+        if(vertex.edge == null)
+            return 0;
+
+        final BMeshData<Edge> edges = bmesh.edges();
+        final int limit = edges.size();
+
+        Edge edge = vertex.edge;
+        int count = 0;
+        do {
+            if(!isMember(edges, edge)) {
+                error("Vertex " + vertex.getIndex() + ": Disk cycle references dead or foreign edge");
+                return 0;
+            }
+            if(!edge.isAdjacentTo(vertex)) {
+                error("Vertex " + vertex.getIndex() + ": Disk cycle contains edge " + edge.getIndex() + " which is not adjacent");
+                return 0;
+            }
+
+            Edge next = edge.getNextEdge(vertex);
+            if(next == null || !next.isAdjacentTo(vertex) || next.getPrevEdge(vertex) != edge) {
+                error("Vertex " + vertex.getIndex() + ": Disk cycle is broken after edge " + edge.getIndex());
+                return 0;
+            }
+
+            if(++count > limit) {
+                error("Vertex " + vertex.getIndex() + ": Disk cycle doesn't close");
+                return 0;
+            }
+
+            edge = next;
+        } while(edge != vertex.edge);
+
+        return count;
+    }
+
+
+    /**
+     * @return Number of loops in the radial cycle.
+     */
+    private int checkRadialCycle(Edge edge) {
+        final BMeshData<Vertex> vertices = bmesh.vertices();
+        if(!isMember(vertices, edge.vertex0) || !isMember(vertices, edge.vertex1)) {
+            error("Edge " + edge.getIndex() + ": References dead or foreign vertex");
+            return 0;
+        }
+        if(edge.vertex0 == edge.vertex1) {
+            error("Edge " + edge.getIndex() + ": Both vertices are the same");
+            return 0;
+        }
+
+        if(edge.loop == null)
+            return 0;
+
+        final BMeshData<Loop> loops = bmesh.loops();
+        final int limit = loops.size();
+
+        Loop loop = edge.loop;
+        int count = 0;
+        do {
+            if(!isMember(loops, loop)) {
+                error("Edge " + edge.getIndex() + ": Radial cycle references dead or foreign loop");
+                return 0;
+            }
+            if(loop.edge != edge || !edge.isAdjacentTo(loop.vertex)) {
+                error("Edge " + edge.getIndex() + ": Radial cycle contains loop " + loop.getIndex() + " of another edge");
+                return 0;
+            }
+
+            Loop next = loop.nextEdgeLoop;
+            if(next == null || next.prevEdgeLoop != loop) {
+                error("Edge " + edge.getIndex() + ": Radial cycle is broken after loop " + loop.getIndex());
+                return 0;
+            }
+
+            if(++count > limit) {
+                error("Edge " + edge.getIndex() + ": Radial cycle doesn't close");
+                return 0;
+            }
+
+            loop = next;
+        } while(loop != edge.loop);
+
+        return count;
+    }
+
+
+    /**
+     * @return Number of loops in the face.
+     */
+    private int checkFaceLoops(Face face) {
+        final BMeshData<Loop> loops = bmesh.loops();
+        final int limit = loops.size();
+
+        if(face.loop == null) {
+            error("Face " + face.getIndex() + ": Has no loops");
+            return 0;
+        }
+
+        Loop loop = face.loop;
+        int count = 0;
+        do {
+            if(!isMember(loops, loop)) {
+                error("Face " + face.getIndex() + ": References dead or foreign loop");
+                return 0;
+            }
+            if(loop.face != face) {
+                error("Face " + face.getIndex() + ": Contains loop " + loop.getIndex() + " of another face");
+                return 0;
+            }
+
+            Loop next = loop.nextFaceLoop;
+            if(next == null || next.prevFaceLoop != loop) {
+                error("Face " + face.getIndex() + ": Loop ring is broken after loop " + loop.getIndex());
+                return 0;
+            }
+
+            // Edge must connect the vertices of the loop and the next loop
+            if(loop.edge == null || next.vertex == loop.vertex || !loop.edge.isAdjacentTo(loop.vertex) || !loop.edge.isAdjacentTo(next.vertex)) {
+                error("Face " + face.getIndex() + ": Edge of loop " + loop.getIndex() + " doesn't connect to next loop");
+                return 0;
+            }
+
+            if(++count > limit) {
+                error("Face " + face.getIndex() + ": Loop ring doesn't close");
+                return 0;
+            }
+
+            loop = next;
+        } while(loop != face.loop);
+
+        if(count < 3)
+            error("Face " + face.getIndex() + ": Has only " + count + " loops");
+
+        return count;
+    }
+
+
+    private void checkLoop(Loop loop) {
+        if(!isMember(bmesh.faces(), loop.face))
+            error("Loop " + loop.getIndex() + ": References dead or foreign face");
+        if(!isMember(bmesh.edges(), loop.edge))
+            error("Loop " + loop.getIndex() + ": References dead or foreign edge");
+        if(!isMember(bmesh.vertices(), loop.vertex))
+            error("Loop " + loop.getIndex() + ": References dead or foreign vertex");
+    }
+
+
+    /**
+     * Classifies all edges and vertices and stores the result in the attributes {@link #ATTRIBUTE_BOUNDARY} and
+     * {@link #ATTRIBUTE_NON_MANIFOLD}, which are created if they don't exist.<br>
+     * Requires a valid structure, see {@link #validate()}.
+     * @return True if there are no non-manifold edges or vertices. Boundaries are allowed.
+     */
+    public boolean classify() {
+        final BMeshData<Edge> edges = bmesh.edges();
+        final BMeshData<Vertex> vertices = bmesh.vertices();
+
+        BitAttribute<Edge> edgeBoundary      = BitAttribute.getOrCreate(ATTRIBUTE_BOUNDARY, edges);
+        BitAttribute<Edge> edgeNonManifold   = BitAttribute.getOrCreate(ATTRIBUTE_NON_MANIFOLD, edges);
+        BitAttribute<Vertex> vertBoundary    = BitAttribute.getOrCreate(ATTRIBUTE_BOUNDARY, vertices);
+        BitAttribute<Vertex> vertNonManifold = BitAttribute.getOrCreate(ATTRIBUTE_NON_MANIFOLD, vertices);
+
+        AtomicBoolean manifold = new AtomicBoolean(true);
+
+        // Each task writes whole words of the bit attributes
+        final int numEdges = edges.totalSize();
+        Parallel.forRange(0, numWords(numEdges), WORD_GRAIN_SIZE, (startWord, endWord) -> {
+            for(int w=startWord; w<endWord; ++w) {
+                long boundaryWord = 0;
+                long nonManifoldWord = 0;
+
+                int end = Math.min((w+1) * 64, numEdges);
+                for(int i=w*64; i<end; ++i) {
+                    Edge edge = edges.get(i);
+                    if(edge == null)
+                        continue;
+
+                    int radial = countRadialLoops(edge);
+                    if(radial == 1)
+                        boundaryWord |= 1L << i;
+                    else if(radial != 2)
+                        nonManifoldWord |= 1L << i;
+                }
+
+                edgeBoundary.setWord(w, boundaryWord);
+                edgeNonManifold.setWord(w, nonManifoldWord);
+                if(nonManifoldWord != 0)
+                    manifold.set(false);
+            }
+        });
+
+        // Repair dirty ranges, the concurrent setWord() calls can lose updates
+        edgeBoundary.setDirty(0, numEdges);
+        edgeNonManifold.setDirty(0, numEdges);
+
+        // Vertices read the edge classification
+        final int numVertices = vertices.totalSize();
+        Parallel.forRange(0, numWords(numVertices), WORD_GRAIN_SIZE, (startWord, endWord) -> {
+            for(int w=startWord; w<endWord; ++w) {
+                long boundaryWord = 0;
+                long nonManifoldWord = 0;
+
+                int end = Math.min((w+1) * 64, numVertices);
+                for(int i=w*64; i<end; ++i) {
+                    Vertex vertex = vertices.get(i);
+                    if(vertex == null)
+                        continue;
+
+                    int type = classifyVertex(vertex, edgeBoundary, edgeNonManifold);
+                    if(type == TYPE_BOUNDARY)
+                        boundaryWord |= 1L << i;
+                    else if(type == TYPE_NON_MANIFOLD)
+                        nonManifoldWord |= 1L << i;
+                }
+
+                vertBoundary.setWord(w, boundaryWord);
+                vertNonManifold.setWord(w, nonManifoldWord);
+                if(nonManifoldWord != 0)
+                    manifold.set(false);
+            }
+        });
+
+        // Repair dirty ranges, the concurrent setWord() calls can lose updates
+        vertBoundary.setDirty(0, numVertices);
+        vertNonManifold.setDirty(0, numVertices);
+
+        return manifold.get();
+    }
+
+
+    private static int classifyVertex(Vertex vertex, BitAttribute<Edge> edgeBoundary, BitAttribute<Edge> edgeNonManifold) {
+        if(vertex.edge == null)
+            return TYPE_NON_MANIFOLD;
+
+        int numBoundary = 0;
+        int numCorners = 0;
+        Loop anyCorner = null;
+
+        Edge edge = vertex.edge;
+        do {
+            if(edgeNonManifold.get(edge))
+                return TYPE_NON_MANIFOLD;
+            if(edgeBoundary.get(edge))
+                numBoundary++;
+
+            // Each face corner has exactly one loop that starts at the vertex
+            Loop loop = edge.loop;
+            if(loop != null) {
+                do {
+                    if(loop.vertex == vertex) {
+                        numCorners++;
+                        anyCorner = loop;
+                    }
+                    loop = loop.nextEdgeLoop;
+                } while(loop != edge.loop);
+            }
+
+            edge = edge.getNextEdge(vertex);
+        } while(edge != vertex.edge);
+
+        if(numBoundary > 2 || countFanCorners(vertex, anyCorner, numCorners) != numCorners)
+            return TYPE_NON_MANIFOLD;
+
+        return (numBoundary == 0) ? TYPE_MANIFOLD : TYPE_BOUNDARY;
+    }
+
+
+    /**
+     * Walks around the vertex over the faces that share an edge, starting at <i>start</i>.
+     * All adjacent edges must have one or two loops.
+     * @return Number of face corners in the fan.
+     */
+    private static int countFanCorners(Vertex vertex, Loop start, int limit) {
+        int count = 1;
+
+        Loop corner = start;
+        Edge edge = start.edge;
+        for(int i=0; i<limit; ++i) {
+            corner = nextFanCorner(vertex, corner, edge);
+            if(corner == null)
+                break;
+            if(corner == start)
+                return count; // Closed fan
+
+            count++;
+            edge = (corner.edge == edge) ? corner.prevFaceLoop.edge : corner.edge;
+        }
+
+        // Open fan: Continue in the other direction from start
+        corner = start;
+        edge = start.prevFaceLoop.edge;
+        for(int i=0; i<limit; ++i) {
+            corner = nextFanCorner(vertex, corner, edge);
+            if(corner == null || corner == start)
+                break;
+
+            count++;
+            edge = (corner.edge == edge) ? corner.prevFaceLoop.edge : corner.edge;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * @param corner Loop that starts at the vertex.
+     * @param edge One of the two edges of <i>corner</i> that are adjacent to the vertex.
+     * @return The corner loop of the other face at <i>edge</i>, or null if <i>edge</i> is a boundary.
+     */
+    private static Loop nextFanCorner(Vertex vertex, Loop corner, Edge edge) {
+        Loop loop = (corner.edge == edge) ? corner : corner.prevFaceLoop;
+        Loop partner = loop.nextEdgeLoop;
+        if(partner == loop)
+            return null;
+
+        // Works for both windings of the adjacent face
+        return (partner.vertex == vertex) ? partner : partner.nextFaceLoop;
+    }
+
+
+    private static int countRadialLoops(Edge edge) {
+        if(edge.loop == null)
+            return 0;
+
+        int count = 0;
+        Loop loop = edge.loop;
+        do {
+            count++;
+            loop = loop.nextEdgeLoop;
+        } while(loop != edge.loop && count < 3);
+
+        return count;
+    }
+
+
+    private static int numWords(int size) {
+        return (size + 63) >>> 6;
+    }
+}
@@ -8,6 +8,7 @@ package ch.alchemists.jbmesh.structure;
 
 import ch.alchemists.jbmesh.data.Element;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class Vertex extends Element {
     // Can be null
@@ -96,17 +97,37 @@ public class Vertex extends Element {
     }
 
 
+    /**
+     * Visits the faces around this vertex once and checks whether they contain the other vertex.
+     * Takes O(sum of adjacent face sizes). {@link BMesh#getCommonFace(Vertex, Vertex)} is faster for large faces.
+     * @param other
+     * @return A face that contains both vertices, or null.
+     */
     public Face getCommonFace(Vertex other) {
-        for(Edge edgeThis : edges()) {
-            for(Loop loopThis : edgeThis.loops()) {
-                for(Edge edgeOther : other.edges()) {
-                    for(Loop loopOther : edgeOther.loops()) {
-                        if(loopThis.face == loopOther.face)
-                            return loopThis.face;
+        if(edge == null)
+            return null;
+
+        Edge currentEdge = edge;
+        do {
+            Loop radial = currentEdge.loop;
+            if(radial != null) {
+                do {
+                    // Only check the corner loop of each face at this vertex
+                    if(radial.vertex == this) {
+                        Loop faceLoop = radial.nextFaceLoop;
+                        do {
+                            if(faceLoop.vertex == other)
+                                return radial.face;
+                            faceLoop = faceLoop.nextFaceLoop;
+                        } while(faceLoop != radial);
                     }
-                }
+
+                    radial = radial.nextEdgeLoop;
+                } while(radial != currentEdge.loop);
             }
-        }
+
+            currentEdge = currentEdge.getNextEdge(this);
+        } while(currentEdge != edge);
 
         return null;
     }
@@ -141,20 +162,36 @@ public class Vertex extends Element {
 
 
 
+    /**
+     * Iterates the faces adjacent to this vertex. A face is returned more than once if the vertex appears multiple times in it.
+     * See {@link VertexLoopCursor} for an alternative that doesn't allocate.
+     * @return
+     */
     public Iterable<Face> faces() {
-        return VertexFaceIterator::new;
+        return () -> new VertexFaceIterator(this);
     }
 
-    private static class VertexFaceIterator implements Iterator<Face> {
+    private static final class VertexFaceIterator implements Iterator<Face> {
+        private final VertexLoopCursor cursor = new VertexLoopCursor();
+        private boolean hasNext;
+
+        public VertexFaceIterator(Vertex vertex) {
+            hasNext = cursor.reset(vertex).next();
+        }
+
         @Override
         public boolean hasNext() {
-            throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+            return hasNext;
         }
 
-
         @Override
         public Face next() {
-            throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+            if(!hasNext)
+                throw new NoSuchElementException();
+
+            Face face = cursor.getFace();
+            hasNext = cursor.next();
+            return face;
         }
     }
 }
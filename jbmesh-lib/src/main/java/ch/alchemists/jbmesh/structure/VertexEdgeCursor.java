@@ -0,0 +1,59 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+/**
+ * Reusable cursor over the disk cycle of a Vertex (all adjacent edges). Doesn't allocate.
+ * <pre>
+ * cursor.reset(vertex);
+ * while(cursor.next()) {
+ *     Edge edge = cursor.get();
+ * }
+ * </pre>
+ * The structure must not be modified during traversal.
+ */
+public final class VertexEdgeCursor {
+    private Vertex vertex;
+    private Edge current;
+    private Edge next;
+
+
+    public VertexEdgeCursor reset(Vertex vertex) {
+        this.vertex = vertex;
+        current = null;
+        next = vertex.edge;
+        return this;
+    }
+
+
+    /**
+     * Advances to the next edge.
+     * @return False if there are no more edges.
+     */
+    public boolean next() {
+        current = next;
+        if(current == null)
+            return false;
+
+        next = current.getNextEdge(vertex);
+        if(next == vertex.edge)
+            next = null;
+        return true;
+    }
+
+
+    public Edge get() {
+        return current;
+    }
+
+    /**
+     * @return The vertex on the other side of the current edge.
+     */
+    public Vertex getOther() {
+        return current.getOther(vertex);
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+/**
+ * Reusable cursor over the loops around a Vertex: All loops that start at the vertex, one for each face corner.
+ * This also walks the faces adjacent to the vertex. A face is visited more than once if the vertex appears
+ * multiple times in it.<br>
+ * Works for non-manifold vertices since it follows the disk cycle and the radial cycles of its edges.
+ * Doesn't allocate. The structure must not be modified during traversal.
+ */
+public final class VertexLoopCursor {
+    private final VertexEdgeCursor edges = new VertexEdgeCursor();
+    private Vertex vertex;
+    private Loop current;
+
+
+    public VertexLoopCursor reset(Vertex vertex) {
+        this.vertex = vertex;
+        edges.reset(vertex);
+        current = null;
+        return this;
+    }
+
+
+    /**
+     * Advances to the next loop.
+     * @return False if there are no more loops.
+     */
+    public boolean next() {
+        Loop loop = current;
+
+        while(true) {
+            // Continue radial cycle of current edge
+            if(loop != null) {
+                loop = loop.nextEdgeLoop;
+                if(loop == edges.get().loop)
+                    loop = null;
+            }
+
+            if(loop == null) {
+                if(!edges.next()) {
+                    current = null;
+                    return false;
+                }
+
+                loop = edges.get().loop;
+                if(loop == null)
+                    continue;
+            }
+
+            // Each face corner has exactly one loop that starts at the vertex
+            if(loop.vertex == vertex) {
+                current = loop;
+                return true;
+            }
+        }
+    }
+
+
+    public Loop get() {
+        return current;
+    }
+
+    public Face getFace() {
+        return current.face;
+    }
+}
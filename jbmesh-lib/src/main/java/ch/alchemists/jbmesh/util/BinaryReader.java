@@ -0,0 +1,224 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.util;
+
+import com.jme3.util.BufferUtils;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads files written by {@link BinaryWriter}. Array blocks are memory-mapped with {@link FileChannel#map}
+ * and copied in bulk. With copy-on-write enabled, FloatBuffer blocks are wrapped without copying.
+ */
+public class BinaryReader implements Closeable {
+    private static final int ALIGNMENT = 8;
+
+    private final FileChannel channel;
+    private final boolean copyOnWrite;
+    private final ByteBuffer scalar = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = 0;
+
+    // Header of the current block
+    private byte blockType = 0;
+    private int blockLength = -1;
+
+
+    /**
+     * Opens the file for reading only.
+     * @param path
+     * @throws IOException
+     */
+    public BinaryReader(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * @param path
+     * @param copyOnWrite If true, {@link #mapFloats()} maps the blocks privately instead of copying them.
+     *                    Private mappings need write access, so the file is opened for reading and writing.
+     *                    The file is never modified.
+     * @throws IOException If the file can't be opened, e.g. because it is not writable with <i>copyOnWrite</i> enabled.
+     */
+    public BinaryReader(Path path, boolean copyOnWrite) throws IOException {
+        if(copyOnWrite)
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        else
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        this.copyOnWrite = copyOnWrite;
+    }
+
+
+    public boolean isCopyOnWrite() {
+        return copyOnWrite;
+    }
+
+
+    public long getPosition() {
+        return position;
+    }
+
+
+    private ByteBuffer readScalar(int bytes) throws IOException {
+        scalar.clear().limit(bytes);
+        while(scalar.hasRemaining()) {
+            if(channel.read(scalar, position + scalar.position()) < 0)
+                throw new EOFException();
+        }
+
+        position += bytes;
+        scalar.flip();
+        return scalar;
+    }
+
+    public byte readByte() throws IOException {
+        return readScalar(1).get();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readInt() throws IOException {
+        return readScalar(4).getInt();
+    }
+
+    public long readLong() throws IOException {
+        return readScalar(8).getLong();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if(length < 0)
+            throw new IOException("Invalid string length");
+
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while(bytes.hasRemaining()) {
+            if(channel.read(bytes, position + bytes.position()) < 0)
+                throw new EOFException();
+        }
+
+        position += length;
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Reads the header of the next array block.
+     * @return Type of the block, see BinaryWriter.TYPE_* constants.
+     */
+    public byte beginBlock() throws IOException {
+        blockType = readByte();
+        blockLength = readInt();
+        if(blockLength < 0)
+            throw new IOException("Invalid block length");
+
+        position += (ALIGNMENT - (position % ALIGNMENT)) % ALIGNMENT;
+        return blockType;
+    }
+
+    /**
+     * @return Number of values in the current block.
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+
+    /**
+     * Reads the current block into the array, which must have the matching type.
+     * @param array A primitive array or FloatBuffer with at least {@link #getBlockLength()} values.
+     */
+    public void readArray(Object array) throws IOException {
+        final int length = blockLength;
+
+        if(array instanceof float[] && blockType == BinaryWriter.TYPE_FLOAT)
+            map(length * 4L).asFloatBuffer().get((float[]) array, 0, length);
+        else if(array instanceof FloatBuffer && blockType == BinaryWriter.TYPE_FLOAT) {
+            FloatBuffer dest = ((FloatBuffer) array).duplicate();
+            dest.clear();
+            dest.put(map(length * 4L).asFloatBuffer());
+        }
+        else if(array instanceof int[] && blockType == BinaryWriter.TYPE_INT)
+            map(length * 4L).asIntBuffer().get((int[]) array, 0, length);
+        else if(array instanceof short[] && blockType == BinaryWriter.TYPE_SHORT)
+            map(length * 2L).asShortBuffer().get((short[]) array, 0, length);
+        else if(array instanceof byte[] && blockType == BinaryWriter.TYPE_BYTE)
+            map(length).get((byte[]) array, 0, length);
+        else if(array instanceof long[] && blockType == BinaryWriter.TYPE_LONG)
+            map(length * 8L).asLongBuffer().get((long[]) array, 0, length);
+        else if(array instanceof boolean[] && blockType == BinaryWriter.TYPE_BOOLEAN) {
+            ByteBuffer bytes = map(length);
+            boolean[] dest = (boolean[]) array;
+            for(int i=0; i<length; ++i)
+                dest[i] = bytes.get(i) != 0;
+        }
+        else
+            throw new IOException("Block type " + blockType + " doesn't match array type " + array.getClass().getName());
+
+        blockLength = -1;
+    }
+
+
+    /**
+     * Returns the current float block as a direct buffer. Writes to the buffer don't change the file.
+     * The buffer remains valid after this reader is closed.<br>
+     * With copy-on-write enabled (see {@link #BinaryReader(Path, boolean)}), the block is mapped privately without copying.
+     * Otherwise it is copied into a new direct buffer.
+     * @return A writable buffer.
+     */
+    public FloatBuffer mapFloats() throws IOException {
+        if(blockType != BinaryWriter.TYPE_FLOAT)
+            throw new IOException("Not a float block");
+
+        long bytes = blockLength * 4L;
+        FloatBuffer buffer;
+        if(copyOnWrite)
+            buffer = map(bytes, FileChannel.MapMode.PRIVATE).asFloatBuffer();
+        else {
+            buffer = BufferUtils.createFloatBuffer((int) blockLength);
+            buffer.put(map(bytes).asFloatBuffer());
+            buffer.clear();
+        }
+
+        blockLength = -1;
+        return buffer;
+    }
+
+
+    private ByteBuffer map(long bytes) throws IOException {
+        return map(bytes, FileChannel.MapMode.READ_ONLY);
+    }
+
+    private ByteBuffer map(long bytes, FileChannel.MapMode mode) throws IOException {
+        if(blockLength < 0)
+            throw new IllegalStateException("No block started");
+        if(position + bytes > channel.size())
+            throw new EOFException();
+
+        ByteBuffer buffer;
+        if(bytes == 0)
+            buffer = ByteBuffer.allocate(0);
+        else
+            buffer = channel.map(mode, position, bytes);
+
+        position += bytes;
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,222 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes little-endian values and array blocks to a file. Blocks are aligned to 8 bytes,
+ * so {@link BinaryReader} can map them and create aligned views.
+ */
+public class BinaryWriter implements Closeable {
+    public static final byte TYPE_FLOAT   = 1;
+    public static final byte TYPE_INT     = 2;
+    public static final byte TYPE_SHORT   = 3;
+    public static final byte TYPE_BYTE    = 4;
+    public static final byte TYPE_BOOLEAN = 5;
+    public static final byte TYPE_LONG    = 6;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int ALIGNMENT = 8;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = 0;
+
+
+    public BinaryWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+
+    /**
+     * @return Number of bytes written.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+
+    public void writeByte(byte value) throws IOException {
+        ensureRemaining(1);
+        buffer.put(value);
+        position++;
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensureRemaining(4);
+        buffer.putInt(value);
+        position += 4;
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensureRemaining(8);
+        buffer.putLong(value);
+        position += 8;
+    }
+
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, bytes.length);
+    }
+
+
+    /**
+     * Writes an array block: Type, value count, padding and the values.
+     * @param array A primitive array or FloatBuffer.
+     * @param length Number of values to write.
+     */
+    public void writeArray(Object array, int length) throws IOException {
+        if(array instanceof float[] || array instanceof FloatBuffer)
+            beginBlock(TYPE_FLOAT, length);
+        else if(array instanceof int[])
+            beginBlock(TYPE_INT, length);
+        else if(array instanceof short[])
+            beginBlock(TYPE_SHORT, length);
+        else if(array instanceof byte[])
+            beginBlock(TYPE_BYTE, length);
+        else if(array instanceof boolean[])
+            beginBlock(TYPE_BOOLEAN, length);
+        else if(array instanceof long[])
+            beginBlock(TYPE_LONG, length);
+        else
+            throw new IllegalArgumentException("Unsupported array type: " + array.getClass().getName());
+
+        if(array instanceof float[])
+            writeFloats((float[]) array, length);
+        else if(array instanceof FloatBuffer)
+            writeFloats((FloatBuffer) array, length);
+        else if(array instanceof int[])
+            writeInts((int[]) array, length);
+        else if(array instanceof short[])
+            writeShorts((short[]) array, length);
+        else if(array instanceof byte[])
+            writeBytes((byte[]) array, length);
+        else if(array instanceof boolean[])
+            writeBooleans((boolean[]) array, length);
+        else
+            writeLongs((long[]) array, length);
+    }
+
+
+    private void beginBlock(byte type, int length) throws IOException {
+        writeByte(type);
+        writeInt(length);
+
+        int padding = (int) ((ALIGNMENT - (position % ALIGNMENT)) % ALIGNMENT);
+        for(int i=0; i<padding; ++i)
+            writeByte((byte) 0);
+    }
+
+
+    private void writeFloats(float[] array, int length) throws IOException {
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(4));
+            buffer.asFloatBuffer().put(array, i, n);
+            advance(n * 4);
+            i += n;
+        }
+    }
+
+    private void writeFloats(FloatBuffer source, int length) throws IOException {
+        FloatBuffer src = source.duplicate();
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(4));
+            src.limit(i + n).position(i);
+            buffer.asFloatBuffer().put(src);
+            advance(n * 4);
+            i += n;
+        }
+    }
+
+    private void writeInts(int[] array, int length) throws IOException {
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(4));
+            buffer.asIntBuffer().put(array, i, n);
+            advance(n * 4);
+            i += n;
+        }
+    }
+
+    private void writeShorts(short[] array, int length) throws IOException {
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(2));
+            buffer.asShortBuffer().put(array, i, n);
+            advance(n * 2);
+            i += n;
+        }
+    }
+
+    private void writeLongs(long[] array, int length) throws IOException {
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(8));
+            buffer.asLongBuffer().put(array, i, n);
+            advance(n * 8);
+            i += n;
+        }
+    }
+
+    private void writeBytes(byte[] array, int length) throws IOException {
+        for(int i=0; i<length; ) {
+            int n = Math.min(length - i, availableValues(1));
+            buffer.put(array, i, n);
+            position += n;
+            i += n;
+        }
+    }
+
+    private void writeBooleans(boolean[] array, int length) throws IOException {
+        for(int i=0; i<length; ++i)
+            writeBoolean(array[i]);
+    }
+
+
+    private int availableValues(int valueSize) throws IOException {
+        if(buffer.remaining() < valueSize)
+            flush();
+        return buffer.remaining() / valueSize;
+    }
+
+    private void advance(int bytes) {
+        buffer.position(buffer.position() + bytes);
+        position += bytes;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if(buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
@@ -21,6 +21,16 @@ public class Func {
     }
 
 
+    @FunctionalInterface
+    public interface IndexRange {
+        /**
+         * @param start First index (inclusive).
+         * @param end Last index (exclusive).
+         */
+        void exec(int start, int end);
+    }
+
+
     @FunctionalInterface
     public interface MapVec3<T> {
         Vector3f get(T element, Vector3f store);
@@ -0,0 +1,168 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map with primitive <code>long</code> keys and <code>int</code> values. Uses open addressing with linear probing
+ * and doesn't allocate objects per entry.<br>
+ * The key -1 is reserved for marking empty slots.
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+
+    private static int tableSize(int expectedSize) {
+        int minSize = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(minSize - 1) << 1;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        mask = tableSize - 1;
+    }
+
+
+    private static int hash(long key) {
+        // Mix bits (from MurmurHash3 finalizer)
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * @return The value for the key, or <i>missingValue</i> if the key doesn't exist.
+     */
+    public int get(long key, int missingValue) {
+        for(int i = hash(key) & mask; ; i = (i+1) & mask) {
+            long k = keys[i];
+            if(k == key)
+                return values[i];
+            if(k == EMPTY)
+                return missingValue;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        for(int i = hash(key) & mask; ; i = (i+1) & mask) {
+            long k = keys[i];
+            if(k == key)
+                return true;
+            if(k == EMPTY)
+                return false;
+        }
+    }
+
+
+    public void put(long key, int value) {
+        if(key == EMPTY)
+            throw new IllegalArgumentException("Key -1 is reserved");
+
+        for(int i = hash(key) & mask; ; i = (i+1) & mask) {
+            long k = keys[i];
+            if(k == key) {
+                values[i] = value;
+                return;
+            }
+
+            if(k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+
+                if(++size > keys.length * LOAD_FACTOR)
+                    rehash(keys.length << 1);
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * @return The removed value, or <i>missingValue</i> if the key didn't exist.
+     */
+    public int remove(long key, int missingValue) {
+        int i = hash(key) & mask;
+        while(true) {
+            long k = keys[i];
+            if(k == EMPTY)
+                return missingValue;
+            if(k == key)
+                break;
+            i = (i+1) & mask;
+        }
+
+        int value = values[i];
+        size--;
+
+        // Shift following entries back so lookups don't stop at the new gap
+        int gap = i;
+        for(int j = (i+1) & mask; keys[j] != EMPTY; j = (j+1) & mask) {
+            int home = hash(keys[j]) & mask;
+
+            // Move entry if its home slot is not in the cyclic range (gap, j]
+            if(((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+
+        keys[gap] = EMPTY;
+        return value;
+    }
+
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(tableSize);
+
+        for(int i=0; i<oldKeys.length; ++i) {
+            long key = oldKeys[i];
+            if(key == EMPTY)
+                continue;
+
+            int j = hash(key) & mask;
+            while(keys[j] != EMPTY)
+                j = (j+1) & mask;
+
+            keys[j] = key;
+            values[j] = oldValues[i];
+        }
+    }
+}
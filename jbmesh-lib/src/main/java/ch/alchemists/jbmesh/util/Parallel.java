@@ -0,0 +1,72 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs kernels over contiguous index ranges on the common ForkJoinPool.
+ */
+public class Parallel {
+    public static final int DEFAULT_GRAIN_SIZE = 4096;
+
+
+    private Parallel() {}
+
+
+    public static void forRange(int start, int end, Func.IndexRange kernel) {
+        forRange(start, end, DEFAULT_GRAIN_SIZE, kernel);
+    }
+
+    /**
+     * Splits [start, end) into ranges of at most <i>grainSize</i> indices and processes them in parallel.
+     * Returns when all ranges are processed. Runs in the calling thread if the range is not larger than <i>grainSize</i>.
+     * @param start First index (inclusive).
+     * @param end Last index (exclusive).
+     * @param grainSize
+     * @param kernel
+     */
+    public static void forRange(int start, int end, int grainSize, Func.IndexRange kernel) {
+        if(grainSize < 1)
+            throw new IllegalArgumentException("Grain size must be at least 1");
+
+        if(end - start <= grainSize) {
+            if(start < end)
+                kernel.exec(start, end);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new RangeAction(start, end, grainSize, kernel));
+    }
+
+
+    private static class RangeAction extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final int grainSize;
+        private final Func.IndexRange kernel;
+
+        private RangeAction(int start, int end, int grainSize, Func.IndexRange kernel) {
+            this.start = start;
+            this.end = end;
+            this.grainSize = grainSize;
+            this.kernel = kernel;
+        }
+
+        @Override
+        protected void compute() {
+            if(end - start <= grainSize) {
+                kernel.exec(start, end);
+                return;
+            }
+
+            int mid = start + ((end - start) >>> 1);
+            invokeAll(new RangeAction(start, mid, grainSize, kernel), new RangeAction(mid, end, grainSize, kernel));
+        }
+    }
+}
@@ -6,7 +6,7 @@
 
 package ch.alchemists.jbmesh.util;
 
-import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.normalgen.NewellNormal;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -93,7 +93,7 @@ public class PlanarCoordinateSystem implements Cloneable {
     }
 
 
-    public PlanarCoordinateSystem forFace(Face face, Vec3Attribute<Vertex> positions) {
+    public PlanarCoordinateSystem forFace(Face face, Vec3Property<Vertex> positions) {
         return forPolygon(face.vertices(), positions::get);
     }
 
@@ -0,0 +1,111 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.util;
+
+import java.util.Arrays;
+
+/**
+ * Parallel LSD radix sort of non-negative long keys with int values, 8 bits per pass.<br>
+ * The input is split into fixed chunks. Each pass counts the digits of all chunks in parallel,
+ * computes the output offsets of each chunk and scatters the chunks in parallel. The sort is stable.
+ */
+public class RadixSort {
+    private static final int DIGIT_BITS = 8;
+    private static final int NUM_BUCKETS = 1 << DIGIT_BITS;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+
+    private RadixSort() {}
+
+
+    /**
+     * Sorts the first <i>length</i> keys in ascending order and reorders the values accordingly.
+     * @param keys Non-negative keys.
+     * @param values
+     * @param length
+     * @param keyBits Number of low bits used by the keys. Higher bits are ignored.
+     */
+    public static void sort(long[] keys, int[] values, int length, int keyBits) {
+        if(keyBits < 0 || keyBits > 63)
+            throw new IllegalArgumentException("Key bits must be in range [0, 63]");
+        if(length > keys.length || length > values.length)
+            throw new IllegalArgumentException("Arrays are too short");
+
+        final int numChunks = Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final int[][] offsets = new int[numChunks][NUM_BUCKETS];
+
+        long[] srcKeys = keys;
+        int[] srcValues = values;
+        long[] dstKeys = null;
+        int[] dstValues = null;
+
+        for(int shift=0; shift<keyBits; shift+=DIGIT_BITS) {
+            final int s = shift;
+            final long[] inKeys = srcKeys;
+
+            Parallel.forRange(0, numChunks, 1, (startChunk, endChunk) -> {
+                for(int c=startChunk; c<endChunk; ++c) {
+                    int[] counts = offsets[c];
+                    Arrays.fill(counts, 0);
+                    for(int i=c*CHUNK_SIZE, end=Math.min(i+CHUNK_SIZE, length); i<end; ++i)
+                        counts[(int) (inKeys[i] >>> s) & (NUM_BUCKETS-1)]++;
+                }
+            });
+
+            // Exclusive prefix sums over (digit, chunk). Skip the pass if all keys have the same digit.
+            boolean skip = false;
+            int sum = 0;
+            for(int d=0; d<NUM_BUCKETS; ++d) {
+                int digitSum = 0;
+                for(int c=0; c<numChunks; ++c) {
+                    int count = offsets[c][d];
+                    offsets[c][d] = sum;
+                    sum += count;
+                    digitSum += count;
+                }
+
+                if(digitSum == length) {
+                    skip = true;
+                    break;
+                }
+            }
+
+            if(skip)
+                continue;
+
+            if(dstKeys == null) {
+                dstKeys = new long[length];
+                dstValues = new int[length];
+            }
+
+            final int[] inValues = srcValues;
+            final long[] outKeys = dstKeys;
+            final int[] outValues = dstValues;
+
+            Parallel.forRange(0, numChunks, 1, (startChunk, endChunk) -> {
+                for(int c=startChunk; c<endChunk; ++c) {
+                    int[] pos = offsets[c];
+                    for(int i=c*CHUNK_SIZE, end=Math.min(i+CHUNK_SIZE, length); i<end; ++i) {
+                        int p = pos[(int) (inKeys[i] >>> s) & (NUM_BUCKETS-1)]++;
+                        outKeys[p] = inKeys[i];
+                        outValues[p] = inValues[i];
+                    }
+                }
+            });
+
+            dstKeys = srcKeys;
+            dstValues = srcValues;
+            srcKeys = outKeys;
+            srcValues = outValues;
+        }
+
+        if(srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, length);
+            System.arraycopy(srcValues, 0, values, 0, length);
+        }
+    }
+}
@@ -6,6 +6,7 @@
 
 package ch.alchemists.jbmesh;
 
+import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
 import ch.alchemists.jbmesh.structure.Loop;
 import ch.alchemists.jbmesh.structure.Vertex;
@@ -22,6 +23,26 @@ public class TestUtil {
     }
 
 
+    /**
+     * @return Grid of size*size quads in the XY plane, with (size+1)^2 vertices in row-major order.
+     */
+    public static BMesh createGrid(int size) {
+        BMesh bmesh = new BMesh();
+        Vertex[] v = new Vertex[(size+1) * (size+1)];
+        for(int i=0; i<v.length; ++i)
+            v[i] = bmesh.createVertex(i % (size+1), i / (size+1), 0);
+
+        for(int y=0; y<size; ++y) {
+            for(int x=0; x<size; ++x) {
+                int i = y*(size+1) + x;
+                bmesh.createFace(v[i], v[i+1], v[i+size+2], v[i+size+1]);
+            }
+        }
+
+        return bmesh;
+    }
+
+
     public static void assertFace(Face face, Vertex... vertices) {
         Loop[] loops = getLoops(face);
         assertEquals(vertices.length, loops.length);
@@ -0,0 +1,67 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.conversion;
+
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Vertex;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.nio.FloatBuffer;
+
+public class ExportTest {
+    private static float getX(Mesh mesh, Vertex vertex) {
+        FloatBuffer buffer = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+        return buffer.get(vertex.getIndex() * 3);
+    }
+
+
+    @Test
+    public void testMultipleConsumers() {
+        BMesh bmesh = new BMesh();
+        Vertex v0 = bmesh.createVertex(0, 0, 0);
+        Vertex v1 = bmesh.createVertex(1, 0, 0);
+        Vertex v2 = bmesh.createVertex(1, 1, 0);
+        Vertex v3 = bmesh.createVertex(0, 1, 0);
+        bmesh.createFace(v0, v1, v2, v3);
+
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+
+        TriangleExport triangleExport = new TriangleExport(bmesh);
+        LineExport lineExport = new LineExport(bmesh);
+        Mesh triangles = triangleExport.update();
+        Mesh lines = lineExport.update();
+
+        // Both exports must see the modification, regardless of which one updates first
+        positions.setX(v2, 5.0f);
+        triangleExport.update();
+        lineExport.update();
+        assertEquals(5.0f, getX(triangles, v2));
+        assertEquals(5.0f, getX(lines, v2));
+
+        positions.setX(v1, 7.0f);
+        lineExport.update();
+        positions.setX(v3, 8.0f);
+        triangleExport.update();
+        lineExport.update();
+        assertEquals(7.0f, getX(triangles, v1));
+        assertEquals(8.0f, getX(triangles, v3));
+        assertEquals(7.0f, getX(lines, v1));
+        assertEquals(8.0f, getX(lines, v3));
+
+        // Clearing the dirty range doesn't hide changes from consumers
+        positions.setX(v0, 9.0f);
+        positions.clearDirty();
+        lineExport.update();
+        triangleExport.update();
+        assertEquals(9.0f, getX(lines, v0));
+        assertEquals(9.0f, getX(triangles, v0));
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.conversion;
+
+import ch.alchemists.jbmesh.TestUtil;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.structure.Vertex;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class ImportTest {
+    private static Mesh createQuad() {
+        // Two triangles with separate vertices, an unused vertex at the end
+        float[] positions = {
+            0, 0, 0,   1, 0, 0,   1, 1, 0,
+            0, 0, 0,   1, 1, 0,   0, 1, 0,
+            5, 5, 5
+        };
+
+        int[] indices = { 0, 1, 2, 3, 4, 5 };
+
+        Mesh mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Triangles);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+        return mesh;
+    }
+
+
+    @Test
+    public void testDeduplication() {
+        BMesh bmesh = Import.convert(createQuad());
+        assertEquals(4, bmesh.vertices().size());
+        assertEquals(5, bmesh.edges().size());
+        assertEquals(2, bmesh.faces().size());
+
+        // Vertices in order of first use, without gaps
+        Vector3f[] expected = {
+            new Vector3f(0, 0, 0), new Vector3f(1, 0, 0), new Vector3f(1, 1, 0), new Vector3f(0, 1, 0)
+        };
+
+        for(int i=0; i<expected.length; ++i) {
+            Vertex vertex = bmesh.vertices().get(i);
+            assertEquals(i, vertex.getIndex());
+            assertEquals(expected[i], bmesh.positions().get(vertex));
+        }
+
+        Vertex[] v = bmesh.vertices().getAll().toArray(new Vertex[0]);
+        Face f0 = bmesh.faces().get(0);
+        Face f1 = bmesh.faces().get(1);
+        TestUtil.assertFace(f0, v[0], v[1], v[2]);
+        TestUtil.assertFace(f1, v[0], v[2], v[3]);
+        assertNotNull(bmesh.getEdge(v[0], v[2]));
+        assertFalse(bmesh.vertices().hasStableIndices());
+    }
+
+
+    @Test
+    public void testExact() {
+        BMesh bmesh = Import.convertExact(createQuad());
+        assertEquals(4, bmesh.vertices().size());
+        assertEquals(2, bmesh.faces().size());
+    }
+}
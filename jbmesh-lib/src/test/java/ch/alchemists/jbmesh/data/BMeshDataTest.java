@@ -6,10 +6,31 @@
 
 package ch.alchemists.jbmesh.data;
 
+import ch.alchemists.jbmesh.data.property.BitAttribute;
 import ch.alchemists.jbmesh.data.property.FloatAttribute;
+import ch.alchemists.jbmesh.data.property.HalfVec3Attribute;
 import ch.alchemists.jbmesh.data.property.IntTupleAttribute;
+import ch.alchemists.jbmesh.data.property.OctNormalAttribute;
+import ch.alchemists.jbmesh.data.property.SNormVec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3BufferAttribute;
+import ch.alchemists.jbmesh.util.BinaryReader;
+import ch.alchemists.jbmesh.util.BinaryWriter;
+import com.jme3.math.Vector3f;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BMeshDataTest {
     private static class TestElement extends Element {
@@ -17,6 +38,45 @@ public class BMeshDataTest {
         protected void releaseElement() {}
     }
 
+    public static class TestFloatAttribute extends FloatAttribute<TestElement> {
+        public TestFloatAttribute(String name) {
+            super(name);
+        }
+    }
+
+    public static class TestIntAttribute extends BMeshAttribute<TestElement, int[]> {
+        public TestIntAttribute(String name) {
+            super(name);
+        }
+
+        @Override
+        public boolean equals(TestElement a, TestElement b) {
+            return data[a.getIndex()] == data[b.getIndex()];
+        }
+
+        @Override
+        protected int[] alloc(int size) {
+            return new int[size];
+        }
+    }
+
+    public static class ScaledFloatAttribute extends FloatAttribute<TestElement> {
+        public ScaledFloatAttribute(String name, float scale) {
+            super(name);
+        }
+    }
+
+    // Same name length as TestFloatAttribute
+    public static class StaticInitializer1 {
+        static {
+            INITIALIZED.set(true);
+        }
+
+        public StaticInitializer1(String name) {}
+    }
+
+    private static final AtomicBoolean INITIALIZED = new AtomicBoolean(false);
+
 
     @Test
     public void testElementReference() {
@@ -61,6 +121,43 @@ public class BMeshDataTest {
     }
 
 
+    @Test
+    public void testAttributeSlots() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        FloatAttribute<TestElement> attr0 = FloatAttribute.getOrCreate("Attr0", data);
+        FloatAttribute<TestElement> attr1 = FloatAttribute.getOrCreate("Attr1", data);
+        IntTupleAttribute<TestElement> attr2 = new IntTupleAttribute<>("Attr2", 2);
+        data.addAttribute(attr2);
+
+        assertEquals(0, attr0.getSlot());
+        assertEquals(1, attr1.getSlot());
+        assertEquals(2, attr2.getSlot());
+        assertEquals(attr2, data.getAttribute(2));
+        assertNull(data.getAttribute(3));
+
+        data.removeAttribute(attr1);
+        assertEquals(-1, attr1.getSlot());
+        assertNull(data.getAttribute(1));
+        assertEquals(2, attr2.getSlot());
+
+        FloatAttribute<TestElement> attr3 = FloatAttribute.getOrCreate("Attr3", data);
+        assertEquals(1, attr3.getSlot());
+
+        TestElement a = data.create();
+        TestElement b = data.create();
+        attr0.set(a, 1.5f);
+        attr2.setValues(a, 3, 4);
+        attr3.set(a, 5.5f);
+        assertFalse(data.equals(a, b));
+
+        data.copyAttributes(a, b);
+        assertEquals(1.5f, attr0.get(b));
+        assertEquals(4, attr2.getComponent(b, 1));
+        assertEquals(5.5f, attr3.get(b));
+        assertTrue(data.equals(a, b));
+    }
+
+
     @Test
     public void testCompact() {
         BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
@@ -124,6 +221,862 @@ public class BMeshDataTest {
     }
 
 
+    @Test
+    public void testStableIndices() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        data.setStableIndices(true);
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 3);
+        data.addAttribute(attr);
+
+        TestElement[] elements = new TestElement[8];
+        for(int i=0; i<elements.length; ++i) {
+            elements[i] = data.create();
+            attr.setValues(elements[i], i, i, i);
+        }
+
+        data.destroy(elements[1]);
+        data.destroy(elements[4]);
+        data.destroy(elements[5]);
+
+        assertEquals(5, data.size());
+        assertEquals(8, data.totalSize());
+        assertEquals(3, data.numFreeSlots());
+        assertEquals(7, elements[7].getIndex());
+        assertNull(data.get(4));
+        assertValues(attr, elements);
+
+        int count = 0;
+        for(TestElement e : data) {
+            assertTrue(e.isAlive());
+            count++;
+        }
+        assertEquals(5, count);
+
+        // Reuses free slot
+        TestElement reused = data.create();
+        assertEquals(5, reused.getIndex());
+        assertEquals(2, data.numFreeSlots());
+        data.destroy(reused);
+
+        int[] remap = data.compactData();
+        assertNotNull(remap);
+        assertEquals(0, data.numFreeSlots());
+        assertEquals(5, data.size());
+        assertEquals(5*3, attr.data.length);
+
+        assertEquals(-1, remap[1]);
+        assertEquals(-1, remap[4]);
+        assertEquals(1, remap[2]);
+        assertEquals(4, remap[7]);
+        assertEquals(4, elements[7].getIndex());
+        assertValues(attr, elements);
+
+        assertNull(data.compactData());
+    }
+
+
+    @Test
+    public void testReuseNext() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        assertThrows(IllegalStateException.class, () -> data.reuseNext(0));
+        data.setStableIndices(true);
+
+        for(int i=0; i<5; ++i)
+            data.create();
+        data.destroy(data.get(1));
+        data.destroy(data.get(3));
+
+        data.reuseNext(1);
+        assertEquals(1, data.create().getIndex());
+        assertEquals(3, data.create().getIndex());
+
+        // Virtual elements are moved away
+        TestElement virtual = data.createVirtual();
+        assertEquals(5, virtual.getIndex());
+        data.reuseNext(5);
+        assertEquals(6, virtual.getIndex());
+        assertSame(virtual, data.get(6));
+        assertEquals(5, data.create().getIndex());
+
+        // Extends the data with free slots
+        data.reuseNext(9);
+        data.reuseNext(10);
+        assertEquals(10, data.create().getIndex());
+        assertEquals(9, data.create().getIndex());
+        assertEquals(2, data.numFreeSlots());
+        assertEquals(11, data.totalSize());
+
+        assertThrows(IllegalStateException.class, () -> data.reuseNext(0));
+    }
+
+
+    @Test
+    public void testNoElementObjects(@TempDir Path dir) throws IOException {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new, false);
+        assertFalse(data.hasElementObjects());
+        assertTrue(data.hasStableIndices());
+
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 2);
+        data.addAttribute(attr);
+
+        for(int i=0; i<100; ++i) {
+            int index = data.createIndex();
+            assertEquals(i, index);
+            attr.setValues(data.get(index), i, -i);
+        }
+
+        data.destroy(10);
+        data.destroy(data.get(20));
+        data.destroy(10);
+        assertEquals(98, data.size());
+        assertEquals(100, data.totalSize());
+        assertEquals(2, data.numFreeSlots());
+        assertFalse(data.isAlive(10));
+        assertTrue(data.isAlive(11));
+        assertNull(data.get(20));
+
+        // Handles are created on demand
+        assertNotSame(data.get(5), data.get(5));
+        assertEquals(5, data.get(5).getIndex());
+
+        int count = 0;
+        for(TestElement e : data) {
+            assertNotEquals(10, e.getIndex());
+            assertNotEquals(20, e.getIndex());
+            count++;
+        }
+        assertEquals(98, count);
+        assertEquals(98, data.stream().parallel().count());
+        assertEquals(98, data.getAll().size());
+
+        // Reuses free slots
+        assertEquals(20, data.createIndex());
+        assertEquals(1, data.numFreeSlots());
+        data.destroy(20);
+
+        // Only the slot bits are stored besides the attributes
+        MemoryReport report = data.getMemoryReport();
+        assertNull(report.elementType);
+        assertTrue(report.elementBytes < 64);
+
+        BMeshData<TestElement> copy = new BMeshData<>(TestElement::new, false);
+        copy.copyFrom(data);
+        assertEquals(98, copy.size());
+        assertFalse(copy.isAlive(20));
+
+        Path file = dir.resolve("data.bin");
+        try(BinaryWriter out = new BinaryWriter(file)) {
+            data.write(out);
+        }
+
+        BMeshData<TestElement> loaded = new BMeshData<>(TestElement::new, false);
+        try(BinaryReader in = new BinaryReader(file)) {
+            loaded.read(in);
+        }
+        assertEquals(98, loaded.size());
+        assertFalse(loaded.isAlive(10));
+        assertEquals(-99, IntTupleAttribute.get("Attr", loaded).getComponent(loaded.get(99), 1));
+
+        int[] remap = data.compactData();
+        assertEquals(-1, remap[10]);
+        assertEquals(10, remap[11]);
+        assertEquals(97, remap[99]);
+        assertEquals(98, data.totalSize());
+        assertEquals(0, data.numFreeSlots());
+        assertEquals(-99, attr.getComponent(data.get(97), 1));
+
+        assertThrows(IllegalStateException.class, () -> data.createVirtual());
+        assertThrows(IllegalStateException.class, () -> data.setPoolCapacity(8));
+        assertThrows(IllegalStateException.class, () -> data.setStableIndices(false));
+        assertThrows(IllegalStateException.class, () -> data.sort(Comparator.comparingInt(TestElement::getIndex)));
+        assertThrows(IllegalArgumentException.class, () -> new BMeshData<>(TestElement::new).copyFrom(data));
+    }
+
+
+    @Test
+    public void testConcurrent() throws Exception {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 3);
+        data.addAttribute(attr);
+
+        TestElement first = data.create();
+        TestElement second = data.create();
+        attr.clearDirty();
+
+        final int numThreads = 4;
+        final int perThread = 1000;
+        data.beginConcurrent(numThreads * perThread);
+        assertTrue(data.isConcurrent());
+        assertThrows(IllegalStateException.class, () -> data.beginConcurrent(1));
+        assertThrows(IllegalStateException.class, () -> data.compactData());
+
+        List<List<TestElement>> created = new ArrayList<>();
+        Thread[] threads = new Thread[numThreads];
+        for(int t=0; t<numThreads; ++t) {
+            List<TestElement> list = new ArrayList<>();
+            created.add(list);
+            threads[t] = new Thread(() -> {
+                for(int i=0; i<perThread; ++i) {
+                    TestElement e = data.create();
+                    attr.setValues(e, i, i, i);
+                    list.add(e);
+                }
+
+                // Destroy every second element
+                for(int i=0; i<perThread; i+=2)
+                    data.destroy(list.get(i));
+            });
+            threads[t].start();
+        }
+        data.destroy(first);
+
+        for(Thread thread : threads)
+            thread.join();
+        data.endConcurrent();
+
+        assertFalse(data.isConcurrent());
+        assertFalse(data.hasStableIndices());
+        assertEquals(1 + numThreads * perThread / 2, data.size());
+        assertEquals(data.size(), data.totalSize());
+
+        for(List<TestElement> list : created) {
+            for(int i=0; i<perThread; ++i) {
+                TestElement e = list.get(i);
+                assertEquals(i % 2 == 1, e.isAlive());
+                if(e.isAlive()) {
+                    assertSame(e, data.get(e.getIndex()));
+                    assertEquals(i, attr.getComponent(e, 0));
+                }
+            }
+        }
+        assertTrue(second.isAlive());
+
+        // Lost updates of the dirty range are repaired
+        assertEquals(0, attr.getDirtyStart());
+        assertTrue(attr.getDirtyEnd() >= data.totalSize());
+
+        // Exceeding the reserve
+        data.beginConcurrent(0);
+        assertThrows(IllegalStateException.class, () -> data.create());
+        data.endConcurrent();
+        assertEquals(data.size(), data.totalSize());
+    }
+
+    @Test
+    public void testDirtyRange() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 3);
+        data.addAttribute(attr);
+        assertTrue(attr.isDirty());
+
+        TestElement[] elements = new TestElement[10];
+        for(int i=0; i<elements.length; ++i)
+            elements[i] = data.create();
+
+        attr.clearDirty();
+        assertFalse(attr.isDirty());
+
+        attr.setComponent(elements[6], 1, 6);
+        attr.setValues(elements[3], 3, 3, 3);
+        assertTrue(attr.isDirty());
+        assertEquals(3, attr.getDirtyStart());
+        assertEquals(7, attr.getDirtyEnd());
+
+        // Last element is moved into slot 1
+        attr.clearDirty();
+        data.destroy(elements[1]);
+        assertEquals(1, attr.getDirtyStart());
+        assertEquals(2, attr.getDirtyEnd());
+    }
+
+
+    @Test
+    public void testModifiedRange() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 3);
+        data.addAttribute(attr);
+
+        TestElement[] elements = new TestElement[20];
+        for(int i=0; i<elements.length; ++i)
+            elements[i] = data.create();
+
+        attr.closeModifiedRange();
+        attr.clearDirty();
+        final long start = attr.getVersion();
+        int[] range = new int[2];
+
+        // Queries don't modify the dirty range or the history
+        attr.setValues(elements[5], 5, 5, 5);
+        for(int i=0; i<20; ++i) {
+            assertTrue(attr.getModifiedRange(start, range));
+            assertArrayEquals(new int[] {5, 6}, range);
+        }
+        assertEquals(5, attr.getDirtyStart());
+        assertEquals(6, attr.getDirtyEnd());
+
+        // Closing without new modifications doesn't take history slots
+        for(int i=0; i<20; ++i)
+            attr.closeModifiedRange();
+        final long afterFirst = attr.getVersion();
+
+        attr.setValues(elements[9], 9, 9, 9);
+        assertTrue(attr.getModifiedRange(afterFirst, range));
+        assertArrayEquals(new int[] {9, 10}, range);
+        assertTrue(attr.getModifiedRange(start, range));
+        assertArrayEquals(new int[] {5, 10}, range);
+
+        // Clearing the dirty range doesn't hide changes from consumers
+        attr.clearDirty();
+        assertTrue(attr.getModifiedRange(start, range));
+        assertArrayEquals(new int[] {5, 10}, range);
+
+        // Version older than the history
+        for(int i=0; i<elements.length; ++i) {
+            attr.setValues(elements[i], i, i, i);
+            attr.closeModifiedRange();
+        }
+        assertFalse(attr.getModifiedRange(start, range));
+        assertTrue(attr.getModifiedRange(attr.getVersion(), range));
+        assertTrue(range[0] >= range[1]);
+    }
+
+
+    @Test
+    public void testBufferAttribute() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        Vec3BufferAttribute<TestElement> attr = new Vec3BufferAttribute<>("Attr");
+        data.addAttribute(attr);
+        assertTrue(attr.array().isDirect());
+
+        // Grow past initial capacity
+        TestElement[] elements = new TestElement[100];
+        for(int i=0; i<elements.length; ++i) {
+            elements[i] = data.create();
+            attr.set(elements[i], i, i+1, i+2);
+        }
+
+        data.destroy(elements[10]);
+        data.compactData();
+        assertEquals(99*3, attr.array().capacity());
+
+        for(int i=0; i<elements.length; ++i) {
+            if(!elements[i].isAlive())
+                continue;
+
+            assertEquals(i,   attr.getX(elements[i]));
+            assertEquals(i+1, attr.getY(elements[i]));
+            assertEquals(i+2, attr.getZ(elements[i]));
+        }
+    }
+
+
+    @Test
+    public void testQuantizedAttributes() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        HalfVec3Attribute<TestElement> half = HalfVec3Attribute.getOrCreate("Half", data);
+        SNormVec3Attribute<TestElement> snorm = SNormVec3Attribute.getOrCreate("SNorm", data);
+        OctNormalAttribute<TestElement> oct = OctNormalAttribute.getOrCreate("Oct", data);
+
+        Vector3f[] normals = {
+            new Vector3f(0, 0, 1), new Vector3f(0, 0, -1), new Vector3f(1, 0, 0),
+            new Vector3f(-1, 2, -3).normalizeLocal(), new Vector3f(0.3f, -0.5f, 0.1f).normalizeLocal()
+        };
+
+        for(Vector3f n : normals) {
+            TestElement e = data.create();
+            half.set(e, n.mult(100));
+            snorm.set(e, n);
+            oct.set(e, n);
+
+            assertTrue(half.get(e).distance(n.mult(100)) < 0.1f);
+            assertTrue(snorm.get(e).distance(n) < 1e-4f);
+            assertTrue(oct.get(e).distance(n) < 1e-3f);
+        }
+
+        // Clamped
+        TestElement e = data.create();
+        snorm.set(e, 2, -2, 0.5f);
+        assertTrue(snorm.get(e).distance(new Vector3f(1, -1, 0.5f)) < 1e-4f);
+    }
+
+
+    @Test
+    public void testBitAttribute() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        BitAttribute<TestElement> bits = BitAttribute.getOrCreate("Bits", data);
+        BitAttribute<TestElement> mask = BitAttribute.getOrCreate("Mask", data);
+
+        TestElement[] elements = new TestElement[200];
+        for(int i=0; i<elements.length; ++i) {
+            elements[i] = data.create();
+            bits.set(elements[i], i % 3 == 0);
+            mask.set(elements[i], i < 100);
+        }
+
+        assertEquals(67, bits.count(data));
+
+        // Moves last element into destroyed slots
+        for(int i=0; i<elements.length; i+=7)
+            data.destroy(elements[i]);
+        data.compactData();
+
+        for(int i=0; i<elements.length; ++i) {
+            if(elements[i].isAlive())
+                assertEquals(i % 3 == 0, bits.get(elements[i]));
+        }
+
+        data.sort((a, b) -> Integer.compare(b.getIndex(), a.getIndex()));
+        for(int i=0; i<elements.length; ++i) {
+            if(elements[i].isAlive())
+                assertEquals(i % 3 == 0, bits.get(elements[i]));
+        }
+
+        bits.and(mask);
+        List<TestElement> selected = new ArrayList<>();
+        bits.forEachSet(data, selected::add);
+        assertEquals(bits.count(data), selected.size());
+
+        for(int i=0; i<elements.length; ++i) {
+            if(elements[i].isAlive())
+                assertEquals(i % 3 == 0 && i < 100, selected.contains(elements[i]));
+        }
+    }
+
+
+    @Test
+    public void testBitAttributeFreeSlots() {
+        for(boolean elementObjects : new boolean[] {true, false}) {
+            BMeshData<TestElement> data = new BMeshData<>(TestElement::new, elementObjects);
+            data.setStableIndices(true);
+            BitAttribute<TestElement> bits = BitAttribute.getOrCreate("Bits", data);
+
+            for(int i=0; i<150; ++i)
+                data.createIndex();
+            bits.setAll(true);
+            assertEquals(150, bits.count(data));
+
+            // Destroyed slots keep their stale bits
+            for(int i=0; i<150; i+=5)
+                data.destroy(i);
+            assertEquals(120, bits.count(data));
+            assertEquals(120, data.size());
+
+            bits.clearDirty();
+            bits.setWord(1, 0L);
+            assertEquals(64, bits.getDirtyStart());
+            assertEquals(128, bits.getDirtyEnd());
+            assertEquals(120 - 51, bits.count(data));
+        }
+    }
+
+
+    @Test
+    public void testParallel() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        Vec3Attribute<TestElement> attr = Vec3Attribute.getOrCreate("Attr", data);
+
+        final int count = 10000;
+        data.createRange(count);
+        data.createVirtual();
+        data.setStableIndices(true);
+        data.destroy(data.get(5));
+
+        assertEquals(count-1, data.stream().parallel().count());
+        assertEquals(count-1, data.stream().parallel().distinct().count());
+
+        attr.forEachModifyParallel(0, data.totalSize(), v -> v.set(1, 2, 3));
+        assertEquals(0, attr.getDirtyStart());
+        assertEquals(data.totalSize(), attr.getDirtyEnd());
+
+        double sum = data.stream().parallel().mapToDouble(e -> attr.getY(e)).sum();
+        assertEquals(2.0 * (count-1), sum);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> attr.forEachParallel(0, count*2, v -> {}));
+    }
+
+
+    @Test
+    public void testElementPool() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        FloatAttribute<TestElement> attr = new FloatAttribute<>("Attr");
+        data.addAttribute(attr);
+
+        // Disabled by default
+        TestElement e1 = data.create();
+        data.destroy(e1);
+        assertEquals(0, data.getPoolSize());
+        assertEquals(0, data.getPoolMisses());
+
+        data.setPoolCapacity(2);
+        TestElement e2 = data.create();
+        TestElement e3 = data.create();
+        TestElement e4 = data.create();
+        assertEquals(3, data.getPoolMisses());
+
+        attr.set(e3, 5.0f);
+        data.destroy(e4);
+        data.destroy(e3);
+        data.destroy(e2); // Pool full
+        assertEquals(2, data.getPoolSize());
+
+        // Recycled objects are reset
+        TestElement v = data.createVirtual();
+        assertSame(e3, v);
+        assertTrue(v.isAlive());
+        assertFalse(v.isListed());
+        assertEquals(0, v.getIndex());
+        assertEquals(1, data.getPoolHits());
+
+        TestElement e5 = data.create();
+        assertSame(e4, e5);
+        assertTrue(e5.isListed());
+        assertEquals(0, data.getPoolSize());
+
+        data.clear();
+        assertEquals(2, data.getPoolSize());
+
+        data.setPoolCapacity(1);
+        assertEquals(1, data.getPoolSize());
+
+        int start = data.createRange(3);
+        assertEquals(0, start);
+        assertEquals(3, data.size());
+        assertEquals(0, data.getPoolSize());
+        assertEquals(3, data.getPoolHits());
+
+        data.resetPoolStats();
+        assertEquals(0, data.getPoolHits());
+        assertEquals(0, data.getPoolMisses());
+        assertThrows(IllegalArgumentException.class, () -> data.setPoolCapacity(-1));
+    }
+
+
+    @Test
+    public void testSnapshotIteration() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        TestElement e0 = data.create();
+        data.createVirtual();
+        TestElement e2 = data.create();
+
+        List<TestElement> visited = new ArrayList<>();
+        for(TestElement e : data.snapshot()) {
+            visited.add(e);
+            data.createVirtual();
+            data.create();
+        }
+
+        assertEquals(Arrays.asList(e0, e2), visited);
+        assertEquals(4, data.size());
+
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for(TestElement e : data.snapshot())
+                data.destroy(e);
+        });
+    }
+
+
+    @Test
+    public void testVirtualTail() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        FloatAttribute<TestElement> attr = new FloatAttribute<>("Attr");
+        data.addAttribute(attr);
+        data.setVirtualTail(true);
+        assertThrows(IllegalStateException.class, () -> data.setStableIndices(true));
+
+        TestElement e0 = data.create();
+        TestElement v0 = data.createVirtual();
+        TestElement v1 = data.createVirtual();
+        attr.set(e0, 1);
+        attr.set(v0, 10);
+        attr.set(v1, 11);
+
+        // Created before virtual elements
+        TestElement e1 = data.create();
+        attr.set(e1, 2);
+        assertEquals(1, e1.getIndex());
+        assertVirtualTail(data);
+        assertEquals(10, attr.get(v0));
+        assertEquals(11, attr.get(v1));
+
+        int start = data.createRange(3);
+        assertEquals(2, start);
+        assertEquals(5, data.size());
+        assertVirtualTail(data);
+        assertEquals(10, attr.get(v0));
+        assertEquals(11, attr.get(v1));
+
+        data.destroy(e0);
+        assertEquals(4, data.size());
+        assertEquals(2, attr.get(e1));
+        assertVirtualTail(data);
+        assertEquals(10, attr.get(v0));
+        assertEquals(11, attr.get(v1));
+
+        data.destroy(v0);
+        assertVirtualTail(data);
+        assertEquals(11, attr.get(v1));
+
+        // Spliterator is sized for dense data
+        assertEquals(4, data.spliterator().getExactSizeIfKnown());
+        assertEquals(4, data.stream().count());
+
+        data.sort(Comparator.comparingInt(TestElement::getIndex).reversed());
+        assertVirtualTail(data);
+        assertEquals(11, attr.get(v1));
+
+        data.setVirtualTail(false);
+        data.createVirtual();
+        assertThrows(IllegalStateException.class, () -> data.setVirtualTail(true));
+    }
+
+    private static void assertVirtualTail(BMeshData<TestElement> data) {
+        int listed = 0;
+        for(TestElement e : data) {
+            assertTrue(e.isListed());
+            assertEquals(listed++, e.getIndex());
+        }
+
+        assertEquals(data.size(), listed);
+        for(int i=listed; i<data.totalSize(); ++i) {
+            assertFalse(data.get(i).isListed());
+            assertEquals(i, data.get(i).getIndex());
+        }
+    }
+
+
+    @Test
+    public void testMemoryReport() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        Vec3Attribute<TestElement> attrVec = new Vec3Attribute<>("Vec");
+        BitAttribute<TestElement> attrBit = new BitAttribute<>("Bit");
+        data.addAttribute(attrVec);
+        data.addAttribute(attrBit);
+
+        for(int i=0; i<10; ++i)
+            data.create();
+        data.createVirtual();
+
+        MemoryReport report = data.getMemoryReport();
+        assertEquals(TestElement.class, report.elementType);
+        assertEquals(10, report.size);
+        assertEquals(1, report.numVirtual);
+        assertEquals(11, report.totalSize);
+        assertEquals(32, report.capacity);
+
+        assertEquals(2, report.getAttributes().size());
+        MemoryReport.AttributeUsage vec = report.getAttributes().get(0);
+        assertEquals("Vec", vec.name);
+        assertEquals(16 + 32*3*4, vec.bytes);
+        assertEquals(vec.bytes * 11 / 32, vec.usedBytes);
+        assertEquals(16 + 8, report.getAttributes().get(1).bytes);
+
+        assertTrue(report.elementBytes >= 11 * 16);
+        assertEquals(report.getAttributeBytes() + report.elementBytes + report.freeListBytes, report.getTotalBytes());
+        assertTrue(report.getReclaimableBytes() > 0);
+
+        data.compactData();
+        report = data.getMemoryReport();
+        assertEquals(11, report.capacity);
+        assertEquals(0, report.getReclaimableBytes());
+        assertEquals(16 + 11*3*4 + 4, report.getAttributes().get(0).bytes); // Aligned to 8
+
+        data.addAttribute(new Vec3BufferAttribute<>("Buffer"));
+        report = data.getMemoryReport();
+        assertEquals(11*3*4, report.getAttributes().get(2).bytes);
+    }
+
+
+    @Test
+    public void testWriteRead(@TempDir Path dir) throws IOException {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        data.setStableIndices(true);
+        Vec3Attribute<TestElement> attrVec = new Vec3Attribute<>("Vec");
+        BitAttribute<TestElement> attrBit = new BitAttribute<>("Bit");
+        Vec3BufferAttribute<TestElement> attrBuffer = new Vec3BufferAttribute<>("Buffer");
+        IntTupleAttribute<TestElement> attrInt = new IntTupleAttribute<>("Int", 2);
+        attrInt.setComparable(false);
+        data.addAttribute(attrVec);
+        data.addAttribute(attrBit);
+        data.addAttribute(attrBuffer);
+        data.addAttribute(attrInt);
+
+        for(int i=0; i<100; ++i) {
+            TestElement e = (i % 10 == 9) ? data.createVirtual() : data.create();
+            attrVec.set(e, i, -i, 0.5f*i);
+            attrBit.set(e, i % 3 == 0);
+            attrBuffer.set(e, 2*i, 0, 1);
+            attrInt.setValues(e, i, i*i);
+        }
+        data.destroy(data.get(5));
+        data.destroy(data.get(50));
+
+        Path file = dir.resolve("data.bin");
+        try(BinaryWriter out = new BinaryWriter(file)) {
+            data.write(out);
+        }
+
+        BMeshData<TestElement> loaded = new BMeshData<>(TestElement::new);
+        try(BinaryReader in = new BinaryReader(file)) {
+            loaded.read(in);
+        }
+
+        assertTrue(loaded.hasStableIndices());
+        assertEquals(data.size(), loaded.size());
+        assertEquals(data.totalSize(), loaded.totalSize());
+        assertEquals(2, loaded.numFreeSlots());
+        assertNull(loaded.get(5));
+        assertFalse(loaded.get(9).isListed());
+        assertTrue(loaded.get(10).isListed());
+
+        Vec3Attribute<TestElement> loadedVec = Vec3Attribute.get("Vec", loaded);
+        BitAttribute<TestElement> loadedBit = BitAttribute.get("Bit", loaded);
+        Vec3BufferAttribute<TestElement> loadedBuffer = Vec3BufferAttribute.get("Buffer", loaded);
+        IntTupleAttribute<TestElement> loadedInt = IntTupleAttribute.get("Int", loaded);
+        assertFalse(loadedInt.isComparable());
+
+        for(int i=0; i<100; ++i) {
+            TestElement e = loaded.get(i);
+            if(e == null)
+                continue;
+
+            assertEquals(new Vector3f(i, -i, 0.5f*i), loadedVec.get(e));
+            assertEquals(i % 3 == 0, loadedBit.get(e));
+            assertEquals(new Vector3f(2*i, 0, 1), loadedBuffer.get(e));
+            assertEquals(i*i, loadedInt.getComponent(e, 1));
+        }
+
+        // Mapped buffer can be modified and grown
+        loadedBuffer.set(loaded.get(0), 7, 7, 7);
+        for(int i=0; i<50; ++i)
+            loaded.create();
+        assertEquals(new Vector3f(7, 7, 7), loadedBuffer.get(loaded.get(0)));
+        assertEquals(new Vector3f(2, 0, 1), loadedBuffer.get(loaded.get(1)));
+    }
+
+
+    @Test
+    public void testReadCopyOnWrite(@TempDir Path dir) throws IOException {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        Vec3BufferAttribute<TestElement> attr = new Vec3BufferAttribute<>("Buffer");
+        data.addAttribute(attr);
+        for(int i=0; i<10; ++i)
+            attr.set(data.create(), i, 0, 0);
+
+        Path file = dir.resolve("data.bin");
+        try(BinaryWriter out = new BinaryWriter(file)) {
+            data.write(out);
+        }
+
+        for(boolean copyOnWrite : new boolean[] {false, true}) {
+            BMeshData<TestElement> loaded = new BMeshData<>(TestElement::new);
+            try(BinaryReader in = new BinaryReader(file, copyOnWrite)) {
+                assertEquals(copyOnWrite, in.isCopyOnWrite());
+                loaded.read(in);
+            }
+
+            // Writes don't reach the file
+            Vec3BufferAttribute<TestElement> loadedAttr = Vec3BufferAttribute.get("Buffer", loaded);
+            assertEquals(new Vector3f(3, 0, 0), loadedAttr.get(loaded.get(3)));
+            loadedAttr.set(loaded.get(3), 9, 9, 9);
+            assertEquals(new Vector3f(9, 9, 9), loadedAttr.get(loaded.get(3)));
+        }
+
+        BMeshData<TestElement> loaded = new BMeshData<>(TestElement::new);
+        try(BinaryReader in = new BinaryReader(file)) {
+            loaded.read(in);
+        }
+        assertEquals(new Vector3f(3, 0, 0), Vec3BufferAttribute.get("Buffer", loaded).get(loaded.get(3)));
+
+        // Read-only files can be read by default
+        if(file.toFile().setWritable(false)) {
+            try(BinaryReader in = new BinaryReader(file)) {
+                new BMeshData<>(TestElement::new).read(in);
+            }
+        }
+    }
+
+
+    @Test
+    public void testCopyUserAttributes() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        TestIntAttribute intAttr = new TestIntAttribute("Int");
+        data.addAttribute(intAttr);
+        data.addAttribute(new TestFloatAttribute("Float"));
+        TestElement e = data.create();
+        intAttr.data[e.getIndex()] = 7;
+
+        // Default newInstance() and inherited FloatAttribute.newInstance() create the subclass
+        BMeshData<TestElement> copy = new BMeshData<>(TestElement::new);
+        copy.copyFrom(data);
+        assertSame(TestIntAttribute.class, copy.getAttribute("Int").getClass());
+        assertSame(TestFloatAttribute.class, copy.getAttribute("Float").getClass());
+        assertEquals(7, ((TestIntAttribute) copy.getAttribute("Int")).data[0]);
+
+        // Copying again reuses the attributes
+        copy.copyFrom(data);
+        assertSame(TestFloatAttribute.class, copy.getAttribute("Float").getClass());
+
+        data.addAttribute(new ScaledFloatAttribute("Scaled", 2.0f));
+        assertThrows(UnsupportedOperationException.class, () -> new BMeshData<>(TestElement::new).copyFrom(data));
+    }
+
+
+    @Test
+    public void testReadUnknownClass(@TempDir Path dir) throws IOException {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        data.addAttribute(new TestFloatAttribute("Attr"));
+        data.create();
+
+        Path file = dir.resolve("data.bin");
+        try(BinaryWriter out = new BinaryWriter(file)) {
+            data.write(out);
+        }
+
+        // Replace the attribute class with a class that isn't an attribute
+        String content = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+        assertTrue(content.contains(TestFloatAttribute.class.getName()));
+        content = content.replace(TestFloatAttribute.class.getName(), TestFloatAttribute.class.getName().replace("TestFloatAttribute", "StaticInitializer1"));
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+
+        try(BinaryReader in = new BinaryReader(file)) {
+            assertThrows(IOException.class, () -> new BMeshData<>(TestElement::new).read(in));
+        }
+        assertFalse(INITIALIZED.get());
+    }
+
+
+    @Test
+    public void testSort() {
+        BMeshData<TestElement> data = new BMeshData<>(TestElement::new);
+        IntTupleAttribute<TestElement> attr = new IntTupleAttribute<>("Attr", 3);
+        data.addAttribute(attr);
+
+        TestElement[] elements = new TestElement[20];
+        for(int i=0; i<elements.length; ++i) {
+            elements[i] = data.create();
+            attr.setValues(elements[i], i, i, i);
+        }
+
+        // Reverse order, odd values first
+        data.sort((a, b) -> {
+            int va = attr.getComponent(a, 0);
+            int vb = attr.getComponent(b, 0);
+            if((va & 1) != (vb & 1))
+                return (vb & 1) - (va & 1);
+            return vb - va;
+        });
+
+        assertEquals(0, elements[19].getIndex());
+        assertEquals(9, elements[1].getIndex());
+        assertEquals(10, elements[18].getIndex());
+        assertEquals(19, elements[0].getIndex());
+        assertValues(attr, elements);
+
+        for(int i=0; i<elements.length; ++i)
+            assertSame(elements[i], data.get(elements[i].getIndex()));
+    }
+
+
     private void assertValues(IntTupleAttribute<TestElement> attr, TestElement[] elements) {
         for(int i=0; i<elements.length; ++i) {
             if(!elements[i].isAlive())
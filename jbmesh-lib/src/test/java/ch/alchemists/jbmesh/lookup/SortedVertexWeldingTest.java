@@ -0,0 +1,129 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.lookup;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+public class SortedVertexWeldingTest {
+    @Test
+    public void testWeld() {
+        float[] positions = {
+            0, 0, 0,
+            1, 0, 0,
+            0.005f, 0, 0,       // Near 0
+            1, 0, 0.02f,        // Too far from 1
+            -0.004f, 0.004f, 0, // Near 0, 2
+            1, 0, 0
+        };
+
+        int[] remap = new int[6];
+        assertEquals(3, new SortedVertexWelding(0.01f).weld(positions, 6, remap));
+        assertArrayEquals(new int[] {0, 1, 0, 2, 0, 1}, remap);
+
+        // Exact
+        assertEquals(5, new SortedVertexWelding(0).weld(positions, 6, remap));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 1}, remap);
+
+        // Chain: 0-1 and 1-2 are within epsilon, 0-2 is not
+        float[] chain = { 0, 0, 0,   0.008f, 0, 0,   0.016f, 0, 0,   5, 5, 5 };
+        assertEquals(2, new SortedVertexWelding(0.01f).weld(chain, 4, remap));
+        assertEquals(0, remap[2]);
+        assertEquals(1, remap[3]);
+    }
+
+
+    @Test
+    public void testRandomBruteForce() {
+        final float epsilon = 0.05f;
+        final int n = 2000;
+
+        Random rnd = new Random(1234);
+        float[] positions = new float[n*3];
+        for(int i=0; i<positions.length; ++i)
+            positions[i] = rnd.nextFloat() * 2.0f - 1.0f;
+
+        int[] remap = new int[n];
+        int numWelded = new SortedVertexWelding(epsilon).weld(positions, n, remap);
+
+        // Transitive closure with union find, roots are the lowest indices
+        int[] parent = new int[n];
+        for(int i=0; i<n; ++i)
+            parent[i] = i;
+
+        for(int i=0; i<n; ++i) {
+            for(int j=0; j<i; ++j) {
+                float dx = positions[i*3] - positions[j*3];
+                float dy = positions[i*3+1] - positions[j*3+1];
+                float dz = positions[i*3+2] - positions[j*3+2];
+                if(dx*dx + dy*dy + dz*dz <= epsilon*epsilon) {
+                    int ri = find(parent, i);
+                    int rj = find(parent, j);
+                    parent[Math.max(ri, rj)] = Math.min(ri, rj);
+                }
+            }
+        }
+
+        int[] expected = new int[n];
+        int count = 0;
+        for(int i=0; i<n; ++i) {
+            int root = find(parent, i);
+            expected[i] = (root == i) ? count++ : expected[root];
+        }
+
+        assertEquals(count, numWelded);
+        assertArrayEquals(expected, remap);
+    }
+
+
+    private static int find(int[] parent, int i) {
+        while(parent[i] != i)
+            i = parent[i];
+        return i;
+    }
+
+
+    @Test
+    public void testLarge() {
+        // Triangle soup of a grid: Each grid point is used by up to 6 triangles
+        final int size = 150;
+        final int numVertices = size * size * 6;
+        float[] positions = new float[numVertices * 3];
+
+        Random rnd = new Random(42);
+        int v = 0;
+        for(int y=0; y<size; ++y) {
+            for(int x=0; x<size; ++x) {
+                int[][] corners = { {x, y}, {x+1, y}, {x+1, y+1},   {x, y}, {x+1, y+1}, {x, y+1} };
+                for(int[] c : corners) {
+                    positions[v*3]   = c[0] + (rnd.nextFloat() - 0.5f) * 0.001f;
+                    positions[v*3+1] = c[1] + (rnd.nextFloat() - 0.5f) * 0.001f;
+                    positions[v*3+2] = 1000.0f;
+                    v++;
+                }
+            }
+        }
+
+        int[] remap = new int[numVertices];
+        assertEquals((size+1) * (size+1), new SortedVertexWelding(0.01f).weld(positions, numVertices, remap));
+
+        // Welded vertices are numbered in order of their first input vertex
+        int[] first = new int[(size+1) * (size+1)];
+        int next = 0;
+        for(int i=0; i<numVertices; ++i) {
+            int welded = remap[i];
+            if(welded == next)
+                first[next++] = i;
+            else
+                assertTrue(welded < next);
+
+            assertEquals(Math.round(positions[first[welded]*3]),   Math.round(positions[i*3]));
+            assertEquals(Math.round(positions[first[welded]*3+1]), Math.round(positions[i*3+1]));
+        }
+    }
+}
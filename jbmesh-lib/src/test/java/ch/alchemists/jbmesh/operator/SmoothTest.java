@@ -0,0 +1,50 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator;
+
+import ch.alchemists.jbmesh.TestUtil;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Face;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class SmoothTest {
+    @Test
+    public void testSelection() {
+        BMesh withoutIndex = TestUtil.createGrid(8);
+        BMesh withIndex = TestUtil.createGrid(8);
+
+        // Small selection: The edge index is only used when enabled
+        smooth(withoutIndex, false, withoutIndex.faces().get(27), withoutIndex.faces().get(28));
+        smooth(withIndex, true, withIndex.faces().get(27), withIndex.faces().get(28));
+        assertFalse(withoutIndex.hasEdgeIndex());
+        assertFalse(withIndex.hasEdgeIndex());
+
+        for(BMesh bmesh : Arrays.asList(withoutIndex, withIndex)) {
+            assertEquals(64 - 2 + 8, bmesh.faces().size());
+            assertEquals(81 + 7 + 2, bmesh.vertices().size());
+            assertFalse(bmesh.vertices().hasStableIndices());
+        }
+
+        // Same result with and without index
+        for(Face face : withoutIndex.faces()) {
+            Face other = withIndex.faces().get(face.getIndex());
+            assertEquals(withoutIndex.positions().get(face.loop.vertex), withIndex.positions().get(other.loop.vertex));
+        }
+    }
+
+
+    private static void smooth(BMesh bmesh, boolean useEdgeIndex, Face... faces) {
+        Smooth smooth = new Smooth(bmesh);
+        smooth.setUseEdgeIndex(useEdgeIndex);
+
+        List<Face> selection = Arrays.asList(faces);
+        smooth.apply(selection);
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.TestUtil;
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.operator.Inset;
+import ch.alchemists.jbmesh.structure.*;
+import com.jme3.math.Vector3f;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ColorSchedulerTest {
+    private static Vector3f sumPositions(BMesh bmesh) {
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        Vector3f sum = new Vector3f();
+        for(Vertex vertex : bmesh.vertices())
+            positions.addLocal(sum, vertex);
+        return sum;
+    }
+
+
+    @Test
+    public void testColoring() {
+        BMesh bmesh = TestUtil.createGrid(30);
+        ColorScheduler<Face> scheduler = ColorScheduler.forFaces(bmesh);
+
+        // Each face shares vertices with its 8 neighbors
+        assertEquals(4, scheduler.color(bmesh.faces()));
+
+        int total = 0;
+        for(int c=0; c<scheduler.getNumColors(); ++c) {
+            Set<Vertex> used = new HashSet<>();
+            for(Face face : scheduler.getColorClass(c)) {
+                for(Vertex vertex : face.vertices())
+                    assertTrue(used.add(vertex));
+                total++;
+            }
+        }
+        assertEquals(30*30, total);
+
+        // Star: All edges share the center, each needs its own color
+        BMesh star = new BMesh();
+        Vertex center = star.createVertex();
+        for(int i=0; i<100; ++i)
+            star.createEdge(center, star.createVertex());
+
+        ColorScheduler<Edge> edgeScheduler = ColorScheduler.forEdges(star);
+        assertEquals(100, edgeScheduler.color(star.edges()));
+        assertEquals(1, edgeScheduler.getColorClass(99).size());
+    }
+
+
+    @Test
+    public void testParallelInset() {
+        final int size = 60;
+        BMesh serial = TestUtil.createGrid(size);
+        for(Face face : serial.faces().getAll())
+            new Inset(serial, 0.5f, 0.2f).apply(face);
+
+        BMesh bmesh = TestUtil.createGrid(size);
+        ColorScheduler<Face> scheduler = ColorScheduler.forFaces(bmesh);
+        scheduler.color(bmesh.faces().getAll());
+
+        // Inset extrudes twice: Each extrusion of an n-gon creates n vertices, 2n edges, n faces and 4n loops
+        ColorScheduler.Allocation<Face> allocation = (face, store) -> {
+            int n = face.getVertices().size();
+            store[0] += 2*n;
+            store[1] += 4*n;
+            store[2] += 2*n;
+            store[3] += 8*n;
+        };
+        scheduler.apply(allocation, () -> new Inset(bmesh, 0.5f, 0.2f)::apply);
+
+        assertFalse(bmesh.isConcurrent());
+        assertFalse(bmesh.faces().hasStableIndices());
+        assertEquals(serial.vertices().size(), bmesh.vertices().size());
+        assertEquals(serial.edges().size(), bmesh.edges().size());
+        assertEquals(serial.faces().size(), bmesh.faces().size());
+        assertEquals(serial.loops().size(), bmesh.loops().size());
+        assertEquals(bmesh.faces().size(), bmesh.faces().totalSize());
+
+        Vector3f expected = sumPositions(serial);
+        Vector3f actual = sumPositions(bmesh);
+        assertEquals(expected.x, actual.x, 0.01f * size * size);
+        assertEquals(expected.z, actual.z, 0.01f * size * size);
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+    }
+
+
+    @Test
+    public void testAllocationExceeded() {
+        BMesh bmesh = TestUtil.createGrid(10);
+        List<Face> faces = bmesh.faces().getAll();
+        ColorScheduler<Face> scheduler = ColorScheduler.forFaces(bmesh);
+        scheduler.color(faces);
+
+        assertThrows(IllegalStateException.class, () -> {
+            scheduler.apply((face, store) -> {}, () -> new Inset(bmesh, 0.5f, 0.2f)::apply);
+        });
+        assertFalse(bmesh.isConcurrent());
+    }
+
+
+    @Test
+    public void testBitAttributeRejected() {
+        BMesh bmesh = TestUtil.createGrid(20);
+        BitAttribute<Face> selected = BitAttribute.getOrCreate("Selected", bmesh.faces());
+        ColorScheduler<Face> scheduler = ColorScheduler.forFaces(bmesh);
+        scheduler.color(bmesh.faces().getAll());
+
+        // Neighbouring faces share a word: Lost updates are prevented by failing fast
+        assertThrows(IllegalStateException.class, () -> {
+            scheduler.apply((face, store) -> {}, () -> face -> selected.set(face, true));
+        });
+        assertFalse(bmesh.isConcurrent());
+        assertFalse(selected.isConcurrent());
+
+        Face face = bmesh.faces().get(0);
+        selected.set(face, true);
+        assertTrue(selected.get(face));
+    }
+}
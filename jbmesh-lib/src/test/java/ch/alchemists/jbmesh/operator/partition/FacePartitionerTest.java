@@ -0,0 +1,138 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.operator.partition;
+
+import ch.alchemists.jbmesh.TestUtil;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.data.property.FloatAttribute;
+import ch.alchemists.jbmesh.structure.BMesh;
+import ch.alchemists.jbmesh.structure.Face;
+import ch.alchemists.jbmesh.structure.Loop;
+import ch.alchemists.jbmesh.structure.Vertex;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FacePartitionerTest {
+    private static void assertValidPartition(BMesh bmesh, FacePartition partition) {
+        int[] faceCount = new int[bmesh.faces().totalSize()];
+        int[] vertexChunk = new int[bmesh.vertices().totalSize()];
+        Arrays.fill(vertexChunk, -1);
+
+        for(int chunk=0; chunk<partition.getNumChunks(); ++chunk) {
+            for(Face face : partition.getInterior(chunk)) {
+                assertEquals(chunk, partition.getChunk(face));
+                faceCount[face.getIndex()]++;
+
+                // Interior vertices are not shared between chunks
+                for(Loop loop : face.loops()) {
+                    int v = loop.vertex.getIndex();
+                    assertTrue(vertexChunk[v] == -1 || vertexChunk[v] == chunk);
+                    vertexChunk[v] = chunk;
+                }
+            }
+        }
+
+        for(Face face : partition.getBorder())
+            faceCount[face.getIndex()]++;
+
+        for(Face face : bmesh.faces())
+            assertEquals(1, faceCount[face.getIndex()]);
+    }
+
+
+    @Test
+    public void testGrid() {
+        BMesh bmesh = TestUtil.createGrid(60);
+        FacePartition partition = new FacePartitioner(bmesh).partitionGrid(10);
+
+        assertEquals(36, partition.getNumChunks());
+        assertValidPartition(bmesh, partition);
+
+        // Two rows of faces at each inner cell boundary: 9+8+8+8+8+9 interior rows per axis
+        assertEquals(60*60 - 50*50, partition.getBorder().size());
+
+        assertThrows(IllegalArgumentException.class, () -> new FacePartitioner(bmesh).partitionGrid(0));
+    }
+
+
+    @Test
+    public void testGreedy() {
+        BMesh bmesh = TestUtil.createGrid(60);
+        FacePartition partition = new FacePartitioner(bmesh).partitionGreedy(200);
+
+        assertTrue(partition.getNumChunks() >= 18);
+        assertValidPartition(bmesh, partition);
+
+        for(int chunk=0; chunk<partition.getNumChunks(); ++chunk)
+            assertTrue(partition.getInterior(chunk).size() <= 200);
+
+        List<Face> subset = bmesh.faces().stream().limit(100).collect(Collectors.toList());
+        FacePartition subPartition = new FacePartitioner(bmesh).partitionGreedy(subset, 1000);
+        assertEquals(1, subPartition.getNumChunks());
+        assertEquals(100, subPartition.getInterior(0).size());
+        assertEquals(-1, subPartition.getChunk(bmesh.faces().get(100)));
+    }
+
+
+    @Test
+    public void testExecutor() {
+        BMesh bmesh = TestUtil.createGrid(60);
+        FloatAttribute<Vertex> faceCount = FloatAttribute.getOrCreate("FaceCount", bmesh.vertices());
+        FloatAttribute<Face> faceSize = FloatAttribute.getOrCreate("FaceSize", bmesh.faces());
+        faceCount.clearDirty();
+        faceSize.clearDirty();
+
+        FacePartition partition = new FacePartitioner(bmesh).partitionGrid(7);
+        new PartitionExecutor(bmesh).apply(partition, () -> faces -> {
+            for(Face face : faces) {
+                int n = 0;
+                for(Vertex vertex : face.vertices()) {
+                    faceCount.set(vertex, faceCount.get(vertex) + 1);
+                    n++;
+                }
+                faceSize.set(face, n);
+            }
+        });
+
+        // Corners have one face, inner vertices four
+        assertEquals(1, faceCount.get(bmesh.vertices().get(0)));
+        assertEquals(4, faceCount.get(bmesh.vertices().get(62)));
+
+        float total = 0;
+        for(Vertex vertex : bmesh.vertices())
+            total += faceCount.get(vertex);
+        assertEquals(60*60*4, total);
+
+        for(Face face : bmesh.faces())
+            assertEquals(4, faceSize.get(face));
+
+        assertEquals(0, faceSize.getDirtyStart());
+        assertEquals(bmesh.faces().totalSize(), faceSize.getDirtyEnd());
+    }
+
+
+    @Test
+    public void testExecutorBitAttribute() {
+        BMesh bmesh = TestUtil.createGrid(30);
+        BitAttribute<Face> selected = BitAttribute.getOrCreate("Selected", bmesh.faces());
+        FacePartition partition = new FacePartitioner(bmesh).partitionGrid(7);
+        PartitionExecutor executor = new PartitionExecutor(bmesh);
+
+        // Faces of different chunks can share a word
+        assertThrows(IllegalStateException.class, () -> {
+            executor.apply(partition, () -> faces -> {
+                for(Face face : faces)
+                    selected.set(face, true);
+            });
+        });
+        assertFalse(bmesh.isConcurrent());
+        assertEquals(0, selected.count(bmesh.faces()));
+    }
+}
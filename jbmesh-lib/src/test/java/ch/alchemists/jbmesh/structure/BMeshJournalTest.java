@@ -0,0 +1,293 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import static org.junit.jupiter.api.Assertions.*;
+import ch.alchemists.jbmesh.conversion.TriangleExport;
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import ch.alchemists.jbmesh.data.property.FloatAttribute;
+import ch.alchemists.jbmesh.data.property.IntAttribute;
+import ch.alchemists.jbmesh.data.property.ObjectAttribute;
+import ch.alchemists.jbmesh.data.property.Vec2Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import com.jme3.scene.VertexBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BMeshJournalTest {
+    // Describes the topology and positions with element indices
+    private static String describe(BMesh bmesh) {
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        StringBuilder sb = new StringBuilder();
+
+        for(Vertex v : bmesh.vertices())
+            sb.append('v').append(v.getIndex()).append(positions.get(v)).append(' ');
+
+        for(Edge e : bmesh.edges())
+            sb.append('e').append(e.getIndex()).append('(').append(e.vertex0.getIndex()).append(',').append(e.vertex1.getIndex()).append(") ");
+
+        for(Face f : bmesh.faces()) {
+            sb.append('f').append(f.getIndex()).append('[');
+            for(Loop loop : f.loops())
+                sb.append(loop.vertex.getIndex()).append(':').append(loop.edge.getIndex()).append(' ');
+            sb.append("] ");
+        }
+
+        return sb.toString();
+    }
+
+
+    @Test
+    public void testUndoRedo() {
+        BMesh bmesh = new BMesh();
+        BMeshJournal journal = new BMeshJournal(bmesh);
+        List<String> states = new ArrayList<>();
+        states.add(describe(bmesh));
+
+        Vertex v0 = journal.createVertex(0, 0, 0);
+        Vertex v1 = journal.createVertex(1, 0, 0);
+        Vertex v2 = journal.createVertex(1, 1, 0);
+        assertEquals(2, v2.getIndex());
+        Vertex v3 = journal.createVertex(0, 1, 0);
+        journal.createEdge(v0, v1);
+        states.add(describe(bmesh));
+
+        Face face = journal.createFace(v0, v1, v2, v3);
+        states.add(describe(bmesh));
+
+        Edge split = journal.splitFace(face, v0, v2);
+        Face other = (split.loop.face == face) ? split.loop.nextEdgeLoop.face : split.loop.face;
+        states.add(describe(bmesh));
+
+        Vertex mid = journal.splitEdge(v0.getEdgeTo(v1));
+        journal.setPosition(mid, 0.5f, 0, 0);
+        states.add(describe(bmesh));
+
+        journal.invertFace(other);
+        states.add(describe(bmesh));
+
+        // Windings match after inversion: joinFace() inverts other again
+        journal.joinFace(face, other, split);
+        states.add(describe(bmesh));
+
+        journal.removeFace(face);
+        states.add(describe(bmesh));
+
+        assertEquals(13, journal.getNumUndo());
+        assertEquals(0, journal.getNumRedo());
+        assertEquals(0, bmesh.faces().size());
+
+        // Undo everything and compare with recorded states where available
+        int undone = 0;
+        while(journal.undo())
+            undone++;
+        assertEquals(13, undone);
+        assertEquals(states.get(0), describe(bmesh));
+        assertFalse(journal.canUndo());
+
+        while(journal.redo()) {}
+        assertEquals(states.get(states.size()-1), describe(bmesh));
+
+        // Step back through the states
+        int[] undoSteps = { 1, 2, 1, 2, 1, 1 }; // removeFace, joinFace+invert, invertFace, setPosition+splitEdge, splitFace, createFace
+        int state = states.size() - 1;
+        for(int steps : undoSteps) {
+            for(int i=0; i<steps; ++i)
+                assertTrue(journal.undo());
+            state--;
+            assertEquals(states.get(state), describe(bmesh), "State " + state);
+        }
+
+        // Redo one step, then record a new operation which discards the redo history
+        assertTrue(journal.redo());
+        assertEquals(states.get(2), describe(bmesh));
+        assertTrue(journal.canRedo());
+
+        // Undo recreates element objects: Access them by index
+        journal.setPosition(bmesh.vertices().get(2), 2, 2, 0);
+        assertFalse(journal.canRedo());
+        assertFalse(journal.redo());
+
+        assertTrue(journal.undo());
+        assertEquals(states.get(2), describe(bmesh));
+    }
+
+
+    @Test
+    public void testRedoAfterExport() {
+        BMesh bmesh = new BMesh();
+        BMeshJournal journal = new BMeshJournal(bmesh);
+
+        Vertex v0 = journal.createVertex(0, 0, 0);
+        Vertex v1 = journal.createVertex(1, 0, 0);
+        Vertex v2 = journal.createVertex(1, 1, 0);
+        Vertex v3 = journal.createVertex(0, 1, 0);
+        Vertex v4 = journal.createVertex(2, 0, 0);
+        Vertex v5 = journal.createVertex(2, 1, 0);
+        journal.createFace(v0, v1, v2, v3);
+        journal.createFace(v1, v4, v5, v2);
+
+        Vertex v6 = journal.createVertex(0, 2, 0);
+        Vertex v7 = journal.createVertex(1, 2, 0);
+        Vertex v8 = journal.createVertex(2, 2, 0);
+        journal.createFace(v6, v7, v8);
+        String state = describe(bmesh);
+
+        // Different normals per face: The export duplicates the shared vertices v1 and v2
+        Vec3Attribute<Loop> normals = new Vec3Attribute<>(BMeshAttribute.Normal);
+        bmesh.loops().addAttribute(normals);
+        for(Loop loop : bmesh.loops())
+            normals.set(loop, 0, 0, loop.face.getIndex());
+
+        TriangleExport export = new TriangleExport(bmesh);
+        export.mapAttribute(VertexBuffer.Type.Normal, normals);
+
+        for(int i=0; i<4; ++i)
+            assertTrue(journal.undo());
+
+        // Virtual vertices take the slots of the removed vertices
+        export.update();
+        assertEquals(8, bmesh.vertices().totalSize() - bmesh.vertices().numFreeSlots());
+        assertNotNull(bmesh.vertices().get(6));
+
+        while(journal.redo()) {}
+        assertEquals(state, describe(bmesh));
+
+        export.update();
+        while(journal.undo()) {}
+        export.update();
+        while(journal.redo()) {}
+        assertEquals(state, describe(bmesh));
+    }
+
+
+    @Test
+    public void testUndoFloats() {
+        BMesh bmesh = new BMesh();
+        BMeshJournal journal = new BMeshJournal(bmesh);
+
+        Vec3Attribute<Vertex> normals = new Vec3Attribute<>(BMeshAttribute.Normal);
+        bmesh.vertices().addAttribute(normals);
+
+        Vertex v = journal.createVertex(1, 2, 3);
+        journal.setFloats(normals, v, new float[] {0, 1, 0});
+        journal.setFloats(normals, v, new float[] {1, 0, 0});
+
+        assertTrue(journal.undo());
+        assertEquals(0, normals.getX(v));
+        assertEquals(1, normals.getY(v));
+
+        assertTrue(journal.undo());
+        assertEquals(0, normals.getY(v));
+
+        assertTrue(journal.redo());
+        assertTrue(journal.redo());
+        assertEquals(1, normals.getX(v));
+
+        assertThrows(IllegalArgumentException.class, () -> journal.setFloats(normals, v, new float[] {1, 0}));
+    }
+
+
+    @Test
+    public void testUndoRestoresAttributes() {
+        BMesh bmesh = new BMesh();
+        BMeshJournal journal = new BMeshJournal(bmesh);
+
+        FloatAttribute<Face> faceValues = FloatAttribute.getOrCreate("Value", bmesh.faces());
+        IntAttribute<Face> faceIds = new IntAttribute<>("Id");
+        bmesh.faces().addAttribute(faceIds);
+        BitAttribute<Edge> creases = BitAttribute.getOrCreate("Crease", bmesh.edges());
+        Vec2Attribute<Loop> uvs = Vec2Attribute.getOrCreate(BMeshAttribute.TexCoord, bmesh.loops());
+
+        Vertex v0 = journal.createVertex(0, 0, 0);
+        Vertex v1 = journal.createVertex(1, 0, 0);
+        Vertex v2 = journal.createVertex(1, 1, 0);
+        Vertex v3 = journal.createVertex(0, 1, 0);
+        Face face = journal.createFace(v0, v1, v2, v3);
+        Edge split = journal.splitFace(face, v0, v2);
+        Face other = (split.loop.face == face) ? split.loop.nextEdgeLoop.face : split.loop.face;
+        int otherIndex = other.getIndex();
+
+        faceValues.set(face, 1.5f);
+        faceValues.set(other, 2.5f);
+        faceIds.set(other, 42);
+        creases.set(split, true);
+        for(Loop loop : bmesh.loops())
+            uvs.set(loop, loop.vertex.getIndex(), loop.face.getIndex());
+        String state = describeAttributes(bmesh);
+
+        // Undo of joinFace restores the values of the removed face, edge and loops. Elements are recreated as new objects.
+        journal.joinFace(face, other, split);
+        assertTrue(journal.undo());
+        assertEquals(state, describeAttributes(bmesh));
+
+        // Undo of removeFace restores the values of the face and its loops, even if their slots were used in between
+        journal.removeFace(bmesh.faces().get(otherIndex));
+        Face temp = bmesh.createFace(v0, v2, v3);
+        uvs.set(temp.loop, 9, 9);
+        bmesh.removeFace(temp);
+        assertTrue(journal.undo());
+        assertEquals(42, faceIds.get(bmesh.faces().get(otherIndex)));
+        assertEquals(state, describeAttributes(bmesh));
+
+        assertTrue(journal.redo());
+        assertTrue(journal.undo());
+        assertEquals(state, describeAttributes(bmesh));
+
+        // Object values can't be recorded
+        ObjectAttribute<Face, String> names = new ObjectAttribute<>("Name", String[]::new);
+        bmesh.faces().addAttribute(names);
+        Face face0 = bmesh.faces().get(face.getIndex());
+        assertThrows(IllegalStateException.class, () -> journal.removeFace(face0));
+        assertEquals(2, bmesh.faces().size());
+    }
+
+    private static String describeAttributes(BMesh bmesh) {
+        FloatAttribute<Face> faceValues = FloatAttribute.get("Value", bmesh.faces());
+        IntAttribute<Face> faceIds = IntAttribute.get("Id", bmesh.faces());
+        BitAttribute<Edge> creases = BitAttribute.get("Crease", bmesh.edges());
+        Vec2Attribute<Loop> uvs = Vec2Attribute.get(BMeshAttribute.TexCoord, bmesh.loops());
+
+        StringBuilder sb = new StringBuilder(describe(bmesh));
+        for(Face f : bmesh.faces()) {
+            sb.append('f').append(f.getIndex()).append('=').append(faceValues.get(f)).append('/').append(faceIds.get(f)).append('[');
+            for(Loop loop : f.loops())
+                sb.append(uvs.get(loop)).append(' ');
+            sb.append("] ");
+        }
+
+        for(Edge e : bmesh.edges())
+            sb.append('e').append(e.getIndex()).append('=').append(creases.get(e)).append(' ');
+        return sb.toString();
+    }
+
+
+    @Test
+    public void testRingBuffer() {
+        BMesh bmesh = new BMesh();
+        BMeshJournal journal = new BMeshJournal(bmesh, 64, 16);
+
+        Vertex v = journal.createVertex(0, 0, 0);
+        for(int i=1; i<=100; ++i)
+            journal.setPosition(v, i, 0, 0);
+
+        // Each position change needs 6 floats: Only the last two fit into 16 floats
+        assertEquals(2, journal.getNumUndo());
+        assertTrue(journal.undo());
+        assertTrue(journal.undo());
+        assertFalse(journal.undo());
+
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        assertEquals(98, positions.getX(v));
+
+        journal.clear();
+        assertFalse(journal.canUndo());
+        assertFalse(journal.canRedo());
+    }
+}
@@ -7,8 +7,22 @@
 package ch.alchemists.jbmesh.structure;
 
 import ch.alchemists.jbmesh.TestUtil;
+import ch.alchemists.jbmesh.conversion.BMeshBinary;
+import ch.alchemists.jbmesh.data.BMeshAttribute;
+import ch.alchemists.jbmesh.data.property.FloatAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3BufferAttribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
+import ch.alchemists.jbmesh.operator.FaceOps;
+import com.jme3.math.Vector3f;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class BMeshTest {
     @Test
@@ -255,4 +269,479 @@ public class BMeshTest {
         assertNull(e1.loop);
         assertNull(e2.loop);
     }
+
+
+    @Test
+    public void testCreateFaces() {
+        BMesh bmesh = new BMesh();
+        Vertex existing0 = bmesh.createVertex();
+        Vertex existing1 = bmesh.createVertex();
+        Edge existingEdge = bmesh.createEdge(existing0, existing1);
+
+        int start = bmesh.createVertices(new float[] {
+            0, 0, 0,   1, 0, 0,   1, 1, 0,   0, 1, 0
+        });
+        assertEquals(2, start);
+        assertEquals(6, bmesh.vertices().size());
+
+        Vertex v0 = bmesh.vertices().get(start);
+        Vertex v1 = bmesh.vertices().get(start+1);
+        Vertex v2 = bmesh.vertices().get(start+2);
+        Vertex v3 = bmesh.vertices().get(start+3);
+        assertEquals(1.0f, bmesh.vertices().getAttribute("Position", float[].class).array()[(start+2)*3 + 1]);
+
+        int[] faceSizes = { 3, 3, 4 };
+        int[] vertexIndices = {
+            start, start+1, start+2,
+            start, start+2, start+3,
+            existing0.getIndex(), existing1.getIndex(), start+1, start
+        };
+
+        int faceStart = bmesh.createFaces(faceSizes, vertexIndices);
+        assertEquals(0, faceStart);
+        assertEquals(3, bmesh.faces().size());
+        assertEquals(10, bmesh.loops().size());
+        assertEquals(8, bmesh.edges().size());
+
+        TestUtil.assertFace(bmesh.faces().get(0), v0, v1, v2);
+        TestUtil.assertFace(bmesh.faces().get(1), v0, v2, v3);
+        TestUtil.assertFace(bmesh.faces().get(2), existing0, existing1, v1, v0);
+        assertEquals(existingEdge, bmesh.faces().get(2).loop.edge);
+
+        // Invalid input doesn't modify the structure
+        assertThrows(IllegalArgumentException.class, () -> bmesh.createFaces(new int[] {3}, new int[] {start, start, start+1}));
+        assertThrows(IllegalArgumentException.class, () -> bmesh.createFaces(new int[] {3}, new int[] {start, start+1}));
+        assertThrows(IllegalArgumentException.class, () -> bmesh.createFaces(new int[] {3}, new int[] {start, start+1, 100}));
+        assertEquals(3, bmesh.faces().size());
+        assertEquals(10, bmesh.loops().size());
+    }
+
+
+    @Test
+    public void testBufferPositions() {
+        assertThrows(IllegalArgumentException.class, () -> new BMesh(new Vec3BufferAttribute<>("Other")));
+
+        BMesh bmesh = new BMesh(new Vec3BufferAttribute<>(BMeshAttribute.Position));
+        assertTrue(bmesh.vertices().getAttribute(BMeshAttribute.Position) instanceof Vec3BufferAttribute);
+
+        int start = bmesh.createVertices(new float[] {
+            0, 0, 0,   2, 0, 0,   2, 2, 0,   0, 2, 0
+        });
+        Vertex v4 = bmesh.createVertex(3, 1, 0);
+        Face face = bmesh.createFace(bmesh.vertices().get(start), bmesh.vertices().get(start+1), bmesh.vertices().get(start+2), bmesh.vertices().get(start+3));
+
+        Vec3Property<Vertex> positions = bmesh.positions();
+        assertEquals(new Vector3f(2, 2, 0), positions.get(bmesh.vertices().get(start+2)));
+        assertEquals(3.0f, positions.getX(v4));
+        assertEquals(new Vector3f(1, 1, 0), new FaceOps(bmesh).centroid(face));
+
+        positions.addLocal(v4, new Vector3f(1, 1, 1));
+        assertEquals(new Vector3f(4, 2, 1), positions.get(v4));
+
+        BMesh copy = bmesh.copy();
+        assertTrue(copy.positions() instanceof Vec3BufferAttribute);
+        assertEquals(new Vector3f(4, 2, 1), copy.positions().get(copy.vertices().get(v4.getIndex())));
+
+        assertThrows(IllegalArgumentException.class, () -> new BMesh().copyFrom(bmesh));
+    }
+
+
+    @Test
+    public void testEdgeIndex() {
+        BMesh bmesh = new BMesh();
+        assertThrows(IllegalStateException.class, () -> bmesh.endEdgeIndex());
+
+        // Fan around a pole vertex
+        final int n = 1000;
+        Vertex pole = bmesh.createVertex();
+        Vertex[] ring = new Vertex[n];
+        for(int i=0; i<n; ++i)
+            ring[i] = bmesh.createVertex(i, 0, 0);
+
+        Edge existing = bmesh.createEdge(pole, ring[0]);
+
+        bmesh.beginEdgeIndex();
+        assertTrue(bmesh.hasEdgeIndex());
+        assertEquals(existing, bmesh.getEdge(ring[0], pole));
+
+        for(int i=0; i<n; ++i)
+            bmesh.createFace(pole, ring[i], ring[(i+1) % n]);
+
+        assertEquals(2*n, bmesh.edges().size());
+        assertEquals(existing, pole.getEdgeTo(ring[0]));
+        for(int i=0; i<n; ++i) {
+            assertEquals(pole.getEdgeTo(ring[i]), bmesh.getEdge(pole, ring[i]));
+            assertEquals(ring[i].getEdgeTo(ring[(i+1) % n]), bmesh.getEdge(ring[(i+1) % n], ring[i]));
+        }
+        assertNull(bmesh.getEdge(ring[0], ring[2]));
+
+        // Nested sections keep the index
+        bmesh.beginEdgeIndex();
+        bmesh.endEdgeIndex();
+        assertTrue(bmesh.hasEdgeIndex());
+
+        // Index is maintained by operators
+        Edge edge = bmesh.getEdge(pole, ring[1]);
+        Vertex vNew = bmesh.splitEdge(edge);
+        assertNotNull(bmesh.getEdge(pole, vNew));
+        assertEquals(pole.getEdgeTo(vNew), bmesh.getEdge(pole, vNew));
+        assertEquals(vNew.getEdgeTo(ring[1]), bmesh.getEdge(vNew, ring[1]));
+        assertNull(bmesh.getEdge(pole, ring[1]));
+
+        assertTrue(bmesh.joinEdge(vNew.getEdgeTo(ring[1]), vNew));
+        assertEquals(pole.getEdgeTo(ring[1]), bmesh.getEdge(pole, ring[1]));
+        assertNull(bmesh.getEdge(pole, vNew));
+
+        // Parallel edge: Index keeps the existing edge until it's removed
+        Edge original = bmesh.getEdge(ring[1], ring[2]);
+        Edge parallel = bmesh.splitFace(ring[1].getCommonFace(ring[2]), ring[1], ring[2]);
+        assertNotEquals(original, parallel);
+        assertEquals(original, bmesh.getEdge(ring[1], ring[2]));
+        bmesh.removeEdge(original);
+        assertEquals(parallel, bmesh.getEdge(ring[2], ring[1]));
+
+        Face f1 = pole.getEdgeTo(ring[2]).loop.face;
+        Face f2 = pole.getEdgeTo(ring[2]).loop.nextEdgeLoop.face;
+        Edge common = bmesh.getEdge(pole, ring[2]);
+        bmesh.joinFace(f1, f2, common);
+        assertNull(bmesh.getEdge(pole, ring[2]));
+
+        bmesh.removeEdge(bmesh.getEdge(pole, ring[5]));
+        assertNull(bmesh.getEdge(pole, ring[5]));
+
+        bmesh.removeVertex(ring[7]);
+        assertNull(bmesh.getEdge(pole, ring[7]));
+        assertNull(bmesh.getEdge(ring[6], ring[7]));
+
+        // Indices change
+        bmesh.compactData();
+        for(Edge e : bmesh.edges())
+            assertEquals(e, bmesh.getEdge(e.vertex0, e.vertex1));
+
+        bmesh.endEdgeIndex();
+        assertFalse(bmesh.hasEdgeIndex());
+        assertEquals(pole.getEdgeTo(ring[3]), bmesh.getEdge(pole, ring[3]));
+    }
+
+
+    @Test
+    public void testCommonFace() {
+        // 3x2 grid of quads
+        BMesh bmesh = new BMesh();
+        Vertex[][] v = new Vertex[3][4];
+        for(int y=0; y<3; ++y) {
+            for(int x=0; x<4; ++x)
+                v[y][x] = bmesh.createVertex(x, y, 0);
+        }
+
+        Face[][] f = new Face[2][3];
+        for(int y=0; y<2; ++y) {
+            for(int x=0; x<3; ++x)
+                f[y][x] = bmesh.createFace(v[y][x], v[y][x+1], v[y+1][x+1], v[y+1][x]);
+        }
+
+        assertEquals(f[0][0], bmesh.getCommonFace(v[0][0], v[1][1]));
+        assertEquals(f[0][0], v[0][0].getCommonFace(v[1][1]));
+        assertEquals(f[1][2], bmesh.getCommonFace(v[2][3], v[1][2]));
+        assertEquals(f[1][2], v[2][3].getCommonFace(v[1][2]));
+        assertNull(bmesh.getCommonFace(v[0][0], v[2][2]));
+        assertNull(v[0][0].getCommonFace(v[2][2]));
+
+        // Adjacent vertices have two common faces
+        Face common = bmesh.getCommonFace(v[1][1], v[1][2]);
+        assertTrue(common == f[0][1] || common == f[1][1]);
+
+        // Batched, grouped by second vertex
+        int[] pairs = {
+            v[0][0].getIndex(), v[1][1].getIndex(),
+            v[2][2].getIndex(), v[1][1].getIndex(),
+            v[0][3].getIndex(), v[1][1].getIndex(),
+            v[0][0].getIndex(), v[0][1].getIndex()
+        };
+        int[] faces = new int[4];
+        bmesh.getCommonFaces(pairs, faces);
+        assertEquals(f[0][0].getIndex(), faces[0]);
+        assertEquals(f[1][1].getIndex(), faces[1]);
+        assertEquals(-1, faces[2]);
+        assertEquals(f[0][0].getIndex(), faces[3]);
+
+        assertThrows(IllegalArgumentException.class, () -> bmesh.getCommonFaces(new int[3], new int[2]));
+        assertThrows(IllegalArgumentException.class, () -> bmesh.getCommonFaces(new int[4], new int[1]));
+
+        // Common edges
+        Edge middle = v[1][1].getEdgeTo(v[1][2]);
+        assertEquals(middle, f[0][1].getAnyCommonEdge(f[1][1]));
+        assertEquals(Arrays.asList(middle), f[1][1].getCommonEdges(f[0][1]));
+        assertEquals(1, f[0][1].countCommonEdges(f[1][1]));
+        assertEquals(0, f[0][0].countCommonEdges(f[1][1]));
+        assertNull(f[0][0].getAnyCommonEdge(f[0][2]));
+
+        // Queries stay valid after faces are added
+        Edge split = bmesh.splitFace(v[0][0], v[1][1]);
+        assertNotNull(split);
+        assertTrue(split.isAdjacentTo(bmesh.getCommonFace(v[0][0], v[1][1])));
+        assertTrue(split.isAdjacentTo(v[0][0].getCommonFace(v[1][1])));
+    }
+
+
+    @Test
+    public void testCommonFaceParallel() {
+        BMesh bmesh = TestUtil.createGrid(40);
+        List<Face> faces = bmesh.faces().getAll();
+
+        // Diagonal vertices of a quad in the grid have exactly one common face
+        for(int round=0; round<10; ++round) {
+            long mismatches = faces.parallelStream().filter(face -> {
+                Vertex a = face.loop.vertex;
+                Vertex b = face.loop.nextFaceLoop.nextFaceLoop.vertex;
+                return bmesh.getCommonFace(a, b) != face || bmesh.getCommonFace(b, a) != face;
+            }).count();
+            assertEquals(0, mismatches);
+        }
+    }
+
+
+    @Test
+    public void testCopy() {
+        BMesh bmesh = new BMesh();
+        Vertex v0 = bmesh.createVertex(0, 0, 0);
+        Vertex v1 = bmesh.createVertex(1, 0, 0);
+        Vertex v2 = bmesh.createVertex(1, 1, 0);
+        Vertex v3 = bmesh.createVertex(0, 1, 0);
+        bmesh.createFace(v0, v1, v2);
+        bmesh.createFace(v0, v2, v3);
+        bmesh.vertices().createVirtual();
+
+        FloatAttribute<Face> attrFace = FloatAttribute.getOrCreate("Value", bmesh.faces());
+        attrFace.set(bmesh.faces().get(1), 5.0f);
+
+        BMesh copy = bmesh.copy();
+        assertEquals(4, copy.vertices().size());
+        assertEquals(5, copy.vertices().totalSize());
+        assertEquals(5, copy.edges().size());
+        assertEquals(2, copy.faces().size());
+        assertEquals(6, copy.loops().size());
+
+        Vertex c0 = copy.vertices().get(0);
+        Vertex c1 = copy.vertices().get(1);
+        Vertex c2 = copy.vertices().get(2);
+        Vertex c3 = copy.vertices().get(3);
+        assertNotSame(v0, c0);
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, copy.vertices());
+        assertEquals(new Vector3f(1, 1, 0), positions.get(c2));
+
+        TestUtil.assertFace(copy.faces().get(0), c0, c1, c2);
+        TestUtil.assertFace(copy.faces().get(1), c0, c2, c3);
+
+        Edge diagonal = c0.getEdgeTo(c2);
+        assertNotNull(diagonal);
+        assertSame(diagonal, c2.getEdgeTo(c0));
+        assertNotSame(diagonal.loop, diagonal.loop.nextEdgeLoop);
+        assertSame(diagonal.loop, diagonal.loop.nextEdgeLoop.nextEdgeLoop);
+
+        FloatAttribute<Face> copyAttr = FloatAttribute.get("Value", copy.faces());
+        assertNotSame(attrFace, copyAttr);
+        assertEquals(5.0f, copyAttr.get(copy.faces().get(1)));
+
+        // Independent from source
+        copy.removeFace(copy.faces().get(0));
+        Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices()).set(v0, 2, 2, 2);
+        assertEquals(2, bmesh.faces().size());
+        assertEquals(Vector3f.ZERO, positions.get(c0));
+    }
+
+
+    @Test
+    public void testSnapshots() throws Exception {
+        BMesh bmesh = new BMesh();
+        Vertex v0 = bmesh.createVertex(0, 0, 0);
+        Vertex v1 = bmesh.createVertex(1, 0, 0);
+        Vertex v2 = bmesh.createVertex(1, 1, 0);
+        bmesh.createFace(v0, v1, v2);
+
+        BMeshSnapshots snapshots = new BMeshSnapshots(bmesh);
+        assertNull(snapshots.getLatest());
+
+        BMeshSnapshots.Snapshot s1 = snapshots.publish();
+        assertSame(s1, snapshots.publish());
+        assertEquals(1, snapshots.getNumCopies());
+
+        // Attribute modification
+        long version = bmesh.getVersion();
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions.set(v0, 5, 5, 5);
+        assertTrue(bmesh.getVersion() > version);
+
+        BMeshSnapshots.Snapshot s2 = snapshots.publish();
+        assertNotSame(s1, s2);
+        assertTrue(s2.version > s1.version);
+
+        Vec3Attribute<Vertex> positions1 = Vec3Attribute.get(BMeshAttribute.Position, s1.bmesh.vertices());
+        Vec3Attribute<Vertex> positions2 = Vec3Attribute.get(BMeshAttribute.Position, s2.bmesh.vertices());
+        assertEquals(Vector3f.ZERO, positions1.get(s1.bmesh.vertices().get(0)));
+        assertEquals(new Vector3f(5, 5, 5), positions2.get(s2.bmesh.vertices().get(0)));
+
+        // Structural modification
+        bmesh.removeFace(bmesh.faces().get(0));
+        BMeshSnapshots.Snapshot s3 = snapshots.publish();
+        assertEquals(0, s3.bmesh.faces().size());
+        assertEquals(1, s2.bmesh.faces().size());
+
+        // Attribute removal
+        version = bmesh.getVersion();
+        FloatAttribute.getOrCreate("Temp", bmesh.faces());
+        assertTrue(bmesh.getVersion() > version);
+        version = bmesh.getVersion();
+        bmesh.faces().removeAttribute("Temp");
+        assertTrue(bmesh.getVersion() > version);
+
+        // Visible to other threads
+        AtomicReference<BMeshSnapshots.Snapshot> read = new AtomicReference<>();
+        Thread reader = new Thread(() -> read.set(snapshots.getLatest()));
+        reader.start();
+        reader.join();
+        assertSame(s3, read.get());
+    }
+
+
+    @Test
+    public void testSnapshotPool() {
+        BMesh bmesh = new BMesh();
+        Vertex v0 = bmesh.createVertex(0, 0, 0);
+        Vertex v1 = bmesh.createVertex(1, 0, 0);
+        Vertex v2 = bmesh.createVertex(1, 1, 0);
+        Vertex v3 = bmesh.createVertex(0, 1, 0);
+        bmesh.createFace(v0, v1, v2, v3);
+        FloatAttribute.getOrCreate("Temp", bmesh.faces());
+
+        BMeshSnapshots snapshots = new BMeshSnapshots(bmesh);
+        snapshots.setPoolCapacity(1);
+        BMeshSnapshots.Snapshot s1 = snapshots.publish();
+        BMeshSnapshots.Snapshot acquired = snapshots.acquire();
+        assertSame(s1, acquired);
+
+        // Retired but still acquired: Not recycled
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        positions.set(v0, 5, 5, 5);
+        BMeshSnapshots.Snapshot s2 = snapshots.publish();
+        assertNotSame(s1.bmesh, s2.bmesh);
+        assertEquals(Vector3f.ZERO, Vec3Attribute.get(BMeshAttribute.Position, s1.bmesh.vertices()).get(s1.bmesh.vertices().get(0)));
+
+        snapshots.release(acquired);
+        assertThrows(IllegalStateException.class, () -> snapshots.release(acquired));
+
+        // Recycle s1 for the next publish
+        bmesh.faces().removeAttribute("Temp");
+        bmesh.removeFace(bmesh.faces().get(0));
+        bmesh.createFace(v0, v1, v2);
+        BMeshSnapshots.Snapshot s3 = snapshots.publish();
+        assertSame(s1.bmesh, s3.bmesh);
+        assertEquals(3, snapshots.getNumCopies());
+        assertEquals(1, snapshots.getNumReused());
+
+        BMesh copy = s3.bmesh;
+        assertEquals(4, copy.vertices().size());
+        assertEquals(1, copy.faces().size());
+        assertEquals(3, copy.loops().size());
+        assertNull(FloatAttribute.get("Temp", copy.faces()));
+        assertTrue(copy.vertices().getPoolHits() > 0);
+
+        Vertex c0 = copy.vertices().get(0);
+        TestUtil.assertFace(copy.faces().get(0), c0, copy.vertices().get(1), copy.vertices().get(2));
+        assertEquals(new Vector3f(5, 5, 5), Vec3Attribute.get(BMeshAttribute.Position, copy.vertices()).get(c0));
+
+        // s2 was retired by the publish of s3 and is reused next
+        positions.set(v1, 2, 2, 2);
+        BMeshSnapshots.Snapshot s4 = snapshots.publish();
+        assertSame(s2.bmesh, s4.bmesh);
+        assertEquals(2, snapshots.getNumReused());
+    }
+
+
+    @Test
+    public void testSnapshotSharedArrays() {
+        BMesh bmesh = new BMesh();
+        Vertex v0 = bmesh.createVertex(0, 0, 0);
+        Vertex v1 = bmesh.createVertex(1, 0, 0);
+        Vertex v2 = bmesh.createVertex(1, 1, 0);
+        Face face = bmesh.createFace(v0, v1, v2);
+        FloatAttribute<Face> values = FloatAttribute.getOrCreate("Value", bmesh.faces());
+        values.set(face, 1.0f);
+
+        BMeshSnapshots snapshots = new BMeshSnapshots(bmesh);
+        snapshots.setPoolCapacity(1);
+        BMeshSnapshots.Snapshot s1 = snapshots.publish();
+
+        // Only the modified attribute is copied
+        bmesh.positions().set(v0, 5, 5, 5);
+        BMeshSnapshots.Snapshot s2 = snapshots.publish();
+        assertNotSame(s1.bmesh.vertices().getAttribute(BMeshAttribute.Position).array(), s2.bmesh.vertices().getAttribute(BMeshAttribute.Position).array());
+        assertSame(s1.bmesh.faces().getAttribute("Value").array(), s2.bmesh.faces().getAttribute("Value").array());
+        assertEquals(Vector3f.ZERO, s1.bmesh.positions().get(s1.bmesh.vertices().get(0)));
+        assertEquals(new Vector3f(5, 5, 5), s2.bmesh.positions().get(s2.bmesh.vertices().get(0)));
+
+        // s1 is recycled: Its shared array is replaced instead of overwritten
+        values.set(face, 2.0f);
+        BMeshSnapshots.Snapshot s3 = snapshots.publish();
+        assertSame(s1.bmesh, s3.bmesh);
+        assertEquals(1.0f, FloatAttribute.get("Value", s2.bmesh.faces()).get(s2.bmesh.faces().get(0)));
+        assertEquals(2.0f, FloatAttribute.get("Value", s3.bmesh.faces()).get(s3.bmesh.faces().get(0)));
+        assertSame(s2.bmesh.vertices().getAttribute(BMeshAttribute.Position).array(), s3.bmesh.vertices().getAttribute(BMeshAttribute.Position).array());
+
+        // New elements: All attributes of the data set are copied
+        bmesh.createVertex(3, 3, 3);
+        BMeshSnapshots.Snapshot s4 = snapshots.publish();
+        assertSame(s2.bmesh, s4.bmesh);
+        assertNotSame(s3.bmesh.vertices().getAttribute(BMeshAttribute.Position).array(), s4.bmesh.vertices().getAttribute(BMeshAttribute.Position).array());
+        assertSame(s3.bmesh.faces().getAttribute("Value").array(), s4.bmesh.faces().getAttribute("Value").array());
+        assertEquals(4, s4.bmesh.vertices().size());
+        assertEquals(new Vector3f(3, 3, 3), s4.bmesh.positions().get(s4.bmesh.vertices().get(3)));
+        assertEquals(new Vector3f(5, 5, 5), s3.bmesh.positions().get(s3.bmesh.vertices().get(0)));
+        assertEquals(new Vector3f(5, 5, 5), s4.bmesh.positions().get(s4.bmesh.vertices().get(0)));
+    }
+
+
+    @Test
+    public void testBinaryFile(@TempDir Path dir) throws IOException {
+        BMesh bmesh = new BMesh();
+        int start = bmesh.createVertices(new float[] {
+            0, 0, 0,   1, 0, 0,   1, 1, 0,   0, 1, 0,   2, 0, 0
+        });
+        bmesh.createFaces(new int[] {3, 3, 3}, new int[] {
+            start, start+1, start+2,
+            start, start+2, start+3,
+            start+1, start+4, start+2
+        });
+        bmesh.createEdge(bmesh.vertices().get(start+3), bmesh.vertices().get(start+4));
+        bmesh.vertices().createVirtual();
+        FloatAttribute.getOrCreate("Value", bmesh.faces()).set(bmesh.faces().get(2), 3.0f);
+
+        Path file = dir.resolve("mesh.bmesh");
+        BMeshBinary.write(bmesh, file);
+        BMesh loaded = BMeshBinary.read(file);
+
+        assertEquals(5, loaded.vertices().size());
+        assertEquals(6, loaded.vertices().totalSize());
+        assertEquals(bmesh.edges().size(), loaded.edges().size());
+        assertEquals(3, loaded.faces().size());
+        assertEquals(9, loaded.loops().size());
+
+        Vertex[] v = new Vertex[5];
+        for(int i=0; i<v.length; ++i)
+            v[i] = loaded.vertices().get(start+i);
+
+        TestUtil.assertFace(loaded.faces().get(0), v[0], v[1], v[2]);
+        TestUtil.assertFace(loaded.faces().get(1), v[0], v[2], v[3]);
+        TestUtil.assertFace(loaded.faces().get(2), v[1], v[4], v[2]);
+        assertNotNull(v[3].getEdgeTo(v[4]));
+        assertNull(v[3].getEdgeTo(v[4]).loop);
+
+        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, loaded.vertices());
+        assertEquals(new Vector3f(2, 0, 0), positions.get(v[4]));
+        assertEquals(3.0f, FloatAttribute.get("Value", loaded.faces()).get(loaded.faces().get(2)));
+
+        // Loaded mesh can be edited
+        loaded.splitEdge(v[0].getEdgeTo(v[2]));
+        assertEquals(6, loaded.vertices().size());
+    }
 }
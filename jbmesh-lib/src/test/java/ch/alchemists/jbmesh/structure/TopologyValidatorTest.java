@@ -0,0 +1,167 @@
+// Copyright (c) 2020-2021 Rolf Müri
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at https://mozilla.org/MPL/2.0/.
+
+package ch.alchemists.jbmesh.structure;
+
+import ch.alchemists.jbmesh.data.property.BitAttribute;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class TopologyValidatorTest {
+    private static Vertex[] createCube(BMesh bmesh) {
+        Vertex[] v = new Vertex[8];
+        for(int i=0; i<8; ++i)
+            v[i] = bmesh.createVertex(i & 1, (i >> 1) & 1, (i >> 2) & 1);
+
+        bmesh.createFace(v[0], v[2], v[3], v[1]);
+        bmesh.createFace(v[4], v[5], v[7], v[6]);
+        bmesh.createFace(v[0], v[1], v[5], v[4]);
+        bmesh.createFace(v[2], v[6], v[7], v[3]);
+        bmesh.createFace(v[0], v[4], v[6], v[2]);
+        bmesh.createFace(v[1], v[3], v[7], v[5]);
+        return v;
+    }
+
+
+    @Test
+    public void testClosedMesh() {
+        BMesh bmesh = new BMesh();
+        createCube(bmesh);
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+        assertEquals(0, validator.getNumErrors());
+        assertTrue(validator.classify());
+
+        assertEquals(0, BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.edges()).count(bmesh.edges()));
+        assertEquals(0, BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.edges()).count(bmesh.edges()));
+        assertEquals(0, BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.vertices()).count(bmesh.vertices()));
+        assertEquals(0, BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.vertices()).count(bmesh.vertices()));
+    }
+
+
+    @Test
+    public void testBoundary() {
+        BMesh bmesh = new BMesh();
+        createCube(bmesh);
+        bmesh.removeFace(bmesh.faces().get(0));
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+        assertTrue(validator.classify());
+
+        BitAttribute<Vertex> vertBoundary = BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.vertices());
+        assertEquals(4, BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.edges()).count(bmesh.edges()));
+        assertEquals(4, vertBoundary.count(bmesh.vertices()));
+        assertTrue(vertBoundary.get(bmesh.vertices().get(0)));
+        assertFalse(vertBoundary.get(bmesh.vertices().get(7)));
+    }
+
+
+    @Test
+    public void testNonManifold() {
+        BMesh bmesh = new BMesh();
+        Vertex[] v = createCube(bmesh);
+
+        // Third face at edge v0-v1
+        Vertex apex = bmesh.createVertex(0.5f, -1, 0);
+        bmesh.createFace(v[1], v[0], apex);
+
+        // Isolated vertex and wire edge
+        Vertex isolated = bmesh.createVertex(5, 5, 5);
+        Edge wire = bmesh.createEdge(bmesh.createVertex(6, 6, 6), bmesh.createVertex(7, 7, 7));
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+        assertFalse(validator.classify());
+
+        BitAttribute<Edge> edgeNonManifold = BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.edges());
+        BitAttribute<Vertex> vertNonManifold = BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.vertices());
+        assertTrue(edgeNonManifold.get(v[0].getEdgeTo(v[1])));
+        assertTrue(edgeNonManifold.get(wire));
+        assertEquals(2, edgeNonManifold.count(bmesh.edges()));
+
+        assertTrue(vertNonManifold.get(v[0]));
+        assertTrue(vertNonManifold.get(v[1]));
+        assertTrue(vertNonManifold.get(isolated));
+        assertFalse(vertNonManifold.get(v[7]));
+        assertFalse(vertNonManifold.get(apex));
+    }
+
+
+    @Test
+    public void testBowtie() {
+        // Two closed fans that only share the center vertex
+        BMesh bmesh = new BMesh();
+        Vertex center = bmesh.createVertex(0, 0, 0);
+
+        for(int side=-1; side<=1; side+=2) {
+            Vertex a = bmesh.createVertex(side, 0, 0);
+            Vertex b = bmesh.createVertex(side, 1, 0);
+            Vertex c = bmesh.createVertex(side, 0, 1);
+            bmesh.createFace(center, a, b);
+            bmesh.createFace(center, b, c);
+            bmesh.createFace(center, c, a);
+            bmesh.createFace(a, c, b);
+        }
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+        assertFalse(validator.classify());
+
+        BitAttribute<Vertex> vertNonManifold = BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.vertices());
+        assertEquals(1, vertNonManifold.count(bmesh.vertices()));
+        assertTrue(vertNonManifold.get(center));
+        assertEquals(0, BitAttribute.get(TopologyValidator.ATTRIBUTE_NON_MANIFOLD, bmesh.edges()).count(bmesh.edges()));
+    }
+
+
+    @Test
+    public void testLargeGrid() {
+        final int size = 100;
+        BMesh bmesh = new BMesh();
+        Vertex[] v = new Vertex[(size+1) * (size+1)];
+        for(int i=0; i<v.length; ++i)
+            v[i] = bmesh.createVertex(i % (size+1), i / (size+1), 0);
+
+        for(int y=0; y<size; ++y) {
+            for(int x=0; x<size; ++x) {
+                int i = y*(size+1) + x;
+                bmesh.createFace(v[i], v[i+1], v[i+size+2], v[i+size+1]);
+            }
+        }
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertTrue(validator.validate(), () -> validator.getErrors().toString());
+        assertTrue(validator.classify());
+        assertEquals(4*size, BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.edges()).count(bmesh.edges()));
+        assertEquals(4*size, BitAttribute.get(TopologyValidator.ATTRIBUTE_BOUNDARY, bmesh.vertices()).count(bmesh.vertices()));
+
+        // Corrupt a radial cycle and a face loop ring
+        Loop loop = bmesh.faces().get(1234).loop;
+        loop.nextEdgeLoop = loop.nextFaceLoop;
+        bmesh.faces().get(5678).loop.nextFaceLoop.prevFaceLoop = null;
+
+        assertFalse(validator.validate());
+        assertTrue(validator.getNumErrors() >= 2);
+        assertEquals(validator.getNumErrors(), validator.getErrors().size());
+    }
+
+
+    @Test
+    public void testDeadReference() {
+        BMesh bmesh = new BMesh();
+        Vertex[] v = createCube(bmesh);
+
+        Vertex dead = bmesh.createVertex();
+        bmesh.removeVertex(dead);
+        v[0].edge.vertex0 = dead;
+
+        TopologyValidator validator = new TopologyValidator(bmesh);
+        assertFalse(validator.validate());
+        assertTrue(validator.getErrors().stream().anyMatch(msg -> msg.contains("dead or foreign vertex")));
+    }
+}
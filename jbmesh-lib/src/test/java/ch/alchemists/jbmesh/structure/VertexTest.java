@@ -8,8 +8,13 @@ package ch.alchemists.jbmesh.structure;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 public class VertexTest {
@@ -168,4 +173,84 @@ public class VertexTest {
 
         assertArrayEquals(expectedEdges, actual);
     }
+
+
+    @Test
+    public void testAdjacencyCursors() {
+        BMesh bmesh = new BMesh();
+        Vertex center = bmesh.createVertex();
+        Vertex v1 = bmesh.createVertex();
+        Vertex v2 = bmesh.createVertex();
+        Vertex v3 = bmesh.createVertex();
+        Vertex v4 = bmesh.createVertex();
+        Vertex v5 = bmesh.createVertex();
+
+        Face f1 = bmesh.createFace(center, v1, v2);
+        Face f2 = bmesh.createFace(center, v2, v3);
+        Face f3 = bmesh.createFace(center, v3, v4);
+        Face f4 = bmesh.createFace(v2, center, v5); // Non-manifold: Third face at edge (center, v2)
+        Edge loose = bmesh.createEdge(center, bmesh.createVertex());
+
+        // Vertex -> Edges
+        VertexEdgeCursor edges = new VertexEdgeCursor();
+        Set<Vertex> others = new HashSet<>();
+        edges.reset(center);
+        while(edges.next()) {
+            assertTrue(edges.get().isAdjacentTo(center));
+            others.add(edges.getOther());
+        }
+        assertEquals(6, others.size());
+        assertTrue(others.contains(loose.getOther(center)));
+        assertFalse(edges.next());
+
+        // Vertex -> Loops / Faces
+        VertexLoopCursor loops = new VertexLoopCursor();
+        Set<Face> faces = new HashSet<>();
+        loops.reset(center);
+        while(loops.next()) {
+            assertEquals(center, loops.get().vertex);
+            assertTrue(faces.add(loops.getFace()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(f1, f2, f3, f4)), faces);
+
+        Set<Face> iterated = new HashSet<>();
+        for(Face face : center.faces())
+            assertTrue(iterated.add(face));
+        assertEquals(faces, iterated);
+
+        // Reuse for other vertex
+        faces.clear();
+        loops.reset(v3);
+        while(loops.next())
+            faces.add(loops.getFace());
+        assertEquals(new HashSet<>(Arrays.asList(f2, f3)), faces);
+
+        // Edge -> Loops
+        EdgeLoopCursor radial = new EdgeLoopCursor();
+        faces.clear();
+        radial.reset(center.getEdgeTo(v2));
+        while(radial.next())
+            faces.add(radial.getFace());
+        assertEquals(new HashSet<>(Arrays.asList(f1, f2, f4)), faces);
+
+        radial.reset(loose);
+        assertFalse(radial.next());
+
+        // Face -> Loops
+        FaceLoopCursor faceLoops = new FaceLoopCursor();
+        faceLoops.reset(f4);
+        Vertex[] expected = { v2, center, v5 };
+        for(int i=0; i<expected.length; ++i) {
+            assertTrue(faceLoops.next());
+            assertEquals(expected[i], faceLoops.getVertex());
+            assertEquals(expected[i].getEdgeTo(expected[(i+1) % 3]), faceLoops.getEdge());
+        }
+        assertFalse(faceLoops.next());
+
+        // No edges
+        Vertex isolated = bmesh.createVertex();
+        assertFalse(edges.reset(isolated).next());
+        assertFalse(loops.reset(isolated).next());
+        assertFalse(isolated.faces().iterator().hasNext());
+    }
 }
@@ -72,6 +72,7 @@ Direct Import                                          11601.325600         %
             for(int i=runs/10; i>=0; --i) {
                 run("HashGrid Dedup", Import::convert);
                 run("ExactHash Dedup", Import::convertExact);
+                run("Sorted Weld", Import::convertWelded);
                 run("Direct Import", DirectImport::importTriangles);
             }
         }
@@ -84,6 +85,10 @@ Direct Import                                          11601.325600         %
             run("ExactHash Dedup", Import::convertExact);
         }
 
+        for(int i=0; i<runs; ++i) {
+            run("Sorted Weld", Import::convertWelded);
+        }
+
         for(int i=0; i<runs; ++i) {
             run("Direct Import", DirectImport::importTriangles);
         }
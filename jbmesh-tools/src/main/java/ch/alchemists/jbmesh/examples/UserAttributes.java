@@ -24,6 +24,7 @@ public class UserAttributes {
 
         public void set(E element, long l) {
             data[element.getIndex()] = l;
+            setDirty(element);
         }
 
         @Override
@@ -31,6 +32,11 @@ public class UserAttributes {
             return data[a.getIndex()] == data[b.getIndex()];
         }
 
+        @Override
+        public LongAttribute<E> newInstance() {
+            return new LongAttribute<>(name);
+        }
+
         @Override
         protected long[] alloc(int size) {
             return new long[size];
@@ -60,10 +66,12 @@ public class UserAttributes {
 
         public void setA(E element, Vector2f vec) {
             data[indexOf(element)] = vec;
+            setDirty(element);
         }
 
         public void setB(E element, Vector2f vec) {
             data[indexOf(element, 1)] = vec;
+            setDirty(element);
         }
 
 
@@ -74,6 +82,12 @@ public class UserAttributes {
         }
 
 
+        @Override
+        public Vec2TupleAttribute<E> newInstance() {
+            return new Vec2TupleAttribute<>(name);
+        }
+
+
         @Override
         protected Vector2f[] alloc(int size) {
             return new Vector2f[size];
@@ -91,6 +105,8 @@ public class UserAttributes {
                 data[iTo].set(data[iFrom+i]);
                 iTo++;
             }
+
+            setDirty(to);
         }
     }
 }
@@ -8,6 +8,7 @@ package ch.alchemists.jbmesh.util;
 
 import ch.alchemists.jbmesh.data.BMeshAttribute;
 import ch.alchemists.jbmesh.data.property.Vec3Attribute;
+import ch.alchemists.jbmesh.data.property.Vec3Property;
 import ch.alchemists.jbmesh.operator.FaceOps;
 import ch.alchemists.jbmesh.structure.BMesh;
 import ch.alchemists.jbmesh.structure.Face;
@@ -84,7 +85,7 @@ public class DebugNormals {
         if(normals == null)
             throw new IllegalArgumentException("The provided BMesh object doesn't have Loop normals.");
 
-        Vec3Attribute<Vertex> positions = Vec3Attribute.get(BMeshAttribute.Position, bmesh.vertices());
+        Vec3Property<Vertex> positions = bmesh.positions();
 
         // Filling an array and then putting it into a FloatBuffer all at once scales better with bigger meshes performance-wise
         float[] vbuf = new float[bmesh.loops().size() * 6];